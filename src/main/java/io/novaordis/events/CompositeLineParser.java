@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events;
+
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.core.LineFormat;
+import io.novaordis.events.core.LineParser;
+import io.novaordis.events.httpd.HttpdFormatString;
+import io.novaordis.events.httpd.HttpdFormatStrings;
+import io.novaordis.events.httpd.HttpdLineParser;
+import io.novaordis.events.httpd.HttpdLogFormat;
+import io.novaordis.events.httpd.microparsers.UrlParser;
+import io.novaordis.events.httpd.microparsers.UserAgentParser;
+import io.novaordis.events.httpd.microparsers.cookie.CookieParser;
+import io.novaordis.utilities.parsing.ParsingException;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A LineParser for streams that interleave lines in several formats. Each line is handed over to the first member
+ * parser whose format structurally matches the line.
+ *
+ * The structural signature of a httpd format is its shape (see LineFormatInference): the sequence of quoted, bracketed,
+ * numeric and plain fields. A line conforms to a format if its fields, separated by spaces, have the same classes, in
+ * the same order. The check walks the line only up to the first field that does not match, so it is much cheaper
+ * than a parsing attempt. The parser remembers the member that parsed the previous line and checks it first, so for
+ * runs of lines in the same format the selection costs one check.
+ *
+ * Members without a signature (CSV parsers, httpd formats with unquoted request lines, user agents, cookies or URLs,
+ * whose values may contain spaces) are tried, in order, after the members with a signature. A line that none of the
+ * members can parse produces the exception thrown by the first member that attempted it.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class CompositeLineParser implements LineParser {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    /**
+     * Separates the member formats in a composite format specification.
+     */
+    public static final String FORMAT_SEPARATOR = "||";
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the structural signature of the lines produced by the given parser, or null if the lines cannot be
+     * discriminated structurally.
+     */
+    static String signature(LineParser parser) {
+
+        if (!(parser instanceof HttpdLineParser)) {
+            return null;
+        }
+
+        HttpdLogFormat format = ((HttpdLineParser)parser).getHttpdLogFormat();
+
+        HttpdFormatString enclosure = null;
+
+        for(HttpdFormatString fs: format.getHttpdFormatStrings()) {
+
+            if (enclosure != null) {
+
+                if (fs.equals(enclosure)) {
+                    enclosure = null;
+                }
+            }
+            else if (fs.isLeftEnclosure()) {
+
+                enclosure = fs.getMatchingEnclosure();
+            }
+            else if (HttpdFormatStrings.FIRST_REQUEST_LINE.equals(fs) ||
+                    UserAgentParser.isUserAgentRequestHeader(fs) ||
+                    CookieParser.isCookieHeader(fs) ||
+                    UrlParser.isUrl(fs)) {
+
+                return null;
+            }
+        }
+
+        return LineFormatInference.shape(format);
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private LineParser[] parsers;
+
+    // null for the members that cannot be discriminated structurally
+    private String[] signatures;
+
+    // the index of the member that parsed the most recent line, -1 if none
+    private int recent;
+
+    private long[] lineCounts;
+    private long switches;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param parsers the member parsers, in the order in which the members without a signature are tried.
+     */
+    public CompositeLineParser(List<LineParser> parsers) {
+
+        if (parsers == null || parsers.isEmpty()) {
+            throw new IllegalArgumentException("null or empty parser list");
+        }
+
+        this.parsers = parsers.toArray(new LineParser[parsers.size()]);
+        this.signatures = new String[this.parsers.length];
+        this.lineCounts = new long[this.parsers.length];
+        this.recent = -1;
+
+        for(int i = 0; i < this.parsers.length; i ++) {
+
+            if (this.parsers[i] == null) {
+                throw new IllegalArgumentException("null parser");
+            }
+
+            signatures[i] = signature(this.parsers[i]);
+        }
+    }
+
+    // LineParser implementation ---------------------------------------------------------------------------------------
+
+    @Override
+    public Event parseLine(long lineNumber, String line) throws ParsingException {
+
+        //
+        // we ignore empty lines
+        //
+        if (line == null || line.trim().length() == 0) {
+            return null;
+        }
+
+        ParsingException first = null;
+
+        if (recent != -1 && signatures[recent] != null && LineFormatInference.conforms(signatures[recent], line)) {
+
+            try {
+
+                return parseLine(recent, lineNumber, line);
+            }
+            catch(ParsingException e) {
+
+                first = e;
+            }
+        }
+
+        for(int i = 0; i < parsers.length; i ++) {
+
+            if (i == recent || signatures[i] == null || !LineFormatInference.conforms(signatures[i], line)) {
+                continue;
+            }
+
+            try {
+
+                return parseLine(i, lineNumber, line);
+            }
+            catch(ParsingException e) {
+
+                first = first == null ? e : first;
+            }
+        }
+
+        for(int i = 0; i < parsers.length; i ++) {
+
+            if (signatures[i] != null) {
+                continue;
+            }
+
+            try {
+
+                return parseLine(i, lineNumber, line);
+            }
+            catch(ParsingException e) {
+
+                first = first == null ? e : first;
+            }
+        }
+
+        if (first != null) {
+            throw first;
+        }
+
+        throw new ParsingException("the line does not match any of the " + parsers.length + " formats", lineNumber);
+    }
+
+    /**
+     * @return the line format of the member that parsed the most recent line, or of the first member if no line was
+     * parsed yet.
+     */
+    @Override
+    public LineFormat getLineFormat() {
+
+        return parsers[recent == -1 ? 0 : recent].getLineFormat();
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    public List<LineParser> getParsers() {
+
+        return Arrays.asList(parsers);
+    }
+
+    /**
+     * @return the number of lines parsed by the given member.
+     */
+    public long getLineCount(int index) {
+
+        return lineCounts[index];
+    }
+
+    /**
+     * @return the number of times consecutive lines were parsed by different members.
+     */
+    public long getFormatSwitchCount() {
+
+        return switches;
+    }
+
+    /**
+     * @return a human readable summary of the lines parsed by each member.
+     */
+    public String getStatistics() {
+
+        StringBuilder sb = new StringBuilder();
+
+        for(int i = 0; i < parsers.length; i ++) {
+
+            sb.append(lineCounts[i]).append(" lines parsed by ").append(parsers[i]).append(", ");
+        }
+
+        sb.append(switches).append(" format switches");
+
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+
+        return "CompositeLineParser[" + parsers.length + " formats]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    /**
+     * @return the signature of the given member, or null if the member cannot be discriminated structurally.
+     */
+    String getSignature(int index) {
+
+        return signatures[index];
+    }
+
+    /**
+     * @return the index of the member that parsed the most recent line, -1 if none.
+     */
+    int getRecent() {
+
+        return recent;
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private Event parseLine(int index, long lineNumber, String line) throws ParsingException {
+
+        Event e = parsers[index].parseLine(lineNumber, line);
+
+        if (recent != index) {
+
+            if (recent != -1) {
+                switches ++;
+            }
+
+            recent = index;
+        }
+
+        lineCounts[index] ++;
+
+        return e;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
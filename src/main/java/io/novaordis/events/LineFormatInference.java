@@ -0,0 +1,731 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events;
+
+import io.novaordis.events.httpd.HttpdFormatString;
+import io.novaordis.events.httpd.HttpdFormatStrings;
+import io.novaordis.events.httpd.HttpdLogFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Infers the httpd log format of an input by scoring a set of known candidate formats against a sample of its lines.
+ *
+ * The lines are not parsed. Each line is reduced to its structural shape by a cheap tokenizer - a sequence of quoted
+ * fields, bracketed fields, numbers, "-" placeholders and other tokens - and the shape is matched against the shape
+ * each candidate format would produce. The score of a candidate is the fraction of sample lines whose shape it
+ * accepts. Ties are broken in favor of the more specific candidate (the one with more quoted, bracketed or numeric
+ * fields), then in favor of the candidate declared first.
+ *
+ * Decisions can be cached in a small file in a directory, keyed by the dominant line shape of the sample, so repeated
+ * runs over the same kind of logs reach the same decision without re-scoring all candidates.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class LineFormatInference {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(LineFormatInference.class);
+
+    /**
+     * The input format specification value that triggers inference.
+     */
+    public static final String AUTO = "auto";
+
+    public static final int DEFAULT_SAMPLE_LINES = 500;
+
+    // the maximum number of bytes read ahead to collect the sample
+    public static final int DEFAULT_SAMPLE_BYTES = 1024 * 1024;
+
+    // a decision whose score is below this threshold is reported as a low confidence match
+    public static final double LOW_CONFIDENCE_THRESHOLD = 0.9;
+
+    public static final String CACHE_FILE_NAME = ".events-format";
+
+    public static final int MAX_CACHE_ENTRIES = 32;
+
+    //
+    // shape elements
+    //
+    static final char QUOTED = 'Q';
+    static final char BRACKETED = 'B';
+    static final char NUMBER = 'N';
+    static final char DASH = '-';
+    static final char TOKEN = 'T';
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * The known candidates, in order of preference.
+     */
+    public static final Map<String, String> KNOWN_FORMATS;
+
+    static {
+
+        Map<String, String> m = new LinkedHashMap<>();
+
+        //
+        // HttpdLogFormat.COMMON
+        //
+        m.put("common", "%h %l %u [%t] \"%r\" %>s %b");
+        m.put("combined", "%h %l %u [%t] \"%r\" %>s %b \"%{Referer}i\" \"%{User-Agent}i\"");
+
+        //
+        // HttpdLogFormat.PERFORMANCE_ANALYSIS
+        //
+        m.put("performance-analysis", "\"%I\" %h %u [%t] \"%r\" \"%q\" %s %b %D");
+
+        //
+        // WildFly access log patterns. WildFly's "common" and "combined" have the same shapes as the httpd ones, and
+        // they are covered by the httpd candidates
+        //
+        m.put("wildfly-response-time", "%h %l %u [%t] \"%r\" %s %b %D");
+        m.put("wildfly-thread", "\"%I\" %h %l %u [%t] \"%r\" \"%q\" %s %b %D");
+
+        KNOWN_FORMATS = Collections.unmodifiableMap(m);
+    }
+
+    /**
+     * Reads up to maxLines lines from the stream, without consuming them: the stream is marked before reading and
+     * reset afterwards, so the same lines will be read again by the stream's regular consumer. The last, incomplete
+     * line of the read-ahead window is discarded.
+     *
+     * @param is an input stream that supports mark/reset.
+     *
+     * @throws IllegalArgumentException if the stream does not support mark/reset.
+     */
+    public static List<String> sample(InputStream is, int maxLines, int maxBytes) throws IOException {
+
+        if (!is.markSupported()) {
+            throw new IllegalArgumentException(is + " does not support mark/reset");
+        }
+
+        List<String> lines = new ArrayList<>();
+
+        is.mark(maxBytes);
+
+        try {
+
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int read = 0;
+            int b;
+
+            while(lines.size() < maxLines && read < maxBytes && (b = is.read()) != -1) {
+
+                read ++;
+
+                if (b == '\n') {
+
+                    lines.add(toLine(line));
+                    line.reset();
+                }
+                else {
+
+                    line.write(b);
+                }
+            }
+
+            if (line.size() > 0 && read < maxBytes && lines.size() < maxLines) {
+
+                //
+                // end of stream, the last line is complete
+                //
+                lines.add(toLine(line));
+            }
+        }
+        finally {
+
+            is.reset();
+        }
+
+        return lines;
+    }
+
+    /**
+     * Reduces a line to its structural shape: one character per field, where fields are separated by spaces, and
+     * quoted or bracketed content counts as a single field.
+     */
+    static String shape(String line) {
+
+        StringBuilder sb = new StringBuilder();
+
+        int length = line.length();
+        int i = 0;
+
+        while(i < length) {
+
+            char c = line.charAt(i);
+
+            if (c == ' ' || c == '\t') {
+
+                i ++;
+                continue;
+            }
+
+            int end = fieldEnd(line, i);
+            sb.append(fieldClass(line, i, end));
+            i = end;
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @return the shape of the lines produced by the given format, using the same alphabet as shape(String line):
+     * NUMBER means a numeric field, TOKEN means any unquoted field.
+     */
+    static String shape(HttpdLogFormat format) {
+
+        StringBuilder sb = new StringBuilder();
+
+        HttpdFormatString enclosure = null;
+
+        for(HttpdFormatString fs: format.getHttpdFormatStrings()) {
+
+            if (enclosure != null) {
+
+                if (fs == enclosure ||
+                        (enclosure == HttpdFormatStrings.OPENING_BRACKET && fs == HttpdFormatStrings.CLOSING_BRACKET)) {
+                    enclosure = null;
+                }
+
+                continue;
+            }
+
+            if (fs == HttpdFormatStrings.DOUBLE_QUOTES || fs == HttpdFormatStrings.SINGLE_QUOTE) {
+
+                sb.append(QUOTED);
+                enclosure = fs;
+            }
+            else if (fs == HttpdFormatStrings.OPENING_BRACKET) {
+
+                sb.append(BRACKETED);
+                enclosure = fs;
+            }
+            else if (Number.class.isAssignableFrom(fs.getType())) {
+
+                sb.append(NUMBER);
+            }
+            else {
+
+                sb.append(TOKEN);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @return true if a line with the given shape can be produced by a format with the given shape.
+     */
+    static boolean accepts(String formatShape, String lineShape) {
+
+        if (formatShape.length() != lineShape.length()) {
+            return false;
+        }
+
+        for(int i = 0; i < formatShape.length(); i ++) {
+
+            if (!accepts(formatShape.charAt(i), lineShape.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Equivalent with accepts(formatShape, shape(line)), but the line is only walked up to the first field that does
+     * not match, and the line shape is not built. Intended for per-line checks.
+     */
+    static boolean conforms(String formatShape, String line) {
+
+        int length = line.length();
+        int fields = formatShape.length();
+        int field = 0;
+        int i = 0;
+
+        while(i < length) {
+
+            char c = line.charAt(i);
+
+            if (c == ' ' || c == '\t') {
+
+                i ++;
+                continue;
+            }
+
+            if (field == fields) {
+                return false;
+            }
+
+            int end = fieldEnd(line, i);
+
+            if (!accepts(formatShape.charAt(field), fieldClass(line, i, end))) {
+                return false;
+            }
+
+            field ++;
+            i = end;
+        }
+
+        return field == fields;
+    }
+
+    /**
+     * @return the most frequent shape among the given line shapes, or null if there are no lines.
+     */
+    static String dominantShape(List<String> lineShapes) {
+
+        Map<String, Integer> counts = new HashMap<>();
+        String dominant = null;
+        int max = 0;
+
+        for(String s: lineShapes) {
+
+            int c = counts.merge(s, 1, Integer::sum);
+
+            if (c > max) {
+                max = c;
+                dominant = s;
+            }
+        }
+
+        return dominant;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // name - format specification, in order of preference
+    private Map<String, String> candidates;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    public LineFormatInference() {
+
+        this(KNOWN_FORMATS);
+    }
+
+    /**
+     * @param candidates format name - httpd format specification, in order of preference.
+     *
+     * @throws IllegalArgumentException if a candidate is not a valid httpd format specification.
+     */
+    public LineFormatInference(Map<String, String> candidates) {
+
+        this.candidates = new LinkedHashMap<>();
+
+        for(Map.Entry<String, String> e: candidates.entrySet()) {
+
+            //
+            // fail early on invalid candidates
+            //
+            toHttpdLogFormat(e.getValue());
+            this.candidates.put(e.getKey(), e.getValue());
+        }
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the best matching candidate, or null if no candidate accepts any of the lines (or there are no lines).
+     */
+    public Result infer(List<String> lines) {
+
+        List<String> lineShapes = shapes(lines);
+
+        Result best = null;
+        int bestSpecificity = -1;
+
+        for(Map.Entry<String, String> e: candidates.entrySet()) {
+
+            String formatShape = shape(toHttpdLogFormat(e.getValue()));
+            double score = score(formatShape, lineShapes);
+
+            if (score == 0d) {
+                continue;
+            }
+
+            int specificity = specificity(formatShape);
+
+            if (best == null || score > best.getScore() ||
+                    (score == best.getScore() && specificity > bestSpecificity)) {
+
+                best = new Result(e.getKey(), e.getValue(), score, false);
+                bestSpecificity = specificity;
+            }
+        }
+
+        log.debug("inferred " + best + " from " + lines.size() + " lines");
+
+        return best;
+    }
+
+    /**
+     * Infers the format, consulting and updating the cache file from the given directory. A cached decision is used
+     * only if it still scores at or above the low confidence threshold on the current sample.
+     *
+     * @param directory the directory that holds the cache file. If null, the cache is not used.
+     *
+     * @return the best matching candidate, or null if no candidate accepts any of the lines.
+     */
+    public Result infer(List<String> lines, File directory) {
+
+        if (directory == null) {
+            return infer(lines);
+        }
+
+        List<String> lineShapes = shapes(lines);
+        String key = dominantShape(lineShapes);
+
+        if (key == null) {
+            return null;
+        }
+
+        File cacheFile = new File(directory, CACHE_FILE_NAME);
+        Map<String, String[]> cache = readCache(cacheFile);
+        String[] cached = cache.get(key);
+
+        if (cached != null) {
+
+            try {
+
+                double score = score(shape(toHttpdLogFormat(cached[1])), lineShapes);
+
+                if (score >= LOW_CONFIDENCE_THRESHOLD) {
+
+                    log.debug("using cached format " + cached[0] + " from " + cacheFile);
+                    return new Result(cached[0], cached[1], score, true);
+                }
+            }
+            catch(IllegalArgumentException e) {
+
+                log.debug("ignoring invalid cached format " + cached[1], e);
+            }
+        }
+
+        Result result = infer(lines);
+
+        if (result != null) {
+
+            cache.remove(key);
+
+            Map<String, String[]> updated = new LinkedHashMap<>();
+            updated.put(key, new String[] { result.getName(), result.getFormatSpecification() });
+
+            for(Map.Entry<String, String[]> e: cache.entrySet()) {
+
+                if (updated.size() >= MAX_CACHE_ENTRIES) {
+                    break;
+                }
+
+                updated.put(e.getKey(), e.getValue());
+            }
+
+            writeCache(cacheFile, updated);
+        }
+
+        return result;
+    }
+
+    public Map<String, String> getCandidates() {
+
+        return Collections.unmodifiableMap(candidates);
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static String toLine(ByteArrayOutputStream line) {
+
+        String s = new String(line.toByteArray(), StandardCharsets.UTF_8);
+        return s.endsWith("\r") ? s.substring(0, s.length() - 1) : s;
+    }
+
+    /**
+     * @param start the index of the first, non-blank, character of the field.
+     *
+     * @return the index that follows the field. May exceed the length of the line for unterminated quotes.
+     */
+    private static int fieldEnd(String line, int start) {
+
+        int length = line.length();
+        char c = line.charAt(start);
+
+        if (c == '"' || c == '\'') {
+
+            int j = start + 1;
+
+            while(j < length && (line.charAt(j) != c || line.charAt(j - 1) == '\\')) {
+                j ++;
+            }
+
+            return j + 1;
+        }
+
+        if (c == '[') {
+
+            int j = line.indexOf(']', start + 1);
+            return j == -1 ? length : j + 1;
+        }
+
+        int j = start;
+
+        while(j < length && line.charAt(j) != ' ' && line.charAt(j) != '\t') {
+            j ++;
+        }
+
+        return j;
+    }
+
+    private static char fieldClass(String line, int start, int end) {
+
+        char c = line.charAt(start);
+
+        if (c == '"' || c == '\'') {
+            return QUOTED;
+        }
+
+        if (c == '[') {
+            return BRACKETED;
+        }
+
+        return classify(line, start, end);
+    }
+
+    private static boolean accepts(char formatField, char lineField) {
+
+        switch(formatField) {
+
+            case NUMBER:
+                return lineField == NUMBER || lineField == DASH;
+
+            case TOKEN:
+                return lineField != QUOTED && lineField != BRACKETED;
+
+            default:
+                return lineField == formatField;
+        }
+    }
+
+    private static char classify(String line, int start, int end) {
+
+        if (end - start == 1 && line.charAt(start) == '-') {
+            return DASH;
+        }
+
+        boolean digits = false;
+
+        for(int i = start; i < end; i ++) {
+
+            char c = line.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            }
+            else if (c != '.' && !(c == '-' && i == start)) {
+                return TOKEN;
+            }
+        }
+
+        return digits ? NUMBER : TOKEN;
+    }
+
+    private static HttpdLogFormat toHttpdLogFormat(String formatSpecification) {
+
+        try {
+
+            return new HttpdLogFormat(formatSpecification);
+        }
+        catch(Exception e) {
+
+            throw new IllegalArgumentException("invalid httpd format specification \"" + formatSpecification + "\"", e);
+        }
+    }
+
+    private static List<String> shapes(List<String> lines) {
+
+        List<String> result = new ArrayList<>(lines.size());
+
+        for(String line: lines) {
+
+            if (!line.trim().isEmpty()) {
+                result.add(shape(line));
+            }
+        }
+
+        return result;
+    }
+
+    private static double score(String formatShape, List<String> lineShapes) {
+
+        if (lineShapes.isEmpty()) {
+            return 0d;
+        }
+
+        int accepted = 0;
+
+        for(String s: lineShapes) {
+
+            if (accepts(formatShape, s)) {
+                accepted ++;
+            }
+        }
+
+        return (double)accepted / lineShapes.size();
+    }
+
+    private static int specificity(String formatShape) {
+
+        int specificity = 0;
+
+        for(int i = 0; i < formatShape.length(); i ++) {
+
+            if (formatShape.charAt(i) != TOKEN) {
+                specificity ++;
+            }
+        }
+
+        return specificity;
+    }
+
+    /**
+     * The cache file contains one "<shape>\t<name>\t<format specification>" line per entry, most recent first.
+     */
+    private static Map<String, String[]> readCache(File cacheFile) {
+
+        Map<String, String[]> cache = new LinkedHashMap<>();
+
+        if (!cacheFile.isFile()) {
+            return cache;
+        }
+
+        try (BufferedReader br = new BufferedReader(new FileReader(cacheFile))) {
+
+            String line;
+
+            while((line = br.readLine()) != null) {
+
+                String[] tokens = line.split("\t", 3);
+
+                if (tokens.length == 3) {
+                    cache.put(tokens[0], new String[] { tokens[1], tokens[2] });
+                }
+            }
+        }
+        catch(IOException e) {
+
+            log.debug("failed to read " + cacheFile, e);
+        }
+
+        return cache;
+    }
+
+    private static void writeCache(File cacheFile, Map<String, String[]> cache) {
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(cacheFile))) {
+
+            for(Map.Entry<String, String[]> e: cache.entrySet()) {
+
+                pw.println(e.getKey() + "\t" + e.getValue()[0] + "\t" + e.getValue()[1]);
+            }
+        }
+        catch(IOException e) {
+
+            //
+            // the cache is an optimization, failing to write it is not an error
+            //
+            log.debug("failed to write " + cacheFile, e);
+        }
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+    public static class Result {
+
+        private String name;
+        private String formatSpecification;
+        private double score;
+        private boolean cached;
+
+        Result(String name, String formatSpecification, double score, boolean cached) {
+
+            this.name = name;
+            this.formatSpecification = formatSpecification;
+            this.score = score;
+            this.cached = cached;
+        }
+
+        public String getName() {
+
+            return name;
+        }
+
+        public String getFormatSpecification() {
+
+            return formatSpecification;
+        }
+
+        /**
+         * @return the fraction of the sample lines accepted by the format, between 0 and 1.
+         */
+        public double getScore() {
+
+            return score;
+        }
+
+        public boolean isLowConfidence() {
+
+            return score < LOW_CONFIDENCE_THRESHOLD;
+        }
+
+        /**
+         * @return true if the decision was read from the cache file.
+         */
+        public boolean isCached() {
+
+            return cached;
+        }
+
+        @Override
+        public String toString() {
+
+            return name + " (\"" + formatSpecification + "\", score " + score + ")";
+        }
+    }
+}
@@ -24,12 +24,19 @@ import io.novaordis.events.csv.CSVFormat;
 import io.novaordis.events.csv.CSVFormatException;
 import io.novaordis.events.csv.CSVParser;
 import io.novaordis.events.gc.g1.G1LineParser;
+import io.novaordis.events.httpd.PlannedHttpdLineParser;
 import io.novaordis.events.httpd.CorruptedHttpdFormatStringException;
 import io.novaordis.events.httpd.HttpdLineParser;
+import io.novaordis.events.httpd.RegexHttpdLineParser;
 import io.novaordis.utilities.UserErrorException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
 /**
  * @author Ovidiu Feodorov <ovidiu@novaordis.com>
  * @since 2/6/16
@@ -53,6 +60,36 @@ public class LineParserFactory {
      */
     public static LineParser getInstance(String lineFormat) throws UserErrorException {
 
+        return getInstance(lineFormat, false);
+    }
+
+    /**
+     * @param planned if true, and the format is a httpd log format, the factory returns a parser that records the
+     *                decisions that only depend on the format in an execution plan, once, at startup. If the plan cannot
+     *                be built, the factory silently falls back to the regular HttpdLineParser.
+     *
+     * @see LineParserFactory#getInstance(String)
+     */
+    public static LineParser getInstance(String lineFormat, boolean planned) throws UserErrorException {
+
+        return getInstance(lineFormat, planned, false);
+    }
+
+    /**
+     * @param regex if true, and the format is a httpd log format, the factory returns a parser that matches well-formed
+     *              lines against a single regular expression built from the format, and uses the incremental parser only
+     *              for the lines that do not match. Takes precedence over "planned". If the format cannot be translated
+     *              into a regular expression, the factory falls back to the parser selected by "planned".
+     *
+     * A format specification that contains several formats separated by CompositeLineParser.FORMAT_SEPARATOR
+     * produces a CompositeLineParser, whose members are built individually, with the same options.
+     *
+     * @see LineParserFactory#getInstance(String, boolean)
+     * @see CompositeLineParser
+     */
+    public static LineParser getInstance(String lineFormat, boolean planned, boolean regex)
+            throws UserErrorException {
+
         log.debug("attempting to locate a parser that understands the given load format ...");
 
         if (lineFormat == null) {
@@ -77,18 +114,65 @@ public class LineParserFactory {
             };
         }
 
-        if ("".equalsIgnoreCase(lineFormat)) {
+        if ("".equalsIgnoreCase(lineFormat) || G1LineParser.FORMAT_NAME.equalsIgnoreCase(lineFormat)) {
 
             return new G1LineParser();
         }
 
+        if (LineFormatInference.AUTO.equalsIgnoreCase(lineFormat)) {
+
+            throw new UserErrorException("the \"" + LineFormatInference.AUTO +
+                    "\" input format can only be resolved on a sample of the input");
+        }
+
+        if (lineFormat.contains(CompositeLineParser.FORMAT_SEPARATOR)) {
+
+            List<LineParser> members = new ArrayList<>();
+
+            for(String f: lineFormat.split(Pattern.quote(CompositeLineParser.FORMAT_SEPARATOR), -1)) {
+
+                f = f.trim();
+
+                if (f.isEmpty()) {
+                    throw new UserErrorException("empty format in format specification \"" + lineFormat + "\"");
+                }
+
+                LineParser member = getInstance(f, planned, regex);
+
+                if (member == null) {
+                    throw new UserErrorException(
+                            "no known parser knows how to interpret the format string \"" + f + "\"");
+                }
+
+                members.add(member);
+            }
+
+            return new CompositeLineParser(members);
+        }
+
         //
         // visit known LineParsers and asks them if they accept the format
         //
 
         try {
 
-            return new HttpdLineParser(lineFormat);
+            HttpdLineParser httpdLineParser = new HttpdLineParser(lineFormat);
+
+            if (regex) {
+
+                HttpdLineParser p = RegexHttpdLineParser.compile(httpdLineParser.getHttpdLogFormat());
+
+                if (p instanceof RegexHttpdLineParser || !planned) {
+                    return p;
+                }
+            }
+
+            if (planned) {
+
+                return PlannedHttpdLineParser.newInstance(httpdLineParser.getHttpdLogFormat());
+            }
+
+            return httpdLineParser;
         }
         catch(CorruptedHttpdFormatStringException chfse) {
 
@@ -126,6 +210,45 @@ public class LineParserFactory {
         return null;
     }
 
+    /**
+     * Infers the line format from a sample of the input, by scoring the known httpd log formats against it, and
+     * returns a parser for the best match. Logs a warning if the best match does not account for most of the sample.
+     *
+     * @param sample the first lines of the input.
+     * @param cacheDirectory the directory that holds the inference cache file. May be null, in which case the cache is
+     *                       not used.
+     *
+     * @return null if none of the known formats matches the sample.
+     *
+     * @see LineFormatInference
+     */
+    public static LineParser getInstance(List<String> sample, File cacheDirectory, boolean planned, boolean regex)
+            throws UserErrorException {
+
+        if (sample == null) {
+            throw new IllegalArgumentException("null sample");
+        }
+
+        LineFormatInference.Result result = new LineFormatInference().infer(sample, cacheDirectory);
+
+        if (result == null) {
+
+            log.debug("none of the known formats matches the " + sample.size() + " sample lines");
+            return null;
+        }
+
+        log.debug("inferred input format " + result + (result.isCached() ? " (cached)" : ""));
+
+        if (result.isLowConfidence()) {
+
+            log.warn("low confidence input format inference: " + result.getName() + " \"" +
+                    result.getFormatSpecification() + "\" matches only " + Math.round(result.getScore() * 100) +
+                    "% of the first " + sample.size() + " lines, consider specifying the input format explicitly");
+        }
+
+        return getInstance(result.getFormatSpecification(), planned, regex);
+    }
+
     // Attributes ------------------------------------------------------------------------------------------------------
 
     // Constructors ----------------------------------------------------------------------------------------------------
@@ -22,28 +22,50 @@ import io.novaordis.clad.option.BooleanOption;
 import io.novaordis.clad.option.Option;
 import io.novaordis.clad.option.StringOption;
 import io.novaordis.clad.option.TimestampOption;
+import io.novaordis.events.CompositeLineParser;
+import io.novaordis.events.LineFormatInference;
 import io.novaordis.events.LineParserFactory;
+import io.novaordis.events.api.event.Event;
 import io.novaordis.events.clad.command.OutputCommand;
 import io.novaordis.events.core.EventFilter;
 import io.novaordis.events.core.EventProcessor;
+import io.novaordis.events.core.InputStreamConversionLogic;
 import io.novaordis.events.core.InputStreamInitiator;
 import io.novaordis.events.core.LineParser;
+import io.novaordis.events.core.LinePrefilter;
 import io.novaordis.events.core.LineStreamParser;
+import io.novaordis.events.core.NoopProcessingLogic;
+import io.novaordis.events.core.OutputChannel;
+import io.novaordis.events.core.ParallelGzipOutputStream;
 import io.novaordis.events.core.ToCSV;
 import io.novaordis.events.core.OutputStreamTerminator;
 import io.novaordis.events.core.ProcessingLogic;
+import io.novaordis.events.core.RecordAssembler;
+import io.novaordis.events.core.TimeWindow;
 import io.novaordis.events.core.event.ByteToLineEventConverter;
+import io.novaordis.events.filter.InKeySet;
+import io.novaordis.events.filter.Predicate;
+import io.novaordis.events.httpd.ByteHttpdLineParser;
+import io.novaordis.events.httpd.ByteToHttpEventConverter;
+import io.novaordis.events.httpd.HttpdLineParser;
+import io.novaordis.events.httpd.RegexHttpdLineParser;
 import io.novaordis.utilities.UserErrorException;
 import org.apache.log4j.Logger;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -92,6 +114,78 @@ public class EventsApplicationRuntime extends ApplicationRuntimeBase {
     //
     public static final TimestampOption TO_OPTION = new TimestampOption("to");
 
+    //
+    // If present, the application discards all events that do not match the expression and does not send them to the
+    // command.
+    //
+    // @see io.novaordis.events.filter.WhereExpression
+    //
+    public static final StringOption WHERE_OPTION = new StringOption("where");
+
+    //
+    // If present, the raw lines that do not contain the literal (or any of the "||" separated literals) are discarded
+    // before parsing.
+    //
+    // @see LinePrefilter
+    //
+    public static final StringOption GREP_OPTION = new StringOption("grep");
+
+    //
+    // If present, together with --in-key, the application discards all events whose key (a property name or
+    // "cookie:<name>") value is not one of the keys listed, one per line, in the file.
+    //
+    // @see io.novaordis.events.filter.InKeySet
+    //
+    public static final StringOption IN_FILE_OPTION = new StringOption("in-file");
+    public static final StringOption IN_KEY_OPTION = new StringOption("in-key");
+
+    //
+    // If present, and the input format is a httpd log format, the decisions that only depend on the format are taken
+    // once, at startup, and recorded in an execution plan, instead of being taken again for each line.
+    //
+    public static final BooleanOption PLANNED_PARSER_OPTION = new BooleanOption("planned-parser");
+
+    //
+    // If present, and the input format is a httpd log format, well-formed lines are parsed with a single regular
+    // expression match, and only the lines that do not match are parsed incrementally.
+    //
+    public static final BooleanOption REGEX_PARSER_OPTION = new BooleanOption("regex-parser");
+
+    //
+    // If present, and the input format is a httpd log format, the input is split into lines and parsed directly from
+    // the read buffers, without converting the lines into Strings.
+    //
+    public static final BooleanOption BYTE_PARSER_OPTION = new BooleanOption("byte-parser");
+
+    //
+    // If present, consecutive lines are grouped into multi-line records before parsing. A record starts with a line
+    // that matches the RECORD_START_OPTION regular expression or, with RECORD_INDENTATION_OPTION, with a line that is
+    // not indented.
+    //
+    // @see RecordAssembler
+    //
+    public static final StringOption RECORD_START_OPTION = new StringOption("record-start");
+    public static final BooleanOption RECORD_INDENTATION_OPTION = new BooleanOption("record-indentation");
+    public static final StringOption MAX_RECORD_LINES_OPTION = new StringOption("max-record-lines");
+
+    //
+    // If present, the output is written into the given file instead of stdout. FLUSH_OPTION controls when the
+    // buffered output is written: "size", "time[:<milliseconds>]" or "end".
+    //
+    // @see OutputChannel
+    //
+    public static final StringOption OUTPUT_FILE_OPTION = new StringOption("output-file");
+    public static final StringOption FLUSH_OPTION = new StringOption("flush");
+
+    //
+    // If present, the output is gzip compressed, in blocks, on COMPRESSION_THREADS_OPTION worker threads (the number
+    // of processors by default).
+    //
+    // @see ParallelGzipOutputStream
+    //
+    public static final BooleanOption COMPRESS_OUTPUT_OPTION = new BooleanOption("compress-output");
+    public static final StringOption COMPRESSION_THREADS_OPTION = new StringOption("compression-threads");
+
     static {
 
         //
@@ -106,6 +200,17 @@ public class EventsApplicationRuntime extends ApplicationRuntimeBase {
     // Attributes ------------------------------------------------------------------------------------------------------
 
     private InputStreamInitiator initiator;
+
+    // may be null if the lines are not assembled into multi-line records
+    private EventProcessor recordAssembler;
+
+    // may be null if the lines are not prefiltered
+    private EventProcessor linePrefilter;
+
+    private LineParser lineParser;
+
+    // the properties read by the event filter, always decoded, whatever the command requires. Never null
+    private Set<String> filterPropertyNames = Collections.emptySet();
     private EventProcessor parser;
 
     // may be null if there are no filtering options
@@ -135,7 +240,21 @@ public class EventsApplicationRuntime extends ApplicationRuntimeBase {
         return new HashSet<>((Arrays.asList(
                 IGNORE_FAULTS_OPTION,
                 FROM_OPTION,
-                TO_OPTION)));
+                TO_OPTION,
+                WHERE_OPTION,
+                GREP_OPTION,
+                IN_FILE_OPTION,
+                IN_KEY_OPTION,
+                PLANNED_PARSER_OPTION,
+                REGEX_PARSER_OPTION,
+                BYTE_PARSER_OPTION,
+                RECORD_START_OPTION,
+                RECORD_INDENTATION_OPTION,
+                MAX_RECORD_LINES_OPTION,
+                OUTPUT_FILE_OPTION,
+                FLUSH_OPTION,
+                COMPRESS_OUTPUT_OPTION,
+                COMPRESSION_THREADS_OPTION)));
     }
 
     @Override
@@ -147,30 +266,157 @@ public class EventsApplicationRuntime extends ApplicationRuntimeBase {
         // figure out what kind of format we are going to be parsing
         //
 
-        LineParser lineParser = figureOutParserTypeBasedOnInputFormatString(configuration);
+        String inputFormatSpec = getInputFormatSpecification(configuration);
+
+        InputStream input = System.in;
+
+        if (LineFormatInference.AUTO.equalsIgnoreCase(inputFormatSpec)) {
+
+            //
+            // the format is inferred from the first lines of the input, so we need a read-ahead window large enough
+            // to sample the lines and then push them back
+            //
+            input = new BufferedInputStream(System.in, LineFormatInference.DEFAULT_SAMPLE_BYTES);
+        }
+
+        lineParser = figureOutParserTypeBasedOnInputFormatString(configuration, inputFormatSpec, input);
 
         //
         // assemble the processing pipeline
         //
 
+        InputStreamConversionLogic conversionLogic = new ByteToLineEventConverter();
+        ProcessingLogic parsingLogic = new LineStreamParser(lineParser);
+
+        RecordAssembler recordAssemblerLogic;
+
+        try {
+
+            recordAssemblerLogic = RecordAssembler.buildInstance(configuration);
+        }
+        catch(IllegalArgumentException e) {
+
+            throw new UserErrorException(e.getMessage(), e);
+        }
+
+        EventFilter eventFilter;
+        LinePrefilter linePrefilterLogic;
+
+        try {
+
+            eventFilter = EventFilter.buildInstance(configuration);
+
+            if (eventFilter != null) {
+                filterPropertyNames = eventFilter.getRequiredPropertyNames();
+            }
+
+            //
+            // the literals required by the where expression can only be searched in the raw lines for the properties
+            // whose values are copied verbatim from the lines, which only the httpd log format can tell
+            //
+            Predicate where =
+                    eventFilter != null && lineParser instanceof HttpdLineParser ? eventFilter.getWhere() : null;
+
+            //
+            // a cookie value can be looked up in the raw line only if the cookie is logged in the "name=value" form of
+            // the Cookie request header, and not as an individual cookie value
+            //
+            InKeySet cookieMembership = null;
+
+            if (eventFilter != null && eventFilter.getMembership() != null && lineParser instanceof HttpdLineParser) {
+
+                InKeySet m = eventFilter.getMembership();
+
+                if (m.getCookieName() != null && ((HttpdLineParser)lineParser).getHttpdLogFormat().
+                        isCookieLoggedInRequestHeaderOnly(m.getCookieName())) {
+
+                    cookieMembership = m;
+                }
+            }
+
+            Set<String> verbatimPropertyNames = where == null ?
+                    null : ((HttpdLineParser)lineParser).getHttpdLogFormat().getVerbatimPropertyNames();
+
+            linePrefilterLogic =
+                    LinePrefilter.buildInstance(configuration, where, verbatimPropertyNames, cookieMembership);
+        }
+        catch(IllegalArgumentException e) {
+
+            throw new UserErrorException(e.getMessage(), e);
+        }
+
+        BooleanOption byteParser = (BooleanOption)configuration.getGlobalOption(BYTE_PARSER_OPTION);
+
+        //
+        // the byte parser splits the lines itself, so it cannot be used if the lines are assembled into records or
+        // prefiltered. Discarding most of the lines before parsing is worth more than parsing them from bytes
+        //
+        if (byteParser != null && byteParser.getValue() && recordAssemblerLogic == null &&
+                linePrefilterLogic == null && lineParser instanceof HttpdLineParser) {
+
+            ByteHttpdLineParser p = ByteHttpdLineParser.newInstance(((HttpdLineParser)lineParser).getHttpdLogFormat());
+
+            if (p != null) {
+
+                //
+                // the lines are split and parsed by the initiator, directly from its read buffer, so the parser stage
+                // only relays the events
+                //
+                lineParser = p;
+                conversionLogic = new ByteToHttpEventConverter(p);
+                parsingLogic = new NoopProcessingLogic();
+            }
+        }
+
+        if (eventFilter != null && lineParser instanceof HttpdLineParser) {
+
+            //
+            // push the time bounds into the parser, so the lines outside the window are discarded after only their
+            // timestamp was decoded. The event filter still checks the events, with its own window
+            //
+            ((HttpdLineParser)lineParser).setTimeWindow(TimeWindow.buildInstance(configuration));
+        }
+
         initiator = new InputStreamInitiator(
                 "Input Stream Reader",
-                System.in,
-                new ByteToLineEventConverter(),
+                input,
+                conversionLogic,
                 new ArrayBlockingQueue<>(QUEUE_SIZE));
 
+        BlockingQueue<Event> parserInput = initiator.getOutputQueue();
+
+        if (recordAssemblerLogic != null) {
+
+            recordAssembler = new EventProcessor(
+                    "Record Assembler",
+                    initiator.getOutputQueue(),
+                    recordAssemblerLogic,
+                    new ArrayBlockingQueue<>(QUEUE_SIZE));
+
+            parserInput = recordAssembler.getOutputQueue();
+        }
+
+        if (linePrefilterLogic != null) {
+
+            linePrefilter = new EventProcessor(
+                    "Line Prefilter",
+                    parserInput,
+                    linePrefilterLogic,
+                    new ArrayBlockingQueue<>(QUEUE_SIZE));
+
+            parserInput = linePrefilter.getOutputQueue();
+        }
+
         parser = new EventProcessor(
                 "Input Event Stream Parser",
-                initiator.getOutputQueue(),
-                new LineStreamParser(lineParser),
+                parserInput,
+                parsingLogic,
                 new ArrayBlockingQueue<>(QUEUE_SIZE));
 
         //
         // if there are filtering options, create and wire a filter, otherwise connect the parser directly
         // into the terminator
         //
-        ProcessingLogic eventFilter = EventFilter.buildInstance(configuration);
-
         if (eventFilter != null) {
 
             filter = new EventProcessor(
@@ -180,11 +426,24 @@ public class EventsApplicationRuntime extends ApplicationRuntimeBase {
                     new ArrayBlockingQueue<>(QUEUE_SIZE));
         }
 
+        OutputChannel outputChannel;
+        ParallelGzipOutputStream compressor;
+
+        try {
+
+            outputChannel = OutputChannel.buildInstance(configuration);
+            compressor = ParallelGzipOutputStream.buildInstance(configuration, outputChannel);
+        }
+        catch(IllegalArgumentException e) {
+
+            throw new UserErrorException(e.getMessage(), e);
+        }
+
         terminator = new OutputStreamTerminator(
                 "Output Writer",
                 null,
                 new ToCSV(),
-                System.out);
+                compressor == null ? outputChannel : compressor);
 
         endOfStream = new CountDownLatch(1);
         terminator.addEndOfStreamListener(endOfStream::countDown);
@@ -209,9 +468,46 @@ public class EventsApplicationRuntime extends ApplicationRuntimeBase {
         return parser;
     }
 
+    /**
+     * Lets the commands inform the parser which event properties they actually use, so the parser can skip decoding
+     * the rest while parsing. The properties that are not decoded while parsing are decoded when first accessed, so the
+     * command should include everything it reads for each event. Must be called before start(). Has no effect if the
+     * parser does not support projection. The properties read by the event filter are added to the command's
+     * properties, as the filter sees the events before the command.
+     *
+     * @param propertyNames null means all properties are required.
+     *
+     * @see HttpdLineParser#setRequiredProperties(Set)
+     * @see EventFilter#getRequiredPropertyNames()
+     */
+    public void setRequiredProperties(Set<String> propertyNames) {
+
+        if (!(lineParser instanceof HttpdLineParser)) {
+            return;
+        }
+
+        if (propertyNames != null && !filterPropertyNames.isEmpty()) {
+
+            Set<String> union = new HashSet<>(propertyNames);
+            union.addAll(filterPropertyNames);
+            propertyNames = union;
+        }
+
+        ((HttpdLineParser)lineParser).setRequiredProperties(propertyNames);
+    }
+
     public void start() throws Exception {
 
         initiator.start();
+
+        if (recordAssembler != null) {
+            recordAssembler.start();
+        }
+
+        if (linePrefilter != null) {
+            linePrefilter.start();
+        }
+
         parser.start();
 
         if (filter != null) {
@@ -227,6 +523,43 @@ public class EventsApplicationRuntime extends ApplicationRuntimeBase {
         // wait for the end of stream to propagate through the pipeline
         //
         endOfStream.await();
+
+        //
+        // the proportion of lines that took the slow path is what tells whether the parser choice was right, so it is
+        // reported at the end of every run
+        //
+        if (lineParser instanceof RegexHttpdLineParser) {
+
+            log.info(((RegexHttpdLineParser)lineParser).getStatistics());
+        }
+        else if (lineParser instanceof CompositeLineParser) {
+
+            log.info(((CompositeLineParser)lineParser).getStatistics());
+        }
+
+        if (lineParser instanceof HttpdLineParser && ((HttpdLineParser)lineParser).getTimeWindow() != null) {
+
+            log.debug(((HttpdLineParser)lineParser).getOutsideTimeWindowLineCount() +
+                    " lines discarded before parsing, outside " + ((HttpdLineParser)lineParser).getTimeWindow());
+        }
+
+        if (linePrefilter != null) {
+
+            log.debug(((LinePrefilter)linePrefilter.getProcessingLogic()).getStatistics());
+        }
+
+        OutputStream outputStream = terminator.getOutputStream();
+
+        if (outputStream instanceof ParallelGzipOutputStream) {
+
+            log.debug(((ParallelGzipOutputStream)outputStream).getStatistics());
+            outputStream = ((ParallelGzipOutputStream)outputStream).getTarget();
+        }
+
+        if (outputStream instanceof OutputChannel) {
+
+            log.debug(((OutputChannel)outputStream).getStatistics());
+        }
     }
 
     @Override
@@ -237,6 +570,14 @@ public class EventsApplicationRuntime extends ApplicationRuntimeBase {
 
     // Package protected -----------------------------------------------------------------------------------------------
 
+    /**
+     * Package protected, for testing only.
+     */
+    LineParser getLineParser() {
+
+        return lineParser;
+    }
+
     // Package protected static ----------------------------------------------------------------------------------------
 
     /**
@@ -312,16 +653,48 @@ public class EventsApplicationRuntime extends ApplicationRuntimeBase {
     // Private ---------------------------------------------------------------------------------------------------------
 
     /**
+     * @param input the input stream, must support mark/reset if the input format is inferred.
+     *
      * @return guaranteed not null instance.
      *
      * @throws UserErrorException if we cannot figure out what line parser to use.
      */
-    private LineParser figureOutParserTypeBasedOnInputFormatString(Configuration configuration)
-            throws UserErrorException {
+    private LineParser figureOutParserTypeBasedOnInputFormatString(
+            Configuration configuration, String inputFormatSpec, InputStream input) throws UserErrorException {
 
-        String inputFormatSpec = getInputFormatSpecification(configuration);
+        BooleanOption plannedParser = (BooleanOption)configuration.getGlobalOption(PLANNED_PARSER_OPTION);
+        boolean planned = plannedParser != null && plannedParser.getValue();
+
+        BooleanOption regexParser = (BooleanOption)configuration.getGlobalOption(REGEX_PARSER_OPTION);
+        boolean regex = regexParser != null && regexParser.getValue();
+
+        if (LineFormatInference.AUTO.equalsIgnoreCase(inputFormatSpec)) {
+
+            List<String> sample;
+
+            try {
+
+                sample = LineFormatInference.sample(
+                        input, LineFormatInference.DEFAULT_SAMPLE_LINES, LineFormatInference.DEFAULT_SAMPLE_BYTES);
+            }
+            catch(IOException e) {
+
+                throw new UserErrorException("failed to read the input sample", e);
+            }
+
+            LineParser lineParser = LineParserFactory.getInstance(
+                    sample, new File(System.getProperty("user.dir")), planned, regex);
+
+            if (lineParser == null) {
+                throw new UserErrorException(
+                        "could not infer the input format from the first " + sample.size() +
+                                " lines, specify it with " + INPUT_FORMAT_OPTION.getLabel());
+            }
+
+            return lineParser;
+        }
 
-        LineParser lineParser = LineParserFactory.getInstance(inputFormatSpec);
+        LineParser lineParser = LineParserFactory.getInstance(inputFormatSpec, planned, regex);
 
         if (lineParser == null) {
             throw new UserErrorException(
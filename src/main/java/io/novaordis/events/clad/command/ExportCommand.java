@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.clad.command;
+
+import io.novaordis.clad.application.ApplicationRuntime;
+import io.novaordis.clad.command.CommandBase;
+import io.novaordis.clad.option.BooleanOption;
+import io.novaordis.clad.option.Option;
+import io.novaordis.clad.option.StringOption;
+import io.novaordis.events.columnar.Column;
+import io.novaordis.events.columnar.ColumnType;
+import io.novaordis.events.columnar.ColumnarReader;
+import io.novaordis.events.columnar.ToColumnar;
+import io.novaordis.events.core.CSVEncoder;
+import io.novaordis.events.core.ToCSV;
+import io.novaordis.utilities.UserErrorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts the columnar output produced by "output --columnar", read from stdin, into CSV, written at stdout. The
+ * values are rendered the way the "output" command renders them.
+ *
+ * @see io.novaordis.events.columnar.ColumnarReader
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ExportCommand extends CommandBase {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(ExportCommand.class);
+
+    public static final StringOption OUTPUT_FORMAT_OPTION = new StringOption('o', "output-format");
+
+    public static final BooleanOption HEADER_OPTION = new BooleanOption("header");
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Writes the rows of the columnar stream as CSV lines.
+     *
+     * @param columnNames the columns to export, in order, or null to export the columns of each chunk. A column that
+     *                    is missing from a chunk is rendered as empty values.
+     * @param header whether to write a "# column, column, ..." header line before the first row, and every time the
+     *               columns change.
+     *
+     * @return the number of rows written.
+     */
+    static long export(InputStream is, OutputStream os, List<String> columnNames, boolean header) throws IOException {
+
+        ColumnarReader reader = new ColumnarReader(is);
+        CSVEncoder encoder = new CSVEncoder();
+
+        List<String> previousNames = null;
+        long rowCount = 0;
+
+        while(reader.nextChunk()) {
+
+            List<String> names = columnNames != null ? columnNames : reader.getColumnNames();
+
+            if (header && !names.equals(previousNames)) {
+
+                encoder.append("# ");
+
+                for(int i = 0; i < names.size(); i ++) {
+
+                    if (i > 0) {
+                        encoder.separator();
+                    }
+
+                    encoder.append(names.get(i));
+                }
+
+                encoder.endLine();
+            }
+
+            previousNames = names;
+
+            Column[] columns = new Column[names.size()];
+
+            for(int i = 0; i < columns.length; i ++) {
+                columns[i] = reader.getColumn(names.get(i));
+            }
+
+            for(int row = 0; row < reader.getRowCount(); row ++) {
+
+                for(int i = 0; i < columns.length; i ++) {
+
+                    if (i > 0) {
+                        encoder.separator();
+                    }
+
+                    Column c = columns[i];
+
+                    if (c == null || c.isNull(row)) {
+                        continue;
+                    }
+
+                    if (c.getType() == ColumnType.TIMESTAMP) {
+
+                        encoder.appendTimestamp(
+                                c.getLong(row), c.getTimeOffset(row), ToCSV.DEFAULT_TIMESTAMP_FORMATTER);
+                    }
+                    else if (c.getType() == ColumnType.LONG) {
+
+                        encoder.append(c.getLong(row));
+                    }
+                    else {
+
+                        encoder.append(c.getString(row));
+                    }
+                }
+
+                encoder.endLine();
+
+                if (encoder.size() >= ToCSV.FLUSH_THRESHOLD) {
+                    encoder.writeTo(os);
+                }
+            }
+
+            rowCount += reader.getRowCount();
+        }
+
+        encoder.writeTo(os);
+        os.flush();
+
+        return rowCount;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Command implementation ------------------------------------------------------------------------------------------
+
+    @Override
+    public boolean needsRuntime() {
+
+        //
+        // we read the columnar stream ourselves
+        //
+        return false;
+    }
+
+    @Override
+    public Set<Option> optionalOptions() {
+
+        return new HashSet<>(Arrays.asList(OUTPUT_FORMAT_OPTION, HEADER_OPTION));
+    }
+
+    @Override
+    public void execute(ApplicationRuntime r) throws Exception {
+
+        log.debug("executing " + this);
+
+        StringOption outputFormatOption = (StringOption)getOption(OUTPUT_FORMAT_OPTION);
+        BooleanOption headerOption = (BooleanOption)getOption(HEADER_OPTION);
+
+        List<String> columnNames =
+                outputFormatOption == null ? null : ToColumnar.toColumnNames(outputFormatOption.getString());
+
+        boolean header = headerOption != null && headerOption.getValue();
+
+        //
+        // System.out is bypassed, the encoder writes bytes
+        //
+        System.out.flush();
+        OutputStream os = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), ToCSV.FLUSH_THRESHOLD);
+
+        try {
+
+            long rows = export(System.in, os, columnNames, header);
+            log.debug(rows + " rows exported");
+        }
+        catch(IOException e) {
+
+            throw new UserErrorException("cannot export the columnar input: " + e.getMessage(), e);
+        }
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -23,14 +23,18 @@ import io.novaordis.clad.option.BooleanOption;
 import io.novaordis.clad.option.Option;
 import io.novaordis.clad.option.StringOption;
 import io.novaordis.events.clad.EventsApplicationRuntime;
+import io.novaordis.events.columnar.ToColumnar;
 import io.novaordis.events.core.ToCSV;
 import io.novaordis.events.core.OutputStreamTerminator;
 import io.novaordis.events.csv.CSVFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.StringTokenizer;
 
 /**
  * The command simply connects the runtime's output queue to the terminator and starts the pipeline.
@@ -46,6 +50,11 @@ public class OutputCommand extends CommandBase {
 
     public static final StringOption OUTPUT_FORMAT_OPTION = new StringOption('o', "output-format");
 
+    //
+    // writes the self-describing columnar binary format instead of CSV
+    //
+    public static final BooleanOption COLUMNAR_OPTION = new BooleanOption("columnar");
+
     // Static ----------------------------------------------------------------------------------------------------------
 
     // Attributes ------------------------------------------------------------------------------------------------------
@@ -56,7 +65,7 @@ public class OutputCommand extends CommandBase {
 
     @Override
     public Set<Option> optionalOptions() {
-        return Collections.singleton(OUTPUT_FORMAT_OPTION);
+        return new HashSet<>(Arrays.asList(OUTPUT_FORMAT_OPTION, COLUMNAR_OPTION));
     }
 
     @Override
@@ -79,21 +88,73 @@ public class OutputCommand extends CommandBase {
         Configuration configuration = r.getConfiguration();
         BooleanOption bo = (BooleanOption)configuration.getGlobalOption(EventsApplicationRuntime.IGNORE_FAULTS_OPTION);
 
-        if (outputFormatOption != null) {
+        BooleanOption columnarOption = (BooleanOption)getOption(COLUMNAR_OPTION);
+        ToColumnar toColumnar = null;
+
+        if (columnarOption != null && columnarOption.getValue()) {
+
+            List<String> columns = null;
+
+            if (outputFormatOption != null) {
+
+                columns = ToColumnar.toColumnNames(outputFormatOption.getString());
+                runtime.setRequiredProperties(toRequiredProperties(outputFormatOption.getString()));
+            }
+
+            toColumnar = new ToColumnar(columns);
+            terminator.setConversionLogic(toColumnar);
+        }
+        else if (outputFormatOption != null) {
 
             ToCSV toCSV = (ToCSV)terminator.getConversionLogic();
             toCSV.getCSVFormatter().setFormat(new CSVFormat(outputFormatOption.getString()));
             toCSV.getCSVFormatter().setIgnoreFaults(bo != null && bo.getValue());
+
+            //
+            // we know exactly what properties will be displayed, let the parser skip decoding anything else
+            //
+            runtime.setRequiredProperties(toRequiredProperties(outputFormatOption.getString()));
         }
 
         runtime.start();
         runtime.waitForEndOfStream();
+
+        if (toColumnar != null && toColumnar.getFaultCount() > 0) {
+
+            log.warn(toColumnar.getFaultCount() + " fault(s) were not written to the columnar output");
+        }
     }
 
     // Public ----------------------------------------------------------------------------------------------------------
 
     // Package protected -----------------------------------------------------------------------------------------------
 
+    /**
+     * @return the names of the event properties referred from the output format specification. For map properties
+     * ("map-property-name.key-name"), the map property name is returned.
+     */
+    static Set<String> toRequiredProperties(String outputFormat) {
+
+        Set<String> result = new HashSet<>();
+
+        for(StringTokenizer st = new StringTokenizer(outputFormat, ","); st.hasMoreTokens(); ) {
+
+            String tok = st.nextToken().trim();
+
+            int i = tok.indexOf('.');
+
+            if (i != -1) {
+                tok = tok.substring(0, i);
+            }
+
+            if (!tok.isEmpty()) {
+                result.add(tok);
+            }
+        }
+
+        return result;
+    }
+
     // Protected -------------------------------------------------------------------------------------------------------
 
     // Private ---------------------------------------------------------------------------------------------------------
@@ -28,6 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -82,6 +83,12 @@ public class SampleCommand extends CommandBase {
                     new ArrayBlockingQueue<>(EventsApplicationRuntime.QUEUE_SIZE));
 
             eventsApplicationRuntime.getTerminator().setInputQueue(sampler.getOutputQueue());
+
+            //
+            // the sampler only reads the sampling field, the parser does not have to decode anything else
+            //
+            eventsApplicationRuntime.setRequiredProperties(Collections.singleton(samplingFieldName));
+
             eventsApplicationRuntime.start();
 
             sampler.start();
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.columnar;
+
+import io.novaordis.utilities.time.TimeOffset;
+
+import java.io.IOException;
+
+/**
+ * The decoded values of one column of a chunk, indexed by row.
+ *
+ * @see ColumnarReader
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class Column {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Decodes the data block of a column.
+     */
+    static Column decode(String name, ColumnType type, int rows, byte[] data) throws IOException {
+
+        ColumnarFormat.Input in = new ColumnarFormat.Input(data);
+
+        byte[] presence = in.readPresence(rows);
+
+        int count = rows;
+
+        if (presence != null) {
+
+            count = 0;
+
+            for(byte b: presence) {
+                count += Integer.bitCount(b & 0xff);
+            }
+        }
+
+        Column c = new Column(name, type, rows, presence);
+
+        //
+        // the present values are expanded to one slot per row, for random access
+        //
+        int[] rowOf = new int[count];
+
+        for(int row = 0, i = 0; row < rows; row ++) {
+
+            if (c.hasValue(row)) {
+                rowOf[i ++] = row;
+            }
+        }
+
+        if (type == ColumnType.TIMESTAMP) {
+
+            c.longs = new long[rows];
+            long previous = 0;
+
+            for(int i = 0; i < count; i ++) {
+
+                previous += ColumnarFormat.unZigZag(in.readVarLong());
+                c.longs[rowOf[i]] = previous;
+            }
+
+            int dictionarySize = (int)in.readVarLong();
+            TimeOffset[] dictionary = new TimeOffset[dictionarySize];
+
+            for(int i = 0; i < dictionarySize; i ++) {
+
+                long entry = in.readVarLong();
+                dictionary[i] = entry == 0 ? null : new TimeOffset((int)ColumnarFormat.unZigZag(entry - 1));
+            }
+
+            long[] indices = in.readBitPacked(count);
+            c.offsets = new TimeOffset[rows];
+
+            for(int i = 0; i < count; i ++) {
+                c.offsets[rowOf[i]] = dictionary[checkIndex(indices[i], dictionarySize, name)];
+            }
+        }
+        else if (type == ColumnType.LONG) {
+
+            long min = ColumnarFormat.unZigZag(in.readVarLong());
+            long[] packed = in.readBitPacked(count);
+            c.longs = new long[rows];
+
+            for(int i = 0; i < count; i ++) {
+                c.longs[rowOf[i]] = min + packed[i];
+            }
+        }
+        else if (type == ColumnType.DOUBLE) {
+
+            c.doubles = new double[rows];
+
+            for(int i = 0; i < count; i ++) {
+                c.doubles[rowOf[i]] = Double.longBitsToDouble(in.readLong());
+            }
+        }
+        else {
+
+            int dictionarySize = (int)in.readVarLong();
+            String[] dictionary = new String[dictionarySize];
+
+            for(int i = 0; i < dictionarySize; i ++) {
+                dictionary[i] = in.readString();
+            }
+
+            long[] indices = in.readBitPacked(count);
+            c.strings = new String[rows];
+
+            for(int i = 0; i < count; i ++) {
+                c.strings[rowOf[i]] = dictionary[checkIndex(indices[i], dictionarySize, name)];
+            }
+        }
+
+        if (!in.isExhausted()) {
+            throw new IOException("column " + name + " has trailing data");
+        }
+
+        return c;
+    }
+
+    private static int checkIndex(long index, int dictionarySize, String name) throws IOException {
+
+        if (index >= dictionarySize) {
+            throw new IOException("column " + name + ": dictionary index " + index + " out of bounds");
+        }
+
+        return (int)index;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final String name;
+    private final ColumnType type;
+    private final int rows;
+
+    // null if all rows have a value
+    private final byte[] presence;
+
+    // only the arrays corresponding to the type are not null
+    private long[] longs;
+    private double[] doubles;
+    private String[] strings;
+    private TimeOffset[] offsets;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    private Column(String name, ColumnType type, int rows, byte[] presence) {
+
+        this.name = name;
+        this.type = type;
+        this.rows = rows;
+        this.presence = presence;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    public String getName() {
+
+        return name;
+    }
+
+    public ColumnType getType() {
+
+        return type;
+    }
+
+    public int getRowCount() {
+
+        return rows;
+    }
+
+    public boolean isNull(int row) {
+
+        return !hasValue(row);
+    }
+
+    /**
+     * @return the value of a LONG column, or the time of a TIMESTAMP column. 0 if the row has no value.
+     *
+     * @exception IllegalStateException if the column is of a different type.
+     */
+    public long getLong(int row) {
+
+        if (longs == null) {
+            throw new IllegalStateException(name + " is a " + type + " column");
+        }
+
+        return longs[checkRow(row)];
+    }
+
+    /**
+     * @return the value of a DOUBLE or LONG column. 0 if the row has no value.
+     *
+     * @exception IllegalStateException if the column is of a different type.
+     */
+    public double getDouble(int row) {
+
+        if (type == ColumnType.LONG) {
+            return longs[checkRow(row)];
+        }
+
+        if (doubles == null) {
+            throw new IllegalStateException(name + " is a " + type + " column");
+        }
+
+        return doubles[checkRow(row)];
+    }
+
+    /**
+     * @return the time offset of a TIMESTAMP column, null if the timestamp has no offset or the row has no value.
+     *
+     * @exception IllegalStateException if the column is of a different type.
+     */
+    public TimeOffset getTimeOffset(int row) {
+
+        if (offsets == null) {
+            throw new IllegalStateException(name + " is a " + type + " column");
+        }
+
+        return offsets[checkRow(row)];
+    }
+
+    /**
+     * @return the value as a Long, Double or String, or null if the row has no value. The value of a TIMESTAMP column
+     * is returned as a Long.
+     */
+    public Object getValue(int row) {
+
+        if (!hasValue(checkRow(row))) {
+            return null;
+        }
+
+        if (longs != null) {
+
+            return longs[row];
+        }
+        else if (doubles != null) {
+
+            return doubles[row];
+        }
+
+        return strings[row];
+    }
+
+    /**
+     * @return the value of a STRING column, or the String representation of the value of any other column. null if
+     * the row has no value.
+     */
+    public String getString(int row) {
+
+        Object value = getValue(row);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public String toString() {
+
+        return name + "(" + type + ", " + rows + " rows)";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private boolean hasValue(int row) {
+
+        return presence == null || (presence[row >>> 3] & (1 << (row & 7))) != 0;
+    }
+
+    private int checkRow(int row) {
+
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("row " + row + " out of [0, " + rows + ")");
+        }
+
+        return row;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.columnar;
+
+import io.novaordis.utilities.time.TimeOffset;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates the values of one column for the current chunk and encodes them.
+ *
+ * The type of a column is established by its first value and it is widened if needed: a LONG column that receives a
+ * floating point value becomes DOUBLE and a numeric column that receives any other value becomes STRING. TIMESTAMP
+ * columns are declared as such when created and they only accept timestamps.
+ *
+ * Not thread safe.
+ *
+ * @see ColumnarFormat
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+class ColumnBuilder {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // the offset dictionary entry for timestamps without an offset
+    private static final long NO_OFFSET = 0L;
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final String name;
+
+    // null until the first value, if not declared
+    private ColumnType type;
+
+    private int rows;
+
+    // bit (row % 8) of byte (row / 8) is set if the row has a value
+    private byte[] presence;
+
+    // the values, one per present row, only one of them is in use, depending on the type
+    private int count;
+    private long[] longs;
+    private double[] doubles;
+    private String[] strings;
+
+    // the offset of each present timestamp, as an offset dictionary entry
+    private long[] offsets;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param type the type, if known in advance, or null to establish it from the values.
+     */
+    ColumnBuilder(String name, ColumnType type) {
+
+        if (name == null) {
+            throw new IllegalArgumentException("null name");
+        }
+
+        this.name = name;
+        this.type = type;
+        this.presence = new byte[INITIAL_CAPACITY / 8];
+        this.longs = new long[INITIAL_CAPACITY];
+
+        if (type == ColumnType.TIMESTAMP) {
+            this.offsets = new long[INITIAL_CAPACITY];
+        }
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    String getName() {
+
+        return name;
+    }
+
+    /**
+     * @return the type of the column, or null if it did not receive any value yet.
+     */
+    ColumnType getType() {
+
+        return type;
+    }
+
+    int getRowCount() {
+
+        return rows;
+    }
+
+    void addNull() {
+
+        ensureRowCapacity();
+        rows ++;
+    }
+
+    void addTimestamp(long time, TimeOffset offset) {
+
+        if (type != ColumnType.TIMESTAMP) {
+            throw new IllegalStateException(name + " is not a timestamp column");
+        }
+
+        ensureValueCapacity();
+        markPresent();
+        longs[count] = time;
+        offsets[count] = offset == null ? NO_OFFSET : ColumnarFormat.zigZag(offset.getOffset()) + 1;
+        count ++;
+    }
+
+    /**
+     * Adds a value, widening the type of the column if necessary. Integral numbers are stored as LONG, floating point
+     * numbers as DOUBLE and everything else as the String.valueOf() representation. A null value is a missing value.
+     */
+    void add(Object value) {
+
+        if (value == null) {
+
+            addNull();
+            return;
+        }
+
+        if (type == ColumnType.TIMESTAMP) {
+            throw new IllegalStateException(name + " is a timestamp column");
+        }
+
+        ColumnType valueType;
+
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+
+            valueType = ColumnType.LONG;
+        }
+        else if (value instanceof Double || value instanceof Float) {
+
+            valueType = ColumnType.DOUBLE;
+        }
+        else {
+
+            valueType = ColumnType.STRING;
+        }
+
+        widen(valueType);
+        ensureValueCapacity();
+        markPresent();
+
+        if (type == ColumnType.LONG) {
+
+            longs[count] = ((Number)value).longValue();
+        }
+        else if (type == ColumnType.DOUBLE) {
+
+            doubles[count] = ((Number)value).doubleValue();
+        }
+        else {
+
+            strings[count] = value.toString();
+        }
+
+        count ++;
+    }
+
+    /**
+     * Writes the column (name, type, data length and data) and resets the builder for the next chunk. The type is
+     * preserved for TIMESTAMP columns only.
+     */
+    void encode(ByteArrayOutputStream out) {
+
+        //
+        // a column that did not receive any value is written as an all-missing LONG column
+        //
+        ColumnType t = type == null ? ColumnType.LONG : type;
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream(count * 2 + 16);
+
+        ColumnarFormat.writePresence(data, presence, rows, count);
+
+        if (t == ColumnType.TIMESTAMP) {
+
+            encodeTimestamps(data);
+        }
+        else if (t == ColumnType.LONG) {
+
+            encodeLongs(data);
+        }
+        else if (t == ColumnType.DOUBLE) {
+
+            encodeDoubles(data);
+        }
+        else {
+
+            encodeStrings(data);
+        }
+
+        ColumnarFormat.writeString(out, name);
+        out.write(t.getCode());
+        ColumnarFormat.writeVarLong(out, data.size());
+        out.write(data.toByteArray(), 0, data.size());
+
+        reset();
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private void encodeTimestamps(ByteArrayOutputStream data) {
+
+        long previous = 0;
+
+        for(int i = 0; i < count; i ++) {
+
+            ColumnarFormat.writeVarLong(data, ColumnarFormat.zigZag(longs[i] - previous));
+            previous = longs[i];
+        }
+
+        //
+        // the offsets are dictionary encoded, a log file usually has one or two
+        //
+        Map<Long, Integer> dictionary = new HashMap<>();
+        List<Long> entries = new ArrayList<>();
+        long[] indices = new long[count];
+
+        for(int i = 0; i < count; i ++) {
+
+            Integer index = dictionary.get(offsets[i]);
+
+            if (index == null) {
+
+                index = entries.size();
+                dictionary.put(offsets[i], index);
+                entries.add(offsets[i]);
+            }
+
+            indices[i] = index;
+        }
+
+        ColumnarFormat.writeVarLong(data, entries.size());
+
+        for(Long e: entries) {
+            ColumnarFormat.writeVarLong(data, e);
+        }
+
+        ColumnarFormat.writeBitPacked(data, indices, count, ColumnarFormat.bitWidth(Math.max(0, entries.size() - 1)));
+    }
+
+    private void encodeLongs(ByteArrayOutputStream data) {
+
+        long min = 0;
+        long max = 0;
+
+        for(int i = 0; i < count; i ++) {
+
+            if (i == 0 || longs[i] < min) {
+                min = longs[i];
+            }
+
+            if (i == 0 || longs[i] > max) {
+                max = longs[i];
+            }
+        }
+
+        //
+        // frame of reference, the values are packed as unsigned offsets from the minimum
+        //
+        long[] packed = new long[count];
+
+        for(int i = 0; i < count; i ++) {
+            packed[i] = longs[i] - min;
+        }
+
+        ColumnarFormat.writeVarLong(data, ColumnarFormat.zigZag(min));
+        ColumnarFormat.writeBitPacked(data, packed, count, ColumnarFormat.bitWidth(max - min));
+    }
+
+    private void encodeDoubles(ByteArrayOutputStream data) {
+
+        for(int i = 0; i < count; i ++) {
+
+            long bits = Double.doubleToLongBits(doubles[i]);
+
+            for(int shift = 56; shift >= 0; shift -= 8) {
+                data.write((int)(bits >>> shift));
+            }
+        }
+    }
+
+    private void encodeStrings(ByteArrayOutputStream data) {
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        long[] indices = new long[count];
+
+        for(int i = 0; i < count; i ++) {
+
+            Integer index = dictionary.get(strings[i]);
+
+            if (index == null) {
+
+                index = entries.size();
+                dictionary.put(strings[i], index);
+                entries.add(strings[i]);
+            }
+
+            indices[i] = index;
+        }
+
+        ColumnarFormat.writeVarLong(data, entries.size());
+
+        for(String e: entries) {
+            ColumnarFormat.writeString(data, e);
+        }
+
+        ColumnarFormat.writeBitPacked(data, indices, count, ColumnarFormat.bitWidth(Math.max(0, entries.size() - 1)));
+    }
+
+    private void widen(ColumnType valueType) {
+
+        if (type == null) {
+
+            type = valueType;
+
+            if (type == ColumnType.DOUBLE) {
+                doubles = new double[longs.length];
+            }
+            else if (type == ColumnType.STRING) {
+                strings = new String[longs.length];
+            }
+
+            return;
+        }
+
+        if (type == valueType || type == ColumnType.STRING ||
+                (type == ColumnType.DOUBLE && valueType == ColumnType.LONG)) {
+            return;
+        }
+
+        if (type == ColumnType.LONG && valueType == ColumnType.DOUBLE) {
+
+            doubles = new double[longs.length];
+
+            for(int i = 0; i < count; i ++) {
+                doubles[i] = longs[i];
+            }
+
+            type = ColumnType.DOUBLE;
+            return;
+        }
+
+        //
+        // to STRING
+        //
+        strings = new String[longs.length];
+
+        for(int i = 0; i < count; i ++) {
+            strings[i] = type == ColumnType.LONG ? Long.toString(longs[i]) : Double.toString(doubles[i]);
+        }
+
+        doubles = null;
+        type = ColumnType.STRING;
+    }
+
+    private void markPresent() {
+
+        ensureRowCapacity();
+        presence[rows >>> 3] |= 1 << (rows & 7);
+        rows ++;
+    }
+
+    private void ensureRowCapacity() {
+
+        if ((rows >>> 3) >= presence.length) {
+            presence = Arrays.copyOf(presence, presence.length * 2);
+        }
+    }
+
+    private void ensureValueCapacity() {
+
+        if (count < longs.length) {
+            return;
+        }
+
+        int capacity = longs.length * 2;
+
+        longs = Arrays.copyOf(longs, capacity);
+
+        if (doubles != null) {
+            doubles = Arrays.copyOf(doubles, capacity);
+        }
+
+        if (strings != null) {
+            strings = Arrays.copyOf(strings, capacity);
+        }
+
+        if (offsets != null) {
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+    }
+
+    private void reset() {
+
+        Arrays.fill(presence, 0, Math.min(presence.length, (rows + 7) / 8), (byte)0);
+
+        if (strings != null) {
+            Arrays.fill(strings, 0, count, null);
+        }
+
+        rows = 0;
+        count = 0;
+
+        if (type != ColumnType.TIMESTAMP) {
+
+            type = null;
+            doubles = null;
+            strings = null;
+        }
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
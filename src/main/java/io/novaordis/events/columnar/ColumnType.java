@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.columnar;
+
+/**
+ * The types of the columns of the columnar output, and their codes in the file.
+ *
+ * @see ColumnarFormat
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public enum ColumnType {
+
+    TIMESTAMP(1),
+    LONG(2),
+    DOUBLE(3),
+    STRING(4);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return null if the code is not a known column type code.
+     */
+    public static ColumnType fromCode(int code) {
+
+        for(ColumnType t: values()) {
+
+            if (t.code == code) {
+                return t;
+            }
+        }
+
+        return null;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final int code;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    ColumnType(int code) {
+
+        this.code = code;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    public int getCode() {
+
+        return code;
+    }
+
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.columnar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The layout of the columnar output, and the primitive encodings shared by the writer and the reader.
+ *
+ * <pre>
+ * file     := magic ("EVCF") version (1 byte) chunk* end
+ * end      := varint 0
+ * chunk    := row-count (varint, not 0) column-count (varint) column*
+ * column   := name (string) type (1 byte, ColumnType code) data-length (varint) data
+ * string   := byte-count (varint) UTF-8 bytes
+ * presence := 0 if all rows have a value, 2 if no row has a value, or 1 followed by a bitmap of (row-count + 7) / 8
+ *             bytes, where the bit (row % 8) of the byte (row / 8) is set if the row has a value
+ *
+ * TIMESTAMP data := presence first-time (zigzag varint) delta (zigzag varint)* offset-dictionary offset-indices
+ *     the times are milliseconds since the epoch, each delta is the difference from the previous present value
+ *     offset-dictionary := count (varint) entry*, where an entry is 0 for "no offset" or zigzag(offset ms) + 1
+ *     offset-indices := bit width (1 byte) and the bit-packed dictionary indices of the present values
+ * LONG data := presence minimum (zigzag varint) bit width (1 byte) bit-packed (value - minimum) of the present values
+ * DOUBLE data := presence and the 8 byte big-endian IEEE 754 representation of each present value
+ * STRING data := presence dictionary-size (varint) string* bit width (1 byte) bit-packed dictionary indices of the
+ *     present values
+ * </pre>
+ *
+ * Varints are unsigned LEB128, zigzag maps signed values to unsigned ones ((n << 1) ^ (n >> 63)). Bit-packed values
+ * are written least significant bit first, the last byte is padded with zeroes. A bit width of 0 means all values are
+ * 0 and takes no bytes.
+ *
+ * A chunk is self-describing: the columns, their order and their types may differ from one chunk to another. The
+ * data length allows a reader to skip the columns it does not need.
+ *
+ * @see ToColumnar
+ * @see ColumnarReader
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public final class ColumnarFormat {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    public static final byte[] MAGIC = { 'E', 'V', 'C', 'F' };
+
+    public static final int VERSION = 1;
+
+    public static final int DEFAULT_CHUNK_ROWS = 64 * 1024;
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+
+        while((value & ~0x7fL) != 0) {
+
+            out.write((int)((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+
+        out.write((int)value);
+    }
+
+    static long zigZag(long n) {
+
+        return (n << 1) ^ (n >> 63);
+    }
+
+    static long unZigZag(long n) {
+
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    static void writeString(ByteArrayOutputStream out, String s) {
+
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @return the number of bits needed to represent the value, as an unsigned number.
+     */
+    static int bitWidth(long unsignedValue) {
+
+        return 64 - Long.numberOfLeadingZeros(unsignedValue);
+    }
+
+    /**
+     * Writes the bit width, followed by the first count values, each on width bits.
+     */
+    static void writeBitPacked(ByteArrayOutputStream out, long[] values, int count, int width) {
+
+        out.write(width);
+
+        if (width == 0) {
+            return;
+        }
+
+        long accumulator = 0;
+        int bits = 0;
+
+        for(int i = 0; i < count; i ++) {
+
+            long v = values[i];
+
+            accumulator |= v << bits;
+
+            int consumed = Math.min(width, 64 - bits);
+            bits += consumed;
+
+            while(bits >= 8) {
+
+                out.write((int)accumulator);
+                accumulator >>>= 8;
+                bits -= 8;
+            }
+
+            if (consumed < width) {
+
+                //
+                // the value did not fit in the accumulator, add the high bits that were left out
+                //
+                accumulator |= (v >>> consumed) << bits;
+                bits += width - consumed;
+
+                while(bits >= 8) {
+
+                    out.write((int)accumulator);
+                    accumulator >>>= 8;
+                    bits -= 8;
+                }
+            }
+        }
+
+        if (bits > 0) {
+            out.write((int)accumulator);
+        }
+    }
+
+    /**
+     * Writes the presence flag and, if some rows have no value, the presence bitmap.
+     */
+    static void writePresence(ByteArrayOutputStream out, byte[] bitmap, int rows, int presentCount) {
+
+        if (presentCount == rows) {
+
+            out.write(0);
+            return;
+        }
+
+        if (presentCount == 0) {
+
+            out.write(2);
+            return;
+        }
+
+        out.write(1);
+        out.write(bitmap, 0, (rows + 7) / 8);
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    private ColumnarFormat() {
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+    /**
+     * A cursor over an in-memory column data block.
+     */
+    static class Input {
+
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+
+            this.bytes = bytes;
+        }
+
+        int readByte() throws IOException {
+
+            if (position >= bytes.length) {
+                throw new IOException("unexpected end of column data");
+            }
+
+            return bytes[position ++] & 0xff;
+        }
+
+        long readVarLong() throws IOException {
+
+            long value = 0;
+
+            for(int shift = 0; shift < 64; shift += 7) {
+
+                int b = readByte();
+                value |= (long)(b & 0x7f) << shift;
+
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IOException("invalid varint");
+        }
+
+        long readLong() throws IOException {
+
+            long value = 0;
+
+            for(int i = 0; i < 8; i ++) {
+                value = (value << 8) | readByte();
+            }
+
+            return value;
+        }
+
+        String readString() throws IOException {
+
+            int length = (int)readVarLong();
+
+            if (length < 0 || position + length > bytes.length) {
+                throw new IOException("invalid string length " + length);
+            }
+
+            String s = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return s;
+        }
+
+        /**
+         * @return the presence bitmap, or null if all rows have a value.
+         */
+        byte[] readPresence(int rows) throws IOException {
+
+            int flag = readByte();
+
+            if (flag == 0) {
+                return null;
+            }
+
+            if (flag == 2) {
+                return new byte[(rows + 7) / 8];
+            }
+
+            if (flag != 1) {
+                throw new IOException("invalid presence flag " + flag);
+            }
+
+            byte[] bitmap = new byte[(rows + 7) / 8];
+
+            for(int i = 0; i < bitmap.length; i ++) {
+                bitmap[i] = (byte)readByte();
+            }
+
+            return bitmap;
+        }
+
+        /**
+         * Reads the bit width and count values.
+         */
+        long[] readBitPacked(int count) throws IOException {
+
+            int width = readByte();
+
+            if (width > 64) {
+                throw new IOException("invalid bit width " + width);
+            }
+
+            long[] values = new long[count];
+
+            if (width == 0) {
+                return values;
+            }
+
+            long mask = width == 64 ? -1L : (1L << width) - 1;
+
+            long accumulator = 0;
+            int bits = 0;
+
+            for(int i = 0; i < count; i ++) {
+
+                long v = 0;
+                int filled = 0;
+
+                while(filled < width) {
+
+                    if (bits == 0) {
+
+                        accumulator = readByte();
+                        bits = 8;
+                    }
+
+                    int take = Math.min(bits, width - filled);
+                    v |= (accumulator & ((1L << take) - 1)) << filled;
+                    accumulator >>>= take;
+                    bits -= take;
+                    filled += take;
+                }
+
+                values[i] = v & mask;
+            }
+
+            return values;
+        }
+
+        boolean isExhausted() {
+
+            return position == bytes.length;
+        }
+    }
+
+}
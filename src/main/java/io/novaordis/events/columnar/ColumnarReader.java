@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.columnar;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the columnar output produced by ToColumnar, one chunk at a time. Typical usage:
+ *
+ * <pre>
+ * ColumnarReader reader = new ColumnarReader(inputStream);
+ *
+ * while(reader.nextChunk()) {
+ *
+ *     Column c = reader.getColumn("response-time");
+ *
+ *     for(int row = 0; row < reader.getRowCount(); row ++) {
+ *         ... c.getLong(row) ...
+ *     }
+ * }
+ * </pre>
+ *
+ * The reader does not close the input stream. Not thread safe.
+ *
+ * @see ColumnarFormat
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ColumnarReader {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final DataInputStream in;
+
+    private boolean headerRead;
+    private boolean ended;
+
+    private int rowCount;
+    private List<Column> columns;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    public ColumnarReader(InputStream is) {
+
+        if (is == null) {
+            throw new IllegalArgumentException("null input stream");
+        }
+
+        this.in = new DataInputStream(is instanceof BufferedInputStream ? is : new BufferedInputStream(is));
+        this.columns = Collections.emptyList();
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Reads and decodes the next chunk.
+     *
+     * @return false if there are no more chunks.
+     *
+     * @exception IOException if the stream is not a valid columnar stream, or it is truncated.
+     */
+    public boolean nextChunk() throws IOException {
+
+        if (!headerRead) {
+
+            readHeader();
+            headerRead = true;
+        }
+
+        if (ended) {
+            return false;
+        }
+
+        try {
+
+            long rows = readVarLong();
+
+            if (rows == 0) {
+
+                ended = true;
+                rowCount = 0;
+                columns = Collections.emptyList();
+                return false;
+            }
+
+            if (rows > Integer.MAX_VALUE) {
+                throw new IOException("invalid chunk row count " + rows);
+            }
+
+            rowCount = (int)rows;
+
+            int columnCount = (int)readVarLong();
+            List<Column> chunkColumns = new ArrayList<>(columnCount);
+
+            for(int i = 0; i < columnCount; i ++) {
+
+                String name = readString();
+                int code = in.readUnsignedByte();
+                ColumnType type = ColumnType.fromCode(code);
+
+                if (type == null) {
+                    throw new IOException("column " + name + " has an unknown type " + code);
+                }
+
+                byte[] data = new byte[(int)readVarLong()];
+                in.readFully(data);
+                chunkColumns.add(Column.decode(name, type, rowCount, data));
+            }
+
+            columns = chunkColumns;
+            return true;
+        }
+        catch(EOFException e) {
+
+            throw new IOException("truncated columnar stream", e);
+        }
+    }
+
+    /**
+     * @return the number of rows of the current chunk.
+     */
+    public int getRowCount() {
+
+        return rowCount;
+    }
+
+    /**
+     * @return the columns of the current chunk, in the order they were written. Chunks may have different columns.
+     */
+    public List<Column> getColumns() {
+
+        return columns;
+    }
+
+    public List<String> getColumnNames() {
+
+        List<String> names = new ArrayList<>(columns.size());
+
+        for(Column c: columns) {
+            names.add(c.getName());
+        }
+
+        return names;
+    }
+
+    /**
+     * @return the column of the current chunk with the given name, or null if the chunk has no such column.
+     */
+    public Column getColumn(String name) {
+
+        for(Column c: columns) {
+
+            if (c.getName().equals(name)) {
+                return c;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public String toString() {
+
+        return "ColumnarReader[" + rowCount + " rows, " + columns + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private void readHeader() throws IOException {
+
+        byte[] magic = new byte[ColumnarFormat.MAGIC.length];
+
+        try {
+
+            in.readFully(magic);
+
+            for(int i = 0; i < magic.length; i ++) {
+
+                if (magic[i] != ColumnarFormat.MAGIC[i]) {
+                    throw new IOException("not a columnar stream");
+                }
+            }
+
+            int version = in.readUnsignedByte();
+
+            if (version != ColumnarFormat.VERSION) {
+                throw new IOException("unsupported columnar format version " + version);
+            }
+        }
+        catch(EOFException e) {
+
+            throw new IOException("not a columnar stream", e);
+        }
+    }
+
+    private long readVarLong() throws IOException {
+
+        long value = 0;
+
+        for(int shift = 0; shift < 64; shift += 7) {
+
+            int b = in.readUnsignedByte();
+            value |= (long)(b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("invalid varint");
+    }
+
+    private String readString() throws IOException {
+
+        byte[] bytes = new byte[(int)readVarLong()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
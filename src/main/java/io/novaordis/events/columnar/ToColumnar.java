@@ -0,0 +1,432 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.columnar;
+
+import io.novaordis.events.api.event.EndOfStreamEvent;
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.FaultEvent;
+import io.novaordis.events.api.event.MapProperty;
+import io.novaordis.events.api.event.Property;
+import io.novaordis.events.api.event.ShutdownEvent;
+import io.novaordis.events.api.event.TimedEvent;
+import io.novaordis.events.core.ClosedException;
+import io.novaordis.events.core.OutputStreamConversionLogic;
+import io.novaordis.utilities.time.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+/**
+ * Converts events into the self-describing columnar binary format described by ColumnarFormat. The events are
+ * accumulated in column builders and they are encoded a chunk at a time: timestamps are delta encoded, strings are
+ * dictionary encoded and integers are bit-packed relative to the chunk minimum. The output is considerably smaller
+ * than the equivalent CSV, and it can be loaded without parsing text.
+ *
+ * If a list of column names is provided, only those columns are written, using the same conventions as ToCSV
+ * ("timestamp" for the event timestamp, "map-property-name.key-name" for map entries). Otherwise, the columns are the
+ * timestamp followed by the event properties, in the order they are first seen.
+ *
+ * Faults are not written, they are counted.
+ *
+ * @see ColumnarReader
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ToColumnar implements OutputStreamConversionLogic {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(ToColumnar.class);
+
+    private static final boolean debug = log.isDebugEnabled();
+
+    public static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the column names of a comma separated list, in the ToCSV output format syntax. Blank names are ignored.
+     */
+    public static List<String> toColumnNames(String outputFormat) {
+
+        List<String> names = new ArrayList<>();
+
+        for(StringTokenizer st = new StringTokenizer(outputFormat, ","); st.hasMoreTokens(); ) {
+
+            String name = st.nextToken().trim();
+
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+
+        return names;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final int chunkRows;
+
+    // true if the columns were specified externally
+    private final boolean fixedColumns;
+
+    // in column order
+    private final List<ColumnBuilder> builders;
+    private final Map<String, ColumnBuilder> buildersByName;
+
+    private int rows;
+
+    private final ByteArrayOutputStream pending;
+
+    private volatile boolean closed;
+
+    private long eventCount;
+    private long faultCount;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Introspects the events.
+     */
+    public ToColumnar() {
+
+        this(null);
+    }
+
+    /**
+     * @param columnNames the columns to write, or null to introspect the events.
+     */
+    public ToColumnar(List<String> columnNames) {
+
+        this(columnNames, ColumnarFormat.DEFAULT_CHUNK_ROWS);
+    }
+
+    /**
+     * @param columnNames the columns to write, or null to introspect the events.
+     * @param chunkRows the number of rows per chunk.
+     */
+    public ToColumnar(List<String> columnNames, int chunkRows) {
+
+        if (chunkRows <= 0) {
+            throw new IllegalArgumentException("invalid chunk row count " + chunkRows);
+        }
+
+        this.chunkRows = chunkRows;
+        this.builders = new ArrayList<>();
+        this.buildersByName = new HashMap<>();
+        this.fixedColumns = columnNames != null;
+
+        if (columnNames != null) {
+
+            for(String name: columnNames) {
+
+                if (!buildersByName.containsKey(name)) {
+                    addColumn(name);
+                }
+            }
+        }
+
+        this.pending = new ByteArrayOutputStream(64 * 1024);
+        pending.write(ColumnarFormat.MAGIC, 0, ColumnarFormat.MAGIC.length);
+        pending.write(ColumnarFormat.VERSION);
+    }
+
+    // OutputStreamConversionLogic implementation ----------------------------------------------------------------------
+
+    @Override
+    public boolean process(Event inputEvent) throws ClosedException {
+
+        if (debug) {
+
+            log.debug("processing " + inputEvent);
+        }
+
+        if (closed) {
+
+            throw new ClosedException(this + " closed");
+        }
+
+        if (inputEvent instanceof EndOfStreamEvent || inputEvent instanceof ShutdownEvent) {
+
+            if (rows > 0) {
+                encodeChunk();
+            }
+
+            ColumnarFormat.writeVarLong(pending, 0);
+            closed = true;
+            return true; // need to collect the output stream close() information
+        }
+
+        if (inputEvent instanceof FaultEvent) {
+
+            faultCount ++;
+            return pending.size() > 0;
+        }
+
+        addRow(inputEvent);
+
+        if (rows >= chunkRows) {
+            encodeChunk();
+        }
+
+        return pending.size() > 0;
+    }
+
+    @Override
+    public byte[] getBytes() {
+
+        if (pending.size() == 0) {
+
+            return closed ? null : EMPTY_BYTE_ARRAY;
+        }
+
+        byte[] bytes = pending.toByteArray();
+        pending.reset();
+        return bytes;
+    }
+
+    @Override
+    public boolean writeTo(OutputStream outputStream, boolean flush) throws IOException {
+
+        if (pending.size() == 0) {
+
+            return !closed;
+        }
+
+        //
+        // the bytes are produced a whole chunk at a time, there is no point in holding them back
+        //
+        pending.writeTo(outputStream);
+        pending.reset();
+        return true;
+    }
+
+    @Override
+    public boolean isClosed() {
+
+        return closed;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the number of events written, faults excluded.
+     */
+    public long getEventCount() {
+
+        return eventCount;
+    }
+
+    /**
+     * @return the number of faults that were not written.
+     */
+    public long getFaultCount() {
+
+        return faultCount;
+    }
+
+    /**
+     * @return the names of the columns, in order. When introspecting, the list grows as new properties are seen.
+     */
+    public List<String> getColumnNames() {
+
+        List<String> names = new ArrayList<>(builders.size());
+
+        for(ColumnBuilder b: builders) {
+            names.add(b.getName());
+        }
+
+        return names;
+    }
+
+    @Override
+    public String toString() {
+
+        return "ToColumnar[" + (fixedColumns ? getColumnNames() : "introspecting") + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private void addRow(Event event) {
+
+        eventCount ++;
+
+        if (fixedColumns) {
+
+            for(ColumnBuilder b: builders) {
+
+                if (b.getType() == ColumnType.TIMESTAMP) {
+
+                    addTimestamp(b, event);
+                }
+                else {
+
+                    b.add(resolve(event, b.getName()));
+                }
+            }
+        }
+        else {
+
+            if (event instanceof TimedEvent) {
+
+                ColumnBuilder b = buildersByName.get(TimedEvent.TIMESTAMP_PROPERTY_NAME);
+
+                if (b == null) {
+                    b = addColumn(TimedEvent.TIMESTAMP_PROPERTY_NAME);
+                }
+
+                addTimestamp(b, event);
+            }
+
+            List<Property> properties = event.getPropertyList();
+
+            if (properties != null) {
+
+                for(Property p: properties) {
+
+                    String name = p.getName();
+                    ColumnBuilder b = buildersByName.get(name);
+
+                    if (b == null) {
+                        b = addColumn(name);
+                    }
+
+                    //
+                    // the first value wins if a property name repeats, and the timestamp property is only written once
+                    //
+                    if (b.getRowCount() == rows && b.getType() != ColumnType.TIMESTAMP) {
+                        b.add(valueOf(p));
+                    }
+                }
+            }
+
+            //
+            // the columns the event did not have a value for
+            //
+            for(ColumnBuilder b: builders) {
+
+                if (b.getRowCount() == rows) {
+                    b.addNull();
+                }
+            }
+        }
+
+        rows ++;
+    }
+
+    private ColumnBuilder addColumn(String name) {
+
+        ColumnType type = TimedEvent.TIMESTAMP_PROPERTY_NAME.equals(name) ? ColumnType.TIMESTAMP : null;
+
+        ColumnBuilder b = new ColumnBuilder(name, type);
+
+        //
+        // a column that shows up in the middle of a chunk has no values for the previous rows
+        //
+        for(int i = 0; i < rows; i ++) {
+            b.addNull();
+        }
+
+        builders.add(b);
+        buildersByName.put(name, b);
+        return b;
+    }
+
+    private void encodeChunk() {
+
+        ColumnarFormat.writeVarLong(pending, rows);
+        ColumnarFormat.writeVarLong(pending, builders.size());
+
+        for(ColumnBuilder b: builders) {
+            b.encode(pending);
+        }
+
+        rows = 0;
+    }
+
+    private static void addTimestamp(ColumnBuilder b, Event event) {
+
+        Timestamp timestamp = event instanceof TimedEvent ? ((TimedEvent)event).getTimestamp() : null;
+
+        if (timestamp == null) {
+
+            b.addNull();
+        }
+        else {
+
+            b.addTimestamp(timestamp.getTime(), timestamp.getTimeOffset());
+        }
+    }
+
+    /**
+     * @return the value of the property or of the map entry the column name refers to, or null.
+     */
+    private static Object resolve(Event event, String name) {
+
+        Property p = event.getProperty(name);
+
+        if (p != null) {
+            return valueOf(p);
+        }
+
+        int dot = name.indexOf('.');
+
+        if (dot == -1) {
+            return null;
+        }
+
+        p = event.getProperty(name.substring(0, dot));
+
+        if (!(p instanceof MapProperty)) {
+            return null;
+        }
+
+        Map<String, Object> map = ((MapProperty)p).getMap();
+        return map == null ? null : map.get(name.substring(dot + 1));
+    }
+
+    /**
+     * @return numbers as they are, everything else in the externalized form.
+     */
+    private static Object valueOf(Property p) {
+
+        Object value = p.getValue();
+
+        if (value == null || value instanceof Number) {
+            return value;
+        }
+
+        return p.externalizeValue();
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
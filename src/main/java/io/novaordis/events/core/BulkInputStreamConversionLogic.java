@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.core;
+
+/**
+ * An InputStreamConversionLogic that can convert a whole buffer of bytes at a time. An initiator that detects this
+ * capability reads the input stream in bulk and hands over the buffers, instead of reading and converting byte by
+ * byte. The end of stream is still signaled with process(-1).
+ *
+ * IMPORTANT: the buffer is reused by the initiator after the invocation returns, the conversion logic must copy any
+ * bytes it needs to keep.
+ *
+ * @see InputStreamInitiator
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public interface BulkInputStreamConversionLogic extends InputStreamConversionLogic {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Processes the bytes buffer[offset] ... buffer[offset + length - 1], with the same semantics as invoking
+     * process(int) for each of them.
+     *
+     * @see InputStreamConversionLogic#process(int)
+     *
+     * @throws ClosedException if the conversion logic was closed by a previous end of stream.
+     */
+    boolean process(byte[] buffer, int offset, int length) throws ClosedException;
+
+}
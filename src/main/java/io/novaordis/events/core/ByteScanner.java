@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.core;
+
+/**
+ * Delimiter scanning over byte arrays, eight bytes per step: the bytes are assembled into a long and a SWAR ("SIMD
+ * within a register") test tells whether any of the eight bytes is the searched value, and which one is the first,
+ * without a per-byte branch. The tail of the range, shorter than a word, is scanned byte by byte.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public final class ByteScanner {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @param from the first position to examine (inclusive).
+     * @param to the position where the scanning stops (exclusive).
+     *
+     * @return the position of the first occurrence of the value in [from, to), or -1 if the value does not occur.
+     */
+    public static int indexOf(byte[] buffer, int from, int to, byte value) {
+
+        long pattern = ONES * (value & 0xFF);
+
+        int i = from;
+
+        for(; i + 8 <= to; i += 8) {
+
+            long match = zeroBytes(getLong(buffer, i) ^ pattern);
+
+            if (match != 0) {
+                return i + (Long.numberOfTrailingZeros(match) >>> 3);
+            }
+        }
+
+        for(; i < to; i ++) {
+
+            if (buffer[i] == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the position of the first occurrence of any of the two values in [from, to), or -1 if neither occurs.
+     */
+    public static int indexOfAny(byte[] buffer, int from, int to, byte value, byte value2) {
+
+        long pattern = ONES * (value & 0xFF);
+        long pattern2 = ONES * (value2 & 0xFF);
+
+        int i = from;
+
+        for(; i + 8 <= to; i += 8) {
+
+            long word = getLong(buffer, i);
+            long match = zeroBytes(word ^ pattern) | zeroBytes(word ^ pattern2);
+
+            if (match != 0) {
+                return i + (Long.numberOfTrailingZeros(match) >>> 3);
+            }
+        }
+
+        for(; i < to; i ++) {
+
+            byte b = buffer[i];
+
+            if (b == value || b == value2) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the little endian long made of the eight bytes starting at the given position.
+     */
+    static long getLong(byte[] buffer, int i) {
+
+        return (buffer[i] & 0xFFL) |
+                (buffer[i + 1] & 0xFFL) << 8 |
+                (buffer[i + 2] & 0xFFL) << 16 |
+                (buffer[i + 3] & 0xFFL) << 24 |
+                (buffer[i + 4] & 0xFFL) << 32 |
+                (buffer[i + 5] & 0xFFL) << 40 |
+                (buffer[i + 6] & 0xFFL) << 48 |
+                (buffer[i + 7] & 0xFFL) << 56;
+    }
+
+    /**
+     * @return a word where the high bit of each byte is set if the corresponding byte of the argument is zero. Unlike
+     * the classic (x - ONES) & ~x & HIGH_BITS test, this variant does not produce false positives above the first zero
+     * byte, so it can also be used to count.
+     */
+    private static long zeroBytes(long x) {
+
+        return ~(((x & ~HIGH_BITS) + ~HIGH_BITS) | x | ~HIGH_BITS);
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    private ByteScanner() {
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.utilities.time.TimeOffset;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes CSV output directly into a reusable, growable ByteBuffer. Character sequences are UTF-8 encoded character
+ * by character and integral numbers are rendered digit by digit, so no intermediate String or byte[] is created for
+ * them. The content is handed over to an OutputStream as a whole buffer.
+ *
+ * The encoding is identical to String.valueOf(...).getBytes(StandardCharsets.UTF_8), including the replacement of
+ * unpaired surrogates with '?'.
+ *
+ * Not thread safe, an instance is used by a single conversion logic.
+ *
+ * @see ToCSV
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class CSVEncoder {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 64 * 1024;
+
+    private static final byte[] SEPARATOR = { ',', ' ' };
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private ByteBuffer buffer;
+
+    // the digits of a long are rendered backwards, in here
+    private final byte[] digits;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    public CSVEncoder() {
+
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public CSVEncoder(int initialCapacity) {
+
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("invalid initial capacity " + initialCapacity);
+        }
+
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+        this.digits = new byte[20];
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Appends the value: integral numbers are rendered without creating a String, character sequences are encoded in
+     * place, anything else is rendered with String.valueOf(). A null value is not rendered at all.
+     */
+    public void append(Object value) {
+
+        if (value == null) {
+            return;
+        }
+
+        if (value instanceof CharSequence) {
+
+            append((CharSequence)value);
+        }
+        else if (value instanceof Long || value instanceof Integer || value instanceof Short ||
+                value instanceof Byte) {
+
+            append(((Number)value).longValue());
+        }
+        else {
+
+            append(String.valueOf(value));
+        }
+    }
+
+    public void append(CharSequence s) {
+
+        int length = s.length();
+
+        //
+        // the worst case is 3 bytes per UTF-16 character
+        //
+        ensureRemaining(length * 3);
+
+        ByteBuffer b = buffer;
+
+        for(int i = 0; i < length; i ++) {
+
+            char c = s.charAt(i);
+
+            if (c < 0x80) {
+
+                b.put((byte)c);
+            }
+            else if (c < 0x800) {
+
+                b.put((byte)(0xc0 | (c >> 6)));
+                b.put((byte)(0x80 | (c & 0x3f)));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+
+                int cp = Character.toCodePoint(c, s.charAt(++ i));
+
+                b.put((byte)(0xf0 | (cp >> 18)));
+                b.put((byte)(0x80 | ((cp >> 12) & 0x3f)));
+                b.put((byte)(0x80 | ((cp >> 6) & 0x3f)));
+                b.put((byte)(0x80 | (cp & 0x3f)));
+            }
+            else if (Character.isSurrogate(c)) {
+
+                b.put((byte)'?');
+            }
+            else {
+
+                b.put((byte)(0xe0 | (c >> 12)));
+                b.put((byte)(0x80 | ((c >> 6) & 0x3f)));
+                b.put((byte)(0x80 | (c & 0x3f)));
+            }
+        }
+    }
+
+    /**
+     * Renders the number in decimal, like Long.toString(), without creating a String.
+     */
+    public void append(long n) {
+
+        ensureRemaining(20);
+
+        if (n == Long.MIN_VALUE) {
+
+            append("-9223372036854775808");
+            return;
+        }
+
+        if (n < 0) {
+
+            buffer.put((byte)'-');
+            n = -n;
+        }
+
+        int i = digits.length;
+
+        do {
+
+            digits[-- i] = (byte)('0' + (n % 10));
+            n /= 10;
+        }
+        while(n != 0);
+
+        buffer.put(digits, i, digits.length - i);
+    }
+
+    /**
+     * Renders the time with the given formatter, whose cached representation of the current second is copied as is.
+     *
+     * @param offset the time offset to render the time in. null means the default time zone.
+     */
+    public void appendTimestamp(long time, TimeOffset offset, TimestampFormatter formatter) {
+
+        //
+        // the formatter writes into an array, so we make room for the longest representation we can reasonably expect
+        //
+        ensureRemaining(4 * formatter.getPattern().length() + 64);
+
+        int position = formatter.formatTo(time, offset, buffer.array(), buffer.arrayOffset() + buffer.position());
+        buffer.position(position - buffer.arrayOffset());
+    }
+
+    /**
+     * Appends the field separator (", ").
+     */
+    public void separator() {
+
+        ensureRemaining(SEPARATOR.length);
+        buffer.put(SEPARATOR);
+    }
+
+    public void endLine() {
+
+        ensureRemaining(1);
+        buffer.put((byte)'\n');
+    }
+
+    /**
+     * @return the number of encoded bytes not yet handed over.
+     */
+    public int size() {
+
+        return buffer.position();
+    }
+
+    /**
+     * Discards the bytes encoded after the given size. Used to roll back a partially encoded line.
+     *
+     * @param size a value previously returned by size().
+     */
+    public void truncate(int size) {
+
+        if (size < 0 || size > buffer.position()) {
+            throw new IllegalArgumentException("invalid size " + size);
+        }
+
+        buffer.position(size);
+    }
+
+    /**
+     * Writes all encoded bytes with a single write() invocation, and clears the buffer.
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+
+        outputStream.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+        buffer.clear();
+    }
+
+    /**
+     * @return a copy of the encoded bytes. The buffer is cleared.
+     */
+    public byte[] toByteArray() {
+
+        byte[] result = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(result);
+        buffer.clear();
+        return result;
+    }
+
+    public int getCapacity() {
+
+        return buffer.capacity();
+    }
+
+    @Override
+    public String toString() {
+
+        return "CSVEncoder[" + buffer.position() + "/" + buffer.capacity() + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private void ensureRemaining(int n) {
+
+        if (buffer.remaining() >= n) {
+            return;
+        }
+
+        int capacity = buffer.capacity();
+
+        while(capacity - buffer.position() < n) {
+            capacity *= 2;
+        }
+
+        ByteBuffer b = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        b.put(buffer);
+        buffer = b;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -17,15 +17,20 @@
 package io.novaordis.events.core;
 
 import io.novaordis.clad.configuration.Configuration;
-import io.novaordis.clad.option.TimestampOption;
+import io.novaordis.clad.option.StringOption;
 import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.FaultEvent;
 import io.novaordis.events.api.event.TimedEvent;
-import io.novaordis.utilities.time.TimeOffset;
-import io.novaordis.utilities.time.Timestamp;
+import io.novaordis.events.filter.InKeySet;
+import io.novaordis.events.filter.KeySet;
+import io.novaordis.events.filter.Predicate;
+import io.novaordis.events.filter.WhereExpression;
+import io.novaordis.utilities.parsing.ParsingException;
 
-import java.text.DateFormat;
-import java.util.Date;
-import java.util.TimeZone;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * The events that match the filters contained by this instance are are returned unchanged by processInternal(),
@@ -34,7 +39,12 @@ import java.util.TimeZone;
  * If at least one of the timestamp filters (from or to) are relative, the EventFilter instance calibrates itself
  * based on the values of the relative timestamp filters and the events.
  *
- * @see TimestampOption#isRelative()
+ * The "where" expression is compiled once, when the instance is built, into a tree of Predicates that are evaluated
+ * after the timestamp filters. The key set membership check ("in-file", "in-key") comes last. Faults are relayed
+ * unchanged, they are not subject to the "where" expression or to the membership check.
+ *
+ * @see TimeWindow
+ * @see WhereExpression
  *
  * @author Ovidiu Feodorov <ovidiu@novaordis.com>
  * @since 7/5/16
@@ -68,13 +78,14 @@ public class EventFilter extends ProcessingLogicBase {
 
     // Attributes ------------------------------------------------------------------------------------------------------
 
-    // null means no "from" clause
-    private Long from;
-    private String uncalibratedFrom;
+    // null means no "from" and "to" clauses
+    private TimeWindow timeWindow;
+
+    // null means no "where" clause
+    private Predicate where;
 
-    // null means no "to" clause
-    private Long to;
-    private String uncalibratedTo;
+    // null means no key set membership check
+    private InKeySet membership;
 
     // Constructors ----------------------------------------------------------------------------------------------------
 
@@ -84,65 +95,50 @@ public class EventFilter extends ProcessingLogicBase {
      */
     private EventFilter(Configuration configuration) throws NoFiltersException {
 
-        TimestampOption fromOption = (TimestampOption)configuration.getGlobalOption(new TimestampOption("from"));
-        TimestampOption toOption = (TimestampOption)configuration.getGlobalOption(new TimestampOption("to"));
+        StringOption whereOption = (StringOption)configuration.getGlobalOption(new StringOption("where"));
+        StringOption inFileOption = (StringOption)configuration.getGlobalOption(new StringOption("in-file"));
+        StringOption inKeyOption = (StringOption)configuration.getGlobalOption(new StringOption("in-key"));
 
-        if (fromOption == null && toOption == null) {
+        this.timeWindow = TimeWindow.buildInstance(configuration);
+
+        if (timeWindow == null && whereOption == null && inFileOption == null && inKeyOption == null) {
             throw new NoFiltersException();
         }
 
-        if (fromOption != null) {
-
-            if (fromOption.isRelative()) {
+        if (inFileOption != null || inKeyOption != null) {
 
-                //
-                // calibrate later
-                //
-
-                uncalibratedFrom = fromOption.getValue();
+            if (inFileOption == null || inKeyOption == null) {
+                throw new IllegalArgumentException("\"in-file\" and \"in-key\" must be used together");
             }
-            else {
-
-                DateFormat df = fromOption.getFullFormat();
-                Date d;
 
-                try {
+            File file = new File(inFileOption.getValue());
+            KeySet keys;
 
-                    d = df.parse(fromOption.getValue());
-                }
-                catch(Exception e) {
-                    throw new IllegalArgumentException("failed to parse the value of the \"from\" option into a date", e);
-                }
+            try {
 
-                this.from = d.getTime();
+                keys = KeySet.load(file);
+            }
+            catch(IOException e) {
+                throw new IllegalArgumentException("failed to read the keys from " + file, e);
             }
-        }
-
-        if (toOption != null) {
 
-            if (toOption.isRelative()) {
+            this.membership = new InKeySet(inKeyOption.getValue(), keys);
+        }
 
-                //
-                // calibrate later
-                //
+        if (whereOption != null) {
 
-                uncalibratedTo = toOption.getValue();
+            String expression = whereOption.getValue();
 
+            if (expression == null || expression.trim().isEmpty()) {
+                throw new IllegalArgumentException("empty \"where\" expression");
             }
-            else {
-
-                DateFormat df = toOption.getFullFormat();
-                Date d;
-
-                try {
 
-                    d = df.parse(toOption.getValue());
-                }
-                catch(Exception e) {
-                    throw new IllegalArgumentException("failed to parse the value of the \"to\" option into a date", e);
-                }
+            try {
 
-                this.to = d.getTime();
+                this.where = WhereExpression.compile(expression);
+            }
+            catch(ParsingException e) {
+                throw new IllegalArgumentException("invalid \"where\" expression: " + e.getMessage(), e);
             }
         }
     }
@@ -159,80 +155,26 @@ public class EventFilter extends ProcessingLogicBase {
     @Override
     protected Event processInternal(Event e) throws Exception {
 
-        String dayPortion = null;
-
-        // the event UTC time adjusted for the local time offset.
-        Long adjustedEventTime = null;
-
-        if (e instanceof TimedEvent) {
-
-            TimedEvent te = (TimedEvent)e;
-            Timestamp ts = te.getTimestamp();
-            dayPortion = ts.elementToString("MM/dd/yy");
-            adjustedEventTime = ts.adjustTime(new TimeOffset(TimeZone.getDefault().getOffset(ts.getTime())));
-        }
-
-        //
-        // if relative timestamp and not calibrated yet, do calibrate for timed events
-        //
-
-        if (uncalibratedFrom != null && adjustedEventTime != null) {
-
-            //
-            // not calibrated yet
-            //
-
-            from = TimestampOption.DEFAULT_FULL_FORMAT.parse(dayPortion + " " + uncalibratedFrom).getTime();
-            uncalibratedFrom = null;
-        }
-
-        if (uncalibratedTo != null && adjustedEventTime != null) {
+        if (timeWindow != null) {
 
             //
-            // not calibrated yet
+            // events without a timestamp do not match a time window
             //
-
-            to = TimestampOption.DEFAULT_FULL_FORMAT.parse(dayPortion + " " + uncalibratedTo).getTime();
-            uncalibratedTo = null;
-        }
-
-        //
-        // we're calibrated
-        //
-
-        if (from != null) {
-
-            if (adjustedEventTime == null) {
-
-                //
-                // we have a "from" filter but not an event timestamp, the event does not match
-                //
-                return null;
-            }
-
-            if (adjustedEventTime < from) {
-                //
-                // we have a timestamp but falls ahead of the threshold
-                //
+            if (!(e instanceof TimedEvent) || !timeWindow.contains(((TimedEvent)e).getTimestamp())) {
                 return null;
             }
         }
 
-        if (to != null) {
+        if (e instanceof FaultEvent) {
+            return e;
+        }
 
-            if (adjustedEventTime == null) {
-                //
-                // we have a "to" filter but not an event timestamp, the event does not match
-                //
-                return null;
-            }
+        if (where != null && !where.test(e)) {
+            return null;
+        }
 
-            if (adjustedEventTime > to) {
-                //
-                // we have a timestamp but falls after the threshold
-                //
-                return null;
-            }
+        if (membership != null && !membership.test(e)) {
+            return null;
         }
 
         return e;
@@ -245,7 +187,7 @@ public class EventFilter extends ProcessingLogicBase {
      */
     public Long getFromTimestampMs() {
 
-        return from;
+        return timeWindow == null ? null : timeWindow.getFrom();
     }
 
     /**
@@ -253,7 +195,44 @@ public class EventFilter extends ProcessingLogicBase {
      */
     public Long getToTimestampMs() {
 
-        return to;
+        return timeWindow == null ? null : timeWindow.getTo();
+    }
+
+    /**
+     * May return null if it was not configured.
+     */
+    public Predicate getWhere() {
+
+        return where;
+    }
+
+    /**
+     * May return null if it was not configured.
+     */
+    public InKeySet getMembership() {
+
+        return membership;
+    }
+
+    /**
+     * @return the names of the event properties the filter reads, which must be decoded by the parsers that support
+     * projection. The timestamp is not included. Never returns null.
+     *
+     * @see io.novaordis.events.httpd.HttpdLineParser#setRequiredProperties(Set)
+     */
+    public Set<String> getRequiredPropertyNames() {
+
+        Set<String> names = new HashSet<>();
+
+        if (where != null) {
+            names.addAll(where.getPropertyNames());
+        }
+
+        if (membership != null) {
+            names.addAll(membership.getPropertyNames());
+        }
+
+        return names;
     }
 
     // Package protected -----------------------------------------------------------------------------------------------
@@ -263,7 +242,7 @@ public class EventFilter extends ProcessingLogicBase {
      */
     boolean isCalibrated() {
 
-        return uncalibratedFrom == null && uncalibratedTo == null;
+        return timeWindow == null || timeWindow.isCalibrated();
     }
 
     // Protected -------------------------------------------------------------------------------------------------------
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+/**
+ * When an OutputChannel hands its buffered bytes over to the underlying channel.
+ *
+ * @see OutputChannel
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public enum FlushPolicy {
+
+    //
+    // when the buffered bytes reach the flush size, and at the end of the stream
+    //
+    SIZE("size"),
+
+    //
+    // as SIZE, and also when the oldest buffered byte is older than the flush interval, even if no more events arrive.
+    // Intended for following a growing log
+    //
+    TIME("time"),
+
+    //
+    // only at the end of the stream. The whole output is held in memory
+    //
+    END_OF_STREAM("end");
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return null if the literal is not a known policy.
+     */
+    public static FlushPolicy fromLiteral(String literal) {
+
+        for(FlushPolicy p: values()) {
+
+            if (p.literal.equals(literal)) {
+                return p;
+            }
+        }
+
+        return null;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final String literal;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    FlushPolicy(String literal) {
+
+        this.literal = literal;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    public String getLiteral() {
+
+        return literal;
+    }
+
+}
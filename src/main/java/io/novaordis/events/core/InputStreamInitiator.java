@@ -39,6 +39,9 @@ public class InputStreamInitiator extends ComponentBase implements Initiator {
 
     private static final Logger log = LoggerFactory.getLogger(InputStreamInitiator.class);
 
+    // the size of the buffer used to read the input stream when the conversion logic accepts bulk input
+    public static final int READ_BUFFER_SIZE = 64 * 1024;
+
     // Static ----------------------------------------------------------------------------------------------------------
 
     // Attributes ------------------------------------------------------------------------------------------------------
@@ -159,11 +162,31 @@ public class InputStreamInitiator extends ComponentBase implements Initiator {
                     boolean eos = false;
                     boolean conversionLogicIssuedEoSEvent = false;
 
+                    //
+                    // if the conversion logic accepts buffers, read the stream in bulk
+                    //
+                    BulkInputStreamConversionLogic bulkConversionLogic =
+                            conversionLogic instanceof BulkInputStreamConversionLogic ?
+                                    (BulkInputStreamConversionLogic)conversionLogic : null;
+
+                    byte[] readBuffer = bulkConversionLogic == null ? null : new byte[READ_BUFFER_SIZE];
+                    int length = 0;
+
                     for(; !subStopped; ) {
 
                         try {
 
-                            int b = inputStream.read();
+                            int b;
+
+                            if (readBuffer == null) {
+
+                                b = inputStream.read();
+                            }
+                            else {
+
+                                length = inputStream.read(readBuffer);
+                                b = length == -1 ? -1 : 0;
+                            }
 
                             if (subStopped) {
 
@@ -180,7 +203,14 @@ public class InputStreamInitiator extends ComponentBase implements Initiator {
                                 eos = true;
                             }
 
-                            conversionLogic.process(b);
+                            if (readBuffer == null || b == -1) {
+
+                                conversionLogic.process(b);
+                            }
+                            else {
+
+                                bulkConversionLogic.process(readBuffer, 0, length);
+                            }
 
                             List<Event> events = conversionLogic.getEvents();
 
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.clad.configuration.Configuration;
+import io.novaordis.clad.option.StringOption;
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.LineEvent;
+import io.novaordis.events.filter.InKeySet;
+import io.novaordis.events.filter.KeySet;
+import io.novaordis.events.filter.Predicate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Discards raw lines that cannot produce relevant events before they reach the parser, so the lines that are not
+ * wanted are never tokenized. Receives LineEvents and relays only those that contain, for each of its literal sets, at
+ * least one literal of the set. The literals are plain, case sensitive substrings. All other events are relayed
+ * unchanged.
+ *
+ * The literals come from the --grep option and, if the caller allows it, from the literals required by the --where
+ * expression.
+ *
+ * The instance may also check the value of a cookie against a KeySet, in place, in the raw line. The line is relayed
+ * if at least one "name=value" occurrence of the cookie has a value that belongs to the set.
+ *
+ * @see Predicate#getRequiredLiterals(Set)
+ * @see KeySet
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class LinePrefilter extends ProcessingLogicBase {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    public static final String LITERAL_SEPARATOR = "||";
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * The class is its own factory, in the same way as EventFilter.
+     *
+     * @param where the compiled --where expression whose required literals should be used for prefiltering. May be
+     *              null.
+     * @param verbatimPropertyNames the names of the properties whose string values appear verbatim in the raw lines.
+     *                              Only the comparisons on these properties yield literals. Must not be null if
+     *                              'where' is not null.
+     * @param cookieMembership a cookie key set membership check to be performed on the raw lines. May be null. The
+     *                         caller must only pass it if the cookie is logged in the "name=value" form. Ignored if
+     *                         the key is not a cookie.
+     *
+     * @return a LinePrefilter instance if the configuration contains literals, literals can be derived from the
+     * where expression or there is a cookie membership check, or null otherwise.
+     *
+     * @throws IllegalArgumentException if the configuration options are invalid.
+     */
+    public static LinePrefilter buildInstance(Configuration configuration, Predicate where,
+                                              Set<String> verbatimPropertyNames, InKeySet cookieMembership) {
+
+        StringOption grep = (StringOption)configuration.getGlobalOption(new StringOption("grep"));
+
+        List<List<String>> literalSets = new ArrayList<>();
+
+        if (grep != null) {
+
+            String value = grep.getValue();
+
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException("empty \"grep\" literal");
+            }
+
+            List<String> literals = new ArrayList<>();
+
+            int start = 0;
+
+            while(true) {
+
+                int i = value.indexOf(LITERAL_SEPARATOR, start);
+                String literal = value.substring(start, i == -1 ? value.length() : i);
+
+                if (literal.isEmpty()) {
+                    throw new IllegalArgumentException("empty \"grep\" literal in \"" + value + "\"");
+                }
+
+                literals.add(literal);
+
+                if (i == -1) {
+                    break;
+                }
+
+                start = i + LITERAL_SEPARATOR.length();
+            }
+
+            literalSets.add(literals);
+        }
+
+        if (where != null) {
+
+            List<String> literals = where.getRequiredLiterals(verbatimPropertyNames);
+
+            if (literals != null) {
+                literalSets.add(literals);
+            }
+        }
+
+        String cookieName = null;
+        KeySet cookieKeys = null;
+
+        if (cookieMembership != null && cookieMembership.getCookieName() != null) {
+
+            cookieName = cookieMembership.getCookieName();
+            cookieKeys = cookieMembership.getKeySet();
+        }
+
+        if (literalSets.isEmpty() && cookieKeys == null) {
+            return null;
+        }
+
+        return new LinePrefilter(literalSets, cookieName, cookieKeys);
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private LiteralMatcher[] matchers;
+
+    // null if the cookie values are not checked
+    private String cookieName;
+    private KeySet cookieKeys;
+
+    private long lines;
+    private long discardedLines;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param literalSets a line is relayed if it contains at least one literal of each set.
+     *
+     * @throws IllegalArgumentException if there are no sets, or a set is empty, or a literal is empty.
+     */
+    public LinePrefilter(List<? extends Collection<String>> literalSets) {
+
+        this(literalSets, null, null);
+    }
+
+    /**
+     * @param literalSets a line is relayed if it contains at least one literal of each set. May be empty if there is a
+     *                    cookie check.
+     * @param cookieName the name of the cookie whose values are checked, null if there is no cookie check.
+     * @param cookieKeys the cookie values a line must contain, null if there is no cookie check.
+     *
+     * @throws IllegalArgumentException if there is nothing to check, or a set is empty, or a literal is empty.
+     */
+    public LinePrefilter(List<? extends Collection<String>> literalSets, String cookieName, KeySet cookieKeys) {
+
+        if ((literalSets == null || literalSets.isEmpty()) && cookieKeys == null) {
+            throw new IllegalArgumentException("no literals");
+        }
+
+        if ((cookieName == null) != (cookieKeys == null) || (cookieName != null && cookieName.isEmpty())) {
+            throw new IllegalArgumentException("both a cookie name and a key set are required");
+        }
+
+        this.matchers = new LiteralMatcher[literalSets == null ? 0 : literalSets.size()];
+
+        for(int i = 0; i < matchers.length; i ++) {
+            matchers[i] = LiteralMatcher.compile(literalSets.get(i));
+        }
+
+        this.cookieName = cookieName;
+        this.cookieKeys = cookieKeys;
+    }
+
+    // ProcessingLogicBase implementation ------------------------------------------------------------------------------
+
+    @Override
+    protected Event processInternal(Event e) throws Exception {
+
+        if (!(e instanceof LineEvent)) {
+            return e;
+        }
+
+        lines ++;
+
+        String line = ((LineEvent)e).get();
+
+        if (line == null) {
+            return e;
+        }
+
+        for(LiteralMatcher m: matchers) {
+
+            if (!m.find(line)) {
+
+                discardedLines ++;
+                return null;
+            }
+        }
+
+        if (cookieKeys != null && !containsCookieKey(line)) {
+
+            discardedLines ++;
+            return null;
+        }
+
+        return e;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the number of lines that were examined.
+     */
+    public long getLineCount() {
+
+        return lines;
+    }
+
+    /**
+     * @return the number of lines that did not contain the literals and were not sent to the parser.
+     */
+    public long getDiscardedLineCount() {
+
+        return discardedLines;
+    }
+
+    public String getStatistics() {
+
+        return discardedLines + " of " + lines + " lines discarded before parsing by " + this;
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder("LinePrefilter[");
+
+        for(int i = 0; i < matchers.length; i ++) {
+
+            if (i > 0) {
+                sb.append(" and ");
+            }
+
+            sb.append(Arrays.toString(matchers[i].getLiterals()));
+        }
+
+        if (cookieKeys != null) {
+
+            if (matchers.length > 0) {
+                sb.append(" and ");
+            }
+
+            sb.append(InKeySet.COOKIE_PREFIX).append(cookieName).append(" in ").append(cookieKeys);
+        }
+
+        return sb.append("]").toString();
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    LiteralMatcher[] getMatchers() {
+
+        return matchers;
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Looks up the values of all "name=value" occurrences of the cookie, in place. The value of a cookie ends at ';'
+     * or ',' (with trailing blanks removed), or at the end of the header. The header may be enclosed in quotes or not,
+     * so we check both the value up to the first blank and the value up to the first separator or quote: the line is
+     * kept if either is a key.
+     */
+    private boolean containsCookieKey(String line) {
+
+        int length = line.length();
+        int nameLength = cookieName.length();
+        int from = 0;
+        int i;
+
+        while((i = line.indexOf(cookieName, from)) != -1) {
+
+            from = i + 1;
+
+            int j = i + nameLength;
+
+            while(j < length && line.charAt(j) == ' ') {
+                j ++;
+            }
+
+            if (j == length || line.charAt(j) != '=') {
+                continue;
+            }
+
+            int start = j + 1;
+
+            while(start < length && line.charAt(start) == ' ') {
+                start ++;
+            }
+
+            int end = start;
+            int firstBlank = -1;
+            char c;
+
+            while(end < length && (c = line.charAt(end)) != ';' && c != ',' && c != '"') {
+
+                if (c == ' ' && firstBlank == -1) {
+                    firstBlank = end;
+                }
+
+                end ++;
+            }
+
+            if (firstBlank != -1 && cookieKeys.contains(line, start, firstBlank)) {
+                return true;
+            }
+
+            while(end > start && line.charAt(end - 1) == ' ') {
+                end --;
+            }
+
+            if (cookieKeys.contains(line, start, end)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Finds whether any of a set of literals occurs in a string, in a single left-to-right pass.
+ *
+ * A single literal is searched with String.indexOf(), which the JVM compiles into a vectorized search that a hand
+ * written Boyer-Moore-Horspool loop cannot beat. Several literals are searched with an Aho-Corasick automaton,
+ * compiled into a dense transition table over the characters that occur in the literals, so each character of the
+ * input costs one table lookup, regardless of the number of literals.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+class LiteralMatcher {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @throws IllegalArgumentException if there are no literals or a literal is empty.
+     */
+    static LiteralMatcher compile(Collection<String> literals) throws IllegalArgumentException {
+
+        if (literals == null || literals.isEmpty()) {
+            throw new IllegalArgumentException("no literals");
+        }
+
+        List<String> distinct = new ArrayList<>();
+
+        for(String s: literals) {
+
+            if (s == null || s.isEmpty()) {
+                throw new IllegalArgumentException("empty literal");
+            }
+
+            if (!distinct.contains(s)) {
+                distinct.add(s);
+            }
+        }
+
+        //
+        // a literal that contains another literal is redundant
+        //
+        List<String> minimal = new ArrayList<>();
+
+        for(String s: distinct) {
+
+            boolean redundant = false;
+
+            for(String t: distinct) {
+
+                if (t != s && s.contains(t)) {
+
+                    redundant = true;
+                    break;
+                }
+            }
+
+            if (!redundant) {
+                minimal.add(s);
+            }
+        }
+
+        return new LiteralMatcher(minimal);
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private String[] literals;
+
+    // only used for a single literal
+    private String literal;
+
+    //
+    // the automaton, only used for several literals. The character class 0 stands for all the characters that do not
+    // occur in the literals
+    //
+    private char[] alphabet;
+    private int[] asciiClasses;
+    private int classCount;
+    private int[] transitions;
+    private boolean[] accepting;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    private LiteralMatcher(List<String> literals) {
+
+        this.literals = literals.toArray(new String[literals.size()]);
+
+        if (this.literals.length == 1) {
+
+            this.literal = this.literals[0];
+        }
+        else {
+
+            buildAutomaton();
+        }
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+
+        return "LiteralMatcher" + Arrays.toString(literals);
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    /**
+     * @return true if at least one of the literals occurs in the given string.
+     */
+    boolean find(String s) {
+
+        if (literal != null) {
+            return s.indexOf(literal) != -1;
+        }
+
+        int state = 0;
+
+        for(int i = 0; i < s.length(); i ++) {
+
+            state = transitions[state * classCount + classOf(s.charAt(i))];
+
+            if (accepting[state]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the literals actually searched, after the redundant ones have been discarded.
+     */
+    String[] getLiterals() {
+
+        return literals;
+    }
+
+    /**
+     * @return the number of states of the automaton, or 0 if a single literal is searched.
+     */
+    int getStateCount() {
+
+        return accepting == null ? 0 : accepting.length;
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private void buildAutomaton() {
+
+        StringBuilder chars = new StringBuilder();
+        int maxStates = 1;
+
+        for(String s: literals) {
+
+            chars.append(s);
+            maxStates += s.length();
+        }
+
+        alphabet = chars.chars().distinct().sorted().collect(
+                StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString().toCharArray();
+
+        classCount = alphabet.length + 1;
+
+        asciiClasses = new int[128];
+
+        for(int i = 0; i < alphabet.length && alphabet[i] < 128; i ++) {
+            asciiClasses[alphabet[i]] = i + 1;
+        }
+
+        //
+        // the trie, -1 means no edge
+        //
+        int[] trie = new int[maxStates * classCount];
+        Arrays.fill(trie, -1);
+        boolean[] terminal = new boolean[maxStates];
+        int states = 1;
+
+        for(String s: literals) {
+
+            int state = 0;
+
+            for(int i = 0; i < s.length(); i ++) {
+
+                int slot = state * classCount + classOf(s.charAt(i));
+
+                if (trie[slot] == -1) {
+                    trie[slot] = states ++;
+                }
+
+                state = trie[slot];
+            }
+
+            terminal[state] = true;
+        }
+
+        //
+        // breadth first traversal, completing the transitions with those of the failure states
+        //
+        transitions = new int[states * classCount];
+        accepting = new boolean[states];
+        int[] failure = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+
+        for(int c = 0; c < classCount; c ++) {
+
+            int next = trie[c];
+
+            if (next == -1) {
+
+                transitions[c] = 0;
+            }
+            else {
+
+                transitions[c] = next;
+                failure[next] = 0;
+                queue[tail ++] = next;
+            }
+        }
+
+        while(head < tail) {
+
+            int state = queue[head ++];
+
+            accepting[state] = terminal[state] || accepting[failure[state]];
+
+            for(int c = 0; c < classCount; c ++) {
+
+                int next = trie[state * classCount + c];
+
+                if (next == -1) {
+
+                    transitions[state * classCount + c] = transitions[failure[state] * classCount + c];
+                }
+                else {
+
+                    transitions[state * classCount + c] = next;
+                    failure[next] = transitions[failure[state] * classCount + c];
+                    queue[tail ++] = next;
+                }
+            }
+        }
+    }
+
+    private int classOf(char c) {
+
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+
+        int i = Arrays.binarySearch(alphabet, c);
+        return i < 0 ? 0 : i + 1;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,492 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.clad.configuration.Configuration;
+import io.novaordis.clad.option.StringOption;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * The buffered output of the OutputStreamTerminator. The bytes are copied into fixed size chunks, and the chunks are
+ * handed over to the underlying channel, according to a FlushPolicy, with a single gathering write. The channel is a
+ * FileChannel, either for the --output-file or for the standard output file descriptor, so System.out and its
+ * per-call synchronization are bypassed.
+ *
+ * The chunks are recycled after they are written.
+ *
+ * Not thread safe, an instance is used by the terminator thread only.
+ *
+ * @see FlushPolicy
+ * @see OutputStreamTerminator
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class OutputChannel extends OutputStream {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    public static final int DEFAULT_FLUSH_SIZE = 1024 * 1024;
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 1000L;
+
+    public static final String FLUSH_INTERVAL_SEPARATOR = ":";
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * The class is its own factory, in the same way as EventFilter. Reads the "output-file" and "flush" options. The
+     * output goes to the standard output if there is no output file. The default flush policy is "size" for files and
+     * "time" for the standard output, so the output of a followed log is not held back.
+     *
+     * @throws IllegalArgumentException if the options are invalid or the output file cannot be opened.
+     */
+    public static OutputChannel buildInstance(Configuration configuration) {
+
+        StringOption outputFileOption = (StringOption)configuration.getGlobalOption(new StringOption("output-file"));
+        StringOption flushOption = (StringOption)configuration.getGlobalOption(new StringOption("flush"));
+
+        FlushPolicy policy = outputFileOption == null ? FlushPolicy.TIME : FlushPolicy.SIZE;
+        long flushIntervalMs = DEFAULT_FLUSH_INTERVAL_MS;
+
+        if (flushOption != null) {
+
+            String value = flushOption.getValue() == null ? "" : flushOption.getValue().trim();
+            String literal = value;
+            int i = value.indexOf(FLUSH_INTERVAL_SEPARATOR);
+
+            if (i != -1) {
+
+                literal = value.substring(0, i);
+                String interval = value.substring(i + 1);
+
+                try {
+
+                    flushIntervalMs = Long.parseLong(interval);
+                }
+                catch(NumberFormatException e) {
+                    flushIntervalMs = -1;
+                }
+
+                if (flushIntervalMs <= 0) {
+                    throw new IllegalArgumentException("invalid flush interval \"" + interval + "\"");
+                }
+            }
+
+            policy = FlushPolicy.fromLiteral(literal);
+
+            if (policy == null) {
+                throw new IllegalArgumentException(
+                        "invalid flush policy \"" + value + "\", use \"size\", \"time[:<milliseconds>]\" or \"end\"");
+            }
+
+            if (i != -1 && policy != FlushPolicy.TIME) {
+                throw new IllegalArgumentException("only the \"time\" flush policy accepts an interval");
+            }
+        }
+
+        WritableByteChannel channel;
+        String name;
+
+        if (outputFileOption == null) {
+
+            //
+            // anything already printed must go out before our first write
+            //
+            System.out.flush();
+
+            channel = new FileOutputStream(FileDescriptor.out).getChannel();
+            name = "stdout";
+        }
+        else {
+
+            name = outputFileOption.getValue();
+
+            try {
+
+                channel = FileChannel.open(Paths.get(name),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            catch(Exception e) {
+                throw new IllegalArgumentException("cannot open output file " + name + ": " + e.getMessage(), e);
+            }
+        }
+
+        return new OutputChannel(name, channel, policy, flushIntervalMs, DEFAULT_FLUSH_SIZE);
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private String name;
+
+    private WritableByteChannel channel;
+
+    private FlushPolicy policy;
+    private long flushIntervalMs;
+    private int flushSize;
+
+    private LongSupplier clock;
+
+    // the filled chunks, in order, followed by the chunk being filled
+    private List<ByteBuffer> chunks;
+    private ByteBuffer current;
+
+    private ArrayDeque<ByteBuffer> spareChunks;
+
+    private long bufferedBytes;
+
+    // the time of the first write after the last flush, meaningful only if there are buffered bytes
+    private long firstBufferedWriteMs;
+
+    private long writtenBytes;
+    private long writeCalls;
+
+    private boolean closed;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param name a human readable name of the destination, for logging.
+     * @param flushIntervalMs only used by the TIME policy.
+     * @param flushSize the number of buffered bytes that triggers a write, for the SIZE and TIME policies.
+     */
+    public OutputChannel(String name, WritableByteChannel channel, FlushPolicy policy, long flushIntervalMs,
+                         int flushSize) {
+
+        this(name, channel, policy, flushIntervalMs, flushSize, System::currentTimeMillis);
+    }
+
+    OutputChannel(String name, WritableByteChannel channel, FlushPolicy policy, long flushIntervalMs, int flushSize,
+                  LongSupplier clock) {
+
+        if (channel == null) {
+            throw new IllegalArgumentException("null channel");
+        }
+
+        if (policy == null) {
+            throw new IllegalArgumentException("null flush policy");
+        }
+
+        if (flushSize <= 0) {
+            throw new IllegalArgumentException("invalid flush size " + flushSize);
+        }
+
+        if (policy == FlushPolicy.TIME && flushIntervalMs <= 0) {
+            throw new IllegalArgumentException("invalid flush interval " + flushIntervalMs);
+        }
+
+        this.name = name;
+        this.channel = channel;
+        this.policy = policy;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushSize = flushSize;
+        this.clock = clock;
+        this.chunks = new ArrayList<>();
+        this.spareChunks = new ArrayDeque<>();
+    }
+
+    // OutputStream overrides ------------------------------------------------------------------------------------------
+
+    @Override
+    public void write(int b) throws IOException {
+
+        ensureOpen();
+
+        if (current == null || !current.hasRemaining()) {
+            newChunk();
+        }
+
+        current.put((byte)b);
+        buffered(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+
+        ensureOpen();
+
+        if (len == 0) {
+            return;
+        }
+
+        int end = off + len;
+
+        while(off < end) {
+
+            if (current == null || !current.hasRemaining()) {
+                newChunk();
+            }
+
+            int n = Math.min(current.remaining(), end - off);
+            current.put(b, off, n);
+            off += n;
+        }
+
+        buffered(len);
+    }
+
+    /**
+     * Writes all buffered bytes, regardless of the flush policy.
+     */
+    @Override
+    public void flush() throws IOException {
+
+        ensureOpen();
+        writeChunks();
+    }
+
+    /**
+     * Writes all buffered bytes and closes the underlying channel. Subsequent invocations have no effect.
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+
+        try {
+
+            writeChunks();
+        }
+        finally {
+
+            closed = true;
+            channel.close();
+        }
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Writes the buffered bytes if the flush policy says it is time. The TIME policy relies on the owner to invoke
+     * this method periodically when no bytes arrive.
+     *
+     * @see OutputChannel#getIdleCheckIntervalMs()
+     */
+    public void flushIfDue() throws IOException {
+
+        if (!closed && isFlushDue()) {
+            writeChunks();
+        }
+    }
+
+    /**
+     * @return how often the owner must invoke flushIfDue() while idle, in milliseconds, or 0 if the flush policy does
+     * not need it.
+     */
+    public long getIdleCheckIntervalMs() {
+
+        return policy == FlushPolicy.TIME ? flushIntervalMs : 0L;
+    }
+
+    public FlushPolicy getFlushPolicy() {
+
+        return policy;
+    }
+
+    public long getFlushIntervalMs() {
+
+        return flushIntervalMs;
+    }
+
+    public int getFlushSize() {
+
+        return flushSize;
+    }
+
+    public long getBufferedByteCount() {
+
+        return bufferedBytes;
+    }
+
+    public long getWrittenByteCount() {
+
+        return writtenBytes;
+    }
+
+    /**
+     * @return the number of write invocations on the underlying channel, a good approximation of the number of system
+     * calls.
+     */
+    public long getWriteCallCount() {
+
+        return writeCalls;
+    }
+
+    public boolean isClosed() {
+
+        return closed;
+    }
+
+    public String getStatistics() {
+
+        return this + " wrote " + writtenBytes + " bytes in " + writeCalls + " write calls";
+    }
+
+    @Override
+    public String toString() {
+
+        return "OutputChannel[" + name + ", " + policy.getLiteral() +
+                (policy == FlushPolicy.TIME ? FLUSH_INTERVAL_SEPARATOR + flushIntervalMs : "") + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    int getSpareChunkCount() {
+
+        return spareChunks.size();
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private void ensureOpen() throws IOException {
+
+        if (closed) {
+            throw new IOException(this + " closed");
+        }
+    }
+
+    private void newChunk() {
+
+        current = spareChunks.isEmpty() ? ByteBuffer.allocate(CHUNK_SIZE) : spareChunks.poll();
+        chunks.add(current);
+    }
+
+    private void buffered(int count) throws IOException {
+
+        if (bufferedBytes == 0) {
+            firstBufferedWriteMs = clock.getAsLong();
+        }
+
+        bufferedBytes += count;
+
+        if (isFlushDue()) {
+            writeChunks();
+        }
+    }
+
+    private boolean isFlushDue() {
+
+        if (bufferedBytes == 0) {
+            return false;
+        }
+
+        switch(policy) {
+
+            case SIZE:
+                return bufferedBytes >= flushSize;
+
+            case TIME:
+                return bufferedBytes >= flushSize || clock.getAsLong() - firstBufferedWriteMs >= flushIntervalMs;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Hands all filled chunks over to the channel, in as few write calls as the channel allows, and recycles them.
+     */
+    private void writeChunks() throws IOException {
+
+        if (bufferedBytes == 0) {
+            return;
+        }
+
+        ByteBuffer[] buffers = new ByteBuffer[chunks.size()];
+
+        for(int i = 0; i < buffers.length; i ++) {
+
+            buffers[i] = chunks.get(i);
+            buffers[i].flip();
+        }
+
+        if (channel instanceof GatheringByteChannel) {
+
+            GatheringByteChannel gc = (GatheringByteChannel)channel;
+
+            //
+            // a gathering write may be partial, start each retry from the first buffer that still has bytes
+            //
+            int first = 0;
+
+            while(first < buffers.length) {
+
+                gc.write(buffers, first, buffers.length - first);
+                writeCalls ++;
+
+                while(first < buffers.length && !buffers[first].hasRemaining()) {
+                    first ++;
+                }
+            }
+        }
+        else {
+
+            for(ByteBuffer b: buffers) {
+
+                while(b.hasRemaining()) {
+
+                    channel.write(b);
+                    writeCalls ++;
+                }
+            }
+        }
+
+        writtenBytes += bufferedBytes;
+        bufferedBytes = 0;
+
+        //
+        // keep enough chunks to fill the flush size without allocating, let the rest go
+        //
+        int maxSpareChunks = (flushSize + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        for(ByteBuffer b: buffers) {
+
+            if (spareChunks.size() < maxSpareChunks) {
+
+                b.clear();
+                spareChunks.add(b);
+            }
+        }
+
+        chunks.clear();
+        current = null;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -18,6 +18,9 @@ package io.novaordis.events.core;
 
 import io.novaordis.events.api.event.Event;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  * The pluggable byte generation logic that turns events arriving over the input queue into bytes written on the
  * output stream.
@@ -71,4 +74,30 @@ public interface OutputStreamConversionLogic extends ConversionLogic {
      */
     byte[] getBytes();
 
+    /**
+     * Writes the available bytes directly on the output stream, sparing the copy made by getBytes(). Implementations
+     * that accumulate bytes in a buffer may hold them back until the buffer fills up, unless flushing is requested.
+     *
+     * The default implementation writes the result of getBytes().
+     *
+     * @param flush if true, all available bytes must be written. The owner Terminator requests flushing when its input
+     *              queue is empty and when the stream ends.
+     *
+     * @return false if the conversion logic wants the output stream closed, with the same semantics as a null
+     * getBytes() result, true otherwise.
+     *
+     * @see OutputStreamConversionLogic#getBytes()
+     */
+    default boolean writeTo(OutputStream outputStream, boolean flush) throws IOException {
+
+        byte[] bytes = getBytes();
+
+        if (bytes == null) {
+            return false;
+        }
+
+        outputStream.write(bytes);
+        return true;
+    }
+
 }
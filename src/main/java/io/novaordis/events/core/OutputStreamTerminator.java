@@ -30,6 +30,15 @@ import java.util.concurrent.TimeUnit;
 /**
  * Terminates an stream by converting the events received on the input queue into bytes it writes on its output stream.
  *
+ * If the output stream is an OutputChannel with a time based flush policy, the terminator wakes up periodically while
+ * no events arrive, so the channel can write the bytes it buffered.
+ *
+ * If the output is compressed (--compress-output), the output stream is a ParallelGzipOutputStream, possibly in front
+ * of an OutputChannel. The idle wake-ups also write the gzip members compressed in the meantime.
+ *
+ * @see OutputChannel
+ * @see ParallelGzipOutputStream
+ *
  * @author Ovidiu Feodorov <ovidiu@novaordis.com>
  * @since 1/24/16
  */
@@ -196,11 +205,39 @@ public class OutputStreamTerminator extends ComponentBase implements Terminator
 
                     boolean shutdown = false;
 
+                    ParallelGzipOutputStream compressor = outputStream instanceof ParallelGzipOutputStream ?
+                            (ParallelGzipOutputStream)outputStream : null;
+
+                    OutputStream channelCandidate = compressor == null ? outputStream : compressor.getTarget();
+
+                    OutputChannel outputChannel =
+                            channelCandidate instanceof OutputChannel ? (OutputChannel)channelCandidate : null;
+
+                    long idleCheckIntervalMs = outputChannel == null ? 0L : outputChannel.getIdleCheckIntervalMs();
+
                     for(; !subStopped; ) {
 
                         try {
 
-                            Event ie = inputQueue.take();
+                            Event ie = idleCheckIntervalMs > 0 ?
+                                    inputQueue.poll(idleCheckIntervalMs, TimeUnit.MILLISECONDS) : inputQueue.take();
+
+                            if (ie == null) {
+
+                                //
+                                // idle, give the output channel a chance to write what it has buffered
+                                //
+                                if (!subStopped) {
+
+                                    if (compressor != null) {
+                                        compressor.writeCompleted();
+                                    }
+
+                                    outputChannel.flushIfDue();
+                                }
+
+                                continue;
+                            }
 
                             if (subStopped) {
 
@@ -225,15 +262,16 @@ public class OutputStreamTerminator extends ComponentBase implements Terminator
 
                             conversionLogic.process(ie);
 
-                            byte[] bytes = conversionLogic.getBytes();
+                            //
+                            // the conversion logic may hold the bytes back while more events are queued, so they are
+                            // written in large chunks
+                            //
+                            boolean flush = eos || shutdown || inputQueue.isEmpty();
 
-                            if (bytes == null) {
+                            if (!conversionLogic.writeTo(outputStream, flush)) {
                                 // close the output stream
                                 outputStream.close();
                             }
-                            else {
-                                outputStream.write(bytes);
-                            }
 
                             if (eos || shutdown) {
 
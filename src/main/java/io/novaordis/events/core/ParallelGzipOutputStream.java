@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.clad.configuration.Configuration;
+import io.novaordis.clad.option.BooleanOption;
+import io.novaordis.clad.option.StringOption;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the output of the OutputStreamTerminator on a pool of worker threads, in the same way as pigz. The bytes
+ * are split into fixed size blocks, each block is compressed independently into a complete gzip member and the members
+ * are written on the underlying stream in order. The result is a standard multi-member gzip file, which gunzip and
+ * GZIPInputStream read as a whole.
+ *
+ * The compressed members are written by the thread that writes into this stream, either when a new block is handed
+ * over to the workers or on writeCompleted(). The number of blocks in flight is bounded, so a slow underlying stream
+ * slows the writer down instead of accumulating memory. The block being filled is only compressed when it is full, or
+ * when the stream is closed.
+ *
+ * Not thread safe, an instance is written by the terminator thread only.
+ *
+ * @see OutputStreamTerminator
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    // the number of blocks in flight, per worker thread
+    public static final int BLOCKS_PER_THREAD = 2;
+
+    private static final int DEFLATER_BUFFER_SIZE = 64 * 1024;
+
+    private static final AtomicInteger poolCounter = new AtomicInteger(0);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * The class is its own factory, in the same way as OutputChannel. Reads the "compress-output" and
+     * "compression-threads" options. The default number of threads is the number of available processors.
+     *
+     * @return null if the output is not to be compressed.
+     *
+     * @throws IllegalArgumentException if the thread count is invalid.
+     */
+    public static ParallelGzipOutputStream buildInstance(Configuration configuration, OutputStream target) {
+
+        BooleanOption compressOutputOption =
+                (BooleanOption)configuration.getGlobalOption(new BooleanOption("compress-output"));
+        StringOption threadsOption =
+                (StringOption)configuration.getGlobalOption(new StringOption("compression-threads"));
+
+        if (compressOutputOption == null || compressOutputOption.getValue() == null ||
+                !compressOutputOption.getValue()) {
+
+            if (threadsOption != null) {
+                throw new IllegalArgumentException("--compression-threads requires --compress-output");
+            }
+
+            return null;
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        if (threadsOption != null) {
+
+            String value = threadsOption.getValue() == null ? "" : threadsOption.getValue().trim();
+
+            try {
+
+                threads = Integer.parseInt(value);
+            }
+            catch(NumberFormatException e) {
+                threads = -1;
+            }
+
+            if (threads <= 0) {
+                throw new IllegalArgumentException("invalid compression thread count \"" + value + "\"");
+            }
+        }
+
+        return new ParallelGzipOutputStream(target, threads, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @return the block, as a complete gzip member.
+     */
+    static byte[] compress(byte[] block, int length) throws IOException {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(length / 4 + 64);
+
+        try(GZIPOutputStream gzip = new GZIPOutputStream(baos, DEFLATER_BUFFER_SIZE)) {
+
+            gzip.write(block, 0, length);
+        }
+
+        return baos.toByteArray();
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private OutputStream target;
+
+    private int threads;
+    private int blockSize;
+    private int maxPendingBlocks;
+
+    private ExecutorService executor;
+
+    // the block being filled
+    private byte[] current;
+    private int position;
+
+    // the blocks handed over to the workers, in order
+    private ArrayDeque<Block> pending;
+
+    private ArrayDeque<byte[]> spareBlocks;
+
+    private long uncompressedBytes;
+    private long compressedBytes;
+    private long blocks;
+
+    private boolean closed;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param target the stream the compressed members are written on. It is closed when this stream is closed.
+     */
+    public ParallelGzipOutputStream(OutputStream target, int threads, int blockSize) {
+
+        if (target == null) {
+            throw new IllegalArgumentException("null target stream");
+        }
+
+        if (threads <= 0) {
+            throw new IllegalArgumentException("invalid thread count " + threads);
+        }
+
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("invalid block size " + blockSize);
+        }
+
+        this.target = target;
+        this.threads = threads;
+        this.blockSize = blockSize;
+        this.maxPendingBlocks = threads * BLOCKS_PER_THREAD;
+        this.pending = new ArrayDeque<>();
+        this.spareBlocks = new ArrayDeque<>();
+
+        String poolName = "Output Compressor " + poolCounter.incrementAndGet();
+        AtomicInteger threadCounter = new AtomicInteger(0);
+
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+
+            Thread t = new Thread(r, poolName + " Thread " + threadCounter.incrementAndGet());
+
+            //
+            // the workers never outlive the application
+            //
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // OutputStream overrides ------------------------------------------------------------------------------------------
+
+    @Override
+    public void write(int b) throws IOException {
+
+        ensureOpen();
+
+        if (current == null) {
+            newBlock();
+        }
+
+        current[position ++] = (byte)b;
+
+        if (position == blockSize) {
+            submitCurrent();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+
+        ensureOpen();
+
+        int end = off + len;
+
+        while(off < end) {
+
+            if (current == null) {
+                newBlock();
+            }
+
+            int n = Math.min(blockSize - position, end - off);
+            System.arraycopy(b, off, current, position, n);
+            position += n;
+            off += n;
+
+            if (position == blockSize) {
+                submitCurrent();
+            }
+        }
+    }
+
+    /**
+     * Writes the members that are already compressed and flushes the underlying stream. The block being filled is not
+     * cut short, a gzip member per flush would defeat the compression of frequently flushed output.
+     */
+    @Override
+    public void flush() throws IOException {
+
+        ensureOpen();
+        writeCompleted();
+        target.flush();
+    }
+
+    /**
+     * Compresses the block being filled, writes all members in order, stops the workers and closes the underlying
+     * stream. A stream that received no bytes produces an empty gzip member, so the output is always a valid gzip
+     * file. Subsequent invocations have no effect.
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+
+        try {
+
+            if (position > 0 || blocks == 0) {
+
+                if (current == null) {
+                    newBlock();
+                }
+
+                submitCurrent();
+            }
+
+            while(!pending.isEmpty()) {
+                writeHead();
+            }
+        }
+        finally {
+
+            closed = true;
+            executor.shutdownNow();
+            target.close();
+        }
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Writes, in order, the members whose compression already completed, without waiting for the others. The owner
+     * invokes it while idle, so the compressed output is not held back until the next block is full.
+     */
+    public void writeCompleted() throws IOException {
+
+        while(!pending.isEmpty() && pending.peek().compressed.isDone()) {
+            writeHead();
+        }
+    }
+
+    /**
+     * @return the stream the compressed members are written on.
+     */
+    public OutputStream getTarget() {
+
+        return target;
+    }
+
+    public int getThreadCount() {
+
+        return threads;
+    }
+
+    public int getBlockSize() {
+
+        return blockSize;
+    }
+
+    /**
+     * @return the number of blocks handed over to the workers and not yet written.
+     */
+    public int getPendingBlockCount() {
+
+        return pending.size();
+    }
+
+    /**
+     * @return a human readable summary of the compression.
+     */
+    public String getStatistics() {
+
+        return this + " compressed " + uncompressedBytes + " bytes into " + compressedBytes + " bytes (" +
+                (uncompressedBytes == 0 ? 0 : Math.round(100d * compressedBytes / uncompressedBytes)) + "%), in " +
+                blocks + " blocks";
+    }
+
+    @Override
+    public String toString() {
+
+        return "ParallelGzipOutputStream[" + threads + " threads, " + blockSize + " byte blocks]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    int getSpareBlockCount() {
+
+        return spareBlocks.size();
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private void ensureOpen() throws IOException {
+
+        if (closed) {
+            throw new IOException(this + " closed");
+        }
+    }
+
+    private void newBlock() {
+
+        current = spareBlocks.isEmpty() ? new byte[blockSize] : spareBlocks.pop();
+        position = 0;
+    }
+
+    /**
+     * Hands the block being filled over to the workers, writes what is already compressed and, if too many blocks are
+     * in flight, waits for the oldest.
+     */
+    private void submitCurrent() throws IOException {
+
+        byte[] block = current;
+        int length = position;
+
+        pending.add(new Block(block, executor.submit(() -> compress(block, length))));
+
+        uncompressedBytes += length;
+        blocks ++;
+
+        current = null;
+        position = 0;
+
+        writeCompleted();
+
+        while(pending.size() >= maxPendingBlocks) {
+            writeHead();
+        }
+    }
+
+    /**
+     * Waits for the oldest block to be compressed and writes it.
+     */
+    private void writeHead() throws IOException {
+
+        Block b = pending.poll();
+
+        byte[] member;
+
+        try {
+
+            member = b.compressed.get();
+        }
+        catch(InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a block to be compressed");
+        }
+        catch(ExecutionException e) {
+
+            throw new IOException("failed to compress block", e.getCause());
+        }
+
+        target.write(member);
+        compressedBytes += member.length;
+
+        if (spareBlocks.size() < maxPendingBlocks) {
+            spareBlocks.push(b.uncompressed);
+        }
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+    private static class Block {
+
+        private final byte[] uncompressed;
+        private final Future<byte[]> compressed;
+
+        private Block(byte[] uncompressed, Future<byte[]> compressed) {
+
+            this.uncompressed = uncompressed;
+            this.compressed = compressed;
+        }
+    }
+
+}
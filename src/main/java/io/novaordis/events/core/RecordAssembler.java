@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.clad.configuration.Configuration;
+import io.novaordis.clad.option.BooleanOption;
+import io.novaordis.clad.option.StringOption;
+import io.novaordis.events.api.event.EndOfStreamEvent;
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.FaultEvent;
+import io.novaordis.events.api.event.LineEvent;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Groups consecutive lines into multi-line records (stack traces, server.log entries, GC log entries), so they can be
+ * parsed by a LineParser in the same streaming pass. Receives LineEvents and emits one LineEvent per record, whose
+ * content is the lines of the record joined with '\n' and whose line number is the number of the first line.
+ *
+ * A line starts a new record if it matches the start-of-record pattern (at the beginning of the line) or, if no
+ * pattern is configured, if it does not start with a blank (indented lines continue the previous record). The lines
+ * that precede the first start of record are records by themselves. Single-line records are relayed unchanged.
+ *
+ * A record is only known to be complete when the next record starts, so the logic holds at most one record. The number
+ * of lines and characters of a record is bounded: the continuation lines that would exceed the limits are discarded,
+ * and a FaultEvent is emitted for the truncated record. Incoming FaultEvents end the current record and are relayed
+ * after it, so the output preserves the input order.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class RecordAssembler extends ProcessingLogicBase {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    public static final int DEFAULT_MAX_RECORD_LINES = 1000;
+
+    public static final int DEFAULT_MAX_RECORD_LENGTH = 1024 * 1024;
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * The class is its own factory, in the same way as EventFilter.
+     *
+     * @return a RecordAssembler instance if configuration contains a start-of-record pattern or requires indentation
+     * based assembly, or null otherwise.
+     *
+     * @throws IllegalArgumentException if the configuration options are invalid.
+     */
+    public static RecordAssembler buildInstance(Configuration configuration) {
+
+        StringOption recordStart = (StringOption)configuration.getGlobalOption(new StringOption("record-start"));
+        BooleanOption indentation =
+                (BooleanOption)configuration.getGlobalOption(new BooleanOption("record-indentation"));
+        StringOption maxLines = (StringOption)configuration.getGlobalOption(new StringOption("max-record-lines"));
+
+        if (recordStart == null && (indentation == null || !indentation.getValue())) {
+            return null;
+        }
+
+        if (recordStart != null && indentation != null && indentation.getValue()) {
+            throw new IllegalArgumentException("a record start pattern and indentation cannot be used together");
+        }
+
+        int maxRecordLines = DEFAULT_MAX_RECORD_LINES;
+
+        if (maxLines != null) {
+
+            try {
+
+                maxRecordLines = Integer.parseInt(maxLines.getValue());
+            }
+            catch(NumberFormatException e) {
+
+                throw new IllegalArgumentException("invalid maximum number of lines per record \"" +
+                        maxLines.getValue() + "\"");
+            }
+        }
+
+        Pattern pattern = recordStart == null ? null : Pattern.compile(recordStart.getValue());
+
+        return new RecordAssembler(pattern, maxRecordLines, DEFAULT_MAX_RECORD_LENGTH);
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // null means indentation based assembly
+    private Pattern recordStart;
+
+    // reused, the logic is always invoked in a single threaded context
+    private Matcher matcher;
+
+    private int maxLines;
+    private int maxLength;
+
+    // the first line of the current record, null if there is no current record
+    private LineEvent first;
+
+    // the content of the current record, only used after the second line arrives
+    private StringBuilder record;
+
+    private int lines;
+    private boolean truncated;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param recordStart the start-of-record pattern, matched at the beginning of each line. If null, the lines that
+     *                    start with a blank continue the current record.
+     * @param maxLines the maximum number of lines in a record.
+     * @param maxLength the maximum number of characters in a record.
+     */
+    public RecordAssembler(Pattern recordStart, int maxLines, int maxLength) {
+
+        if (maxLines < 1) {
+            throw new IllegalArgumentException("invalid maximum number of lines per record " + maxLines);
+        }
+
+        if (maxLength < 1) {
+            throw new IllegalArgumentException("invalid maximum record length " + maxLength);
+        }
+
+        this.recordStart = recordStart;
+        this.matcher = recordStart == null ? null : recordStart.matcher("");
+        this.maxLines = maxLines;
+        this.maxLength = maxLength;
+        this.record = new StringBuilder();
+    }
+
+    // ProcessingLogic implementation ----------------------------------------------------------------------------------
+
+    /**
+     * Flushes the current record before the EndOfStreamEvent is processed.
+     */
+    @Override
+    public boolean process(Event e) throws ClosedException {
+
+        if (e instanceof EndOfStreamEvent && !isClosed() && first != null) {
+            flush();
+        }
+
+        super.process(e);
+
+        return !getEventBuffer().isEmpty();
+    }
+
+    // ProcessingLogicBase implementation ------------------------------------------------------------------------------
+
+    @Override
+    protected Event processInternal(Event e) throws Exception {
+
+        //
+        // we relay FaultEvents, after the current record, which precedes them in the input
+        //
+        if (e instanceof FaultEvent) {
+
+            if (first != null) {
+                flush();
+            }
+
+            return e;
+        }
+
+        if (!(e instanceof LineEvent)) {
+            return new FaultEvent(this + " does not know how to handle " + e);
+        }
+
+        LineEvent le = (LineEvent)e;
+        String line = le.get();
+
+        if (first == null) {
+
+            start(le);
+            return null;
+        }
+
+        if (isRecordStart(line)) {
+
+            flush();
+            start(le);
+            return null;
+        }
+
+        append(line);
+        return null;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    public Pattern getRecordStart() {
+
+        return recordStart;
+    }
+
+    public int getMaxLines() {
+
+        return maxLines;
+    }
+
+    public int getMaxLength() {
+
+        return maxLength;
+    }
+
+    @Override
+    public String toString() {
+
+        return "RecordAssembler[" + (recordStart == null ? "indentation" : recordStart.pattern()) + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    boolean isRecordStart(String line) {
+
+        if (recordStart != null) {
+
+            return matcher.reset(line).lookingAt();
+        }
+
+        return line.isEmpty() || (line.charAt(0) != ' ' && line.charAt(0) != '\t');
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private void start(LineEvent le) {
+
+        first = le;
+        lines = 1;
+        truncated = false;
+        record.setLength(0);
+    }
+
+    private void append(String line) {
+
+        if (truncated) {
+            return;
+        }
+
+        if (lines == 1) {
+            record.append(first.get());
+        }
+
+        if (lines + 1 > maxLines || record.length() + 1 + line.length() > maxLength) {
+
+            truncated = true;
+            return;
+        }
+
+        record.append('\n').append(line);
+        lines ++;
+    }
+
+    /**
+     * Ends the current record and adds it to the event buffer, followed by a FaultEvent if the record was truncated.
+     */
+    private void flush() {
+
+        List<Event> buffer = getEventBuffer();
+
+        if (lines == 1 && !truncated) {
+
+            buffer.add(first);
+        }
+        else {
+
+            buffer.add(new LineEvent(first.getLineNumber(), record.toString()));
+        }
+
+        if (truncated) {
+
+            buffer.add(new FaultEvent("the record starting at line " + first.getLineNumber() + " exceeds " +
+                    maxLines + " lines or " + maxLength + " characters and it was truncated"));
+        }
+
+        first = null;
+        record.setLength(0);
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
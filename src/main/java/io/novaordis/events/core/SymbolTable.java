@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.core;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A bounded interning table that maps character ranges of a line to canonical String instances, without creating a
+ * probe String for the lookup. Meant for low-cardinality values (HTTP methods, host names, thread names, etc.) that
+ * repeat millions of times in a log: all occurrences of a value share the same String instance instead of each
+ * holding its own copy, which matters when millions of events are buffered in queues.
+ *
+ * The table is a two-way set associative array. Each entry carries a saturating hit counter. When a new value maps to
+ * a full set, the counter of the less frequently used entry is decremented and the entry is replaced only when the
+ * counter drops to zero, so frequent symbols are not displaced by a spill of high-cardinality values - those values
+ * are simply returned as new Strings, not interned.
+ *
+ * Not thread safe, intended to be owned by a single parser.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class SymbolTable {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    // longer values are not interned
+    public static final int DEFAULT_MAX_SYMBOL_LENGTH = 256;
+
+    private static final int MAX_COUNT = 0xFFFF;
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final String[] symbols;
+    private final int[] hashes;
+    private final int[] counts;
+
+    // the mask that selects the first entry of the set
+    private final int setMask;
+
+    private final int maxSymbolLength;
+
+    private int size;
+    private long hits;
+    private long misses;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    public SymbolTable() {
+
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_SYMBOL_LENGTH);
+    }
+
+    /**
+     * @param capacity the maximum number of symbols held by the table. Rounded up to a power of two.
+     * @param maxSymbolLength values longer than this are not interned.
+     *
+     * @throws IllegalArgumentException on invalid capacity or length.
+     */
+    public SymbolTable(int capacity, int maxSymbolLength) throws IllegalArgumentException {
+
+        if (capacity < 2 || capacity > (1 << 24)) {
+            throw new IllegalArgumentException("invalid capacity " + capacity);
+        }
+
+        if (maxSymbolLength < 1) {
+            throw new IllegalArgumentException("invalid maximum symbol length " + maxSymbolLength);
+        }
+
+        int c = Integer.highestOneBit(capacity - 1) << 1;
+
+        this.symbols = new String[c];
+        this.hashes = new int[c];
+        this.counts = new int[c];
+        this.setMask = (c - 1) & ~1;
+        this.maxSymbolLength = maxSymbolLength;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @param start the position of the first character of the value (inclusive).
+     * @param end the position right after the last character of the value (exclusive).
+     *
+     * @return the canonical String instance with the content line.substring(start, end), if the value is, or becomes,
+     * a symbol, or a new String otherwise.
+     */
+    public String intern(String line, int start, int end) {
+
+        int length = end - start;
+
+        if (length > maxSymbolLength) {
+            return line.substring(start, end);
+        }
+
+        int h = 0;
+
+        for(int i = start; i < end; i ++) {
+            h = 31 * h + line.charAt(i);
+        }
+
+        int set = (h ^ (h >>> 16)) & setMask;
+
+        for(int i = set; i < set + 2; i ++) {
+
+            String s = symbols[i];
+
+            if (s != null && hashes[i] == h && s.length() == length && s.regionMatches(0, line, start, length)) {
+
+                if (counts[i] < MAX_COUNT) {
+                    counts[i] ++;
+                }
+
+                hits ++;
+                return s;
+            }
+        }
+
+        misses ++;
+
+        return insert(set, h, line.substring(start, end));
+    }
+
+    /**
+     * The byte equivalent of intern(String, int, int), for ISO-8859-1 content: the bytes are mapped to the chars with
+     * the same value, so a byte range and the String decoded from it share the same symbol.
+     *
+     * @param start the position of the first byte of the value (inclusive).
+     * @param end the position right after the last byte of the value (exclusive).
+     */
+    public String intern(byte[] buffer, int start, int end) {
+
+        int length = end - start;
+
+        if (length > maxSymbolLength) {
+            return new String(buffer, start, length, StandardCharsets.ISO_8859_1);
+        }
+
+        int h = 0;
+
+        for(int i = start; i < end; i ++) {
+            h = 31 * h + (buffer[i] & 0xFF);
+        }
+
+        int set = (h ^ (h >>> 16)) & setMask;
+
+        for(int i = set; i < set + 2; i ++) {
+
+            String s = symbols[i];
+
+            if (s != null && hashes[i] == h && s.length() == length && matches(s, buffer, start)) {
+
+                if (counts[i] < MAX_COUNT) {
+                    counts[i] ++;
+                }
+
+                hits ++;
+                return s;
+            }
+        }
+
+        misses ++;
+
+        return insert(set, h, new String(buffer, start, length, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * @return the number of symbols currently held by the table.
+     */
+    public int size() {
+
+        return size;
+    }
+
+    public int getCapacity() {
+
+        return symbols.length;
+    }
+
+    /**
+     * @return the number of lookups that returned a canonical instance.
+     */
+    public long getHits() {
+
+        return hits;
+    }
+
+    public long getMisses() {
+
+        return misses;
+    }
+
+    @Override
+    public String toString() {
+
+        return "SymbolTable[" + size + "/" + symbols.length + ", hits: " + hits + ", misses: " + misses + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the given string, which becomes a symbol unless the set is occupied by more frequent symbols.
+     */
+    private String insert(int set, int h, String s) {
+
+        //
+        // the victim is the empty or the least frequently used entry of the set
+        //
+        int victim = counts[set] <= counts[set + 1] ? set : set + 1;
+
+        if (symbols[victim] != null && --counts[victim] > 0) {
+
+            //
+            // the occupant is still more frequent than the newcomer, keep it
+            //
+            return s;
+        }
+
+        if (symbols[victim] == null) {
+            size ++;
+        }
+
+        symbols[victim] = s;
+        hashes[victim] = h;
+        counts[victim] = 1;
+
+        return s;
+    }
+
+    private static boolean matches(String s, byte[] buffer, int start) {
+
+        for(int i = 0; i < s.length(); i ++) {
+
+            if (s.charAt(i) != (buffer[start + i] & 0xFF)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.clad.configuration.Configuration;
+import io.novaordis.clad.option.TimestampOption;
+import io.novaordis.utilities.time.TimeOffset;
+import io.novaordis.utilities.time.Timestamp;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * The time bounds specified with --from and --to. The timestamps are compared in the local time of the log, so the
+ * event time is adjusted with the difference between the offset of the log and the local time zone offset.
+ *
+ * If at least one of the bounds is relative (a time without a date), the instance calibrates itself with the date of
+ * the first timestamp it sees. The local time zone offset is computed once, and then only when a timestamp crosses a
+ * daylight saving time transition.
+ *
+ * Not thread safe. Each pipeline stage that checks the window needs its own instance.
+ *
+ * @see TimestampOption#isRelative()
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class TimeWindow {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * The class is its own factory, in the same way as EventFilter.
+     *
+     * @return a TimeWindow instance if configuration contains "from" or "to" options, or null otherwise.
+     *
+     * @throws IllegalArgumentException if the options are invalid.
+     */
+    public static TimeWindow buildInstance(Configuration configuration) {
+
+        TimestampOption fromOption = (TimestampOption)configuration.getGlobalOption(new TimestampOption("from"));
+        TimestampOption toOption = (TimestampOption)configuration.getGlobalOption(new TimestampOption("to"));
+
+        if (fromOption == null && toOption == null) {
+            return null;
+        }
+
+        TimeWindow w = new TimeWindow(TimeZone.getDefault());
+
+        if (fromOption != null) {
+
+            if (fromOption.isRelative()) {
+
+                //
+                // calibrate later
+                //
+
+                w.uncalibratedFrom = fromOption.getValue();
+            }
+            else {
+
+                w.from = parse(fromOption, "from");
+            }
+        }
+
+        if (toOption != null) {
+
+            if (toOption.isRelative()) {
+
+                //
+                // calibrate later
+                //
+
+                w.uncalibratedTo = toOption.getValue();
+            }
+            else {
+
+                w.to = parse(toOption, "to");
+            }
+        }
+
+        return w;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // null means no lower bound, or not calibrated yet
+    private Long from;
+    private String uncalibratedFrom;
+
+    // null means no upper bound, or not calibrated yet
+    private Long to;
+    private String uncalibratedTo;
+
+    private ZoneRules zoneRules;
+
+    //
+    // the local offset, valid for the UTC times in the [offsetValidFrom, offsetValidUntil) interval
+    //
+    private TimeOffset localOffset;
+    private long offsetValidFrom;
+    private long offsetValidUntil;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param localTimeZone the time zone the bounds are expressed in.
+     */
+    TimeWindow(TimeZone localTimeZone) {
+
+        this.zoneRules = localTimeZone.toZoneId().getRules();
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * If the window is not calibrated, the timestamp calibrates it.
+     *
+     * @param timestamp null is considered to be outside the window.
+     *
+     * @exception IllegalStateException if the window cannot be calibrated.
+     */
+    public boolean contains(Timestamp timestamp) {
+
+        if (timestamp == null) {
+            return false;
+        }
+
+        if (uncalibratedFrom != null || uncalibratedTo != null) {
+            calibrate(timestamp);
+        }
+
+        long adjustedTime = timestamp.adjustTime(getLocalOffset(timestamp.getTime()));
+
+        return (from == null || adjustedTime >= from) && (to == null || adjustedTime <= to);
+    }
+
+    /**
+     * May return null if it was not configured or calibrated.
+     */
+    public Long getFrom() {
+
+        return from;
+    }
+
+    /**
+     * May return null if it was not configured or calibrated.
+     */
+    public Long getTo() {
+
+        return to;
+    }
+
+    public boolean isCalibrated() {
+
+        return uncalibratedFrom == null && uncalibratedTo == null;
+    }
+
+    @Override
+    public String toString() {
+
+        return "TimeWindow[" + (uncalibratedFrom != null ? uncalibratedFrom : from) + ", " +
+                (uncalibratedTo != null ? uncalibratedTo : to) + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    /**
+     * @return the local time zone offset at the given UTC time.
+     */
+    TimeOffset getLocalOffset(long time) {
+
+        if (localOffset == null || time < offsetValidFrom || time >= offsetValidUntil) {
+
+            Instant instant = Instant.ofEpochMilli(time);
+
+            localOffset = new TimeOffset(zoneRules.getOffset(instant).getTotalSeconds() * 1000);
+
+            //
+            // the transitions happen on second boundaries, so the previous transition of the next millisecond is the
+            // transition at or before the given time
+            //
+            ZoneOffsetTransition previous = zoneRules.previousTransition(instant.plusMillis(1));
+            ZoneOffsetTransition next = zoneRules.nextTransition(instant);
+
+            offsetValidFrom = previous == null ? Long.MIN_VALUE : previous.toEpochSecond() * 1000L;
+            offsetValidUntil = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000L;
+        }
+
+        return localOffset;
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private void calibrate(Timestamp timestamp) {
+
+        String dayPortion = timestamp.elementToString("MM/dd/yy");
+
+        //
+        // the default format is shared, and instances of this class may be used concurrently by different stages
+        //
+        DateFormat format = (DateFormat)TimestampOption.DEFAULT_FULL_FORMAT.clone();
+
+        try {
+
+            if (uncalibratedFrom != null) {
+
+                from = format.parse(dayPortion + " " + uncalibratedFrom).getTime();
+                uncalibratedFrom = null;
+            }
+
+            if (uncalibratedTo != null) {
+
+                to = format.parse(dayPortion + " " + uncalibratedTo).getTime();
+                uncalibratedTo = null;
+            }
+        }
+        catch(ParseException e) {
+
+            throw new IllegalStateException("failed to calibrate " + this + " with " + dayPortion, e);
+        }
+    }
+
+    private static long parse(TimestampOption option, String name) {
+
+        DateFormat df = (DateFormat)option.getFullFormat().clone();
+        Date d;
+
+        try {
+
+            d = df.parse(option.getValue());
+        }
+        catch(Exception e) {
+            throw new IllegalArgumentException(
+                    "failed to parse the value of the \"" + name + "\" option into a date", e);
+        }
+
+        return d.getTime();
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.core;
+
+import io.novaordis.utilities.time.TimeOffset;
+import io.novaordis.utilities.time.Timestamp;
+
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+/**
+ * Renders epoch millis according to a SimpleDateFormat pattern. Unlike a shared SimpleDateFormat, the instances are
+ * safe for concurrent use without any locking, so they can be shared as constants.
+ *
+ * Consecutive events usually share the same second, so the representation of the last formatted second is cached
+ * (both as String and as bytes) and reused as long as the second and the time offset do not change. On a cache hit,
+ * nothing is allocated: the cached representation is returned, or appended to the given sink. On a cache miss, the
+ * representation is produced by a per-thread DateFormat. Patterns that contain sub-second fields are not cached.
+ *
+ * The cache is an immutable object published through a volatile reference.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class TimestampFormatter {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // cache key for "the default time zone"
+    private static final int DEFAULT_TIME_ZONE = Integer.MIN_VALUE;
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final String pattern;
+
+    private final boolean cacheable;
+
+    private final ThreadLocal<DateFormat> dateFormat;
+
+    private volatile CachedSecond cachedSecond;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param pattern a SimpleDateFormat pattern.
+     *
+     * @throws IllegalArgumentException if the pattern is invalid.
+     */
+    public TimestampFormatter(String pattern) throws IllegalArgumentException {
+
+        //
+        // fail early on invalid patterns
+        //
+        new SimpleDateFormat(pattern);
+
+        this.pattern = pattern;
+        this.cacheable = pattern.indexOf('S') == -1;
+        this.dateFormat = ThreadLocal.withInitial(() -> new SimpleDateFormat(pattern));
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    public String getPattern() {
+
+        return pattern;
+    }
+
+    /**
+     * Formats in the default time zone.
+     */
+    public String format(long time) {
+
+        return render(time, null).text;
+    }
+
+    /**
+     * @param offset the time offset to render the time in. null means the default time zone.
+     */
+    public String format(long time, TimeOffset offset) {
+
+        return render(time, offset).text;
+    }
+
+    /**
+     * Formats in the time offset carried by the timestamp, if any, or in the default time zone otherwise.
+     */
+    public String format(Timestamp timestamp) {
+
+        return render(timestamp.getTime(), timestamp.getTimeOffset()).text;
+    }
+
+    /**
+     * @param offset the time offset to render the time in. null means the default time zone.
+     */
+    public void formatTo(long time, TimeOffset offset, StringBuilder sink) {
+
+        sink.append(render(time, offset).text);
+    }
+
+    /**
+     * Writes the representation, UTF-8 encoded, into the given array.
+     *
+     * @param offset the time offset to render the time in. null means the default time zone.
+     *
+     * @return the position in the array right after the last written byte.
+     *
+     * @exception ArrayIndexOutOfBoundsException if the array does not have enough space.
+     */
+    public int formatTo(long time, TimeOffset offset, byte[] sink, int position) {
+
+        byte[] bytes = render(time, offset).bytes;
+        System.arraycopy(bytes, 0, sink, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    @Override
+    public String toString() {
+
+        return "TimestampFormatter[" + pattern + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private CachedSecond render(long time, TimeOffset offset) {
+
+        long second = Math.floorDiv(time, 1000L);
+        int zone = offset == null ? DEFAULT_TIME_ZONE : offset.getOffset();
+
+        CachedSecond c = cachedSecond;
+
+        if (c != null && c.second == second && c.zone == zone) {
+            return c;
+        }
+
+        DateFormat df = dateFormat.get();
+
+        TimeZone timeZone = offset == null ?
+                TimeZone.getDefault() : new SimpleTimeZone(offset.getOffset(), offset.toRFC822String());
+
+        if (!timeZone.equals(df.getTimeZone())) {
+            df.setTimeZone(timeZone);
+        }
+
+        c = new CachedSecond(second, zone, df.format(time));
+
+        if (cacheable) {
+            cachedSecond = c;
+        }
+
+        return c;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+    /**
+     * Immutable.
+     */
+    private static class CachedSecond {
+
+        private final long second;
+        private final int zone;
+        private final String text;
+        private final byte[] bytes;
+
+        CachedSecond(long second, int zone, String text) {
+
+            this.second = second;
+            this.zone = zone;
+            this.text = text;
+            this.bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+}
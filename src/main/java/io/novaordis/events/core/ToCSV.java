@@ -18,15 +18,26 @@ package io.novaordis.events.core;
 
 import io.novaordis.events.api.event.EndOfStreamEvent;
 import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.FaultEvent;
+import io.novaordis.events.api.event.ListProperty;
+import io.novaordis.events.api.event.MapProperty;
+import io.novaordis.events.api.event.Property;
 import io.novaordis.events.api.event.ShutdownEvent;
+import io.novaordis.events.api.event.TimedEvent;
 import io.novaordis.events.api.metric.MetricDefinition;
 import io.novaordis.events.api.metric.MetricDefinitionParser;
+import io.novaordis.events.csv.CSVField;
+import io.novaordis.events.csv.CSVFormat;
 import io.novaordis.events.csv.CSVFormatter;
+import io.novaordis.utilities.time.Timestamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.List;
 import java.util.StringTokenizer;
 
 /**
@@ -39,6 +50,13 @@ import java.util.StringTokenizer;
  * inserted *before* the first event representation. The header starts with a "#" and it contains comma-separated
  * event's properties names. Also see:
  *
+ * The lines are encoded directly into the reusable buffer of a CSVEncoder. If an output format is configured, the
+ * fields are written in place, without going through intermediate Strings. The header, the faults, the introspected
+ * output and the formats that refer to map entries are rendered by the CSVFormatter and then encoded. The buffer is
+ * handed over to the output stream as a whole, once it fills up or when the Terminator asks for a flush.
+ *
+ * @see CSVEncoder
+ *
  * @author Ovidiu Feodorov <ovidiu@novaordis.com>
  * @since 1/24/16
  */
@@ -52,12 +70,26 @@ public class ToCSV implements OutputStreamConversionLogic {
 
     // MM/dd/yy HH:mm:ss (07/25/16 14:00:00) is the default time format so it works straight away with Excel
 
+    /**
+     * @deprecated a shared SimpleDateFormat is not safe for concurrent use. Use DEFAULT_TIMESTAMP_FORMATTER.
+     */
+    @Deprecated
     public static final DateFormat DEFAULT_TIMESTAMP_FORMAT = new SimpleDateFormat("MM/dd/yy HH:mm:ss");
 
+    //
+    // same pattern as DEFAULT_TIMESTAMP_FORMAT, safe for concurrent use
+    //
+    public static final TimestampFormatter DEFAULT_TIMESTAMP_FORMATTER = new TimestampFormatter("MM/dd/yy HH:mm:ss");
+
     public static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
 
     public static final String NULL_EXTERNALIZATION = "";
 
+    //
+    // the encoded bytes are held back until they amount to this much, unless a flush is requested
+    //
+    public static final int FLUSH_THRESHOLD = 64 * 1024;
+
     // Static ----------------------------------------------------------------------------------------------------------
 
     /**
@@ -112,17 +144,24 @@ public class ToCSV implements OutputStreamConversionLogic {
 
     // Attributes ------------------------------------------------------------------------------------------------------
 
-    private StringBuilder sb;
+    private CSVEncoder encoder;
 
     private volatile boolean closed;
 
     private CSVFormatter csvFormatter;
 
+    //
+    // the format the field names were extracted from. The names are null if the format cannot be encoded directly
+    //
+    private CSVFormat encodedFormat;
+    private String[] fieldNames;
+    private boolean[] timestampFields;
+
     // Constructors ----------------------------------------------------------------------------------------------------
 
     public ToCSV() {
 
-        sb = new StringBuilder();
+        encoder = new CSVEncoder();
         csvFormatter = new CSVFormatter();
     }
 
@@ -152,6 +191,11 @@ public class ToCSV implements OutputStreamConversionLogic {
             throw new RuntimeException("ShutdownEvent SUPPORT NOT YET IMPLEMENTED");
         }
 
+        if (encodeDirectly(inputEvent)) {
+
+            return true;
+        }
+
         String s = csvFormatter.format(inputEvent);
 
         if (s == null) {
@@ -160,7 +204,7 @@ public class ToCSV implements OutputStreamConversionLogic {
         }
         else {
 
-            sb.append(s);
+            encoder.append(s);
             return true;
         }
     }
@@ -168,27 +212,29 @@ public class ToCSV implements OutputStreamConversionLogic {
     @Override
     public byte[] getBytes() {
 
-        if (closed) {
+        if (encoder.size() == 0) {
 
-            if (sb.length() != 0) {
+            return closed ? null : EMPTY_BYTE_ARRAY;
+        }
 
-                // there are previously uncollected bytes
-                byte[] result = sb.toString().getBytes();
-                sb.setLength(0);
-                return result;
-            }
-            else {
-                return null;
-            }
+        // if closed, these are previously uncollected bytes
+        return encoder.toByteArray();
+    }
+
+    @Override
+    public boolean writeTo(OutputStream outputStream, boolean flush) throws IOException {
+
+        if (encoder.size() == 0) {
+
+            return !closed;
         }
 
-        if (sb.length() == 0) {
-            return EMPTY_BYTE_ARRAY;
+        if (flush || closed || encoder.size() >= FLUSH_THRESHOLD) {
+
+            encoder.writeTo(outputStream);
         }
 
-        byte[] result = sb.toString().getBytes();
-        sb.setLength(0);
-        return result;
+        return true;
     }
 
     @Override
@@ -210,6 +256,107 @@ public class ToCSV implements OutputStreamConversionLogic {
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    /**
+     * Writes the fields of the configured output format directly into the encoder, using the same rules as the
+     * CSVFormatter: missing properties and null values are rendered as NULL_EXTERNALIZATION, the externalized values
+     * are rendered as they are and the timestamp is rendered with DEFAULT_TIMESTAMP_FORMATTER in the time offset it
+     * carries.
+     *
+     * @return false if the event must be rendered by the CSVFormatter instead, in which case nothing is written.
+     */
+    private boolean encodeDirectly(Event event) {
+
+        CSVFormat format = csvFormatter.getFormat();
+
+        if (format == null || csvFormatter.isHeaderOn() || event instanceof FaultEvent) {
+            return false;
+        }
+
+        if (format != encodedFormat) {
+            extractFieldNames(format);
+        }
+
+        if (fieldNames == null) {
+            return false;
+        }
+
+        int mark = encoder.size();
+
+        for(int i = 0; i < fieldNames.length; i ++) {
+
+            if (i > 0) {
+                encoder.separator();
+            }
+
+            if (timestampFields[i] && event instanceof TimedEvent) {
+
+                Timestamp timestamp = ((TimedEvent)event).getTimestamp();
+
+                if (timestamp != null) {
+                    encoder.appendTimestamp(
+                            timestamp.getTime(), timestamp.getTimeOffset(), DEFAULT_TIMESTAMP_FORMATTER);
+                }
+
+                continue;
+            }
+
+            Property p = event.getProperty(fieldNames[i]);
+
+            if (p == null) {
+                continue;
+            }
+
+            if (p instanceof ListProperty || p instanceof MapProperty) {
+
+                //
+                // the collections have their own rendering rules, leave them to the formatter
+                //
+                encoder.truncate(mark);
+                return false;
+            }
+
+            encoder.append(p.externalizeValue());
+        }
+
+        encoder.endLine();
+        return true;
+    }
+
+    private void extractFieldNames(CSVFormat format) {
+
+        encodedFormat = format;
+        fieldNames = null;
+        timestampFields = null;
+
+        List<CSVField> fields = format.getFields();
+
+        if (fields == null || fields.isEmpty()) {
+            return;
+        }
+
+        String[] names = new String[fields.size()];
+        boolean[] timestamps = new boolean[names.length];
+
+        for(int i = 0; i < names.length; i ++) {
+
+            String name = fields.get(i).getName();
+
+            if (name == null || name.indexOf('.') != -1) {
+
+                //
+                // map entries are resolved by the formatter
+                //
+                return;
+            }
+
+            names[i] = name;
+            timestamps[i] = TimedEvent.TIMESTAMP_PROPERTY_NAME.equals(name);
+        }
+
+        fieldNames = names;
+        timestampFields = timestamps;
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
     // Constants -------------------------------------------------------------------------------------------------------
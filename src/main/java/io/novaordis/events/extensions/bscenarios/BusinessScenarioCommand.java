@@ -38,10 +38,11 @@ import io.novaordis.utilities.time.Timestamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -61,9 +62,21 @@ public class BusinessScenarioCommand extends CommandBase {
 
     private static final BooleanOption STATS_OPTION = new BooleanOption("stats");
 
-    // Static ----------------------------------------------------------------------------------------------------------
+    //
+    // the HttpEvent properties business scenario processing reads - markers, iteration and request sequence IDs travel
+    // as request headers, the session ID as a cookie. The method and the request URI are not used in processing, but
+    // they are rendered, together with the session ID, by HttpEvent.toString() in the fault messages
+    //
+    static final Set<String> REQUIRED_PROPERTIES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            HttpEvent.METHOD,
+            HttpEvent.REQUEST_URI,
+            HttpEvent.COOKIES,
+            HttpEvent.REQUEST_HEADERS,
+            HttpEvent.REQUEST_DURATION,
+            HttpEvent.STATUS_CODE,
+            HttpEvent.ORIGINAL_REQUEST_STATUS_CODE)));
 
-    private static final SimpleDateFormat TIMESTAMP_FORMAT = new SimpleDateFormat(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+    // Static ----------------------------------------------------------------------------------------------------------
 
     public static String formatTimestamp(Timestamp timestamp) {
 
@@ -71,17 +84,12 @@ public class BusinessScenarioCommand extends CommandBase {
         // currently we use the standard httpd timestamp format, but TODO in the future we must generalize this and
         // be able to use the same time format used in the input log - to ease searching.
         //
-        // TODO implement a better concurrent access than synchronization
-        //
 
         if (timestamp == null) {
             return "-";
         }
 
-        synchronized (TIMESTAMP_FORMAT) {
-
-            return timestamp.format(TIMESTAMP_FORMAT);
-        }
+        return HttpdFormatString.TIMESTAMP_FORMATTER.format(timestamp);
     }
 
     // Attributes ------------------------------------------------------------------------------------------------------
@@ -185,6 +193,7 @@ public class BusinessScenarioCommand extends CommandBase {
             });
         }
 
+        runtime.setRequiredProperties(REQUIRED_PROPERTIES);
         runtime.start();
 
         BlockingQueue<Event> httpRequestQueue = runtime.getLastEventProcessor().getOutputQueue();
@@ -20,6 +20,7 @@ import io.novaordis.events.api.event.Event;
 import io.novaordis.events.api.event.ListProperty;
 import io.novaordis.events.api.event.Property;
 import io.novaordis.events.api.event.TimedEvent;
+import io.novaordis.events.core.TimestampFormatter;
 import io.novaordis.events.core.ToCSV;
 
 import java.text.Format;
@@ -36,8 +37,17 @@ public class BusinessScenarioOutputFormatter extends ToCSV {
 
     // Constants -------------------------------------------------------------------------------------------------------
 
+    /**
+     * @deprecated a shared SimpleDateFormat is not safe for concurrent use. Use TIMESTAMP_FORMATTER.
+     */
+    @Deprecated
     public static final Format TIMESTAMP_FORMAT = new SimpleDateFormat("MM/dd/yy HH:mm:ss");
 
+    //
+    // same pattern as TIMESTAMP_FORMAT, safe for concurrent use
+    //
+    public static final TimestampFormatter TIMESTAMP_FORMATTER = new TimestampFormatter("MM/dd/yy HH:mm:ss");
+
     // Static ----------------------------------------------------------------------------------------------------------
 
     private static String[] PROPERTIES_TO_DISPLAY = {
@@ -93,7 +103,7 @@ public class BusinessScenarioOutputFormatter extends ToCSV {
 
             if (TimedEvent.TIMESTAMP_PROPERTY_NAME.equals(propertyName)) {
                 Long timestamp = bse.getTime();
-                s += timestamp == null ? NULL_EXTERNALIZATION : TIMESTAMP_FORMAT.format(timestamp);
+                s += timestamp == null ? NULL_EXTERNALIZATION : TIMESTAMP_FORMATTER.format(timestamp);
             }
             else {
 
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import io.novaordis.events.api.event.Event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Matches if any operand matches. The operands are evaluated in increasing order of their cost, and the evaluation
+ * stops at the first operand that decides the result. The operands have no side effects, so the order does not change
+ * the result.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+class Disjunction implements Predicate {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private Predicate[] operands;
+    private int cost;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    Disjunction(List<Predicate> operands) {
+
+        this.operands = operands.toArray(new Predicate[operands.size()]);
+
+        Arrays.sort(this.operands, Comparator.comparingInt(Predicate::getCost));
+
+        for(Predicate p: this.operands) {
+            cost += p.getCost();
+        }
+    }
+
+    // Predicate implementation ----------------------------------------------------------------------------------------
+
+    @Override
+    public boolean test(Event e) {
+
+        for(Predicate p: operands) {
+
+            if (p.test(e)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public int getCost() {
+
+        return cost;
+    }
+
+    /**
+     * Any operand may match, so the literals are only known if they are known for all operands.
+     */
+    @Override
+    public List<String> getRequiredLiterals(Set<String> verbatimPropertyNames) {
+
+        List<String> result = new ArrayList<>();
+
+        for(Predicate p: operands) {
+
+            List<String> literals = p.getRequiredLiterals(verbatimPropertyNames);
+
+            if (literals == null) {
+                return null;
+            }
+
+            for(String s: literals) {
+
+                if (!result.contains(s)) {
+                    result.add(s);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * The union of the property names of the operands.
+     */
+    @Override
+    public Set<String> getPropertyNames() {
+
+        Set<String> names = new HashSet<>();
+
+        for(Predicate p: operands) {
+            names.addAll(p.getPropertyNames());
+        }
+
+        return names;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder("(");
+
+        for(int i = 0; i < operands.length; i ++) {
+
+            if (i > 0) {
+                sb.append(" or ");
+            }
+
+            sb.append(operands[i]);
+        }
+
+        return sb.append(")").toString();
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    Predicate[] getOperands() {
+
+        return operands;
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
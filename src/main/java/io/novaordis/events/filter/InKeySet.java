@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.Property;
+import io.novaordis.events.httpd.HttpEvent;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Matches the events whose key, the string value of a property or of a cookie, belongs to a KeySet.
+ *
+ * @see KeySet
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class InKeySet implements Predicate {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    public static final String COOKIE_PREFIX = "cookie:";
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // null if the key is a cookie
+    private String propertyName;
+
+    // null if the key is a property
+    private String cookieName;
+
+    private KeySet keySet;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param key the name of the event property whose value is looked up, or "cookie:<cookie-name>" for the value of a
+     *            cookie of a HttpEvent.
+     */
+    public InKeySet(String key, KeySet keySet) {
+
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("null or empty key");
+        }
+
+        if (keySet == null) {
+            throw new IllegalArgumentException("null key set");
+        }
+
+        if (key.startsWith(COOKIE_PREFIX)) {
+
+            cookieName = key.substring(COOKIE_PREFIX.length());
+
+            if (cookieName.isEmpty()) {
+                throw new IllegalArgumentException("missing cookie name in \"" + key + "\"");
+            }
+        }
+        else {
+
+            propertyName = key;
+        }
+
+        this.keySet = keySet;
+    }
+
+    // Predicate implementation ----------------------------------------------------------------------------------------
+
+    @Override
+    public boolean test(Event e) {
+
+        Object value;
+
+        if (cookieName != null) {
+
+            value = e instanceof HttpEvent ? ((HttpEvent)e).getCookie(cookieName) : null;
+        }
+        else {
+
+            Property p = e.getProperty(propertyName);
+            value = p == null ? null : p.getValue();
+        }
+
+        if (value == null) {
+            return false;
+        }
+
+        return keySet.contains(value instanceof String ? (String)value : value.toString());
+    }
+
+    @Override
+    public int getCost() {
+
+        return 2;
+    }
+
+    @Override
+    public List<String> getRequiredLiterals(Set<String> verbatimPropertyNames) {
+
+        return null;
+    }
+
+    /**
+     * A cookie value may come either from the individually logged cookies, or from the Cookie request header.
+     */
+    @Override
+    public Set<String> getPropertyNames() {
+
+        if (cookieName != null) {
+
+            return new HashSet<>(Arrays.asList(HttpEvent.COOKIES, HttpEvent.REQUEST_HEADERS));
+        }
+
+        return Collections.singleton(propertyName);
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return null if the key is a cookie.
+     */
+    public String getPropertyName() {
+
+        return propertyName;
+    }
+
+    /**
+     * @return null if the key is a property.
+     */
+    public String getCookieName() {
+
+        return cookieName;
+    }
+
+    public KeySet getKeySet() {
+
+        return keySet;
+    }
+
+    @Override
+    public String toString() {
+
+        return (cookieName != null ? COOKIE_PREFIX + cookieName : propertyName) + " in " + keySet;
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A compact set of string keys (session IDs, client IPs, URIs) for membership checks against large key lists.
+ *
+ * The keys are not stored. Each key is reduced to a 64-bit fingerprint, kept in an open addressing table with linear
+ * probing. A blocked Bloom filter (all the bits of a key in the same 64-bit word, so a check costs a single memory
+ * access in a structure that fits in cache) rejects most of the absent keys without touching the table. The memory
+ * use is between 12 and 24 bytes per key, as the structures are sized in powers of two. The probability of a false
+ * positive is about n/2^64 per lookup, for n keys.
+ *
+ * The lookups can be made on a region of a CharSequence, so keys can be checked in place, in a raw line.
+ *
+ * Not thread safe for modifications. Lookups can be made concurrently once the set has been populated.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class KeySet {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // the table is grown when it is three quarters full
+    private static final int MAX_LOAD_NUMERATOR = 3;
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    private static final int BLOOM_BITS_PER_KEY = 10;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Loads the keys from a UTF-8 file, one key per line. The keys are trimmed, blank lines are ignored.
+     */
+    public static KeySet load(File file) throws IOException {
+
+        KeySet keys = new KeySet(1024);
+
+        try(BufferedReader br =
+                    new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+
+            String line;
+
+            while((line = br.readLine()) != null) {
+
+                line = line.trim();
+
+                if (!line.isEmpty()) {
+                    keys.add(line);
+                }
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 characters, with the MurmurHash3 finalizer, so all the bits depend on all the characters.
+     */
+    static long hash(CharSequence s, int start, int end) {
+
+        long h = FNV_OFFSET_BASIS;
+
+        for(int i = start; i < end; i ++) {
+
+            h ^= s.charAt(i);
+            h *= FNV_PRIME;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        //
+        // 0 marks the empty slots
+        //
+        return h == 0 ? 1 : h;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private long[] fingerprints;
+    private int size;
+
+    private long[] bloom;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param expectedSize the number of keys the set is sized for. The set grows if more keys are added.
+     */
+    public KeySet(int expectedSize) {
+
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("invalid expected size " + expectedSize);
+        }
+
+        allocate(expectedSize);
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return true if the key was not already in the set.
+     */
+    public boolean add(CharSequence key) {
+
+        if (key == null) {
+            throw new IllegalArgumentException("null key");
+        }
+
+        long fingerprint = hash(key, 0, key.length());
+
+        if (containsFingerprint(fingerprint)) {
+            return false;
+        }
+
+        if ((size + 1) * MAX_LOAD_DENOMINATOR > fingerprints.length * MAX_LOAD_NUMERATOR) {
+
+            long[] old = fingerprints;
+            allocate(fingerprints.length);
+
+            for(long f: old) {
+
+                if (f != 0) {
+                    insert(f);
+                }
+            }
+        }
+
+        insert(fingerprint);
+        size ++;
+        return true;
+    }
+
+    public boolean contains(CharSequence key) {
+
+        return key != null && contains(key, 0, key.length());
+    }
+
+    /**
+     * Checks the region [start, end) of the given sequence, without extracting it.
+     */
+    public boolean contains(CharSequence s, int start, int end) {
+
+        long fingerprint = hash(s, start, end);
+
+        long bits = bloomBits(fingerprint);
+
+        if ((bloom[bloomWord(fingerprint)] & bits) != bits) {
+            return false;
+        }
+
+        return containsFingerprint(fingerprint);
+    }
+
+    public int size() {
+
+        return size;
+    }
+
+    /**
+     * @return the approximate number of bytes used by the set.
+     */
+    public long getMemoryFootprint() {
+
+        return 8L * (fingerprints.length + bloom.length);
+    }
+
+    @Override
+    public String toString() {
+
+        return "KeySet[" + size + " keys]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    int getCapacity() {
+
+        return fingerprints.length;
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Allocates empty structures sized for the given number of keys.
+     */
+    private void allocate(int keys) {
+
+        int slots = Integer.highestOneBit(Math.max(16, keys * MAX_LOAD_DENOMINATOR / MAX_LOAD_NUMERATOR + 1) * 2 - 1);
+        fingerprints = new long[slots];
+
+        int words = Integer.highestOneBit(Math.max(1, slots * MAX_LOAD_NUMERATOR / MAX_LOAD_DENOMINATOR *
+                BLOOM_BITS_PER_KEY / 64) * 2 - 1);
+        bloom = new long[words];
+    }
+
+    /**
+     * Records the fingerprint in the table and in the Bloom filter. The fingerprint must not already be present.
+     */
+    private void insert(long fingerprint) {
+
+        int mask = fingerprints.length - 1;
+        int slot = (int)fingerprint & mask;
+
+        while(fingerprints[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        fingerprints[slot] = fingerprint;
+        bloom[bloomWord(fingerprint)] |= bloomBits(fingerprint);
+    }
+
+    private boolean containsFingerprint(long fingerprint) {
+
+        int mask = fingerprints.length - 1;
+
+        for(int slot = (int)fingerprint & mask; ; slot = (slot + 1) & mask) {
+
+            long f = fingerprints[slot];
+
+            if (f == fingerprint) {
+                return true;
+            }
+
+            if (f == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The word is selected by the high bits, independent from the bits that select the table slot.
+     */
+    private int bloomWord(long fingerprint) {
+
+        return (int)(fingerprint >>> 40) & (bloom.length - 1);
+    }
+
+    /**
+     * Four bits, selected by four 6-bit fragments of the fingerprint.
+     */
+    private static long bloomBits(long fingerprint) {
+
+        return (1L << (fingerprint >>> 16)) |
+                (1L << (fingerprint >>> 22)) |
+                (1L << (fingerprint >>> 28)) |
+                (1L << (fingerprint >>> 34));
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
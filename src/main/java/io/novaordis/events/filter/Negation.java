@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import io.novaordis.events.api.event.Event;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+class Negation implements Predicate {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private Predicate operand;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    Negation(Predicate operand) {
+
+        this.operand = operand;
+    }
+
+    // Predicate implementation ----------------------------------------------------------------------------------------
+
+    @Override
+    public boolean test(Event e) {
+
+        return !operand.test(e);
+    }
+
+    @Override
+    public int getCost() {
+
+        return operand.getCost();
+    }
+
+    @Override
+    public List<String> getRequiredLiterals(Set<String> verbatimPropertyNames) {
+
+        return null;
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+
+        return operand.getPropertyNames();
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+
+        return "not " + operand;
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.Property;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares a numeric property with a constant. Integral constants are compared with integral property values without
+ * conversion to floating point. Events that do not have the property, or whose property value is not a Number, do not
+ * match.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+class NumericComparison implements Predicate {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private String propertyName;
+    private Operator operator;
+
+    // true if the constant is an integer, in which case longValue is authoritative
+    private boolean integral;
+    private long longValue;
+    private double doubleValue;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    NumericComparison(String propertyName, Operator operator, long value) {
+
+        this.propertyName = propertyName;
+        this.operator = operator;
+        this.integral = true;
+        this.longValue = value;
+        this.doubleValue = value;
+    }
+
+    NumericComparison(String propertyName, Operator operator, double value) {
+
+        this.propertyName = propertyName;
+        this.operator = operator;
+        this.integral = false;
+        this.doubleValue = value;
+    }
+
+    // Predicate implementation ----------------------------------------------------------------------------------------
+
+    @Override
+    public boolean test(Event e) {
+
+        Property p = e.getProperty(propertyName);
+
+        if (p == null) {
+            return false;
+        }
+
+        Object v = p.getValue();
+
+        if (v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte) {
+
+            long l = ((Number)v).longValue();
+
+            if (integral) {
+                return evaluate(Long.compare(l, longValue));
+            }
+
+            return evaluate(Double.compare(l, doubleValue));
+        }
+
+        if (v instanceof Number) {
+
+            return evaluate(Double.compare(((Number)v).doubleValue(), doubleValue));
+        }
+
+        return false;
+    }
+
+    @Override
+    public int getCost() {
+
+        return 1;
+    }
+
+    @Override
+    public List<String> getRequiredLiterals(Set<String> verbatimPropertyNames) {
+
+        return null;
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+
+        return Collections.singleton(propertyName);
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+
+        return propertyName + " " + operator.getLiteral() + " " + (integral ? Long.toString(longValue) : doubleValue);
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private boolean evaluate(int comparison) {
+
+        switch(operator) {
+
+            case EQ:
+                return comparison == 0;
+            case NE:
+                return comparison != 0;
+            case LT:
+                return comparison < 0;
+            case LE:
+                return comparison <= 0;
+            case GT:
+                return comparison > 0;
+            case GE:
+                return comparison >= 0;
+            default:
+                throw new IllegalStateException(operator + " is not a numeric operator");
+        }
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
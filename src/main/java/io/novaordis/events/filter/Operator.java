@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+/**
+ * The comparison operators of the --where expression language.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public enum Operator {
+
+    EQ("="),
+    NE("!="),
+    LT("<"),
+    LE("<="),
+    GT(">"),
+    GE(">="),
+    STARTS_WITH("^="),
+    CONTAINS("*="),
+    MATCHES("~");
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return null if the literal is not a known operator. "==" is equivalent with "=".
+     */
+    public static Operator fromLiteral(String literal) {
+
+        if ("==".equals(literal)) {
+            return EQ;
+        }
+
+        for(Operator o: values()) {
+
+            if (o.literal.equals(literal)) {
+                return o;
+            }
+        }
+
+        return null;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private String literal;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    Operator(String literal) {
+
+        this.literal = literal;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    public String getLiteral() {
+
+        return literal;
+    }
+
+    /**
+     * @return true if the operator orders its operands, and so it requires a numeric value.
+     */
+    public boolean isOrdering() {
+
+        return this == LT || this == LE || this == GT || this == GE;
+    }
+
+}
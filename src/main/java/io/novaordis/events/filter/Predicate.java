@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import io.novaordis.events.api.event.Event;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A compiled boolean condition over the properties of an event.
+ *
+ * @see WhereExpression
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public interface Predicate {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    boolean test(Event e);
+
+    /**
+     * @return a relative estimate of the cost of an evaluation, used to evaluate cheaper operands first.
+     */
+    int getCost();
+
+    /**
+     * Literals that can be searched in the raw text of an event before parsing it: the predicate can only match an
+     * event whose property values contain at least one of the literals. Only the comparisons on the properties whose
+     * string values are copied verbatim from the raw text yield literals: the values of the other properties (maps,
+     * numbers, query strings) are rendered differently than they appear in the raw text.
+     *
+     * @param verbatimPropertyNames the names of the properties whose string values appear verbatim in the raw text.
+     *
+     * @return the literals, or null if no such literals can be derived from the predicate. Never returns an empty
+     * list, and never returns empty literals.
+     */
+    List<String> getRequiredLiterals(Set<String> verbatimPropertyNames);
+
+    /**
+     * The names of the event properties the predicate reads. The parsers that support projection must decode these
+     * properties, otherwise the predicate does not see them and does not match the event.
+     *
+     * @return the property names, never null.
+     */
+    Set<String> getPropertyNames();
+
+}
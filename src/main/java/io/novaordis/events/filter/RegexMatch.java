@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.Property;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches the string representation of a property against a regular expression, anywhere in the value. Events that do
+ * not have the property do not match.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+class RegexMatch implements Predicate {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private String propertyName;
+    private Pattern pattern;
+
+    // reused, the filter is invoked in a single threaded context
+    private Matcher matcher;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    RegexMatch(String propertyName, Pattern pattern) {
+
+        this.propertyName = propertyName;
+        this.pattern = pattern;
+        this.matcher = pattern.matcher("");
+    }
+
+    // Predicate implementation ----------------------------------------------------------------------------------------
+
+    @Override
+    public boolean test(Event e) {
+
+        Property p = e.getProperty(propertyName);
+
+        if (p == null) {
+            return false;
+        }
+
+        Object v = p.getValue();
+
+        return v != null && matcher.reset(v instanceof String ? (String)v : v.toString()).find();
+    }
+
+    @Override
+    public int getCost() {
+
+        return 10;
+    }
+
+    @Override
+    public List<String> getRequiredLiterals(Set<String> verbatimPropertyNames) {
+
+        return null;
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+
+        return Collections.singleton(propertyName);
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+
+        return propertyName + " ~ '" + pattern.pattern() + "'";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.Property;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares the string representation of a property with a constant: equality, inequality, prefix or substring. Events
+ * that do not have the property do not match.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+class StringComparison implements Predicate {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private String propertyName;
+    private Operator operator;
+    private String value;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    StringComparison(String propertyName, Operator operator, String value) {
+
+        if (operator != Operator.EQ && operator != Operator.NE &&
+                operator != Operator.STARTS_WITH && operator != Operator.CONTAINS) {
+
+            throw new IllegalArgumentException(operator + " is not a string operator");
+        }
+
+        this.propertyName = propertyName;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    // Predicate implementation ----------------------------------------------------------------------------------------
+
+    @Override
+    public boolean test(Event e) {
+
+        Property p = e.getProperty(propertyName);
+
+        if (p == null) {
+            return false;
+        }
+
+        Object v = p.getValue();
+
+        if (v == null) {
+            return false;
+        }
+
+        String s = v instanceof String ? (String)v : v.toString();
+
+        switch(operator) {
+
+            case EQ:
+                return s.equals(value);
+            case NE:
+                return !s.equals(value);
+            case STARTS_WITH:
+                return s.startsWith(value);
+            default:
+                return s.contains(value);
+        }
+    }
+
+    @Override
+    public int getCost() {
+
+        return operator == Operator.CONTAINS ? 3 : 2;
+    }
+
+    /**
+     * Quotes and backslashes may be escaped in the raw text, so values that contain them do not yield literals. Neither
+     * do the values of the properties that are not copied verbatim from the raw text.
+     */
+    @Override
+    public List<String> getRequiredLiterals(Set<String> verbatimPropertyNames) {
+
+        if (!verbatimPropertyNames.contains(propertyName)) {
+            return null;
+        }
+
+        if (operator == Operator.NE || value.isEmpty() || value.indexOf('"') != -1 || value.indexOf('\\') != -1) {
+            return null;
+        }
+
+        return Collections.singletonList(value);
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+
+        return Collections.singleton(propertyName);
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+
+        return propertyName + " " + operator.getLiteral() + " '" + value + "'";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
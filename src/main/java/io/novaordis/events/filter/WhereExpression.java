@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import io.novaordis.utilities.parsing.ParsingException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiles --where expressions into a tree of Predicates. The expression is parsed once, the events are evaluated
+ * against the tree, without any further interpretation.
+ *
+ * Grammar:
+ *
+ * expression := conjunction ( ("or" | "||") conjunction )*
+ * conjunction := negation ( ("and" | "&&") negation )*
+ * negation := ("not" | "!") negation | "(" expression ")" | comparison
+ * comparison := property-name operator value
+ * operator := "=" | "==" | "!=" | "<" | "<=" | ">" | ">=" | "^=" (starts with) | "*=" (contains) | "~" (regex)
+ * value := number | word | 'quoted string' | "quoted string"
+ *
+ * An unquoted numeric value is compared numerically, any other value is compared with the string representation of
+ * the property. The ordering operators require numeric values. Events that do not have the property referred by a
+ * comparison do not match the comparison.
+ *
+ * Examples:
+ *
+ * status-code >= 500
+ * request-uri ^= /api and request-duration > 2000
+ * not (method = GET or method = HEAD)
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class WhereExpression {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Pattern INTEGER = Pattern.compile("-?\\d+");
+    private static final Pattern DECIMAL = Pattern.compile("-?\\d*\\.\\d+|-?\\d+\\.\\d*");
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @throws ParsingException if the expression is not valid.
+     */
+    public static Predicate compile(String expression) throws ParsingException {
+
+        if (expression == null) {
+            throw new IllegalArgumentException("null expression");
+        }
+
+        WhereExpression we = new WhereExpression(expression);
+
+        Predicate p = we.expression();
+
+        if (we.token.type != TokenType.END) {
+            throw we.error("unexpected " + we.token);
+        }
+
+        return p;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private String expression;
+
+    // the position of the next token
+    private int position;
+
+    // the current token
+    private Token token;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    private WhereExpression(String expression) throws ParsingException {
+
+        this.expression = expression;
+        this.position = 0;
+        next();
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private Predicate expression() throws ParsingException {
+
+        List<Predicate> operands = new ArrayList<>();
+        operands.add(conjunction());
+
+        while(token.type == TokenType.OR) {
+
+            next();
+            operands.add(conjunction());
+        }
+
+        return operands.size() == 1 ? operands.get(0) : new Disjunction(operands);
+    }
+
+    private Predicate conjunction() throws ParsingException {
+
+        List<Predicate> operands = new ArrayList<>();
+        operands.add(negation());
+
+        while(token.type == TokenType.AND) {
+
+            next();
+            operands.add(negation());
+        }
+
+        return operands.size() == 1 ? operands.get(0) : new Conjunction(operands);
+    }
+
+    private Predicate negation() throws ParsingException {
+
+        if (token.type == TokenType.NOT) {
+
+            next();
+            return new Negation(negation());
+        }
+
+        if (token.type == TokenType.LEFT_PARENTHESIS) {
+
+            next();
+            Predicate p = expression();
+
+            if (token.type != TokenType.RIGHT_PARENTHESIS) {
+                throw error("missing ')', found " + token);
+            }
+
+            next();
+            return p;
+        }
+
+        return comparison();
+    }
+
+    private Predicate comparison() throws ParsingException {
+
+        if (token.type != TokenType.WORD) {
+            throw error("expecting a property name, found " + token);
+        }
+
+        String propertyName = token.text;
+        next();
+
+        if (token.type != TokenType.OPERATOR) {
+            throw error("expecting an operator after \"" + propertyName + "\", found " + token);
+        }
+
+        Operator operator = Operator.fromLiteral(token.text);
+        next();
+
+        if (token.type != TokenType.WORD && token.type != TokenType.STRING) {
+            throw error("expecting a value after \"" + propertyName + " " + operator.getLiteral() + "\", found " +
+                    token);
+        }
+
+        Token value = token;
+        next();
+
+        boolean numeric = value.type == TokenType.WORD && isNumber(value.text);
+
+        if (operator == Operator.MATCHES) {
+
+            try {
+
+                return new RegexMatch(propertyName, Pattern.compile(value.text));
+            }
+            catch(PatternSyntaxException e) {
+
+                throw new ParsingException("invalid regular expression \"" + value.text + "\"", e);
+            }
+        }
+
+        if (operator.isOrdering() && !numeric) {
+            throw error("operator " + operator.getLiteral() + " requires a numeric value, found " + value, value);
+        }
+
+        if (numeric && (operator.isOrdering() || operator == Operator.EQ || operator == Operator.NE)) {
+
+            if (INTEGER.matcher(value.text).matches()) {
+
+                try {
+
+                    return new NumericComparison(propertyName, operator, Long.parseLong(value.text));
+                }
+                catch(NumberFormatException e) {
+
+                    // too large for a long, compare as double
+                }
+            }
+
+            return new NumericComparison(propertyName, operator, Double.parseDouble(value.text));
+        }
+
+        return new StringComparison(propertyName, operator, value.text);
+    }
+
+    private void next() throws ParsingException {
+
+        int length = expression.length();
+
+        while(position < length && Character.isWhitespace(expression.charAt(position))) {
+            position ++;
+        }
+
+        int start = position;
+
+        if (position == length) {
+
+            token = new Token(TokenType.END, null, start);
+            return;
+        }
+
+        char c = expression.charAt(position);
+        char n = position + 1 < length ? expression.charAt(position + 1) : 0;
+
+        if (c == '(') {
+
+            position ++;
+            token = new Token(TokenType.LEFT_PARENTHESIS, "(", start);
+        }
+        else if (c == ')') {
+
+            position ++;
+            token = new Token(TokenType.RIGHT_PARENTHESIS, ")", start);
+        }
+        else if (c == '&' && n == '&') {
+
+            position += 2;
+            token = new Token(TokenType.AND, "&&", start);
+        }
+        else if (c == '|' && n == '|') {
+
+            position += 2;
+            token = new Token(TokenType.OR, "||", start);
+        }
+        else if (c == '!' && n != '=') {
+
+            position ++;
+            token = new Token(TokenType.NOT, "!", start);
+        }
+        else if (c == '=' || c == '!' || c == '<' || c == '>' || ((c == '^' || c == '*') && n == '=')) {
+
+            position += n == '=' ? 2 : 1;
+            token = new Token(TokenType.OPERATOR, expression.substring(start, position), start);
+        }
+        else if (c == '~') {
+
+            position ++;
+            token = new Token(TokenType.OPERATOR, "~", start);
+        }
+        else if (c == '\'' || c == '"') {
+
+            StringBuilder sb = new StringBuilder();
+            position ++;
+
+            while(true) {
+
+                if (position == length) {
+                    throw new ParsingException("unterminated string starting at position " + start + " in \"" +
+                            expression + "\"");
+                }
+
+                char d = expression.charAt(position ++);
+
+                if (d == c) {
+                    break;
+                }
+
+                if (d == '\\' && position < length) {
+                    d = expression.charAt(position ++);
+                }
+
+                sb.append(d);
+            }
+
+            token = new Token(TokenType.STRING, sb.toString(), start);
+        }
+        else {
+
+            while(position < length && !isWordEnd(position)) {
+                position ++;
+            }
+
+            String word = expression.substring(start, position);
+
+            if ("and".equalsIgnoreCase(word)) {
+
+                token = new Token(TokenType.AND, word, start);
+            }
+            else if ("or".equalsIgnoreCase(word)) {
+
+                token = new Token(TokenType.OR, word, start);
+            }
+            else if ("not".equalsIgnoreCase(word)) {
+
+                token = new Token(TokenType.NOT, word, start);
+            }
+            else {
+
+                token = new Token(TokenType.WORD, word, start);
+            }
+        }
+    }
+
+    private boolean isWordEnd(int i) {
+
+        char c = expression.charAt(i);
+
+        if (Character.isWhitespace(c) ||
+                c == '(' || c == ')' || c == '=' || c == '!' || c == '<' || c == '>' || c == '~') {
+            return true;
+        }
+
+        char n = i + 1 < expression.length() ? expression.charAt(i + 1) : 0;
+
+        return ((c == '^' || c == '*') && n == '=') || (c == '&' && n == '&') || (c == '|' && n == '|');
+    }
+
+    private ParsingException error(String message) {
+
+        return error(message, token);
+    }
+
+    private ParsingException error(String message, Token t) {
+
+        return new ParsingException(message + " at position " + t.position + " in \"" + expression + "\"");
+    }
+
+    private static boolean isNumber(String s) {
+
+        return INTEGER.matcher(s).matches() || DECIMAL.matcher(s).matches();
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+    private enum TokenType {
+
+        LEFT_PARENTHESIS,
+        RIGHT_PARENTHESIS,
+        AND,
+        OR,
+        NOT,
+        OPERATOR,
+        WORD,
+        STRING,
+        END
+    }
+
+    private static class Token {
+
+        TokenType type;
+        String text;
+        int position;
+
+        Token(TokenType type, String text, int position) {
+
+            this.type = type;
+            this.text = text;
+            this.position = position;
+        }
+
+        @Override
+        public String toString() {
+
+            return type == TokenType.END ? "end of expression" : "\"" + text + "\"";
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.gc.g1;
+
+/**
+ * The kinds of G1 collection events produced by G1LineParser.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public enum G1CollectionType {
+
+    //
+    // evacuation pauses
+    //
+    YOUNG("young"),
+    INITIAL_MARK("initial-mark"),
+    MIXED("mixed"),
+
+    FULL("full"),
+
+    //
+    // concurrent cycle pauses
+    //
+    REMARK("remark"),
+    CLEANUP("cleanup"),
+
+    //
+    // the concurrent cycle as a whole (unified logging) and the individual concurrent phases (JDK 8)
+    //
+    CONCURRENT_CYCLE("concurrent-cycle"),
+    CONCURRENT_PHASE("concurrent-phase");
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return null if the label does not correspond to a known collection type.
+     */
+    public static G1CollectionType fromLabel(String label) {
+
+        for(G1CollectionType t: values()) {
+
+            if (t.label.equals(label)) {
+                return t;
+            }
+        }
+
+        return null;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private String label;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    G1CollectionType(String label) {
+
+        this.label = label;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the representation used as event property value.
+     */
+    public String getLabel() {
+
+        return label;
+    }
+
+    /**
+     * @return true if the collection stops the application threads.
+     */
+    public boolean isPause() {
+
+        return this != CONCURRENT_CYCLE && this != CONCURRENT_PHASE;
+    }
+
+}
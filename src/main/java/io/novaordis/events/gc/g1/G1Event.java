@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.gc.g1;
+
+import io.novaordis.events.api.event.DoubleProperty;
+import io.novaordis.events.api.event.GenericTimedEvent;
+import io.novaordis.events.api.event.LongProperty;
+import io.novaordis.events.api.event.Property;
+import io.novaordis.events.api.event.StringProperty;
+import io.novaordis.events.api.event.TimedEvent;
+import io.novaordis.utilities.time.Timestamp;
+
+/**
+ * A G1 collection (a pause, a concurrent phase or a concurrent cycle), as recorded in the GC log.
+ *
+ * The heap occupancy values are expressed in bytes and the duration in milliseconds.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class G1Event extends GenericTimedEvent implements TimedEvent {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    public static final String COLLECTION_TYPE = "collection-type";
+    public static final String CAUSE = "cause";
+    public static final String PHASE = "phase";
+    public static final String COLLECTION_ID = "collection-id";
+    public static final String UPTIME = "uptime"; // ms
+    public static final String HEAP_BEFORE = "heap-before"; // bytes
+    public static final String HEAP_AFTER = "heap-after"; // bytes
+    public static final String HEAP_CAPACITY = "heap-capacity"; // bytes, after the collection
+    public static final String DURATION = "duration"; // ms
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @see Timestamp
+     */
+    public G1Event(Timestamp timestamp) {
+        super(timestamp);
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return null if the type was not set.
+     */
+    public G1CollectionType getCollectionType() {
+
+        String label = getString(COLLECTION_TYPE);
+        return label == null ? null : G1CollectionType.fromLabel(label);
+    }
+
+    public void setCollectionType(G1CollectionType type) {
+        setStringProperty(COLLECTION_TYPE, type.getLabel());
+    }
+
+    /**
+     * @return the reason of the collection, as logged by the JVM ("G1 Evacuation Pause", "Allocation Failure"...)
+     */
+    public String getCause() {
+        return getString(CAUSE);
+    }
+
+    public void setCause(String cause) {
+        setStringProperty(CAUSE, cause);
+    }
+
+    /**
+     * @return the name of the concurrent phase ("mark", "root-region-scan", ...) for CONCURRENT_PHASE events, null
+     * otherwise.
+     */
+    public String getPhase() {
+        return getString(PHASE);
+    }
+
+    public void setPhase(String phase) {
+        setStringProperty(PHASE, phase);
+    }
+
+    /**
+     * @return the GC id, only available in unified logs.
+     */
+    public Long getCollectionId() {
+        return getLong(COLLECTION_ID);
+    }
+
+    public void setCollectionId(long id) {
+        setLongProperty(COLLECTION_ID, id);
+    }
+
+    /**
+     * @return the JVM uptime, in milliseconds.
+     */
+    public Long getUptime() {
+        return getLong(UPTIME);
+    }
+
+    public void setUptime(long uptimeMs) {
+        setLongProperty(UPTIME, uptimeMs);
+    }
+
+    public Long getHeapBefore() {
+        return getLong(HEAP_BEFORE);
+    }
+
+    public void setHeapBefore(long bytes) {
+        setLongProperty(HEAP_BEFORE, bytes);
+    }
+
+    public Long getHeapAfter() {
+        return getLong(HEAP_AFTER);
+    }
+
+    public void setHeapAfter(long bytes) {
+        setLongProperty(HEAP_AFTER, bytes);
+    }
+
+    public Long getHeapCapacity() {
+        return getLong(HEAP_CAPACITY);
+    }
+
+    public void setHeapCapacity(long bytes) {
+        setLongProperty(HEAP_CAPACITY, bytes);
+    }
+
+    /**
+     * @return the duration, in milliseconds.
+     */
+    public Double getDuration() {
+
+        Property p = getProperty(DURATION);
+        return p == null ? null : ((DoubleProperty)p).getDouble();
+    }
+
+    public void setDuration(double ms) {
+        setProperty(new DoubleProperty(DURATION, ms));
+    }
+
+    @Override
+    public String toString() {
+
+        return "G1Event[" + getString(COLLECTION_TYPE) + ", " + getTime() + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private String getString(String propertyName) {
+
+        StringProperty p = getStringProperty(propertyName);
+
+        if (p == null) {
+            return null;
+        }
+
+        return p.getString();
+    }
+
+    private Long getLong(String propertyName) {
+
+        LongProperty p = getLongProperty(propertyName);
+        if (p == null) {
+            return null;
+        }
+        return p.getLong();
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -16,12 +16,35 @@
 
 package io.novaordis.events.gc.g1;
 
-import io.novaordis.utilities.parsing.ParsingException;
 import io.novaordis.events.api.event.Event;
 import io.novaordis.events.core.LineFormat;
 import io.novaordis.events.core.LineParser;
+import io.novaordis.utilities.parsing.ParsingException;
+import io.novaordis.utilities.time.TimeOffset;
+import io.novaordis.utilities.time.Timestamp;
+import io.novaordis.utilities.time.TimestampImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
 
 /**
+ * A streaming parser for G1 logs, which turns young, mixed, full and concurrent cycle pauses, and concurrent phases
+ * and cycles, into G1Events. It understands both JDK 8 logs (-XX:+PrintGC or -XX:+PrintGCDetails, with or without
+ * -XX:+PrintGCDateStamps) and JDK 9+ unified logs (the "gc" tag lines of -Xlog:gc or -Xlog:gc*, with any
+ * decorations). The lines that carry no collection information are ignored.
+ *
+ * A JDK 8 -XX:+PrintGCDetails collection spans several lines: the header line carries the type, the cause and the
+ * duration, a later line carries the heap occupancy and the collection ends with the "[Times: ...]" line. The parser
+ * accumulates the collection in a single reusable holder and returns the event when the collection ends, and null for
+ * the lines before. The memory used by the parser does not depend on the length of the log. A collection that is
+ * interrupted by the header of another multi-line collection is returned as is. A collection that is interrupted by a
+ * complete single-line collection is discarded, as a line yields at most one event, and the single-line collection is
+ * returned instead. An incomplete collection at the end of the log is discarded.
+ *
+ * The event time is the date stamp, if the log has date stamps, or the JVM uptime otherwise.
+ *
  * @author Ovidiu Feodorov <ovidiu@novaordis.com>
  * @since 2/14/17
  */
@@ -29,32 +52,890 @@ public class G1LineParser implements LineParser {
 
     // Constants -------------------------------------------------------------------------------------------------------
 
+    private static final Logger log = LoggerFactory.getLogger(G1LineParser.class);
+
+    /**
+     * The input format specification that selects this parser.
+     */
+    public static final String FORMAT_NAME = "g1";
+
+    // "2017-02-14T03:40:58.716-0600"
+    static final int DATE_STAMP_LENGTH = 28;
+
+    // unified logging "timemillis" decorations are distinguished from "uptimemillis" decorations by their magnitude
+    private static final long MIN_WALL_CLOCK_MS = 1000000000000L;
+
     // Static ----------------------------------------------------------------------------------------------------------
 
+    /**
+     * @return true if the given position starts a "yyyy-MM-ddTHH:mm:ss.SSS+hhmm" date stamp.
+     */
+    static boolean isDateStamp(String line, int i) {
+
+        if (line.length() < i + DATE_STAMP_LENGTH) {
+            return false;
+        }
+
+        char tz = line.charAt(i + 23);
+
+        return line.charAt(i + 4) == '-' &&
+                line.charAt(i + 7) == '-' &&
+                line.charAt(i + 10) == 'T' &&
+                line.charAt(i + 13) == ':' &&
+                line.charAt(i + 16) == ':' &&
+                line.charAt(i + 19) == '.' &&
+                (tz == '+' || tz == '-');
+    }
+
+    /**
+     * @return the number represented by the [start, end) region of the line, or NaN if the region is not a decimal
+     * number.
+     */
+    static double parseDecimal(String line, int start, int end) {
+
+        if (start >= end) {
+            return Double.NaN;
+        }
+
+        long integer = 0;
+        long fraction = 0;
+        long scale = 1;
+        boolean dot = false;
+
+        for(int i = start; i < end; i ++) {
+
+            char c = line.charAt(i);
+
+            if (c == '.' && !dot) {
+
+                dot = true;
+            }
+            else if (c >= '0' && c <= '9') {
+
+                if (dot) {
+
+                    if (scale < 1000000000000L) {
+                        fraction = fraction * 10 + (c - '0');
+                        scale *= 10;
+                    }
+                }
+                else {
+
+                    integer = integer * 10 + (c - '0');
+                }
+            }
+            else {
+
+                return Double.NaN;
+            }
+        }
+
+        return integer + (double)fraction / scale;
+    }
+
     // Attributes ------------------------------------------------------------------------------------------------------
 
+    // the format of the last line that carried collection information, null if no such line was seen yet
+    private G1LogFormat format;
+
+    // the JDK 8 collection that is being assembled from several lines
+    private Collection pending;
+
+    // scratch holder for the collection described by the current line
+    private Collection current;
+
+    // date stamp cache: lines are chronological, so the date and the time zone offset rarely change
+    private String cachedDate;
+    private long cachedDateMs;
+    private String cachedOffsetString;
+    private TimeOffset cachedOffset;
+
+    // the result of the last parseSize() invocation
+    private long size;
+
     // Constructors ----------------------------------------------------------------------------------------------------
 
+    public G1LineParser() {
+
+        this.pending = new Collection();
+        this.current = new Collection();
+    }
+
+    // LineParser implementation ---------------------------------------------------------------------------------------
+
     @Override
     public Event parseLine(long lineNumber, String line) throws ParsingException {
 
-        throw new RuntimeException("parseLine() NOT YET IMPLEMENTED");
+        if (line == null) {
+            return null;
+        }
+
+        int i = skipBlanks(line, 0);
+
+        if (i == line.length()) {
+            return null;
+        }
+
+        if (i == 0 && line.charAt(0) == '[' &&
+                !line.startsWith("[GC ") && !line.startsWith("[Full GC") && !line.startsWith("[Times:")) {
+
+            return parseUnifiedLine(lineNumber, line);
+        }
+
+        return parseJdk8Line(lineNumber, line, i);
     }
 
+    /**
+     * @return the format of the last line that carried collection information, or null if no such line was seen yet.
+     */
     @Override
     public LineFormat getLineFormat() {
 
-        throw new RuntimeException("getLineFormat() NOT YET IMPLEMENTED");
+        return format;
     }
 
     // Public ----------------------------------------------------------------------------------------------------------
 
+    @Override
+    public String toString() {
+
+        return "G1LineParser[" + (format == null ? "unknown format" : format) + "]";
+    }
+
     // Package protected -----------------------------------------------------------------------------------------------
 
+    /**
+     * @return true if a multi-line collection is being assembled.
+     */
+    boolean isCollectionPending() {
+
+        return pending.type != null;
+    }
+
+    /**
+     * @param i the index of the first character of a date stamp, as identified by isDateStamp().
+     */
+    Timestamp parseDateStamp(String line, int i, long lineNumber) throws ParsingException {
+
+        if (cachedDate == null || !line.regionMatches(i, cachedDate, 0, 10)) {
+
+            int year = digits(line, i, 4, lineNumber);
+            int month = digits(line, i + 5, 2, lineNumber);
+            int day = digits(line, i + 8, 2, lineNumber);
+
+            try {
+
+                cachedDateMs = LocalDate.of(year, month, day).toEpochDay() * 86400000L;
+            }
+            catch(DateTimeException e) {
+
+                throw new ParsingException("invalid date stamp", e, lineNumber, i);
+            }
+
+            cachedDate = line.substring(i, i + 10);
+        }
+
+        if (cachedOffsetString == null || !line.regionMatches(i + 23, cachedOffsetString, 0, 5)) {
+
+            int hours = digits(line, i + 24, 2, lineNumber);
+            int minutes = digits(line, i + 26, 2, lineNumber);
+            int offsetMs = (hours * 3600000 + minutes * 60000) * (line.charAt(i + 23) == '-' ? -1 : 1);
+
+            cachedOffset = new TimeOffset(offsetMs);
+            cachedOffsetString = line.substring(i + 23, i + 28);
+        }
+
+        long localMs = cachedDateMs +
+                digits(line, i + 11, 2, lineNumber) * 3600000L +
+                digits(line, i + 14, 2, lineNumber) * 60000L +
+                digits(line, i + 17, 2, lineNumber) * 1000L +
+                digits(line, i + 20, 3, lineNumber);
+
+        return new TimestampImpl(localMs - cachedOffset.getOffset(), cachedOffset);
+    }
+
     // Protected -------------------------------------------------------------------------------------------------------
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    private Event parseJdk8Line(long lineNumber, String line, int i) throws ParsingException {
+
+        Timestamp timestamp = null;
+        long uptime = -1;
+
+        if (isDateStamp(line, i)) {
+
+            timestamp = parseDateStamp(line, i, lineNumber);
+            i = skipBlanks(line, skipColon(line, i + DATE_STAMP_LENGTH));
+        }
+
+        int uptimeEnd = i;
+
+        while(uptimeEnd < line.length() &&
+                (Character.isDigit(line.charAt(uptimeEnd)) || line.charAt(uptimeEnd) == '.')) {
+            uptimeEnd ++;
+        }
+
+        if (uptimeEnd > i && uptimeEnd < line.length() && line.charAt(uptimeEnd) == ':') {
+
+            double seconds = parseDecimal(line, i, uptimeEnd);
+
+            if (!Double.isNaN(seconds)) {
+                uptime = Math.round(seconds * 1000);
+            }
+
+            i = skipBlanks(line, uptimeEnd + 1);
+        }
+
+        if (line.startsWith("[GC ", i) || line.startsWith("[Full GC", i)) {
+
+            format = G1LogFormat.JDK8;
+            return parseJdk8Collection(lineNumber, line, i + 1, timestamp, uptime);
+        }
+
+        if (pending.type == null) {
+            return null;
+        }
+
+        if (line.startsWith("[Times:", i)) {
+
+            return emitPending();
+        }
+
+        int heap = line.indexOf("Heap: ", i);
+
+        if (heap != -1) {
+            parseHeapTransition(line, heap + 6, pending);
+        }
+
+        return null;
+    }
+
+    /**
+     * @param i the index of the first character after '['.
+     */
+    private Event parseJdk8Collection(long lineNumber, String line, int i, Timestamp timestamp, long uptime)
+            throws ParsingException {
+
+        Collection c = current;
+        c.reset(lineNumber, timestamp, uptime);
+
+        int j;
+
+        if (line.startsWith("GC pause", i)) {
+
+            c.type = G1CollectionType.YOUNG;
+            j = i + 8;
+        }
+        else if (line.startsWith("Full GC", i)) {
+
+            c.type = G1CollectionType.FULL;
+            j = i + 7;
+        }
+        else if (line.startsWith("GC remark", i)) {
+
+            c.type = G1CollectionType.REMARK;
+            j = i + 9;
+        }
+        else if (line.startsWith("GC cleanup", i)) {
+
+            c.type = G1CollectionType.CLEANUP;
+            j = i + 10;
+        }
+        else if (line.startsWith("GC concurrent-", i)) {
+
+            return parseJdk8ConcurrentPhase(line, i + 14, c);
+        }
+        else {
+
+            return null;
+        }
+
+        //
+        // parenthesized qualifiers: "(G1 Evacuation Pause) (young) (initial-mark)"
+        //
+        for(j = skipBlanks(line, j); j < line.length() && line.charAt(j) == '('; j = skipBlanks(line, j)) {
+
+            int close = closingParenthesis(line, j);
+
+            if (close == -1) {
+                throw new ParsingException("unbalanced parentheses", lineNumber, j);
+            }
+
+            if (line.startsWith("mixed)", j + 1)) {
+
+                c.type = G1CollectionType.MIXED;
+            }
+            else if (line.startsWith("initial-mark)", j + 1)) {
+
+                c.type = G1CollectionType.INITIAL_MARK;
+            }
+            else if (!line.startsWith("young)", j + 1) && c.cause == null) {
+
+                c.cause = line.substring(j + 1, close);
+            }
+
+            j = close + 1;
+        }
+
+        if (j < line.length() && Character.isDigit(line.charAt(j))) {
+
+            parseHeapTransition(line, j, c);
+        }
+
+        c.duration = parseJdk8Duration(line);
+
+        boolean complete = c.heapAfter >= 0 && c.duration >= 0;
+
+        if (pending.type != null) {
+
+            if (complete) {
+
+                log.debug("discarding incomplete " + pending.type + " collection from line " + pending.lineNumber);
+                pending.type = null;
+                return c.toEvent();
+            }
+
+            Event interrupted = emitPending();
+            swap();
+            return interrupted;
+        }
+
+        if (complete) {
+            return c.toEvent();
+        }
+
+        swap();
+        return null;
+    }
+
+    /**
+     * "[GC concurrent-mark-end, 0.0123 secs]", "[GC concurrent-mark-abort]"
+     *
+     * @param i the index of the first character after "concurrent-"
+     */
+    private Event parseJdk8ConcurrentPhase(String line, int i, Collection c) {
+
+        int end = i;
+
+        while(end < line.length() && line.charAt(end) != ',' && line.charAt(end) != ']') {
+            end ++;
+        }
+
+        if (line.startsWith("-start", end - 6)) {
+            return null;
+        }
+
+        c.type = G1CollectionType.CONCURRENT_PHASE;
+        c.phase = line.startsWith("-end", end - 4) ? line.substring(i, end - 4) : line.substring(i, end);
+        c.duration = parseJdk8Duration(line);
+
+        return c.toEvent();
+    }
+
+    /**
+     * @return the duration, in milliseconds, of the last ", 0.0123 secs]" of the line, or -1 if there is none.
+     */
+    private static double parseJdk8Duration(String line) {
+
+        int end = line.lastIndexOf(" secs]");
+
+        if (end == -1) {
+            return -1;
+        }
+
+        int start = line.lastIndexOf(' ', end - 1) + 1;
+        double seconds = parseDecimal(line, start, end);
+
+        return Double.isNaN(seconds) ? -1 : seconds * 1000;
+    }
+
+    private Event parseUnifiedLine(long lineNumber, String line) throws ParsingException {
+
+        Timestamp timestamp = null;
+        long uptime = -1;
+        boolean gc = false;
+
+        int i = 0;
+
+        //
+        // decorations
+        //
+        while(i < line.length() && line.charAt(i) == '[') {
+
+            int close = line.indexOf(']', i + 1);
+
+            if (close == -1) {
+                return null;
+            }
+
+            int start = skipBlanks(line, i + 1);
+            int end = close;
+
+            while(end > start && line.charAt(end - 1) == ' ') {
+                end --;
+            }
+
+            if (start < end) {
+
+                char first = line.charAt(start);
+
+                if (Character.isDigit(first)) {
+
+                    if (isDateStamp(line, start)) {
+
+                        timestamp = parseDateStamp(line, start, lineNumber);
+                    }
+                    else if (line.startsWith("ms", end - 2)) {
+
+                        double ms = parseDecimal(line, start, end - 2);
+
+                        if (ms >= MIN_WALL_CLOCK_MS) {
+                            timestamp = new TimestampImpl((long)ms);
+                        }
+                        else if (!Double.isNaN(ms)) {
+                            uptime = (long)ms;
+                        }
+                    }
+                    else if (line.startsWith("ns", end - 2)) {
+
+                        double ns = parseDecimal(line, start, end - 2);
+
+                        if (!Double.isNaN(ns)) {
+                            uptime = (long)(ns / 1000000);
+                        }
+                    }
+                    else if (line.charAt(end - 1) == 's') {
+
+                        double s = parseDecimal(line, start, end - 1);
+
+                        if (!Double.isNaN(s)) {
+                            uptime = Math.round(s * 1000);
+                        }
+                    }
+                }
+                else if (end - start == 2 && line.startsWith("gc", start)) {
+
+                    gc = true;
+                }
+            }
+
+            i = skipBlanks(line, close + 1);
+        }
+
+        if (!gc) {
+            return null;
+        }
+
+        Collection c = current;
+        c.reset(lineNumber, timestamp, uptime);
+
+        if (line.startsWith("GC(", i)) {
+
+            int close = line.indexOf(')', i + 3);
+
+            if (close == -1) {
+                return null;
+            }
+
+            double id = parseDecimal(line, i + 3, close);
+            c.id = Double.isNaN(id) ? -1 : (long)id;
+            i = skipBlanks(line, close + 1);
+        }
+
+        if (line.startsWith("Pause ", i)) {
+
+            i = parseUnifiedPause(line, i + 6, c, lineNumber);
+        }
+        else if (line.startsWith("Concurrent ", i)) {
+
+            int cycle = line.indexOf("Cycle", i);
+
+            if (cycle == -1) {
+                return null;
+            }
+
+            c.type = G1CollectionType.CONCURRENT_CYCLE;
+            i = skipBlanks(line, cycle + 5);
+        }
+        else {
+
+            return null;
+        }
+
+        if (i == -1) {
+            return null;
+        }
+
+        //
+        // the duration ends the line, the lines without duration mark the beginning of an operation
+        //
+        int end = i;
+
+        while(end < line.length() && line.charAt(end) != ' ') {
+            end ++;
+        }
+
+        if (end - i < 3 || !line.startsWith("ms", end - 2)) {
+            return null;
+        }
+
+        double duration = parseDecimal(line, i, end - 2);
+
+        if (Double.isNaN(duration)) {
+            return null;
+        }
+
+        c.duration = duration;
+
+        format = G1LogFormat.UNIFIED;
+        return c.toEvent();
+    }
+
+    /**
+     * "Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 4.123ms"
+     *
+     * @param i the index of the first character after "Pause ".
+     *
+     * @return the index of the duration, or -1 if this is not a known pause.
+     */
+    private int parseUnifiedPause(String line, int i, Collection c, long lineNumber) throws ParsingException {
+
+        int j;
+
+        if (line.startsWith("Young", i)) {
+
+            c.type = G1CollectionType.YOUNG;
+            j = i + 5;
+        }
+        else if (line.startsWith("Mixed", i)) {
+
+            c.type = G1CollectionType.MIXED;
+            j = i + 5;
+        }
+        else if (line.startsWith("Initial Mark", i)) {
+
+            c.type = G1CollectionType.INITIAL_MARK;
+            j = i + 12;
+        }
+        else if (line.startsWith("Full", i)) {
+
+            c.type = G1CollectionType.FULL;
+            j = i + 4;
+        }
+        else if (line.startsWith("Remark", i)) {
+
+            c.type = G1CollectionType.REMARK;
+            j = i + 6;
+        }
+        else if (line.startsWith("Cleanup", i)) {
+
+            c.type = G1CollectionType.CLEANUP;
+            j = i + 7;
+        }
+        else {
+
+            return -1;
+        }
+
+        //
+        // parenthesized qualifiers: "(Normal) (G1 Evacuation Pause)"
+        //
+        for(j = skipBlanks(line, j); j < line.length() && line.charAt(j) == '('; j = skipBlanks(line, j)) {
+
+            int close = closingParenthesis(line, j);
+
+            if (close == -1) {
+                throw new ParsingException("unbalanced parentheses", lineNumber, j);
+            }
+
+            if (line.startsWith("Concurrent Start)", j + 1)) {
+
+                c.type = G1CollectionType.INITIAL_MARK;
+            }
+            else if (line.startsWith("Mixed)", j + 1)) {
+
+                c.type = G1CollectionType.MIXED;
+            }
+            else if (!line.startsWith("Normal)", j + 1) &&
+                    !line.startsWith("Prepare Mixed)", j + 1) &&
+                    !line.startsWith("Concurrent End)", j + 1) &&
+                    c.cause == null) {
+
+                c.cause = line.substring(j + 1, close);
+            }
+
+            j = close + 1;
+        }
+
+        if (j < line.length() && Character.isDigit(line.charAt(j)) && line.indexOf("->", j) != -1) {
+
+            j = parseHeapTransition(line, j, c);
+
+            if (j == -1) {
+                return -1;
+            }
+
+            j = skipBlanks(line, j);
+        }
+
+        return j;
+    }
+
+    /**
+     * Parses "24M->21M(256M)" or "24.0M(256.0M)->21.9M(256.0M)".
+     *
+     * @return the index that follows the transition, or -1 if the line does not contain a heap transition at the given
+     * position, in which case the collection is not modified.
+     */
+    private int parseHeapTransition(String line, int i, Collection c) {
+
+        int j = parseSize(line, i);
+
+        if (j == -1) {
+            return -1;
+        }
+
+        long before = size;
+
+        if (j < line.length() && line.charAt(j) == '(') {
+
+            j = line.indexOf(')', j);
+
+            if (j == -1) {
+                return -1;
+            }
+
+            j ++;
+        }
+
+        if (!line.startsWith("->", j)) {
+            return -1;
+        }
+
+        j = parseSize(line, j + 2);
+
+        if (j == -1) {
+            return -1;
+        }
+
+        long after = size;
+        long capacity = -1;
+
+        if (j < line.length() && line.charAt(j) == '(') {
+
+            int close = parseSize(line, j + 1);
+
+            if (close != -1 && close < line.length() && line.charAt(close) == ')') {
+
+                capacity = size;
+                j = close + 1;
+            }
+        }
+
+        c.heapBefore = before;
+        c.heapAfter = after;
+        c.heapCapacity = capacity;
+
+        return j;
+    }
+
+    /**
+     * Parses "24M", "21.9M", "3072.0K", "0.0B" and stores the value, in bytes, in the "size" field.
+     *
+     * @return the index that follows the unit, or -1 if there is no size at the given position.
+     */
+    private int parseSize(String line, int i) {
+
+        int j = i;
+
+        while(j < line.length() && (Character.isDigit(line.charAt(j)) || line.charAt(j) == '.')) {
+            j ++;
+        }
+
+        if (j == i || j == line.length()) {
+            return -1;
+        }
+
+        double value = parseDecimal(line, i, j);
+
+        if (Double.isNaN(value)) {
+            return -1;
+        }
+
+        long multiplier;
+
+        switch(line.charAt(j)) {
+
+            case 'B':
+                multiplier = 1L;
+                break;
+            case 'K':
+                multiplier = 1024L;
+                break;
+            case 'M':
+                multiplier = 1024L * 1024;
+                break;
+            case 'G':
+                multiplier = 1024L * 1024 * 1024;
+                break;
+            default:
+                return -1;
+        }
+
+        size = Math.round(value * multiplier);
+        return j + 1;
+    }
+
+    private Event emitPending() {
+
+        Event e = pending.toEvent();
+        pending.type = null;
+        return e;
+    }
+
+    private void swap() {
+
+        Collection c = pending;
+        pending = current;
+        current = c;
+    }
+
+    private static int digits(String line, int i, int count, long lineNumber) throws ParsingException {
+
+        int value = 0;
+
+        for(int k = i; k < i + count; k ++) {
+
+            char c = line.charAt(k);
+
+            if (c < '0' || c > '9') {
+                throw new ParsingException("invalid date stamp", lineNumber, k);
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    private static int skipBlanks(String line, int i) {
+
+        while(i < line.length() && (line.charAt(i) == ' ' || line.charAt(i) == '\t')) {
+            i ++;
+        }
+
+        return i;
+    }
+
+    private static int skipColon(String line, int i) {
+
+        return i < line.length() && line.charAt(i) == ':' ? i + 1 : i;
+    }
+
+    /**
+     * @return the index of the parenthesis that closes the one at the given index, or -1.
+     */
+    private static int closingParenthesis(String line, int open) {
+
+        int depth = 0;
+
+        for(int i = open; i < line.length(); i ++) {
+
+            char c = line.charAt(i);
+
+            if (c == '(') {
+
+                depth ++;
+            }
+            else if (c == ')' && -- depth == 0) {
+
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
+    /**
+     * Mutable, reused, collection state.
+     */
+    private static class Collection {
+
+        G1CollectionType type;
+        long lineNumber;
+        Timestamp timestamp;
+        long uptime;
+        long id;
+        String cause;
+        String phase;
+        long heapBefore;
+        long heapAfter;
+        long heapCapacity;
+        double duration;
+
+        void reset(long lineNumber, Timestamp timestamp, long uptime) {
+
+            this.type = null;
+            this.lineNumber = lineNumber;
+            this.timestamp = timestamp;
+            this.uptime = uptime;
+            this.id = -1;
+            this.cause = null;
+            this.phase = null;
+            this.heapBefore = -1;
+            this.heapAfter = -1;
+            this.heapCapacity = -1;
+            this.duration = -1;
+        }
+
+        G1Event toEvent() {
+
+            Timestamp t = timestamp;
+
+            if (t == null && uptime >= 0) {
+                t = new TimestampImpl(uptime);
+            }
+
+            G1Event e = new G1Event(t);
+
+            e.setLineNumber(lineNumber);
+            e.setCollectionType(type);
+
+            if (cause != null) {
+                e.setCause(cause);
+            }
+
+            if (phase != null) {
+                e.setPhase(phase);
+            }
+
+            if (id >= 0) {
+                e.setCollectionId(id);
+            }
+
+            if (uptime >= 0) {
+                e.setUptime(uptime);
+            }
+
+            if (heapBefore >= 0) {
+
+                e.setHeapBefore(heapBefore);
+                e.setHeapAfter(heapAfter);
+            }
+
+            if (heapCapacity >= 0) {
+                e.setHeapCapacity(heapCapacity);
+            }
+
+            if (duration >= 0) {
+                e.setDuration(duration);
+            }
+
+            return e;
+        }
+    }
+
 }
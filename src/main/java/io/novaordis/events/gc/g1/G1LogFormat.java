@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.gc.g1;
+
+import io.novaordis.events.core.LineFormat;
+
+/**
+ * The G1 log formats understood by G1LineParser.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public enum G1LogFormat implements LineFormat {
+
+    //
+    // JDK 8 -XX:+PrintGC or -XX:+PrintGCDetails, with or without -XX:+PrintGCDateStamps
+    //
+    JDK8,
+
+    //
+    // JDK 9+ unified logging (-Xlog:gc or -Xlog:gc*), with any combination of decorations
+    //
+    UNIFIED
+
+}
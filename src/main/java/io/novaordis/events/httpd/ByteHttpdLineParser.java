@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.core.ByteScanner;
+import io.novaordis.events.core.SymbolTable;
+import io.novaordis.utilities.parsing.ParsingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A PlannedHttpdLineParser that also parses lines directly from a byte buffer, as (byte[], start, end) spans,
+ * without materializing the line as a String. Delimiters are located with word-at-a-time scanning, numbers are
+ * decoded directly from the bytes, low-cardinality values are interned from the bytes, and only the remaining fields
+ * required downstream are decoded into Strings. The fields that are not required (see setRequiredProperties()) are
+ * only delimited: their boundaries are recorded in a String copy of the line, created only for such lines, and they
+ * are decoded when the event properties are first accessed, as in the String-based parsers.
+ *
+ * The bytes are decoded as ISO-8859-1, which is how ByteToLineEventConverter turns bytes into lines, so the values are
+ * identical with those produced from the corresponding String lines. Any line the byte path cannot handle (a
+ * malformed line, an invalid value, a format with fields whose end is identified by a dedicated micro-parser) is
+ * decoded into a String and handed over to the String-based parser, which produces the usual events and faults.
+ *
+ * @see ByteToHttpEventConverter
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ByteHttpdLineParser extends PlannedHttpdLineParser {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(ByteHttpdLineParser.class);
+
+    // returned by parseSpan() for the lines whose timestamp is outside the time window
+    private static final HttpdLogLine OUTSIDE_TIME_WINDOW = new HttpdLogLine();
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return a byte parser for the given format, or null if the execution plan cannot be built for the format.
+     */
+    public static ByteHttpdLineParser newInstance(HttpdLogFormat format) {
+
+        try {
+
+            return new ByteHttpdLineParser(format);
+        }
+        catch(Exception e) {
+
+            log.debug("failed to build the execution plan of " + format + " for byte parsing", e);
+            return null;
+        }
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final byte[] opcodes;
+    private final byte[] delimiters;
+    private final HttpdFormatString[] formatStrings;
+
+    // false if the format contains fields that can only be delimited by micro-parsers, which work on Strings
+    private final boolean bytePath;
+
+    private final SymbolTable symbols;
+
+    private final int timestampIndex;
+
+    private long stringPathLines;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @throws IllegalArgumentException if the execution plan cannot be built for the given format.
+     */
+    public ByteHttpdLineParser(HttpdLogFormat format) throws IllegalArgumentException {
+
+        super(format);
+
+        this.opcodes = getOpcodes();
+        this.formatStrings = getFormatStrings();
+        this.delimiters = new byte[opcodes.length];
+        this.symbols = getSymbolTable();
+        this.timestampIndex = getTimestampIndex();
+
+        boolean simple = true;
+        char[] d = getDelimiters();
+
+        for(int i = 0; i < opcodes.length; i ++) {
+
+            byte opcode = opcodes[i];
+
+            if (opcode != LEFT_ENCLOSURE && opcode != RIGHT_ENCLOSURE && opcode != FIELD_ENCLOSED &&
+                    opcode != FIELD_SPACE_DELIMITED) {
+
+                simple = false;
+            }
+
+            //
+            // space delimited fields are scanned like enclosed fields, for a space
+            //
+            delimiters[i] = opcode == FIELD_SPACE_DELIMITED ? (byte)' ' : (byte)d[i];
+        }
+
+        this.bytePath = simple;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Parses the line buffer[start] ... buffer[end - 1]. The line must not contain the line terminator.
+     *
+     * @return the event, or null if the line is blank or its timestamp is outside the time window (see
+     * setTimeWindow()).
+     *
+     * @throws ParsingException with the same semantics as parseLine(long, String).
+     */
+    public Event parseLine(long lineNumber, byte[] buffer, int start, int end) throws ParsingException {
+
+        if (isBlank(buffer, start, end)) {
+            return null;
+        }
+
+        if (bytePath) {
+
+            HttpdLogLine logLine = parseSpan(lineNumber, buffer, start, end);
+
+            if (logLine == OUTSIDE_TIME_WINDOW) {
+                return null;
+            }
+
+            if (logLine != null) {
+                return logLine.toEvent();
+            }
+        }
+
+        //
+        // the String path produces the event, or the exact fault, for anything the byte path cannot handle
+        //
+        stringPathLines ++;
+        return parseLine(lineNumber, new String(buffer, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * @return the number of non-blank byte lines that were decoded into Strings and parsed by the String-based parser.
+     */
+    public long getStringPathLineCount() {
+
+        return stringPathLines;
+    }
+
+    @Override
+    public String toString() {
+
+        return "ByteHttpdLineParser[format: " + getHttpdLogFormat() + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    boolean isBytePath() {
+
+        return bytePath;
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Mirrors PlannedHttpdLineParser#parseLine(long, String). The time window is checked as soon as the timestamp is
+     * decoded, so the rest of the line is not tokenized if the line is discarded.
+     *
+     * @return null if the line must be parsed by the String path, OUTSIDE_TIME_WINDOW if the line must be discarded.
+     */
+    private HttpdLogLine parseSpan(long lineNumber, byte[] buffer, int start, int end) {
+
+        HttpdLogLine logLine = new HttpdLogLine(getHttpdLogFormat());
+
+        logLine.setLineNumber(lineNumber);
+
+        int cursor = start;
+        int fieldEnd;
+
+        // the line as String, created only if there are fields whose decoding is deferred
+        String raw = null;
+
+        try {
+
+            for(int i = 0; i < opcodes.length; i ++) {
+
+                byte opcode = opcodes[i];
+
+                if (opcode == LEFT_ENCLOSURE || opcode == RIGHT_ENCLOSURE) {
+
+                    while(cursor < end && buffer[cursor] == ' ') { cursor++; }
+
+                    if (cursor == end || buffer[cursor] != delimiters[i]) {
+                        return null;
+                    }
+
+                    cursor++;
+
+                    if (opcode == RIGHT_ENCLOSURE) {
+                        while(cursor < end && buffer[cursor] == ' ') { cursor++; }
+                    }
+
+                    continue;
+                }
+
+                fieldEnd = ByteScanner.indexOf(buffer, cursor, end, delimiters[i]);
+                fieldEnd = fieldEnd == -1 ? end : fieldEnd;
+
+                if (isDecodingRequired(i) || (i == timestampIndex && getTimeWindow() != null)) {
+
+                    setLogValue(logLine, i, buffer, cursor, fieldEnd, lineNumber);
+
+                    if (i == timestampIndex && isOutsideTimeWindow(logLine.getTimestamp())) {
+                        return OUTSIDE_TIME_WINDOW;
+                    }
+                }
+                else {
+
+                    if (raw == null) {
+                        raw = decode(buffer, start, end);
+                    }
+
+                    logLine.setRawLogValueAt(getHttpdLogFormat().getSlot(i), raw, cursor - start, fieldEnd - start);
+                }
+
+                //
+                // advance the cursor to the next non-blank character
+                //
+                while(fieldEnd < end && buffer[fieldEnd] == ' ') { fieldEnd++; }
+                cursor = fieldEnd;
+            }
+        }
+        catch(ParsingException | RuntimeException e) {
+
+            return null;
+        }
+
+        return logLine;
+    }
+
+    /**
+     * The byte equivalent of setLogValue(HttpdLogLine, int, HttpdFormatString, String, int, int, long).
+     */
+    private void setLogValue(HttpdLogLine logLine, int index, byte[] buffer, int start, int end, long lineNumber)
+            throws ParsingException {
+
+        HttpdFormatString crt = formatStrings[index];
+        int slot = getHttpdLogFormat().getSlot(index);
+
+        boolean dash = end - start == 1 && buffer[start] == '-';
+
+        if (crt instanceof HttpdFormatStrings && ((HttpdFormatStrings)crt).isNumeric()) {
+
+            HttpdFormatStrings fs = (HttpdFormatStrings)crt;
+
+            if (dash) {
+
+                logLine.setLogValueAt(slot, null);
+            }
+            else if (Double.class.equals(fs.getType())) {
+
+                String s = decode(buffer, start, end);
+                logLine.setDoubleLogValueAt(slot, fs.parseDouble(s, 0, s.length(), lineNumber, start));
+            }
+            else {
+
+                logLine.setLongLogValueAt(slot, parseLong(fs, buffer, start, end, lineNumber));
+            }
+
+            return;
+        }
+
+        if (isInterned(index) && !dash && !isBlank(buffer, start, end)) {
+
+            logLine.setLogValueAt(slot, symbols.intern(buffer, start, end));
+            return;
+        }
+
+        logLine.setLogValueAt(slot, crt.parse(decode(buffer, start, end), lineNumber, start));
+    }
+
+    private static long parseLong(HttpdFormatStrings fs, byte[] buffer, int start, int end, long lineNumber)
+            throws ParsingException {
+
+        int i = start;
+        boolean negative = false;
+
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i ++;
+        }
+
+        if (i < end && end - i <= 18) {
+
+            long value = 0;
+
+            for(; i < end; i ++) {
+
+                int digit = buffer[i] - '0';
+
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+
+                value = value * 10 + digit;
+            }
+
+            value = negative ? -value : value;
+
+            if (i == end && (!Integer.class.equals(fs.getType()) ||
+                    (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE))) {
+                return value;
+            }
+        }
+
+        //
+        // anything unusual is handled, and validated, by the String decoder
+        //
+        String s = decode(buffer, start, end);
+        return fs.parseLong(s, 0, s.length(), lineNumber, start);
+    }
+
+    private static String decode(byte[] buffer, int start, int end) {
+
+        return new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Same semantics as String.trim().length() == 0.
+     */
+    private static boolean isBlank(byte[] buffer, int start, int end) {
+
+        for(int i = start; i < end; i ++) {
+
+            if ((buffer[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
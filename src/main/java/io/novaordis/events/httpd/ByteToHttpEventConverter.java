@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import io.novaordis.events.api.event.EndOfStreamEvent;
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.FaultEvent;
+import io.novaordis.events.core.BulkInputStreamConversionLogic;
+import io.novaordis.events.core.ByteScanner;
+import io.novaordis.events.core.ClosedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Turns the bytes of a httpd log into HttpEvents in a single pass over the read buffers: the line terminators are
+ * located with word-at-a-time scanning and each line is parsed in place, as a span of the read buffer, by a
+ * ByteHttpdLineParser. Only the lines that span two read buffers, or contain a '\r' other than the one that precedes
+ * '\n', are copied.
+ *
+ * The events are the same as the ones produced by a ByteToLineEventConverter followed by a LineStreamParser: line
+ * numbers start with 1, '\r' is ignored, blank lines produce no event and lines that cannot be parsed produce
+ * FaultEvents.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ByteToHttpEventConverter implements BulkInputStreamConversionLogic {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final int INITIAL_CARRY_SIZE = 1024;
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private ByteHttpdLineParser parser;
+
+    private boolean closed;
+    private List<Event> buffer;
+
+    // 1-based line numbering
+    private long lineNumber;
+
+    //
+    // the part of the current line that was already seen, when the line spans read buffers, without '\r'
+    //
+    private byte[] carry;
+    private int carryLength;
+
+    private byte[] single;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    public ByteToHttpEventConverter(ByteHttpdLineParser parser) {
+
+        if (parser == null) {
+            throw new IllegalArgumentException("null parser");
+        }
+
+        this.parser = parser;
+        this.buffer = new ArrayList<>();
+        this.lineNumber = 1;
+        this.carry = new byte[INITIAL_CARRY_SIZE];
+        this.single = new byte[1];
+    }
+
+    // BulkInputStreamConversionLogic implementation -------------------------------------------------------------------
+
+    @Override
+    public boolean process(byte[] bytes, int offset, int length) throws ClosedException {
+
+        if (closed) {
+            throw new ClosedException(this + " is closed");
+        }
+
+        int end = offset + length;
+        int i = offset;
+
+        while(i < end) {
+
+            int j = ByteScanner.indexOfAny(bytes, i, end, (byte)'\n', (byte)'\r');
+
+            if (j == -1) {
+
+                append(bytes, i, end);
+                break;
+            }
+
+            if (bytes[j] == '\r') {
+
+                if (carryLength == 0 && j + 1 < end && bytes[j + 1] == '\n') {
+
+                    //
+                    // the usual "\r\n" terminator, the line can still be parsed in place
+                    //
+                    parse(bytes, i, j);
+                    i = j + 2;
+                    continue;
+                }
+
+                //
+                // '\r' is ignored
+                //
+                append(bytes, i, j);
+                i = j + 1;
+                continue;
+            }
+
+            if (carryLength == 0) {
+
+                parse(bytes, i, j);
+            }
+            else {
+
+                append(bytes, i, j);
+                parse(carry, 0, carryLength);
+                carryLength = 0;
+            }
+
+            i = j + 1;
+        }
+
+        return !buffer.isEmpty();
+    }
+
+    // InputStreamConversionLogic implementation -----------------------------------------------------------------------
+
+    @Override
+    public boolean process(int b) throws ClosedException {
+
+        if (closed) {
+            throw new ClosedException(this + " is closed");
+        }
+
+        if (b < -1 || b > 255) {
+
+            throw new IllegalArgumentException("input: " + b);
+        }
+
+        if (b == -1) {
+
+            //
+            // end of stream
+            //
+
+            if (carryLength > 0) {
+
+                parse(carry, 0, carryLength);
+                carryLength = 0;
+            }
+
+            buffer.add(new EndOfStreamEvent());
+            closed = true;
+            return true;
+        }
+
+        single[0] = (byte)b;
+        return process(single, 0, 1);
+    }
+
+    @Override
+    public List<Event> getEvents() {
+
+        if (buffer.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Event> result = new ArrayList<>(buffer);
+        buffer.clear();
+        return result;
+    }
+
+    @Override
+    public boolean isClosed() {
+
+        return closed;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    public ByteHttpdLineParser getParser() {
+
+        return parser;
+    }
+
+    @Override
+    public String toString() {
+
+        return "ByteToHttpEventConverter[" + parser + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private void parse(byte[] bytes, int start, int end) {
+
+        long n = lineNumber ++;
+
+        try {
+
+            Event e = parser.parseLine(n, bytes, start, end);
+
+            if (e != null) {
+                buffer.add(e);
+            }
+        }
+        catch(Exception e) {
+
+            //
+            // parsing failure, propagate as FaultEvent
+            //
+            buffer.add(new FaultEvent(e));
+        }
+    }
+
+    private void append(byte[] bytes, int start, int end) {
+
+        int length = end - start;
+
+        if (carryLength + length > carry.length) {
+
+            byte[] b = new byte[Math.max(carry.length * 2, carryLength + length)];
+            System.arraycopy(carry, 0, b, 0, carryLength);
+            carry = b;
+        }
+
+        System.arraycopy(bytes, start, carry, carryLength, length);
+        carryLength += length;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
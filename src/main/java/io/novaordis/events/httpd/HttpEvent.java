@@ -19,19 +19,19 @@ package io.novaordis.events.httpd;
 import io.novaordis.events.api.event.Event;
 import io.novaordis.events.api.event.GenericTimedEvent;
 import io.novaordis.events.api.event.IntegerProperty;
+import io.novaordis.events.api.event.ListProperty;
 import io.novaordis.events.api.event.LongProperty;
 import io.novaordis.events.api.event.MapProperty;
+import io.novaordis.events.api.event.Property;
 import io.novaordis.events.api.event.StringProperty;
 import io.novaordis.events.api.event.TimedEvent;
 import io.novaordis.events.extensions.bscenarios.BusinessScenario;
+import io.novaordis.events.httpd.microparsers.cookie.CookieParser;
 import io.novaordis.utilities.time.Timestamp;
 
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A HTTP request/response as processed by a web server.
@@ -65,22 +65,24 @@ public class HttpEvent extends GenericTimedEvent implements TimedEvent {
 
     public static final String JSESSIONID_COOKIE_KEY = "JSESSIONID";
 
-    // Static ----------------------------------------------------------------------------------------------------------
+    public static final String COOKIE_REQUEST_HEADER = "Cookie";
 
-    private static final SimpleDateFormat TIMESTAMP_FORMAT = new SimpleDateFormat(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+    // Static ----------------------------------------------------------------------------------------------------------
 
     private static String formatTimestamp(long timestamp) {
 
-        //
-        // we cannot concurrently access a Format instance
-        //
-        synchronized (TIMESTAMP_FORMAT) {
-            return TIMESTAMP_FORMAT.format(timestamp);
-        }
+        return HttpdFormatString.TIMESTAMP_FORMATTER.format(timestamp);
     }
 
     // Attributes ------------------------------------------------------------------------------------------------------
 
+    //
+    // the log line the event was created from, if the parser did not decode some of its values because they were not
+    // required downstream. The values are decoded when the properties they contribute to are first accessed. null
+    // once all values are decoded.
+    //
+    private HttpdLogLine undecoded;
+
     // Constructors ----------------------------------------------------------------------------------------------------
 
     /**
@@ -98,6 +100,64 @@ public class HttpEvent extends GenericTimedEvent implements TimedEvent {
         setRequestDuration(duration);
     }
 
+    // GenericEvent overrides ------------------------------------------------------------------------------------------
+
+    @Override
+    public Property getProperty(String name) {
+
+        decode(name);
+        return super.getProperty(name);
+    }
+
+    @Override
+    public StringProperty getStringProperty(String name) {
+
+        decode(name);
+        return super.getStringProperty(name);
+    }
+
+    @Override
+    public LongProperty getLongProperty(String name) {
+
+        decode(name);
+        return super.getLongProperty(name);
+    }
+
+    @Override
+    public IntegerProperty getIntegerProperty(String name) {
+
+        decode(name);
+        return super.getIntegerProperty(name);
+    }
+
+    @Override
+    public MapProperty getMapProperty(String name) {
+
+        decode(name);
+        return super.getMapProperty(name);
+    }
+
+    @Override
+    public ListProperty getListProperty(String name) {
+
+        decode(name);
+        return super.getListProperty(name);
+    }
+
+    @Override
+    public Set<Property> getProperties() {
+
+        decode(null);
+        return super.getProperties();
+    }
+
+    @Override
+    public List<Property> getPropertyList() {
+
+        decode(null);
+        return super.getPropertyList();
+    }
+
     // Public ----------------------------------------------------------------------------------------------------------
 
     public String getRemoteHost() {
@@ -206,21 +266,17 @@ public class HttpEvent extends GenericTimedEvent implements TimedEvent {
             return null;
         }
 
-        String s = "";
-
         Map<String, Object> m = p.getMap();
-        List<String> keys = new ArrayList<>(m.keySet());
-        Collections.sort(keys);
-
-        for(Iterator<String> ki = keys.iterator(); ki.hasNext(); ) {
-            String key = ki.next();
-            s += key + "=" + m.get(key);
-            if (ki.hasNext()) {
-                s += "&";
-            }
+
+        if (m instanceof QueryParameters) {
+
+            //
+            // computed once
+            //
+            return ((QueryParameters)m).toCanonicalString();
         }
 
-        return s;
+        return QueryParameters.toCanonicalString(m);
     }
 
     public Long getRequestDuration() {
@@ -232,22 +288,30 @@ public class HttpEvent extends GenericTimedEvent implements TimedEvent {
     }
 
     /**
+     * If the cookie was not individually logged, it is extracted on demand from the "Cookie" request header, if
+     * present. Only the requested cookie is extracted.
+     *
      * @return null if no such cookie is present
      */
     public String getCookie(String cookieName) {
 
         MapProperty cookies = (MapProperty)getProperty(HttpEvent.COOKIES);
 
-        if (cookies == null) {
-            return null;
-        }
+        if (cookies != null) {
 
-        Map<String, Object> map = cookies.getMap();
-        if (map == null) {
-            return null;
+            Map<String, Object> map = cookies.getMap();
+
+            if (map != null) {
+
+                String value = (String)map.get(cookieName);
+
+                if (value != null) {
+                    return value;
+                }
+            }
         }
 
-        return (String)map.get(cookieName);
+        return CookieParser.getCookieValue(getRequestHeader(COOKIE_REQUEST_HEADER), cookieName);
     }
 
     /**
@@ -370,10 +434,48 @@ public class HttpEvent extends GenericTimedEvent implements TimedEvent {
 
     // Package protected -----------------------------------------------------------------------------------------------
 
+    /**
+     * @param logLine the log line the event was created from, holding values that were recorded but not decoded while
+     *                parsing.
+     */
+    void setUndecodedLogLine(HttpdLogLine logLine) {
+
+        this.undecoded = logLine;
+    }
+
+    /**
+     * Package protected, for testing only.
+     *
+     * @return true if some of the values of the log line the event was created from were not decoded yet.
+     */
+    boolean hasUndecodedValues() {
+
+        return undecoded != null;
+    }
+
     // Protected -------------------------------------------------------------------------------------------------------
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    /**
+     * Decodes the values that contribute to the given property, unless the property is already present.
+     *
+     * @param propertyName null decodes all values.
+     *
+     * @exception IllegalStateException if a value cannot be decoded. The value stays undecoded, so the next access
+     * fails the same way.
+     */
+    private void decode(String propertyName) {
+
+        if (undecoded == null || (propertyName != null && super.getProperty(propertyName) != null)) {
+            return;
+        }
+
+        if (!undecoded.decodeRawLogValues(this, propertyName)) {
+            undecoded = null;
+        }
+    }
+
     private String getString(String propertyName) {
 
         StringProperty p = getStringProperty(propertyName);
@@ -25,6 +25,7 @@ import java.util.StringTokenizer;
 import org.slf4j.Logger;
 
 import io.novaordis.events.api.event.Property;
+import io.novaordis.events.core.TimestampFormatter;
 import io.novaordis.utilities.parsing.ParsingException;
 
 /**
@@ -44,6 +45,16 @@ public interface HttpdFormatString {
     String TIMESTAMP_FORMAT_STRING = "dd/MMM/yyyy:HH:mm:ss Z";
     DateFormat TIMESTAMP_FORMAT = new SimpleDateFormat(TIMESTAMP_FORMAT_STRING);
 
+    //
+    // thread-safe, use it instead of TIMESTAMP_FORMAT for parsing
+    //
+    HttpdTimestampParser TIMESTAMP_PARSER = new HttpdTimestampParser(TIMESTAMP_FORMAT_STRING);
+
+    //
+    // thread-safe, use it instead of TIMESTAMP_FORMAT for formatting
+    //
+    TimestampFormatter TIMESTAMP_FORMATTER = new TimestampFormatter(TIMESTAMP_FORMAT_STRING);
+
     // Static ----------------------------------------------------------------------------------------------------------
 
     /**
@@ -28,7 +28,6 @@ import io.novaordis.utilities.time.TimestampImpl;
 import java.text.DateFormat;
 import java.text.Format;
 import java.text.ParseException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -147,6 +146,11 @@ public enum HttpdFormatStrings implements HttpdFormatString {
 
     // Constants -------------------------------------------------------------------------------------------------------
 
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
     // Static ----------------------------------------------------------------------------------------------------------
 
     // Attributes ------------------------------------------------------------------------------------------------------
@@ -304,6 +308,14 @@ public enum HttpdFormatStrings implements HttpdFormatString {
 
             try {
 
+                if (TIMESTAMP.equals(this)) {
+
+                    //
+                    // fixed layout, use the fast parser
+                    //
+                    return TIMESTAMP_PARSER.parse(logStringRepresentation);
+                }
+
                 return new TimestampImpl(logStringRepresentation, (DateFormat)format);
             }
             catch(ParseException e) {
@@ -318,38 +330,19 @@ public enum HttpdFormatStrings implements HttpdFormatString {
 
         if (Integer.class.equals(type)) {
 
-            try {
-                return new Integer(logStringRepresentation);
-            }
-            catch(Exception e) {
-                throw new ParsingException(
-                        this + " string representation \"" + logStringRepresentation + "\" is not a valid integer", e,
-                        lineNumber, positionInLine);
-            }
+            return (int)parseLong(logStringRepresentation, 0, logStringRepresentation.length(), lineNumber,
+                    positionInLine);
         }
 
         if (Long.class.equals(type)) {
 
-            try {
-                return new Long(logStringRepresentation);
-            }
-            catch(Exception e) {
-                throw new ParsingException(
-                        this + " string representation \"" + logStringRepresentation + "\" is not a valid long", e,
-                        lineNumber, positionInLine);
-            }
+            return parseLong(logStringRepresentation, 0, logStringRepresentation.length(), lineNumber, positionInLine);
         }
 
         if (Double.class.equals(type)) {
 
-            try {
-                return new Double(logStringRepresentation);
-            }
-            catch(Exception e) {
-                throw new ParsingException(
-                        this + " string representation \"" + logStringRepresentation + "\" is not a valid double", e,
-                        lineNumber, positionInLine);
-            }
+            return parseDouble(
+                    logStringRepresentation, 0, logStringRepresentation.length(), lineNumber, positionInLine);
         }
 
         throw new RuntimeException(this + ": parse() for " + getType() + " NOT IMPLEMENTED YET");
@@ -404,20 +397,10 @@ public enum HttpdFormatStrings implements HttpdFormatString {
 
             // TODO if I run into more than one of these cases, parameterize the conversion logic as a lambda
 
-            String queryString = (String)value;
-            Map<String, String> map = new HashMap<>();
-            value = map;
-            String[] attrs = queryString.split("&");
-            for(String s: attrs) {
-                int i = s.indexOf('=');
-                if (i != -1) {
-                    map.put(s.substring(0, i), s.substring(i + 1));
-                }
-                else {
-                    map.put(s, null);
-                }
-            }
-
+            //
+            // the query is broken down into parameters only if a parameter is requested
+            //
+            value = new QueryParameters((String)value);
         }
 
         return PropertyFactory.createInstance(propertyName, propertyType, value, measureUnit);
@@ -425,6 +408,145 @@ public enum HttpdFormatStrings implements HttpdFormatString {
 
     // Public ----------------------------------------------------------------------------------------------------------
 
+    /**
+     * @return true if the values of this format string are Integers, Longs or Doubles.
+     */
+    public boolean isNumeric() {
+
+        return Integer.class.equals(type) || Long.class.equals(type) || Double.class.equals(type);
+    }
+
+    /**
+     * Decodes an Integer or Long value directly from the given range of the line, without creating intermediary
+     * objects. The "-" (no value) representation must be handled by the caller. The validation rules and the error
+     * reporting are the same as parse()'s.
+     *
+     * @param start the position of the first character of the value (inclusive), also used as position in line for
+     *              error reporting.
+     * @param end the position right after the last character of the value (exclusive).
+     *
+     * @return the value, guaranteed to fit into an int for Integer format strings.
+     *
+     * @exception ParsingException if the range does not contain a valid integer or long, depending on the type.
+     */
+    public long parseLong(String line, int start, int end, Long lineNumber, Integer positionInLine)
+            throws ParsingException {
+
+        int i = start;
+        boolean negative = false;
+
+        if (i < end) {
+
+            char c = line.charAt(i);
+
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                i ++;
+            }
+        }
+
+        //
+        // up to 18 digits cannot overflow a long, longer representations go on the slow path
+        //
+        if (i == end || end - i > 18) {
+            return parseLongSlow(line, start, end, lineNumber, positionInLine);
+        }
+
+        long value = 0;
+
+        for(; i < end; i ++) {
+
+            int digit = line.charAt(i) - '0';
+
+            if (digit < 0 || digit > 9) {
+                return parseLongSlow(line, start, end, lineNumber, positionInLine);
+            }
+
+            value = value * 10 + digit;
+        }
+
+        value = negative ? -value : value;
+
+        if (Integer.class.equals(type) && (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)) {
+            return parseLongSlow(line, start, end, lineNumber, positionInLine);
+        }
+
+        return value;
+    }
+
+    /**
+     * Decodes a Double value directly from the given range of the line. Simple decimal representations are converted
+     * without creating intermediary objects, everything else is handled by Double's own parsing. The "-" (no value)
+     * representation must be handled by the caller. The validation rules and the error reporting are the same as
+     * parse()'s.
+     *
+     * @exception ParsingException if the range does not contain a valid double.
+     */
+    public double parseDouble(String line, int start, int end, Long lineNumber, Integer positionInLine)
+            throws ParsingException {
+
+        int i = start;
+        boolean negative = false;
+
+        if (i < end) {
+
+            char c = line.charAt(i);
+
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                i ++;
+            }
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+
+        for(; i < end; i ++) {
+
+            char c = line.charAt(i);
+
+            if (c == '.' && fractionDigits == -1) {
+                fractionDigits = 0;
+                continue;
+            }
+
+            int digit = c - '0';
+
+            if (digit < 0 || digit > 9) {
+                return parseDoubleSlow(line, start, end, lineNumber, positionInLine);
+            }
+
+            mantissa = mantissa * 10 + digit;
+            digits ++;
+
+            if (fractionDigits != -1) {
+                fractionDigits ++;
+            }
+        }
+
+        //
+        // a mantissa of up to 15 digits and a power of ten of up to 10^22 are exactly representable as doubles, so a
+        // single division is correctly rounded, same result as Double.parseDouble()
+        //
+        if (digits == 0 || digits > 15 || fractionDigits > 22) {
+            return parseDoubleSlow(line, start, end, lineNumber, positionInLine);
+        }
+
+        double value = fractionDigits <= 0 ? (double)mantissa : (double)mantissa / POWERS_OF_TEN[fractionDigits];
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return the name of the HttpEvent property the values of this format string are converted to. May return null
+     * if the format string does not produce a property.
+     */
+    public String getPropertyName() {
+
+        return propertyName;
+    }
+
     @Override
     public String toString() {
 
@@ -433,10 +555,62 @@ public enum HttpdFormatStrings implements HttpdFormatString {
 
     // Package protected -----------------------------------------------------------------------------------------------
 
+    /**
+     * @return the type of the HttpEvent property the values of this format string are converted to. May return null
+     * if the format string does not produce a property.
+     */
+    Class getPropertyType() {
+
+        return propertyType;
+    }
+
     // Protected -------------------------------------------------------------------------------------------------------
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    private void checkNotBlank(String s, Long lineNumber, Integer positionInLine) throws ParsingException {
+
+        if (s.trim().length() == 0) {
+            throw new ParsingException("empty string passed as a value for " + this, lineNumber, positionInLine);
+        }
+    }
+
+    private long parseLongSlow(String line, int start, int end, Long lineNumber, Integer positionInLine)
+            throws ParsingException {
+
+        String s = line.substring(start, end);
+
+        checkNotBlank(s, lineNumber, positionInLine);
+
+        try {
+
+            return Integer.class.equals(type) ? Integer.parseInt(s) : Long.parseLong(s);
+        }
+        catch(Exception e) {
+            throw new ParsingException(
+                    this + " string representation \"" + s + "\" is not a valid " +
+                            (Integer.class.equals(type) ? "integer" : "long"), e, lineNumber, positionInLine);
+        }
+    }
+
+    private double parseDoubleSlow(String line, int start, int end, Long lineNumber, Integer positionInLine)
+            throws ParsingException {
+
+        String s = line.substring(start, end);
+
+        checkNotBlank(s, lineNumber, positionInLine);
+
+        try {
+
+            return Double.parseDouble(s);
+        }
+        catch(Exception e) {
+            throw new ParsingException(
+                    this + " string representation \"" + s + "\" is not a valid double", e,
+                    lineNumber, positionInLine);
+        }
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
 }
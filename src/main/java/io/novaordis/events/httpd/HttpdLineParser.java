@@ -20,12 +20,18 @@ import io.novaordis.events.api.event.Event;
 import io.novaordis.utilities.parsing.ParsingException;
 import io.novaordis.events.core.LineFormat;
 import io.novaordis.events.core.LineParser;
+import io.novaordis.events.core.SymbolTable;
+import io.novaordis.events.core.TimeWindow;
 import io.novaordis.events.httpd.microparsers.UrlParser;
 import io.novaordis.events.httpd.microparsers.cookie.CookieParser;
 import io.novaordis.events.httpd.microparsers.FirstRequestLineParser;
 import io.novaordis.events.httpd.microparsers.UserAgentParser;
+import io.novaordis.utilities.time.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author Ovidiu Feodorov <ovidiu@novaordis.com>
@@ -35,12 +41,37 @@ public class HttpdLineParser implements LineParser {
 
     // Constants -------------------------------------------------------------------------------------------------------
 
+    private static final Logger log = LoggerFactory.getLogger(HttpdLineParser.class);
+
     // Static ----------------------------------------------------------------------------------------------------------
 
     // Attributes ------------------------------------------------------------------------------------------------------
 
     private HttpdLogFormat lineFormat;
 
+    //
+    // one element per format string, true if the values corresponding to the format string must be decoded while
+    // parsing. null means everything is decoded.
+    //
+    private boolean[] required;
+
+    //
+    // one element per format string, true if the values corresponding to the format string are low-cardinality
+    // strings that should be deduplicated through the symbol table
+    //
+    private boolean[] internable;
+
+    // not shared, a parser is used by a single thread
+    private SymbolTable symbols;
+
+    // null means the lines are not checked against a time window before they are parsed
+    private TimeWindow timeWindow;
+
+    // the index of the first %t format string, -1 if the format has no timestamp
+    private int timestampIndex;
+
+    private long outsideTimeWindowLines;
+
     // Constructors ----------------------------------------------------------------------------------------------------
 
     /**
@@ -69,16 +100,20 @@ public class HttpdLineParser implements LineParser {
             //
             throw new IllegalArgumentException("invalid httpd log format \"" + format + "\"", e);
         }
+
+        initializeSymbols();
     }
 
     public HttpdLineParser(HttpdLogFormat format) throws IllegalArgumentException {
 
         this.lineFormat = format;
+        initializeSymbols();
     }
 
     public HttpdLineParser(HttpdFormatString... httpdFormatStrings) throws IllegalArgumentException {
 
         this.lineFormat = new HttpdLogFormat(httpdFormatStrings);
+        initializeSymbols();
     }
 
     // LineParser implementation ---------------------------------------------------------------------------------------
@@ -99,14 +134,18 @@ public class HttpdLineParser implements LineParser {
             return null;
         }
 
-        HttpdLogLine logLine = new HttpdLogLine();
+        if (isOutsideTimeWindow(line, lineNumber)) {
+            return null;
+        }
+
+        HttpdLogLine logLine = new HttpdLogLine(lineFormat);
 
         logLine.setLineNumber(lineNumber);
 
         //
         // we don't perform a match against an aggregated format that would match the entire line because we also want
-        // to handle incomplete lines. In the future, we will see if this is useful, and if not replace the current
-        // parsing code with matching against the aggregated pattern (TODO: evaluate this later)
+        // to handle incomplete lines. Matching against the aggregated pattern, with a fallback on this code for the
+        // lines that do not match, is implemented by RegexHttpdLineParser
         //
 
         List<HttpdFormatString> httpdFormatStrings = lineFormat.getHttpdFormatStrings();
@@ -115,7 +154,9 @@ public class HttpdLineParser implements LineParser {
         int cursor = 0;
         HttpdFormatString expectedRightEnclosure = null;
 
-        for(HttpdFormatString crt : httpdFormatStrings) {
+        for(int index = 0; index < httpdFormatStrings.size(); index ++) {
+
+            HttpdFormatString crt = httpdFormatStrings.get(index);
 
              if (expectedRightEnclosure != null) {
 
@@ -160,8 +201,7 @@ public class HttpdLineParser implements LineParser {
 
             Token token = nextToken(line, cursor, crt, expectedRightEnclosure, lineNumber);
 
-            Object o = crt.parse(token.getValue(), lineNumber, cursor);
-            logLine.setLogValue(crt, o);
+            setLogValue(logLine, index, crt, line, cursor, token.getEnd(), lineNumber);
 
             cursor = token.getCursor();
         }
@@ -175,6 +215,80 @@ public class HttpdLineParser implements LineParser {
         return lineFormat;
     }
 
+    /**
+     * Informs the parser about the event properties that are actually consumed downstream. The fields that do not
+     * contribute to any of those properties are still located in the line, but their values are not decoded while
+     * parsing: the HttpEvent produced by parseLine() keeps their boundaries and decodes them when the corresponding
+     * properties are first accessed. The timestamp is always decoded.
+     *
+     * The caller should pass the union of the properties read by the downstream consumers of the events: the command
+     * and the event filter (see EventsApplicationRuntime.setRequiredProperties()). A property left out is still
+     * available, but it is decoded later and for each event. A malformed field that is not required does not produce
+     * a fault: it is not validated while parsing, and accessing the corresponding property throws
+     * IllegalStateException.
+     *
+     * The method must be called before the parser starts being used.
+     *
+     * @param propertyNames the names of the required HttpEvent properties. null means all properties are required,
+     *                      which is the default behavior.
+     */
+    public void setRequiredProperties(Set<String> propertyNames) {
+
+        if (propertyNames == null) {
+
+            required = null;
+            return;
+        }
+
+        List<HttpdFormatString> httpdFormatStrings = lineFormat.getHttpdFormatStrings();
+
+        boolean[] r = new boolean[httpdFormatStrings.size()];
+
+        for(int i = 0; i < r.length; i ++) {
+
+            r[i] = isRequired(httpdFormatStrings.get(i), propertyNames);
+        }
+
+        required = r;
+
+        log.debug(this + " will only decode values required by " + propertyNames);
+    }
+
+    /**
+     * Pushes the time bounds into the parser: the timestamp of each line is located and decoded first, and the lines
+     * whose timestamp falls outside the window are discarded (parseLine() returns null) without the rest of the line
+     * being tokenized. The lines that cannot be scanned up to the timestamp are parsed as usual. Has no effect if the
+     * format has no %t.
+     *
+     * The method must be called before the parser starts being used. The window must not be shared with other
+     * pipeline stages.
+     *
+     * @param timeWindow null disables the check.
+     */
+    public void setTimeWindow(TimeWindow timeWindow) {
+
+        if (timeWindow != null && timestampIndex == -1) {
+
+            log.debug(this + " cannot check the time window, the format has no timestamp");
+            timeWindow = null;
+        }
+
+        this.timeWindow = timeWindow;
+    }
+
+    public TimeWindow getTimeWindow() {
+
+        return timeWindow;
+    }
+
+    /**
+     * @return the number of lines discarded because their timestamp was outside the time window.
+     */
+    public long getOutsideTimeWindowLineCount() {
+
+        return outsideTimeWindowLines;
+    }
+
     @Override
     public String toString() {
 
@@ -185,6 +299,207 @@ public class HttpdLineParser implements LineParser {
 
     // Protected -------------------------------------------------------------------------------------------------------
 
+    /**
+     * Converts the string representation of a field, delimited by start and end in the line, into a typed value and
+     * stores it in the log line. If the field is not required downstream, only the boundaries are recorded. Shared by
+     * all parsing strategies, so the typed conversion logic lives in only one place.
+     *
+     * @param index the index of the format string in the log format.
+     */
+    protected void setLogValue(HttpdLogLine logLine, int index, HttpdFormatString crt, String line, int start, int end,
+                               long lineNumber) throws ParsingException {
+
+        int slot = lineFormat.getSlot(index);
+
+        if (required != null && !required[index]) {
+
+            logLine.setRawLogValueAt(slot, line, start, end);
+            return;
+        }
+
+        if (crt instanceof HttpdFormatStrings && ((HttpdFormatStrings)crt).isNumeric()) {
+
+            //
+            // decode numbers directly from the line into primitives, no substring, no boxing
+            //
+
+            HttpdFormatStrings fs = (HttpdFormatStrings)crt;
+
+            if (end - start == 1 && line.charAt(start) == '-') {
+
+                logLine.setLogValueAt(slot, null);
+            }
+            else if (Double.class.equals(fs.getType())) {
+
+                logLine.setDoubleLogValueAt(slot, fs.parseDouble(line, start, end, lineNumber, start));
+            }
+            else {
+
+                logLine.setLongLogValueAt(slot, fs.parseLong(line, start, end, lineNumber, start));
+            }
+
+            return;
+        }
+
+        if (internable[index] && !isBlank(line, start, end) && (end - start != 1 || line.charAt(start) != '-')) {
+
+            //
+            // the same semantics as HttpdFormatStrings/ParameterizedHttpdFormatStringBase parse(), without the
+            // intermediary substring
+            //
+            logLine.setLogValueAt(slot, symbols.intern(line, start, end));
+            return;
+        }
+
+        Object o = crt.parse(line.substring(start, end), lineNumber, start);
+        logLine.setLogValueAt(slot, o);
+    }
+
+    /**
+     * @param index the index of the format string in the log format.
+     *
+     * @return true if the values of the format string must be decoded, false if they are not used downstream.
+     *
+     * @see HttpdLineParser#setRequiredProperties(Set)
+     */
+    protected boolean isDecodingRequired(int index) {
+
+        return required == null || required[index];
+    }
+
+    /**
+     * @param index the index of the format string in the log format.
+     *
+     * @return true if the values of the format string are deduplicated through the symbol table.
+     */
+    protected boolean isInterned(int index) {
+
+        return internable[index];
+    }
+
+    /**
+     * Locates the timestamp the same way parseLine() does, without decoding the fields that precede it, and checks it
+     * against the time window.
+     *
+     * @return true if the line must be discarded. Returns false if there is no time window, or if the line cannot be
+     * scanned up to the timestamp, so the full parse reports the problem.
+     */
+    protected boolean isOutsideTimeWindow(String line, long lineNumber) {
+
+        if (timeWindow == null) {
+            return false;
+        }
+
+        List<HttpdFormatString> httpdFormatStrings = lineFormat.getHttpdFormatStrings();
+
+        int cursor = 0;
+        HttpdFormatString expectedRightEnclosure = null;
+
+        try {
+
+            for(int index = 0; index <= timestampIndex; index ++) {
+
+                HttpdFormatString crt = httpdFormatStrings.get(index);
+
+                if (expectedRightEnclosure != null && crt.equals(expectedRightEnclosure)) {
+
+                    while(line.charAt(cursor) == ' ') { cursor++; }
+                    if (line.charAt(cursor) != crt.getLiteral().charAt(0)) {
+                        return false;
+                    }
+                    cursor++;
+                    while(cursor < line.length() && line.charAt(cursor) == ' ') { cursor++; }
+                    expectedRightEnclosure = null;
+                    continue;
+                }
+
+                if (expectedRightEnclosure == null && crt.isLeftEnclosure()) {
+
+                    expectedRightEnclosure = crt.getMatchingEnclosure();
+                    while(line.charAt(cursor) == ' ') { cursor++; }
+                    if (line.charAt(cursor) != crt.getLiteral().charAt(0)) {
+                        return false;
+                    }
+                    cursor++;
+                    continue;
+                }
+
+                Token token = nextToken(line, cursor, crt, expectedRightEnclosure, lineNumber);
+
+                if (index == timestampIndex) {
+                    return isOutsideTimeWindow(line, cursor, token.getEnd(), lineNumber);
+                }
+
+                cursor = token.getCursor();
+            }
+        }
+        catch(ParsingException | IndexOutOfBoundsException e) {
+
+            //
+            // the full parse will report it
+            //
+        }
+
+        return false;
+    }
+
+    /**
+     * Decodes the timestamp delimited by start and end in the line and checks it against the time window.
+     *
+     * @return true if the line must be discarded. Returns false if there is no time window, or if the timestamp cannot
+     * be decoded, so the full parse reports the problem.
+     */
+    protected boolean isOutsideTimeWindow(String line, int start, int end, long lineNumber) {
+
+        if (timeWindow == null) {
+            return false;
+        }
+
+        Timestamp timestamp;
+
+        try {
+
+            timestamp = (Timestamp)HttpdFormatStrings.TIMESTAMP.parse(line.substring(start, end), lineNumber, start);
+        }
+        catch(ParsingException e) {
+
+            return false;
+        }
+
+        return isOutsideTimeWindow(timestamp);
+    }
+
+    /**
+     * Checks an already decoded timestamp against the time window.
+     *
+     * @return true if the line must be discarded. Returns false if there is no time window or no timestamp.
+     */
+    protected boolean isOutsideTimeWindow(Timestamp timestamp) {
+
+        if (timeWindow == null || timestamp == null || timeWindow.contains(timestamp)) {
+            return false;
+        }
+
+        outsideTimeWindowLines ++;
+        return true;
+    }
+
+    /**
+     * @return the index of the first %t format string, -1 if the format has no timestamp.
+     */
+    protected int getTimestampIndex() {
+
+        return timestampIndex;
+    }
+
+    /**
+     * @return the table used to deduplicate low-cardinality values.
+     */
+    protected SymbolTable getSymbolTable() {
+
+        return symbols;
+    }
+
     protected static Token nextToken(String line, int cursor, HttpdFormatString crt,
                                      HttpdFormatString expectedRightEnclosure, Long lineNumber)
             throws ParsingException {
@@ -232,18 +547,122 @@ public class HttpdLineParser implements LineParser {
         }
 
         i = i == -1 ? line.length() : i;
-        String value = line.substring(cursor, i);
+        int end = i;
 
         //
         // advance the cursor to the next non-blank character
         //
         while(i < line.length() && line.charAt(i) == ' ') { i++; }
 
-        return new Token(i, value);
+        return new Token(i, line, cursor, end);
+    }
+
+    // Package protected static ----------------------------------------------------------------------------------------
+
+    /**
+     * @return true if the values of the given format string contribute to at least one of the given properties.
+     */
+    static boolean isRequired(HttpdFormatString fs, Set<String> propertyNames) {
+
+        if (HttpdFormatStrings.TIMESTAMP.equals(fs)) {
+
+            //
+            // always needed, HttpEvents are timed events and the timestamp is used for filtering
+            //
+            return true;
+        }
+
+        if (HttpdFormatStrings.FIRST_REQUEST_LINE.equals(fs)) {
+
+            return propertyNames.contains(HttpEvent.METHOD) ||
+                    propertyNames.contains(HttpEvent.REQUEST_URI) ||
+                    propertyNames.contains(HttpEvent.HTTP_VERSION);
+        }
+
+        if (fs instanceof HttpdFormatStrings) {
+
+            String propertyName = ((HttpdFormatStrings)fs).getPropertyName();
+            return propertyName != null && propertyNames.contains(propertyName);
+        }
+
+        if (fs instanceof ParameterizedHttpdFormatStringBase) {
+
+            return propertyNames.contains(((ParameterizedHttpdFormatStringBase)fs).getHttpEventMapName());
+        }
+
+        //
+        // we don't know what it produces, so we decode it
+        //
+        return true;
+    }
+
+    /**
+     * @return true if the values of the given format string are strings that usually repeat across lines (addresses,
+     * user names, thread names, server names, non-cookie and non-URL header values).
+     */
+    static boolean isInternable(HttpdFormatString fs) {
+
+        if (fs instanceof HttpdFormatStrings) {
+
+            switch ((HttpdFormatStrings)fs) {
+
+                case REMOTE_HOST:
+                case REMOTE_LOGNAME:
+                case REMOTE_USER:
+                case THREAD_NAME:
+                case LOCAL_IP_ADDRESS:
+                case LOCAL_SERVER_NAME:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        if (fs instanceof RequestHeaderHttpdFormatString || fs instanceof ResponseHeaderHttpdFormatString) {
+
+            return !CookieParser.isCookieHeader(fs) && !UrlParser.isUrl(fs);
+        }
+
+        return false;
     }
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    private void initializeSymbols() {
+
+        symbols = new SymbolTable();
+        timestampIndex = -1;
+
+        if (lineFormat == null) {
+
+            internable = new boolean[0];
+            return;
+        }
+
+        List<HttpdFormatString> httpdFormatStrings = lineFormat.getHttpdFormatStrings();
+
+        timestampIndex = httpdFormatStrings.indexOf(HttpdFormatStrings.TIMESTAMP);
+
+        internable = new boolean[httpdFormatStrings.size()];
+
+        for(int i = 0; i < internable.length; i ++) {
+
+            internable[i] = isInternable(httpdFormatStrings.get(i));
+        }
+    }
+
+    private static boolean isBlank(String line, int start, int end) {
+
+        for(int i = start; i < end; i ++) {
+
+            if (line.charAt(i) > ' ') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
     /**
@@ -252,7 +671,11 @@ public class HttpdLineParser implements LineParser {
     static class Token {
 
         private int cursor;
-        private String value; // may contain spaces
+        private String value; // may contain spaces, lazily extracted from the line if null
+
+        private String line;
+        private int start;
+        private int end;
 
         /**
          * @param value may contain spaces.
@@ -260,6 +683,18 @@ public class HttpdLineParser implements LineParser {
         public Token(int cursor, String value) {
             this.cursor = cursor;
             this.value = value;
+            this.end = -1;
+        }
+
+        /**
+         * The value is delimited by start (inclusive) and end (exclusive) in the line, and it is only extracted if
+         * requested.
+         */
+        public Token(int cursor, String line, int start, int end) {
+            this.cursor = cursor;
+            this.line = line;
+            this.start = start;
+            this.end = end;
         }
 
         public int getCursor() {
@@ -267,9 +702,21 @@ public class HttpdLineParser implements LineParser {
         }
 
         public String getValue() {
+
+            if (value == null && line != null) {
+                value = line.substring(start, end);
+            }
+
             return value;
         }
 
+        /**
+         * @return the position in line right after the value, or -1 if the token was not built from a line.
+         */
+        public int getEnd() {
+            return end;
+        }
+
         @Override
         public String toString() {
             return cursor + ":" + value;
@@ -18,11 +18,14 @@ package io.novaordis.events.httpd;
 
 import io.novaordis.utilities.parsing.ParsingException;
 import io.novaordis.events.core.LineFormat;
+import io.novaordis.events.httpd.microparsers.cookie.CookieParser;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents the log format specification - is a list of format strings.
@@ -94,6 +97,18 @@ public class HttpdLogFormat implements LineFormat {
 
     private List<HttpdFormatString> httpdFormatStrings;
 
+    //
+    // each distinct format string is assigned a value slot, so the values of a log line can be stored in an array
+    // sized to the format. Computed once, when the format is built.
+    //
+    private HttpdFormatString[] slots;
+
+    // the slot of the format string on the given position
+    private int[] slotByPosition;
+
+    // the slot of the given HttpdFormatStrings, by ordinal, or -1 if the format does not contain it
+    private int[] slotByOrdinal;
+
     // Constructors ----------------------------------------------------------------------------------------------------
 
     /**
@@ -138,6 +153,8 @@ public class HttpdLogFormat implements LineFormat {
 
         // this is where we add implied brackets, etc.
         this.httpdFormatStrings = postProcess(httpdFormatStrings);
+
+        computeSlots();
     }
 
     // Public ----------------------------------------------------------------------------------------------------------
@@ -151,6 +168,108 @@ public class HttpdLogFormat implements LineFormat {
         return httpdFormatStrings;
     }
 
+    /**
+     * @return the number of value slots a log line in this format needs - the number of distinct format strings.
+     */
+    public int getSlotCount() {
+
+        return slots.length;
+    }
+
+    /**
+     * @param position the position of the format string in the list returned by getHttpdFormatStrings().
+     *
+     * @return the slot that holds the value of the format string on the given position.
+     */
+    public int getSlot(int position) {
+
+        return slotByPosition[position];
+    }
+
+    /**
+     * @return the slot that holds the values of the given format string, or -1 if the format does not contain it.
+     */
+    public int getSlot(HttpdFormatString fs) {
+
+        if (fs instanceof HttpdFormatStrings) {
+
+            return slotByOrdinal[((HttpdFormatStrings)fs).ordinal()];
+        }
+
+        for(int i = 0; i < slots.length; i ++) {
+
+            if (slots[i] == fs) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return true if the value of the given cookie can only come from the "Cookie" request header, which is logged in
+     * the "name=value" form, so the value can be looked up directly in the raw line. Returns false if the format has
+     * no "Cookie" request header, or if the cookie is also logged individually.
+     */
+    public boolean isCookieLoggedInRequestHeaderOnly(String cookieName) {
+
+        boolean requestHeader = false;
+
+        for(HttpdFormatString fs: httpdFormatStrings) {
+
+            if (fs instanceof CookieHttpdFormatString &&
+                    ((CookieHttpdFormatString)fs).getCookieName().equals(cookieName)) {
+                return false;
+            }
+
+            if (CookieParser.isCookieRequestHeader(fs)) {
+                requestHeader = true;
+            }
+        }
+
+        return requestHeader;
+    }
+
+    /**
+     * @return the names of the HttpEvent properties whose string values are copied verbatim from the log line, so a
+     * value of such a property can be searched in the raw line. The numeric properties are reformatted, and the query
+     * string, the cookies and the headers are converted to maps, so they are not included.
+     */
+    public Set<String> getVerbatimPropertyNames() {
+
+        Set<String> names = new HashSet<>();
+
+        for(HttpdFormatString fs: httpdFormatStrings) {
+
+            if (HttpdFormatStrings.FIRST_REQUEST_LINE.equals(fs)) {
+
+                names.add(HttpEvent.METHOD);
+                names.add(HttpEvent.REQUEST_URI);
+                names.add(HttpEvent.HTTP_VERSION);
+            }
+            else if (fs instanceof HttpdFormatStrings) {
+
+                HttpdFormatStrings s = (HttpdFormatStrings)fs;
+
+                if (s.getPropertyName() != null && String.class.equals(s.getType()) &&
+                        String.class.equals(s.getPropertyType())) {
+
+                    names.add(s.getPropertyName());
+                }
+            }
+        }
+
+        return names;
+    }
+
+    /**
+     * @return the format string whose values are held in the given slot.
+     */
+    public HttpdFormatString getSlotFormatString(int slot) {
+
+        return slots[slot];
+    }
+
     @Override
     public String toString() {
 
@@ -251,6 +370,54 @@ public class HttpdLogFormat implements LineFormat {
         return result;
     }
 
+    /**
+     * Equal HttpdFormatStrings share the slot, parameterized format strings get a slot per instance.
+     */
+    private void computeSlots() {
+
+        List<HttpdFormatString> distinct = new ArrayList<>();
+
+        slotByPosition = new int[httpdFormatStrings.size()];
+        slotByOrdinal = new int[HttpdFormatStrings.values().length];
+        Arrays.fill(slotByOrdinal, -1);
+
+        for(int i = 0; i < httpdFormatStrings.size(); i ++) {
+
+            HttpdFormatString fs = httpdFormatStrings.get(i);
+
+            int slot = -1;
+
+            if (fs instanceof HttpdFormatStrings) {
+
+                slot = slotByOrdinal[((HttpdFormatStrings)fs).ordinal()];
+            }
+            else {
+
+                for(int j = 0; j < distinct.size(); j ++) {
+
+                    if (distinct.get(j) == fs) {
+                        slot = j;
+                        break;
+                    }
+                }
+            }
+
+            if (slot == -1) {
+
+                slot = distinct.size();
+                distinct.add(fs);
+
+                if (fs instanceof HttpdFormatStrings) {
+                    slotByOrdinal[((HttpdFormatStrings)fs).ordinal()] = slot;
+                }
+            }
+
+            slotByPosition[i] = slot;
+        }
+
+        slots = distinct.toArray(new HttpdFormatString[distinct.size()]);
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
 }
@@ -19,10 +19,12 @@ package io.novaordis.events.httpd;
 import io.novaordis.events.api.event.Event;
 import io.novaordis.events.api.event.Property;
 import io.novaordis.events.api.event.StringProperty;
+import io.novaordis.utilities.parsing.ParsingException;
 import io.novaordis.utilities.time.Timestamp;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -35,19 +37,73 @@ public class HttpdLogLine {
 
     // Constants -------------------------------------------------------------------------------------------------------
 
+    //
+    // slot states
+    //
+    private static final byte EMPTY = 0;
+    private static final byte OBJECT = 1;
+    private static final byte NUMBER = 2;
+    private static final byte RAW = 3;
+
     // Static ----------------------------------------------------------------------------------------------------------
 
     // Attributes ------------------------------------------------------------------------------------------------------
 
     private long lineNumber;
 
-    private Map<HttpdFormatString, Object> values;
+    // may be null
+    private HttpdLogFormat format;
+
+    //
+    // the values are kept in slots, one slot per distinct format string. If the line was created for a format, the
+    // first slots are the format's slots, laid out in advance. Slots for format strings not present in the format are
+    // added on demand. The arrays are parallel, the meaning of the value depends on the slot state:
+    //
+    // OBJECT - values[slot] is the typed value.
+    // NUMBER - numbers[slot] is the unboxed Integer or Long value, or the raw long bits of the Double value.
+    // RAW    - values[slot] is the line and numbers[slot] holds the start (high 32 bits) and the end (low 32 bits) of
+    //          the undecoded value.
+    //
+    private HttpdFormatString[] formatStrings;
+    private Object[] values;
+    private long[] numbers;
+    private byte[] state;
+    private int slotCount;
 
     // Constructors ----------------------------------------------------------------------------------------------------
 
     public HttpdLogLine() {
 
-        this.values = new HashMap<>();
+        this(null);
+    }
+
+    /**
+     * Lays out the slots for the values of the given format in advance, so the parsers can store values by slot index
+     * without any lookup.
+     *
+     * @param format may be null, in which case the slots are allocated on demand.
+     */
+    public HttpdLogLine(HttpdLogFormat format) {
+
+        this.format = format;
+
+        int capacity = 8;
+
+        if (format != null) {
+
+            slotCount = format.getSlotCount();
+            capacity = Math.max(slotCount, 1);
+        }
+
+        this.formatStrings = new HttpdFormatString[capacity];
+        this.values = new Object[capacity];
+        this.numbers = new long[capacity];
+        this.state = new byte[capacity];
+
+        for(int i = 0; i < slotCount; i ++) {
+
+            formatStrings[i] = format.getSlotFormatString(i);
+        }
     }
 
     // Public ----------------------------------------------------------------------------------------------------------
@@ -66,7 +122,57 @@ public class HttpdLogLine {
      */
     public Object getLogValue(HttpdFormatString e) {
 
-        return values.get(e);
+        int slot = findSlot(e);
+
+        return slot == -1 ? null : getLogValueAt(slot);
+    }
+
+    /**
+     * Records the boundaries of the string representation of the value associated with the given format string,
+     * without decoding it. The value will be decoded on first access via getLogValue(). The events produced by
+     * toEvent() decode the value when the corresponding property is first accessed.
+     *
+     * @param start the position in line of the first character of the value (inclusive).
+     * @param end the position in line right after the last character of the value (exclusive).
+     */
+    public void setRawLogValue(HttpdFormatString e, String line, int start, int end) {
+
+        setRawLogValueAt(slot(e), line, start, end);
+    }
+
+    /**
+     * Stores an Integer or Long value without boxing it.
+     *
+     * @exception IllegalArgumentException if the format string does not hold Integer or Long values, or if the value
+     * does not fit in an Integer for Integer format strings.
+     */
+    public void setLongLogValue(HttpdFormatStrings e, long value) {
+
+        Class type = e.getType();
+
+        if (!Long.class.equals(type) && !Integer.class.equals(type)) {
+            throw new IllegalArgumentException("type mismatch, long " + value + " is not a valid type for " + e);
+        }
+
+        if (Integer.class.equals(type) && (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException(value + " is not a valid integer value for " + e);
+        }
+
+        setLongLogValueAt(slot(e), value);
+    }
+
+    /**
+     * Stores a Double value without boxing it.
+     *
+     * @exception IllegalArgumentException if the format string does not hold Double values.
+     */
+    public void setDoubleLogValue(HttpdFormatStrings e, double value) {
+
+        if (!Double.class.equals(e.getType())) {
+            throw new IllegalArgumentException("type mismatch, double " + value + " is not a valid type for " + e);
+        }
+
+        setDoubleLogValueAt(slot(e), value);
     }
 
     /**
@@ -84,7 +190,15 @@ public class HttpdLogLine {
             //
             // this work fell for IGNORE, it is simply removed when it does not exist, meaning ... ignored
             //
-            return values.remove(e);
+            int slot = findSlot(e);
+
+            if (slot == -1) {
+                return null;
+            }
+
+            Object previous = state[slot] == RAW ? null : getLogValueAt(slot);
+            setLogValueAt(slot, null);
+            return previous;
         }
 
         Class formatType = e.getType();
@@ -96,15 +210,28 @@ public class HttpdLogLine {
                     "type mismatch, " + value.getClass() + " \"" + value + "\" is not a valid type for " + e);
         }
 
-        return values.put(e, value);
+        int slot = slot(e);
+        Object previous = state[slot] == RAW ? null : getLogValueAt(slot);
+        setLogValueAt(slot, value);
+        return previous;
     }
 
     /**
-     * @return the HttpdFormatStrings this httpd log line has values for.
+     * @return the HttpdFormatStrings this httpd log line has values for, in slot order. The set includes the format
+     * strings whose values have been recorded but not decoded yet.
      */
     public Set<HttpdFormatString> getFormatStrings() {
 
-        return values.keySet();
+        Set<HttpdFormatString> result = new LinkedHashSet<>();
+
+        for(int i = 0; i < slotCount; i ++) {
+
+            if (state[i] != EMPTY) {
+                result.add(formatStrings[i]);
+            }
+        }
+
+        return result;
     }
 
     public Timestamp getTimestamp() {
@@ -228,37 +355,24 @@ public class HttpdLogLine {
             httpEvent.setLongProperty(Event.LINE_NUMBER_PROPERTY_NAME, lineNumber);
         }
 
-        Set<HttpdFormatString> httpdFormatStrings = getFormatStrings();
+        boolean undecoded = false;
+
+        for(int i = 0; i < slotCount; i ++) {
 
-        for(HttpdFormatString fs: httpdFormatStrings) {
+            if (state[i] == RAW) {
 
-            if (HttpdFormatStrings.TIMESTAMP.equals(fs)) {
-                // already handled
+                //
+                // not required by the parser projection, decoded when the event property is first accessed
+                //
+                undecoded = true;
                 continue;
             }
 
-            if (HttpdFormatStrings.FIRST_REQUEST_LINE.equals(fs)) {
-
-                String s = (String)getLogValue(HttpdFormatStrings.FIRST_REQUEST_LINE);
-                if (s == null) {
-                    continue;
-                }
-
-                String[] methodPathHtmlVersion = parseFirstRequestLine(s);
-                httpEvent.setProperty(new StringProperty(HttpEvent.METHOD, methodPathHtmlVersion[0]));
-                httpEvent.setProperty(new StringProperty(HttpEvent.REQUEST_URI, methodPathHtmlVersion[1]));
-                if (methodPathHtmlVersion.length > 2) {
-                    httpEvent.setProperty(new StringProperty(HttpEvent.HTTP_VERSION, methodPathHtmlVersion[2]));
-                }
-            }
-            else {
+            setProperties(httpEvent, i);
+        }
 
-                Object value = getLogValue(fs);
-                Property p = fs.toProperty(value);
-                if (p != null) {
-                    httpEvent.setProperty(p);
-                }
-            }
+        if (undecoded) {
+            httpEvent.setUndecodedLogLine(this);
         }
 
         return httpEvent;
@@ -268,7 +382,7 @@ public class HttpdLogLine {
     public String toString() {
 
         Timestamp timestamp = getTimestamp();
-        String ts = timestamp == null ? "-" : timestamp.format(HttpdFormatString.TIMESTAMP_FORMAT);
+        String ts = timestamp == null ? "-" : HttpdFormatString.TIMESTAMP_FORMATTER.format(timestamp);
         String rls = getFirstRequestLine();
         rls = rls == null ? "-" : rls;
         Integer rsc = getOriginalRequestStatusCode();
@@ -278,6 +392,85 @@ public class HttpdLogLine {
 
     // Package protected -----------------------------------------------------------------------------------------------
 
+    //
+    // slot-indexed access, used by the parsers. The slot must come from the HttpdLogFormat the line was created for.
+    // There is no type check, the values produced by a format string's own conversion are of the right type by
+    // construction.
+    //
+
+    /**
+     * @param value null erases the value.
+     */
+    void setLogValueAt(int slot, Object value) {
+
+        values[slot] = value;
+        state[slot] = value == null ? EMPTY : OBJECT;
+    }
+
+    void setLongLogValueAt(int slot, long value) {
+
+        values[slot] = null;
+        numbers[slot] = value;
+        state[slot] = NUMBER;
+    }
+
+    void setDoubleLogValueAt(int slot, double value) {
+
+        values[slot] = null;
+        numbers[slot] = Double.doubleToRawLongBits(value);
+        state[slot] = NUMBER;
+    }
+
+    void setRawLogValueAt(int slot, String line, int start, int end) {
+
+        values[slot] = line;
+        numbers[slot] = ((long)start << 32) | (end & 0xFFFFFFFFL);
+        state[slot] = RAW;
+    }
+
+    /**
+     * Decodes the values recorded with setRawLogValueAt() that contribute to the given property, and sets the
+     * corresponding properties on the event.
+     *
+     * @param propertyName null decodes all values recorded raw.
+     *
+     * @return true if there are values left undecoded.
+     *
+     * @exception IllegalStateException if a value cannot be decoded.
+     */
+    boolean decodeRawLogValues(HttpEvent httpEvent, String propertyName) {
+
+        Set<String> propertyNames = propertyName == null ? null : Collections.singleton(propertyName);
+
+        boolean undecoded = false;
+
+        for(int i = 0; i < slotCount; i ++) {
+
+            if (state[i] != RAW) {
+                continue;
+            }
+
+            if (propertyNames != null && !HttpdLineParser.isRequired(formatStrings[i], propertyNames)) {
+
+                undecoded = true;
+                continue;
+            }
+
+            getLogValueAt(i);
+
+            try {
+
+                setProperties(httpEvent, i);
+            }
+            catch(IllegalArgumentException e) {
+
+                throw new IllegalStateException("line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        return undecoded;
+    }
+
     // Static Package protected ----------------------------------------------------------------------------------------
 
     /**
@@ -310,7 +503,10 @@ public class HttpdLogLine {
 
         try {
 
-            HTTPMethod.valueOf(result[0]);
+            //
+            // the enum constant name is a canonical instance, shared by all events
+            //
+            result[0] = HTTPMethod.valueOf(result[0]).name();
         }
         catch(Exception e) {
             throw new IllegalArgumentException(
@@ -323,7 +519,13 @@ public class HttpdLogLine {
 
         if (result.length == 3) {
 
-            if (!"HTTP/1.0".equals(result[2]) && !"HTTP/1.1".equals(result[2])) {
+            if ("HTTP/1.1".equals(result[2])) {
+                result[2] = "HTTP/1.1";
+            }
+            else if ("HTTP/1.0".equals(result[2])) {
+                result[2] = "HTTP/1.0";
+            }
+            else {
                 throw new IllegalArgumentException(
                         "invalid first request line \"" + firstRequestLine + "\", unknown HTTP version \"" +
                                 result[2] + "\"");
@@ -337,6 +539,159 @@ public class HttpdLogLine {
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    /**
+     * Converts the decoded value in the slot into event properties.
+     *
+     * @exception IllegalArgumentException if the first request line is invalid.
+     */
+    private void setProperties(HttpEvent httpEvent, int slot) {
+
+        byte st = state[slot];
+
+        if (st == EMPTY) {
+            return;
+        }
+
+        HttpdFormatString fs = formatStrings[slot];
+
+        if (HttpdFormatStrings.TIMESTAMP.equals(fs)) {
+            // already handled
+            return;
+        }
+
+        if (HttpdFormatStrings.FIRST_REQUEST_LINE.equals(fs)) {
+
+            String s = (String)values[slot];
+            if (s == null) {
+                return;
+            }
+
+            String[] methodPathHtmlVersion = parseFirstRequestLine(s);
+            httpEvent.setProperty(new StringProperty(HttpEvent.METHOD, methodPathHtmlVersion[0]));
+            httpEvent.setProperty(new StringProperty(HttpEvent.REQUEST_URI, methodPathHtmlVersion[1]));
+            if (methodPathHtmlVersion.length > 2) {
+                httpEvent.setProperty(new StringProperty(HttpEvent.HTTP_VERSION, methodPathHtmlVersion[2]));
+            }
+        }
+        else {
+
+            Object value = st == NUMBER ? box(fs, numbers[slot]) : values[slot];
+            Property p = fs.toProperty(value);
+            if (p != null) {
+                httpEvent.setProperty(p);
+            }
+        }
+    }
+
+    /**
+     * @return the value in the slot, decoding it if it was recorded raw.
+     *
+     * @exception IllegalStateException if the raw value cannot be decoded.
+     */
+    private Object getLogValueAt(int slot) {
+
+        switch (state[slot]) {
+
+            case OBJECT:
+                return values[slot];
+
+            case NUMBER:
+                //
+                // box only when an Object is requested
+                //
+                return box(formatStrings[slot], numbers[slot]);
+
+            case RAW:
+
+                //
+                // the value was not needed while parsing, decode it now
+                //
+                String line = (String)values[slot];
+                int start = (int)(numbers[slot] >>> 32);
+                int end = (int)numbers[slot];
+
+                Object o;
+
+                try {
+
+                    o = formatStrings[slot].parse(line.substring(start, end), lineNumber, start);
+                }
+                catch(ParsingException pe) {
+
+                    throw new IllegalStateException(pe.getMessage(), pe);
+                }
+
+                setLogValueAt(slot, o);
+                return o;
+
+            default:
+                return null;
+        }
+    }
+
+    private static Object box(HttpdFormatString e, long n) {
+
+        Class type = e.getType();
+
+        if (Integer.class.equals(type)) {
+            return (int)n;
+        }
+
+        if (Long.class.equals(type)) {
+            return n;
+        }
+
+        return Double.longBitsToDouble(n);
+    }
+
+    /**
+     * @return the slot of the format string, or -1 if the line has no slot for it.
+     */
+    private int findSlot(HttpdFormatString e) {
+
+        if (format != null) {
+
+            int slot = format.getSlot(e);
+
+            if (slot != -1) {
+                return slot;
+            }
+        }
+
+        for(int i = format == null ? 0 : format.getSlotCount(); i < slotCount; i ++) {
+
+            if (formatStrings[i].equals(e)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the slot of the format string, allocating one if the line has no slot for it.
+     */
+    private int slot(HttpdFormatString e) {
+
+        int slot = findSlot(e);
+
+        if (slot != -1) {
+            return slot;
+        }
+
+        if (slotCount == formatStrings.length) {
+
+            int capacity = slotCount * 2;
+            formatStrings = Arrays.copyOf(formatStrings, capacity);
+            values = Arrays.copyOf(values, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+            state = Arrays.copyOf(state, capacity);
+        }
+
+        formatStrings[slotCount] = e;
+        return slotCount ++;
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
 }
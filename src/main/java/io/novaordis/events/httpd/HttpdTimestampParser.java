@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import io.novaordis.utilities.time.TimeOffset;
+import io.novaordis.utilities.time.Timestamp;
+import io.novaordis.utilities.time.TimestampImpl;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+/**
+ * A parser for the httpd %t timestamp ("18/Sep/2011:19:18:28 -0400"), which relies on the fixed layout of the
+ * timestamp instead of a general purpose DateFormat. The epoch base for the last seen hour and minute is cached, so
+ * consecutive timestamps that share the same prefix cost only a few digit conversions.
+ *
+ * The instances are safe for concurrent use: the cache is an immutable object published through a volatile reference,
+ * there is no locking. Timestamps that do not match the fixed layout are handed over to a per-thread DateFormat
+ * configured with the given pattern, so lenient or unusual representations are handled exactly as before.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class HttpdTimestampParser {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // "dd/MMM/yyyy:HH:mm:ss Z"
+    static final int LENGTH = 26;
+
+    private static final String[] MONTHS = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    private static final int[] DAYS_IN_MONTH = { 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Howard Hinnant's days_from_civil algorithm, for the proleptic Gregorian calendar.
+     *
+     * @param month 1 - 12.
+     *
+     * @return the number of days since 01/01/1970.
+     */
+    static long daysSinceEpoch(int year, int month, int day) {
+
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (long)era * 146097 + dayOfEra - 719468;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final String fallbackPattern;
+
+    private final ThreadLocal<DateFormat> fallbackFormat;
+
+    // the last seen hour, replaced, never modified
+    private volatile CachedHour cachedHour;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param fallbackPattern the SimpleDateFormat pattern used for the timestamps that do not match the fixed layout.
+     */
+    public HttpdTimestampParser(String fallbackPattern) {
+
+        this.fallbackPattern = fallbackPattern;
+        this.fallbackFormat = ThreadLocal.withInitial(() -> new SimpleDateFormat(fallbackPattern));
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @exception ParseException if the string cannot be converted into a timestamp, with the same semantics as
+     * DateFormat.parse().
+     */
+    public Timestamp parse(String s) throws ParseException {
+
+        if (s.length() != LENGTH ||
+                s.charAt(2) != '/' || s.charAt(6) != '/' || s.charAt(11) != ':' || s.charAt(14) != ':' ||
+                s.charAt(17) != ':' || s.charAt(20) != ' ') {
+
+            return fallback(s);
+        }
+
+        CachedHour h = cachedHour;
+
+        if (h == null || !h.matches(s)) {
+
+            h = computeHour(s);
+
+            if (h == null) {
+                return fallback(s);
+            }
+
+            cachedHour = h;
+        }
+
+        int minute = twoDigits(s, 15);
+        int second = twoDigits(s, 18);
+
+        if (minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return fallback(s);
+        }
+
+        return new TimestampImpl(h.hourBase + minute * 60000L + second * 1000L, h.offset);
+    }
+
+    @Override
+    public String toString() {
+
+        return "HttpdTimestampParser[" + fallbackPattern + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private Timestamp fallback(String s) throws ParseException {
+
+        return new TimestampImpl(s, fallbackFormat.get());
+    }
+
+    /**
+     * @return null if the date, the hour or the zone are not in the expected format.
+     */
+    private static CachedHour computeHour(String s) {
+
+        int day = twoDigits(s, 0);
+        int month = month(s);
+        int year = fourDigits(s, 7);
+        int hour = twoDigits(s, 12);
+
+        if (day < 1 || month < 1 || year < 0 || hour < 0 || hour > 23 || day > DAYS_IN_MONTH[month - 1]) {
+            return null;
+        }
+
+        if (month == 2 && day == 29 && !(year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+            return null;
+        }
+
+        char sign = s.charAt(21);
+        int offsetHours = twoDigits(s, 22);
+        int offsetMinutes = twoDigits(s, 24);
+
+        if ((sign != '-' && sign != '+') || offsetHours < 0 || offsetMinutes < 0 || offsetMinutes > 59) {
+            return null;
+        }
+
+        int offsetMs = (offsetHours * 3600 + offsetMinutes * 60) * 1000;
+
+        if (sign == '-') {
+            offsetMs = -offsetMs;
+        }
+
+        long hourBase = daysSinceEpoch(year, month, day) * 86400000L + hour * 3600000L - offsetMs;
+
+        return new CachedHour(s, hourBase, new TimeOffset(offsetMs));
+    }
+
+    /**
+     * @return 1 - 12 or -1 if the month abbreviation is not recognized.
+     */
+    private static int month(String s) {
+
+        for(int i = 0; i < MONTHS.length; i ++) {
+
+            if (s.regionMatches(3, MONTHS[i], 0, 3)) {
+                return i + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return -1 if the characters are not digits.
+     */
+    private static int twoDigits(String s, int start) {
+
+        int d0 = s.charAt(start) - '0';
+        int d1 = s.charAt(start + 1) - '0';
+
+        if (d0 < 0 || d0 > 9 || d1 < 0 || d1 > 9) {
+            return -1;
+        }
+
+        return d0 * 10 + d1;
+    }
+
+    /**
+     * @return -1 if the characters are not digits.
+     */
+    private static int fourDigits(String s, int start) {
+
+        int high = twoDigits(s, start);
+        int low = twoDigits(s, start + 2);
+
+        if (high < 0 || low < 0) {
+            return -1;
+        }
+
+        return high * 100 + low;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+    /**
+     * Immutable.
+     */
+    private static class CachedHour {
+
+        // "dd/MMM/yyyy:HH" and "Z" are the relevant sections
+        private final String source;
+
+        // epoch millis for the beginning of the hour
+        private final long hourBase;
+
+        private final TimeOffset offset;
+
+        CachedHour(String source, long hourBase, TimeOffset offset) {
+
+            this.source = source;
+            this.hourBase = hourBase;
+            this.offset = offset;
+        }
+
+        boolean matches(String s) {
+
+            return s.regionMatches(0, source, 0, 14) && s.regionMatches(21, source, 21, 5);
+        }
+    }
+
+}
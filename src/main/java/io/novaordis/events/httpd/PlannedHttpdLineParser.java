@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.httpd.microparsers.FirstRequestLineParser;
+import io.novaordis.events.httpd.microparsers.UrlParser;
+import io.novaordis.events.httpd.microparsers.UserAgentParser;
+import io.novaordis.events.httpd.microparsers.cookie.CookieParser;
+import io.novaordis.utilities.parsing.ParsingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * A HttpdLineParser that records the decisions that depend exclusively on the log format (enclosure tracking, the
+ * choice of the delimiter scanning strategy for each field, the closing character of each enclosure) in a flat
+ * execution plan, once, when it is constructed. Parsing a line still interprets the plan - no code is generated - but
+ * the interpretation is a single loop over primitive opcode arrays, with the delimiter scans inlined and no per-field
+ * dispatch on the format string type.
+ *
+ * The gain over HttpdLineParser is modest when every field is decoded, as decoding dominates, and it grows when only
+ * a few fields are decoded (see setRequiredProperties()). The plan is also what ByteHttpdLineParser executes on bytes.
+ *
+ * The parser is semantically equivalent with HttpdLineParser - same events, same faults, same error messages. Use
+ * newInstance(...) to get an instance, it falls back to HttpdLineParser if the plan cannot be built for the given
+ * format.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class PlannedHttpdLineParser extends HttpdLineParser {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(PlannedHttpdLineParser.class);
+
+    static final byte LEFT_ENCLOSURE = 0;
+    static final byte RIGHT_ENCLOSURE = 1;
+    static final byte FIELD_ENCLOSED = 2;
+    static final byte FIELD_SPACE_DELIMITED = 3;
+    static final byte FIELD_FIRST_REQUEST_LINE = 4;
+    static final byte FIELD_USER_AGENT = 5;
+    static final byte FIELD_COOKIE = 6;
+    static final byte FIELD_URL = 7;
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return a planned parser for the given format, or a HttpdLineParser if the plan cannot be built for the format.
+     * Never returns null.
+     */
+    public static HttpdLineParser newInstance(HttpdLogFormat format) {
+
+        try {
+
+            return new PlannedHttpdLineParser(format);
+        }
+        catch(Exception e) {
+
+            log.debug("failed to build the execution plan of " + format + ", falling back to HttpdLineParser", e);
+            return new HttpdLineParser(format);
+        }
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    //
+    // the execution plan - three parallel arrays, one entry per format string
+    //
+
+    private byte[] opcodes;
+
+    // the enclosure character for enclosure opcodes, the closing character for FIELD_ENCLOSED
+    private char[] delimiters;
+
+    private HttpdFormatString[] formatStrings;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @throws IllegalArgumentException if the execution plan cannot be built for the given format.
+     */
+    public PlannedHttpdLineParser(HttpdLogFormat format) throws IllegalArgumentException {
+
+        super(format);
+        buildPlan(format);
+    }
+
+    // LineParser implementation ---------------------------------------------------------------------------------------
+
+    @Override
+    public Event parseLine(long lineNumber, String line) throws ParsingException {
+
+        //
+        // we ignore empty lines
+        //
+        if (line == null || line.trim().length() == 0) {
+            return null;
+        }
+
+        if (isOutsideTimeWindow(line, lineNumber)) {
+            return null;
+        }
+
+        HttpdLogLine logLine = new HttpdLogLine(getHttpdLogFormat());
+
+        logLine.setLineNumber(lineNumber);
+
+        final byte[] opcodes = this.opcodes;
+        final char[] delimiters = this.delimiters;
+        final HttpdFormatString[] formatStrings = this.formatStrings;
+        final int length = line.length();
+
+        char c;
+        int cursor = 0;
+        int end;
+
+        for(int i = 0; i < opcodes.length; i ++) {
+
+            byte opcode = opcodes[i];
+
+            if (opcode == LEFT_ENCLOSURE) {
+
+                while(line.charAt(cursor) == ' ') { cursor++; }
+                if ((c = line.charAt(cursor)) != delimiters[i]) {
+                    throw new ParsingException(
+                            "expecting " + formatStrings[i] + " but got '" + c + "'", lineNumber, cursor);
+                }
+                cursor++;
+                continue;
+            }
+
+            if (opcode == RIGHT_ENCLOSURE) {
+
+                while(line.charAt(cursor) == ' ') { cursor++; }
+                if ((c = line.charAt(cursor)) != delimiters[i]) {
+                    throw new ParsingException("expecting " + formatStrings[i] + " but got " + c, lineNumber, cursor);
+                }
+                cursor++;
+                while(cursor < length && line.charAt(cursor) == ' ') { cursor++; }
+                continue;
+            }
+
+            HttpdFormatString crt = formatStrings[i];
+
+            switch (opcode) {
+
+                case FIELD_ENCLOSED:
+                    end = line.indexOf(delimiters[i], cursor);
+                    break;
+                case FIELD_SPACE_DELIMITED:
+                    end = cursor;
+                    while(end < length && line.charAt(end) != ' ') { end++; }
+                    break;
+                case FIELD_FIRST_REQUEST_LINE:
+                    end = FirstRequestLineParser.identifyEnd(line, cursor);
+                    break;
+                case FIELD_USER_AGENT:
+                    end = UserAgentParser.identifyEnd(line, cursor, lineNumber);
+                    break;
+                case FIELD_COOKIE:
+                    end = CookieParser.identifyEnd(line, cursor, crt, lineNumber);
+                    break;
+                case FIELD_URL:
+                    end = UrlParser.identifyEnd(line, cursor, crt, lineNumber);
+                    break;
+                default:
+                    throw new IllegalStateException("unknown opcode " + opcode);
+            }
+
+            end = end == -1 ? length : end;
+
+            setLogValue(logLine, i, crt, line, cursor, end, lineNumber);
+
+            //
+            // advance the cursor to the next non-blank character
+            //
+            while(end < length && line.charAt(end) == ' ') { end++; }
+            cursor = end;
+        }
+
+        return logLine.toEvent();
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+
+        return "PlannedHttpdLineParser[format: " + getHttpdLogFormat() + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    byte[] getOpcodes() {
+
+        return opcodes;
+    }
+
+    char[] getDelimiters() {
+
+        return delimiters;
+    }
+
+    HttpdFormatString[] getFormatStrings() {
+
+        return formatStrings;
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Walks the format strings exactly like HttpdLineParser does when it parses a line, but records the decisions
+     * instead of acting on them.
+     */
+    private void buildPlan(HttpdLogFormat format) throws IllegalArgumentException {
+
+        if (format == null) {
+            throw new IllegalArgumentException("null format");
+        }
+
+        List<HttpdFormatString> httpdFormatStrings = format.getHttpdFormatStrings();
+
+        int size = httpdFormatStrings.size();
+
+        opcodes = new byte[size];
+        delimiters = new char[size];
+        formatStrings = new HttpdFormatString[size];
+
+        HttpdFormatString expectedRightEnclosure = null;
+
+        for(int i = 0; i < size; i ++) {
+
+            HttpdFormatString crt = httpdFormatStrings.get(i);
+            formatStrings[i] = crt;
+
+            if (expectedRightEnclosure != null) {
+
+                if (crt.equals(expectedRightEnclosure)) {
+
+                    opcodes[i] = RIGHT_ENCLOSURE;
+                    delimiters[i] = firstCharacter(crt);
+                    expectedRightEnclosure = null;
+                }
+                else {
+
+                    opcodes[i] = FIELD_ENCLOSED;
+                    delimiters[i] = firstCharacter(expectedRightEnclosure);
+                }
+            }
+            else if (crt.isLeftEnclosure()) {
+
+                expectedRightEnclosure = crt.getMatchingEnclosure();
+
+                if (expectedRightEnclosure == null) {
+                    throw new IllegalArgumentException(crt + " has no matching enclosure");
+                }
+
+                opcodes[i] = LEFT_ENCLOSURE;
+                delimiters[i] = firstCharacter(crt);
+            }
+            else if (HttpdFormatStrings.FIRST_REQUEST_LINE.equals(crt)) {
+
+                opcodes[i] = FIELD_FIRST_REQUEST_LINE;
+            }
+            else if (UserAgentParser.isUserAgentRequestHeader(crt)) {
+
+                opcodes[i] = FIELD_USER_AGENT;
+            }
+            else if (CookieParser.isCookieHeader(crt)) {
+
+                opcodes[i] = FIELD_COOKIE;
+            }
+            else if (UrlParser.isUrl(crt)) {
+
+                opcodes[i] = FIELD_URL;
+            }
+            else {
+
+                opcodes[i] = FIELD_SPACE_DELIMITED;
+            }
+        }
+    }
+
+    private static char firstCharacter(HttpdFormatString enclosure) throws IllegalArgumentException {
+
+        String literal = enclosure.getLiteral();
+
+        if (literal == null || literal.isEmpty()) {
+            throw new IllegalArgumentException(enclosure + " has no literal");
+        }
+
+        return literal.charAt(0);
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A read-mostly Map view of a query string ("a=b&c=d"). The query string is kept as is and it is broken down into
+ * parameters only when a parameter is first requested. The parameters are held in parallel arrays, indexed by a
+ * small open addressing table, instead of a HashMap with an entry object per parameter.
+ *
+ * The semantics are those of splitting the query on '&' and the parameters on the first '=': a parameter without '='
+ * has a null value and for duplicate parameters the last value wins. The sorted canonical representation is computed
+ * once and cached. toString() is inherited, so the map renders as any other map.
+ *
+ * If the map is modified, the content is copied into a regular HashMap, which is used from then on.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class QueryParameters extends AbstractMap<String, Object> {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the entries of the map, sorted by name, in the "name=value&name2=value2" format. The parameters without a
+     * value are rendered as "name", and a null name is rendered as an empty name, sorted first.
+     */
+    static String toCanonicalString(Map<String, Object> m) {
+
+        List<String> n = new ArrayList<>(m.keySet());
+        n.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        StringBuilder sb = new StringBuilder();
+
+        for(int i = 0; i < n.size(); i ++) {
+
+            if (i > 0) {
+                sb.append('&');
+            }
+
+            String name = n.get(i);
+            append(sb, name == null ? "" : name, m.get(name));
+        }
+
+        return sb.toString();
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final String query;
+
+    //
+    // lazily initialized, in the order of the first occurrence in the query
+    //
+    private String[] names;
+    private String[] values;
+    private int size;
+
+    // name index + 1, 0 means empty
+    private int[] table;
+
+    private String canonical;
+
+    // not null after the first modification
+    private Map<String, Object> modified;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @param query the query string, without the leading '?'.
+     */
+    public QueryParameters(String query) {
+
+        if (query == null) {
+            throw new IllegalArgumentException("null query");
+        }
+
+        this.query = query;
+    }
+
+    // Map implementation ----------------------------------------------------------------------------------------------
+
+    @Override
+    public Object get(Object key) {
+
+        if (modified != null) {
+            return modified.get(key);
+        }
+
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        parse();
+        int i = indexOf((String)key);
+        return i == -1 ? null : values[i];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+
+        if (modified != null) {
+            return modified.containsKey(key);
+        }
+
+        if (!(key instanceof String)) {
+            return false;
+        }
+
+        parse();
+        return indexOf((String)key) != -1;
+    }
+
+    @Override
+    public int size() {
+
+        if (modified != null) {
+            return modified.size();
+        }
+
+        parse();
+        return size;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+
+        canonical = null;
+        return modifiable().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+
+        canonical = null;
+        return modifiable().remove(key);
+    }
+
+    @Override
+    public void clear() {
+
+        canonical = null;
+        modifiable().clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+
+        if (modified != null) {
+            return modified.entrySet();
+        }
+
+        parse();
+
+        return new AbstractSet<Entry<String, Object>>() {
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+
+                return new Iterator<Entry<String, Object>>() {
+
+                    private int i;
+
+                    @Override
+                    public boolean hasNext() {
+
+                        return i < size;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+
+                        if (i >= size) {
+                            throw new NoSuchElementException();
+                        }
+
+                        Entry<String, Object> e = new SimpleImmutableEntry<>(names[i], values[i]);
+                        i ++;
+                        return e;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+
+                return size;
+            }
+        };
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the query string this instance was created for.
+     */
+    public String getQuery() {
+
+        return query;
+    }
+
+    /**
+     * @return the parameters, sorted by name, in the "name=value&name2=value2" format. Parameters without a value are
+     * rendered as "name". Computed once.
+     */
+    public String toCanonicalString() {
+
+        if (canonical != null) {
+            return canonical;
+        }
+
+        if (modified != null) {
+
+            canonical = toCanonicalString(modified);
+            return canonical;
+        }
+
+        parse();
+
+        Integer[] order = new Integer[size];
+
+        for(int i = 0; i < size; i ++) {
+            order[i] = i;
+        }
+
+        Arrays.sort(order, (a, b) -> names[a].compareTo(names[b]));
+
+        StringBuilder sb = new StringBuilder(query.length() + 8);
+
+        for(int i = 0; i < size; i ++) {
+
+            if (i > 0) {
+                sb.append('&');
+            }
+
+            int k = order[i];
+            append(sb, names[k], values[k]);
+        }
+
+        canonical = sb.toString();
+        return canonical;
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    /**
+     * Package protected, for testing only.
+     *
+     * @return true if the query string was broken down into parameters.
+     */
+    boolean isBrokenDown() {
+
+        return names != null;
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private void parse() {
+
+        if (names != null) {
+            return;
+        }
+
+        int length = query.length();
+
+        //
+        // String.split() semantics: trailing empty parameters are dropped, unless the query is empty
+        //
+        int end = length;
+
+        while(end > 0 && query.charAt(end - 1) == '&') {
+            end --;
+        }
+
+        if (end == 0 && length > 0) {
+
+            names = new String[0];
+            values = new String[0];
+            table = new int[1];
+            return;
+        }
+
+        int count = 1;
+
+        for(int i = 0; i < end; i ++) {
+
+            if (query.charAt(i) == '&') {
+                count ++;
+            }
+        }
+
+        names = new String[count];
+        values = new String[count];
+        table = new int[Integer.highestOneBit(count * 2 - 1) << 1];
+
+        int start = 0;
+
+        while(start <= end) {
+
+            int ampersand = query.indexOf('&', start);
+
+            if (ampersand == -1 || ampersand > end) {
+                ampersand = end;
+            }
+
+            int equal = start;
+
+            while(equal < ampersand && query.charAt(equal) != '=') {
+                equal ++;
+            }
+
+            String name;
+            String value;
+
+            if (equal < ampersand) {
+
+                name = query.substring(start, equal);
+                value = query.substring(equal + 1, ampersand);
+            }
+            else {
+
+                name = query.substring(start, ampersand);
+                value = null;
+            }
+
+            int i = indexOf(name);
+
+            if (i == -1) {
+
+                names[size] = name;
+                values[size] = value;
+                insert(name, size);
+                size ++;
+            }
+            else {
+
+                values[i] = value;
+            }
+
+            start = ampersand + 1;
+        }
+    }
+
+    private int indexOf(String name) {
+
+        int mask = table.length - 1;
+
+        for(int slot = spread(name.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+
+            int entry = table[slot];
+
+            if (entry == 0) {
+                return -1;
+            }
+
+            if (names[entry - 1].equals(name)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void insert(String name, int index) {
+
+        int mask = table.length - 1;
+        int slot = spread(name.hashCode()) & mask;
+
+        while(table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = index + 1;
+    }
+
+    private Map<String, Object> modifiable() {
+
+        if (modified == null) {
+
+            parse();
+            modified = new HashMap<>();
+
+            for(int i = 0; i < size; i ++) {
+                modified.put(names[i], values[i]);
+            }
+        }
+
+        return modified;
+    }
+
+    private static void append(StringBuilder sb, String name, Object value) {
+
+        sb.append(name);
+
+        if (value != null) {
+            sb.append('=').append(value);
+        }
+    }
+
+    private static int spread(int h) {
+
+        return h ^ (h >>> 16);
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.httpd.microparsers.UrlParser;
+import io.novaordis.events.httpd.microparsers.UserAgentParser;
+import io.novaordis.events.httpd.microparsers.cookie.CookieParser;
+import io.novaordis.utilities.parsing.ParsingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A HttpdLineParser that translates the log format into a single anchored regular expression, with possessive
+ * quantifiers only, and extracts all field boundaries of a well-formed line in one match. Lines that do not match
+ * (incomplete or malformed lines) are handed over to the incremental parser, which produces the usual faults.
+ *
+ * The expression mirrors the incremental parser's tokenization rules, so the boundaries of every field, and hence
+ * the events, are identical for the lines that match. Formats that contain fields whose end can only be identified by
+ * a dedicated micro-parser outside an enclosure (unquoted request lines, user agents, cookies or URLs) cannot be
+ * translated. Use compile(...) to get an instance, it falls back to the incremental parser for those formats.
+ *
+ * The parser counts the lines that take each path.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class RegexHttpdLineParser extends HttpdLineParser {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(RegexHttpdLineParser.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return a regular expression based parser for the given format, or the incremental HttpdLineParser if the
+     * format cannot be translated into a regular expression. Never returns null.
+     */
+    public static HttpdLineParser compile(HttpdLogFormat format) {
+
+        try {
+
+            return new RegexHttpdLineParser(format);
+        }
+        catch(Exception e) {
+
+            log.debug("failed to translate " + format + " into a regular expression, using the incremental parser", e);
+            return new HttpdLineParser(format);
+        }
+    }
+
+    /**
+     * @return the regular expression equivalent with the given format, where each non-enclosure format string is
+     * captured by a group, in order.
+     *
+     * @throws IllegalArgumentException if the format cannot be translated.
+     */
+    static String toRegex(HttpdLogFormat format) throws IllegalArgumentException {
+
+        if (format == null) {
+            throw new IllegalArgumentException("null format");
+        }
+
+        StringBuilder regex = new StringBuilder();
+
+        HttpdFormatString expectedRightEnclosure = null;
+
+        for(HttpdFormatString crt: format.getHttpdFormatStrings()) {
+
+            if (expectedRightEnclosure != null) {
+
+                char closing = firstCharacter(expectedRightEnclosure);
+
+                if (crt.equals(expectedRightEnclosure)) {
+
+                    regex.append(" *+").append(quote(closing)).append(" *+");
+                    expectedRightEnclosure = null;
+                }
+                else {
+
+                    regex.append("([^").append(quote(closing)).append("]*+)");
+                }
+            }
+            else if (crt.isLeftEnclosure()) {
+
+                expectedRightEnclosure = crt.getMatchingEnclosure();
+
+                if (expectedRightEnclosure == null) {
+                    throw new IllegalArgumentException(crt + " has no matching enclosure");
+                }
+
+                regex.append(" *+").append(quote(firstCharacter(crt)));
+            }
+            else if (HttpdFormatStrings.FIRST_REQUEST_LINE.equals(crt) ||
+                    UserAgentParser.isUserAgentRequestHeader(crt) ||
+                    CookieParser.isCookieHeader(crt) ||
+                    UrlParser.isUrl(crt)) {
+
+                throw new IllegalArgumentException("unenclosed " + crt + " cannot be matched by a regular expression");
+            }
+            else {
+
+                regex.append("([^ ]*+) *+");
+            }
+        }
+
+        return regex.toString();
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private Pattern pattern;
+
+    // reused, a parser is used by a single thread
+    private Matcher matcher;
+
+    // the index of the format string captured by each group, one-based, like the groups
+    private int[] formatStringIndexByGroup;
+
+    private HttpdFormatString[] formatStrings;
+
+    // the group that captures the timestamp, 0 if the format has no timestamp
+    private int timestampGroup;
+
+    private long fastPathLines;
+    private long fallbackLines;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    /**
+     * @throws IllegalArgumentException if the format cannot be translated into a regular expression.
+     */
+    public RegexHttpdLineParser(HttpdLogFormat format) throws IllegalArgumentException {
+
+        super(format);
+
+        this.pattern = Pattern.compile(toRegex(format));
+        this.matcher = pattern.matcher("");
+
+        List<HttpdFormatString> httpdFormatStrings = format.getHttpdFormatStrings();
+
+        this.formatStrings = httpdFormatStrings.toArray(new HttpdFormatString[httpdFormatStrings.size()]);
+        this.formatStringIndexByGroup = new int[matcher.groupCount() + 1];
+
+        HttpdFormatString expectedRightEnclosure = null;
+        int group = 1;
+
+        for(int i = 0; i < formatStrings.length; i ++) {
+
+            HttpdFormatString crt = formatStrings[i];
+
+            if (expectedRightEnclosure != null && crt.equals(expectedRightEnclosure)) {
+
+                expectedRightEnclosure = null;
+            }
+            else if (expectedRightEnclosure == null && crt.isLeftEnclosure()) {
+
+                expectedRightEnclosure = crt.getMatchingEnclosure();
+            }
+            else {
+
+                if (i == getTimestampIndex()) {
+                    timestampGroup = group;
+                }
+
+                formatStringIndexByGroup[group ++] = i;
+            }
+        }
+    }
+
+    // LineParser implementation ---------------------------------------------------------------------------------------
+
+    @Override
+    public Event parseLine(long lineNumber, String line) throws ParsingException {
+
+        //
+        // we ignore empty lines
+        //
+        if (line == null || line.trim().length() == 0) {
+            return null;
+        }
+
+        Matcher m = matcher.reset(line);
+
+        if (!m.lookingAt()) {
+
+            fallbackLines ++;
+            return super.parseLine(lineNumber, line);
+        }
+
+        fastPathLines ++;
+
+        //
+        // the match already located the timestamp, so the time window check does not need a separate scan
+        //
+        if (timestampGroup != 0 &&
+                isOutsideTimeWindow(line, m.start(timestampGroup), m.end(timestampGroup), lineNumber)) {
+            return null;
+        }
+
+        HttpdLogLine logLine = new HttpdLogLine(getHttpdLogFormat());
+
+        logLine.setLineNumber(lineNumber);
+
+        for(int group = 1; group < formatStringIndexByGroup.length; group ++) {
+
+            int index = formatStringIndexByGroup[group];
+            setLogValue(logLine, index, formatStrings[index], line, m.start(group), m.end(group), lineNumber);
+        }
+
+        return logLine.toEvent();
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the number of lines parsed with a single regular expression match.
+     */
+    public long getFastPathLineCount() {
+
+        return fastPathLines;
+    }
+
+    /**
+     * @return the number of non-empty lines that did not match the regular expression and were handed over to the
+     * incremental parser.
+     */
+    public long getFallbackLineCount() {
+
+        return fallbackLines;
+    }
+
+    /**
+     * @return a human readable summary of the proportion of lines that took each path.
+     */
+    public String getStatistics() {
+
+        long total = fastPathLines + fallbackLines;
+
+        return fastPathLines + " lines (" + percentage(fastPathLines, total) + "%) parsed by regular expression, " +
+                fallbackLines + " lines (" + percentage(fallbackLines, total) + "%) by the incremental parser";
+    }
+
+    @Override
+    public String toString() {
+
+        return "RegexHttpdLineParser[format: " + getHttpdLogFormat() + "]";
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    Pattern getPattern() {
+
+        return pattern;
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static char firstCharacter(HttpdFormatString enclosure) throws IllegalArgumentException {
+
+        String literal = enclosure.getLiteral();
+
+        if (literal == null || literal.isEmpty()) {
+            throw new IllegalArgumentException(enclosure + " has no literal");
+        }
+
+        return literal.charAt(0);
+    }
+
+    private static String quote(char c) {
+
+        return Character.isLetterOrDigit(c) ? String.valueOf(c) : "\\" + c;
+    }
+
+    private static long percentage(long count, long total) {
+
+        return total == 0 ? 0 : Math.round(100d * count / total);
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd.microparsers;
+
+import io.novaordis.utilities.parsing.ParsingException;
+
+/**
+ * The components of a URL, as identified by UrlParser. The components are kept as offsets in the source string and
+ * the corresponding strings are only created when requested. Intended for consumers that need the host or the path
+ * of a URL for aggregation.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class Url {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the parsed view of the URL at the beginning of the given string, or null for the "-" (no value)
+     * representation.
+     *
+     * @throws ParsingException if the string does not start with a URL.
+     */
+    public static Url parse(String s) throws ParsingException {
+
+        Url url = new Url();
+
+        UrlParser.identifyEnd(s, 0, null, null, url);
+
+        return url.source == null ? null : url;
+    }
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private String source;
+
+    // the start of the protocol, which is also the start of the URL
+    private int start;
+
+    // the index of "://"
+    private int protocolEnd;
+
+    private int hostStart;
+    private int hostEnd;
+
+    private int port;
+
+    // -1 if not present
+    private int pathStart;
+    private int pathEnd;
+
+    // -1 if not present. The query starts after '?'
+    private int queryStart;
+    private int queryEnd;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    Url() {
+
+        this.port = -1;
+        this.pathStart = -1;
+        this.queryStart = -1;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    public String getProtocol() {
+
+        return source.substring(start, protocolEnd);
+    }
+
+    public String getHost() {
+
+        return source.substring(hostStart, hostEnd);
+    }
+
+    /**
+     * @return -1 if the port is not specified.
+     */
+    public int getPort() {
+
+        return port;
+    }
+
+    /**
+     * @return null if the URL has no path.
+     */
+    public String getPath() {
+
+        return pathStart == -1 ? null : source.substring(pathStart, pathEnd);
+    }
+
+    /**
+     * @return the query, without the leading '?', or null if the URL has no query.
+     */
+    public String getQuery() {
+
+        return queryStart == -1 ? null : source.substring(queryStart, queryEnd);
+    }
+
+    /**
+     * @return true if the host equals the given string, without creating the host string.
+     */
+    public boolean isHost(String host) {
+
+        return hostEnd - hostStart == host.length() && source.regionMatches(hostStart, host, 0, host.length());
+    }
+
+    @Override
+    public String toString() {
+
+        if (source == null) {
+            return "null";
+        }
+
+        int end = queryStart != -1 ? queryEnd : pathStart != -1 ? pathEnd : hostEnd;
+        return source.substring(start, end);
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    void setProtocol(String source, int start, int protocolEnd) {
+
+        this.source = source;
+        this.start = start;
+        this.protocolEnd = protocolEnd;
+    }
+
+    void setHost(int hostStart, int hostEnd) {
+
+        this.hostStart = hostStart;
+        this.hostEnd = hostEnd;
+    }
+
+    void setPort(int port) {
+
+        this.port = port;
+    }
+
+    void setPath(int pathStart, int pathEnd) {
+
+        this.pathStart = pathStart;
+        this.pathEnd = pathEnd;
+    }
+
+    void setQuery(int queryStart, int queryEnd) {
+
+        this.queryStart = queryStart;
+        this.queryEnd = queryEnd;
+    }
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -59,11 +59,19 @@ public class UrlParser {
     public static int identifyEnd(String line, int startFrom, HttpdFormatString httpdFormatString, Long lineNumber)
             throws ParsingException {
 
-        String protocol;
-        String host;
-        int port = -1;
-        String path;
-        String query;
+        return identifyEnd(line, startFrom, httpdFormatString, lineNumber, null);
+    }
+
+    /**
+     * A single forward scan, which does not create any intermediary object. The components are reported as offsets.
+     *
+     * @param url if not null, receives the offsets of the URL components. Left untouched for the "-" (no value)
+     *            representation.
+     *
+     * @see UrlParser#identifyEnd(String, int, HttpdFormatString, Long)
+     */
+    public static int identifyEnd(String line, int startFrom, HttpdFormatString httpdFormatString, Long lineNumber,
+                                  Url url) throws ParsingException {
 
         if (line.charAt(startFrom) == '-') {
 
@@ -81,22 +89,21 @@ public class UrlParser {
             throw new ParsingException(msg, lineNumber, startFrom);
         }
 
-        protocol = line.substring(startFrom, i);
-        if (debug) { log.debug("protocol: " + protocol); }
+        if (url != null) { url.setProtocol(line, startFrom, i); }
 
         i += 3;
         int j = i;
         char crt = 0;
+        int length = line.length();
 
         // walk host name
-        while (j < line.length() && (crt = line.charAt(j)) != '/' && crt != ':' && crt != ' ') {
+        while (j < length && (crt = line.charAt(j)) != '/' && crt != ':' && crt != ' ') {
             j++;
         }
 
-        host = line.substring(i, j);
-        if (debug) { log.debug("host: " + host); }
+        if (url != null) { url.setHost(i, j); }
 
-        if (j >= line.length()) {
+        if (j >= length) {
             // end of the line
             return -1;
         }
@@ -106,17 +113,13 @@ public class UrlParser {
         if (crt == ':') {
 
             j = line.indexOf('/', i);
-            String ports = j == -1 ? line.substring(i + 1) : line.substring(i + 1, j);
 
-            try {
-                port = Integer.parseInt(ports);
-                log.debug("port: " + port);
-            }
-            catch(Exception e) {
-                throw new ParsingException("invalid port value: \"" + ports + "\"", lineNumber, startFrom);
-            }
+            int port = parsePort(line, i + 1, j == -1 ? length : j, lineNumber, startFrom);
 
-            if (j == -1 || j >= line.length()) {
+            if (debug) { log.debug("port: " + port); }
+            if (url != null) { url.setPort(port); }
+
+            if (j == -1 || j >= length) {
                 // end of the line
                 return -1;
             }
@@ -125,14 +128,13 @@ public class UrlParser {
         }
 
         // walk path
-        while (j < line.length() && (crt = line.charAt(j)) != '?' && crt != ' ') {
+        while (j < length && (crt = line.charAt(j)) != '?' && crt != ' ') {
             j++;
         }
 
-        path = line.substring(i, j);
-        if (debug) { log.debug("path: " + path); }
+        if (url != null && j > i) { url.setPath(i, j); }
 
-        if (j >= line.length()) {
+        if (j >= length) {
             // end of the line
             return -1;
         }
@@ -146,20 +148,23 @@ public class UrlParser {
         //
 
         //
-        // walk the query and allow for spaces
+        // walk the query and allow for spaces. The positions of the next '&', "://" and ';' only move forward, so they
+        // are looked up again only after the scan passes them, which keeps the walk linear
         //
 
         i = j;
 
+        int nextQuerySeparator = i;
+        int nextUrl = i;
+        int nextSemicolon = i;
+
         while(true) {
 
             j ++;
 
-            if (j >= line.length()) {
-
-                query = line.substring(i);
-                if (debug) { log.debug("query: " + query); }
+            if (j >= length) {
 
+                if (url != null) { url.setQuery(i + 1, length); }
                 return -1;
             }
 
@@ -169,14 +174,14 @@ public class UrlParser {
                 // if there is a subsequent '&', skip to it, to allow for spaces, unless it belongs to a different URL
                 //
 
-                int nextQuerySeparator = line.indexOf('&', j);
+                if (nextQuerySeparator != -1 && nextQuerySeparator < j) {
+                    nextQuerySeparator = line.indexOf('&', j);
+                }
 
                 if (nextQuerySeparator == -1) {
 
                     // no more query separators, we're done
-                    query = line.substring(i, j);
-                    if (debug) { log.debug("query: " + query); }
-
+                    if (url != null) { url.setQuery(i + 1, j); }
                     return j;
                 }
 
@@ -184,8 +189,13 @@ public class UrlParser {
                 // heuristics, may not always work
                 //
 
-                int nextUrl = line.indexOf("://", j);
-                int nextSemicolon = line.indexOf(";", j);
+                if (nextUrl != -1 && nextUrl < j) {
+                    nextUrl = line.indexOf("://", j);
+                }
+
+                if (nextSemicolon != -1 && nextSemicolon < j) {
+                    nextSemicolon = line.indexOf(';', j);
+                }
 
                 if ((nextUrl != -1 && nextQuerySeparator > nextUrl) ||
                         (nextSemicolon != -1 && nextQuerySeparator > nextSemicolon)) {
@@ -194,9 +204,7 @@ public class UrlParser {
                     // we're done
                     //
 
-                    query = line.substring(i, j);
-                    if (debug) { log.debug("query: " + query); }
-
+                    if (url != null) { url.setQuery(i + 1, j); }
                     return j;
 
                 }
@@ -248,6 +256,44 @@ public class UrlParser {
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    /**
+     * Decodes plain digit sequences in place. Anything else is handed over to Integer.parseInt(), so the accepted
+     * representations and the failures are the same as before.
+     */
+    private static int parsePort(String line, int start, int end, Long lineNumber, int startFrom)
+            throws ParsingException {
+
+        if (end > start && end - start <= 9) {
+
+            int port = 0;
+            int k = start;
+
+            for(; k < end; k ++) {
+
+                int d = line.charAt(k) - '0';
+
+                if (d < 0 || d > 9) {
+                    break;
+                }
+
+                port = port * 10 + d;
+            }
+
+            if (k == end) {
+                return port;
+            }
+        }
+
+        String ports = line.substring(start, end);
+
+        try {
+            return Integer.parseInt(ports);
+        }
+        catch(Exception e) {
+            throw new ParsingException("invalid port value: \"" + ports + "\"", lineNumber, startFrom);
+        }
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
 }
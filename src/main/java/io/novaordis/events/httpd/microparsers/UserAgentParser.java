@@ -89,8 +89,54 @@ public class UserAgentParser {
             Pattern.compile("^HubSpot.+www\\.hubspot\\.com(/){0,1}"),
     };
 
+    //
+    // The literals every match of the corresponding USER_AGENT_PATTERNS element contains: the prefix the match starts
+    // with (null if none) and a literal the rest of the line must contain. The patterns are still tried in order and
+    // the first one that matches wins, but a pattern is only evaluated if its literals are present, which is checked
+    // with startsWith() and indexOf(). This spares the greedy patterns (".+ Mobile", "(.+) like Gecko") a scan and a
+    // backtrack over the whole line when they cannot match. Keep in sync with USER_AGENT_PATTERNS.
+    //
+    static final String[][] PATTERN_LITERALS = {
+
+            { "WordPress", "com" },
+            { null, " Mobile" },
+            { null, ") like Gecko" },
+            { "Mozilla", "Safari/" },
+            { null, "/" },
+            { null, "/" },
+            { "Xenu Link", "/" },
+            { "Typhoeus", "typhoeus" },
+            { "HubSpot", "www.hubspot.com" },
+    };
+
+    static final int CACHE_SIZE = 1024;
+
+    // the number of characters hashed to select the cache entry
+    static final int CACHE_KEY_LENGTH = 32;
+
     // Static ----------------------------------------------------------------------------------------------------------
 
+    private static final ThreadLocal<Matcher[]> matchers = ThreadLocal.withInitial(() -> {
+
+        Matcher[] m = new Matcher[USER_AGENT_PATTERNS.length];
+
+        for(int i = 0; i < m.length; i ++) {
+            m[i] = USER_AGENT_PATTERNS[i].matcher("");
+        }
+
+        return m;
+    });
+
+    //
+    // Remembers the end offset for recently seen user agents. Several patterns are greedy (".+ Mobile", "(.+) like
+    // Gecko", "Mozilla.*Safari/") and examine the line up to its end, so the outcome depends on the whole remainder of
+    // the line, and that is what an entry is keyed on. The remainder is not copied: the entry references the line it
+    // was computed for and it is verified in place with regionMatches(). The cache pays off when the user agent is the
+    // last field of the line, or it is followed by identical fields. The entries are immutable, racing writers only
+    // overwrite each other's entries.
+    //
+    private static final CachedEnd[] cache = new CachedEnd[CACHE_SIZE];
+
     /**
      * @param startFrom the index of the first character of the field
      * @throws ParsingException in case the content on the line does not make sense for this type of field.
@@ -119,41 +165,36 @@ public class UserAgentParser {
         // no quotes, and the value includes multiple spaces
         //
 
-        String interestingSection = line.substring(startFrom);
+        int h = hash(line, startFrom);
+        int index = (h ^ (h >>> 16)) & (CACHE_SIZE - 1);
 
-        for (String s: USER_AGENT_NAMES) {
+        CachedEnd c = cache[index];
 
-            if (interestingSection.startsWith(s)) {
+        if (c != null && c.matches(line, startFrom, h)) {
 
-                end = startFrom + s.length();
-                end = end < line.length() ? end : -1;
-                return end;
-            }
+            return c.relativeEnd == -1 ? -1 : startFrom + c.relativeEnd;
         }
 
-        for(Pattern p: USER_AGENT_PATTERNS) {
-
-            Matcher m = p.matcher(interestingSection);
+        end = matchEnd(line, startFrom);
 
-            if (m.find()) {
+        if (end != -1) {
 
-                end = startFrom + m.end();
+            if (end >= line.length()) {
 
-                if (end >= line.length()) {
-
-                    return -1;
-                }
+                end = -1;
+            }
+            else if (line.charAt(end - 1) == ' ') {
 
                 //
                 // the regular expression catches the trailing space, if present; to maintain the method's semantics
                 // we "decrement" the end if this is the case
                 //
-                if (line.charAt(end - 1) == ' ') {
-                    end --;
-                }
-
-                return end;
+                end --;
             }
+
+            cache[index] = new CachedEnd(line, startFrom, h, end == -1 ? -1 : end - startFrom);
+
+            return end;
         }
 
         int intendedFragmentLength = 60;
@@ -191,10 +232,106 @@ public class UserAgentParser {
 
     // Package protected -----------------------------------------------------------------------------------------------
 
+    /**
+     * Package protected, for testing only.
+     *
+     * @return true if the end of the user agent starting at startFrom would be served from the cache.
+     */
+    static boolean isCached(String line, int startFrom) {
+
+        int h = hash(line, startFrom);
+        CachedEnd c = cache[(h ^ (h >>> 16)) & (CACHE_SIZE - 1)];
+        return c != null && c.matches(line, startFrom, h);
+    }
+
     // Protected -------------------------------------------------------------------------------------------------------
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    /**
+     * The hash of the first CACHE_KEY_LENGTH characters of the remainder of the line, computed in place.
+     */
+    private static int hash(String line, int startFrom) {
+
+        int h = 0;
+
+        for(int i = startFrom, limit = Math.min(line.length(), startFrom + CACHE_KEY_LENGTH); i < limit; i ++) {
+            h = 31 * h + line.charAt(i);
+        }
+
+        return h;
+    }
+
+    /**
+     * @return the end of the first name or pattern that matches at startFrom, or -1 if none matches.
+     */
+    private static int matchEnd(String line, int startFrom) {
+
+        for(String n: USER_AGENT_NAMES) {
+
+            if (line.startsWith(n, startFrom)) {
+                return startFrom + n.length();
+            }
+        }
+
+        Matcher[] m = matchers.get();
+
+        for(int i = 0; i < m.length; i ++) {
+
+            String prefix = PATTERN_LITERALS[i][0];
+
+            if (prefix != null && !line.startsWith(prefix, startFrom)) {
+                continue;
+            }
+
+            if (line.indexOf(PATTERN_LITERALS[i][1], startFrom) == -1) {
+                continue;
+            }
+
+            m[i].reset(line);
+            m[i].region(startFrom, line.length());
+
+            if (m[i].lookingAt()) {
+                return m[i].end();
+            }
+        }
+
+        return -1;
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
+    /**
+     * Immutable.
+     */
+    private static class CachedEnd {
+
+        // the line the entry was computed for, the key is its remainder starting with the user agent
+        private final String line;
+        private final int start;
+
+        // the hash of the first CACHE_KEY_LENGTH characters of the key
+        private final int hash;
+
+        // relative to the beginning of the user agent, -1 if the user agent extends to the end of the line
+        private final int relativeEnd;
+
+        CachedEnd(String line, int start, int hash, int relativeEnd) {
+
+            this.line = line;
+            this.start = start;
+            this.hash = hash;
+            this.relativeEnd = relativeEnd;
+        }
+
+        boolean matches(String line, int startFrom, int hash) {
+
+            int length = this.line.length() - start;
+
+            return this.hash == hash &&
+                    line.length() - startFrom == length &&
+                    line.regionMatches(startFrom, this.line, start, length);
+        }
+    }
+
 }
@@ -34,6 +34,40 @@ public class Cookie {
 
     // Static ----------------------------------------------------------------------------------------------------------
 
+    /**
+     * Performs the same validation as the constructor on the given range of the line, without creating the Cookie
+     * instance or any intermediary string.
+     *
+     * @param start the first character of the cookie representation (inclusive).
+     * @param end the end of the cookie representation (exclusive).
+     *
+     * @throws IllegalArgumentException if the representation contains semicolons.
+     * @throws ParsingException if the representation does not contain an equal sign.
+     */
+    public static void validate(String line, int start, int end, Long lineNumber) throws ParsingException {
+
+        boolean equalSign = false;
+
+        for(int i = start; i < end; i ++) {
+
+            char c = line.charAt(i);
+
+            if (c == ';') {
+                throw new IllegalArgumentException("cookie representation contains semicolons");
+            }
+
+            if (c == '=') {
+                equalSign = true;
+            }
+        }
+
+        if (!equalSign) {
+
+            String logRepresentation = line.substring(start, end);
+            throw new ParsingException(logRepresentation + " missing from \"" + logRepresentation + "\"", lineNumber);
+        }
+    }
+
     // Attributes ------------------------------------------------------------------------------------------------------
 
     private String name;
@@ -72,6 +106,9 @@ public class Cookie {
         if (equalIndex == -1) {
             throw new ParsingException(getLiteral() + " missing from \"" + logRepresentation + "\"", lineNumber);
         }
+
+        this.name = logRepresentation.substring(0, equalIndex).trim();
+        this.value = logRepresentation.substring(equalIndex + 1).trim();
     }
 
     // Public ----------------------------------------------------------------------------------------------------------
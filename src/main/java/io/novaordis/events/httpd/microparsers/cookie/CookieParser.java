@@ -21,10 +21,6 @@ import io.novaordis.events.httpd.HttpdFormatString;
 import io.novaordis.events.httpd.RequestHeaderHttpdFormatString;
 import io.novaordis.events.httpd.ResponseHeaderHttpdFormatString;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-
 /**
  * A micro-parser is useful for particular fields that contain spaces and that were written in the log without being
  * embedded by quotes. It applies field-specific heuristics to figure out the end of the field.
@@ -76,11 +72,13 @@ public class CookieParser {
         }
 
 
-        List<Cookie> cookies = new ArrayList<>();
+        //
+        // a single forward scan over indices. The cookies are validated in place, not materialized; the end of the
+        // series is the end of the last accepted cookie
+        //
 
-        //noinspection UnnecessaryLocalVariable
         int cookieFragmentStart = startFrom;
-        String cookieLogRepresentation;
+        int lastCookieEnd = -1;
         boolean moreCookies = true;
 
         //
@@ -125,20 +123,20 @@ public class CookieParser {
                 moreCookies = false;
             }
 
-            cookieLogRepresentation = line.substring(cookieFragmentStart, cookieFragmentEnd);
+            int cookieEnd = cookieFragmentEnd;
 
             //
             // check whether we're not in between two different semicolon-separated cookie series
             //
 
-            int boundary = identifyBoundaryBetweenSeries(cookieLogRepresentation);
+            int boundary = identifyBoundaryBetweenSeries(line, cookieFragmentStart, cookieFragmentEnd);
 
             if (boundary != -1) {
 
                 //
                 // boundary identified
                 //
-                cookieLogRepresentation = line.substring(cookieFragmentStart, cookieFragmentStart + boundary);
+                cookieEnd = cookieFragmentStart + boundary;
                 moreCookies = false;
             }
 
@@ -151,8 +149,7 @@ public class CookieParser {
             //
 
             if (isCookieRequestHeader(httpdFormatString) &&
-                    doesDomainSpecificationFollow(
-                            line, cookieFragmentStart + cookieLogRepresentation.length(), separator)) {
+                    doesDomainSpecificationFollow(line, cookieEnd, separator)) {
 
                 //
                 // the cookie we just identified belongs to the next fragment, so don't add it to the list
@@ -160,25 +157,12 @@ public class CookieParser {
                 break;
             }
 
-            Cookie c = new Cookie(cookieLogRepresentation, lineNumber);
-            cookies.add(c);
+            Cookie.validate(line, cookieFragmentStart, cookieEnd, lineNumber);
+            lastCookieEnd = cookieEnd;
             cookieFragmentStart = cookieFragmentEnd + 1;
         }
 
-        int nextTokenStartIndex = startFrom;
-
-        for(Iterator<Cookie> i = cookies.iterator(); i.hasNext(); ) {
-
-            nextTokenStartIndex += i.next().getLiteral().length();
-
-            if (i.hasNext()) {
-
-                //
-                // account for semi-colon separator
-                //
-                nextTokenStartIndex += 1;
-            }
-        }
+        int nextTokenStartIndex = lastCookieEnd == -1 ? startFrom : lastCookieEnd;
 
         //
         // walk past separator, if any
@@ -201,6 +185,69 @@ public class CookieParser {
         return nextTokenStartIndex;
     }
 
+    /**
+     * Extracts the value of a single cookie from a Cookie/Set-Cookie header value, without breaking down the other
+     * cookies. Both semicolon and comma separated series are handled.
+     *
+     * @return the value of the first cookie with the given name, or null if there is no such cookie. The value is
+     * trimmed.
+     */
+    public static String getCookieValue(String headerValue, String cookieName) {
+
+        if (headerValue == null || cookieName == null) {
+            return null;
+        }
+
+        int length = headerValue.length();
+        int nameLength = cookieName.length();
+        int i = 0;
+
+        while(i < length) {
+
+            //
+            // skip separators and blanks
+            //
+            char c;
+            while(i < length && ((c = headerValue.charAt(i)) == ' ' || c == ';' || c == ',')) {
+                i ++;
+            }
+
+            int cookieEnd = i;
+            while(cookieEnd < length && (c = headerValue.charAt(cookieEnd)) != ';' && c != ',') {
+                cookieEnd ++;
+            }
+
+            if (headerValue.startsWith(cookieName, i)) {
+
+                int j = i + nameLength;
+
+                while(j < cookieEnd && headerValue.charAt(j) == ' ') {
+                    j ++;
+                }
+
+                if (j < cookieEnd && headerValue.charAt(j) == '=') {
+
+                    int valueStart = j + 1;
+                    int valueEnd = cookieEnd;
+
+                    while(valueStart < valueEnd && headerValue.charAt(valueStart) == ' ') {
+                        valueStart ++;
+                    }
+
+                    while(valueEnd > valueStart && headerValue.charAt(valueEnd - 1) == ' ') {
+                        valueEnd --;
+                    }
+
+                    return headerValue.substring(valueStart, valueEnd);
+                }
+            }
+
+            i = cookieEnd + 1;
+        }
+
+        return null;
+    }
+
     public static boolean isCookieHeader(HttpdFormatString fs) {
 
         return isCookieRequestHeader(fs) || isCookieResponseHeader(fs);
@@ -320,23 +367,44 @@ public class CookieParser {
      */
     static int identifyBoundaryBetweenSeries(String s) {
 
+        return identifyBoundaryBetweenSeries(s, 0, s.length());
+    }
+
+    /**
+     * @param start the first character of the cookie representation (inclusive).
+     * @param end the end of the cookie representation (exclusive).
+     *
+     * @return the boundary, relative to start, or -1 if no boundary is identified
+     */
+    static int identifyBoundaryBetweenSeries(String line, int start, int end) {
+
         //
         // two cookies representation separated by a space
         //
 
-        int left = s.indexOf('=');
-        int right = s.lastIndexOf('=');
+        int left = -1;
+        int right = -1;
 
-        if (left != -1 && right != -1 && left != right) {
+        for(int i = start; i < end; i ++) {
 
-            s = s.substring(left, right);
-            int space = s.indexOf(' ');
+            if (line.charAt(i) == '=') {
 
-            if (space == -1) {
-                return -1;
+                if (left == -1) {
+                    left = i;
+                }
+
+                right = i;
             }
+        }
+
+        if (left != -1 && left != right) {
 
-            return left + space;
+            for(int i = left; i < right; i ++) {
+
+                if (line.charAt(i) == ' ') {
+                    return i - start;
+                }
+            }
         }
 
         return -1;
@@ -356,7 +424,7 @@ public class CookieParser {
             i++;
         }
 
-        return i < line.length() && line.substring(i).startsWith("Domain=");
+        return line.startsWith("Domain=", i);
     }
 
     // Inner classes ---------------------------------------------------------------------------------------------------
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events;
+
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.Property;
+import io.novaordis.events.core.LineParser;
+import io.novaordis.events.core.LineParserTest;
+import io.novaordis.events.core.MockLineParser;
+import io.novaordis.events.core.event.MockEvent;
+import io.novaordis.events.httpd.HttpEvent;
+import io.novaordis.events.httpd.HttpdFormatStrings;
+import io.novaordis.events.httpd.HttpdLineParser;
+import io.novaordis.events.httpd.HttpdLogFormat;
+import io.novaordis.utilities.parsing.ParsingException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class CompositeLineParserTest extends LineParserTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final String COMMON_LINE =
+            "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /test HTTP/1.1\" 200 1024";
+
+    private static final String PERFORMANCE_ANALYSIS_LINE =
+            "\"default task-1\" 127.0.0.1 - [18/Sep/2016:19:18:28 -0400] \"GET /test HTTP/1.1\" \"a=b&c=d\" 200 1024 7";
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_NoParsers() throws Exception {
+
+        try {
+            new CompositeLineParser(Collections.emptyList());
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void signature() throws Exception {
+
+        assertEquals(LineFormatInference.shape(HttpdLogFormat.COMMON),
+                CompositeLineParser.signature(new HttpdLineParser(HttpdLogFormat.COMMON)));
+
+        assertEquals(LineFormatInference.shape(HttpdLogFormat.PERFORMANCE_ANALYSIS),
+                CompositeLineParser.signature(new HttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS)));
+    }
+
+    @Test
+    public void signature_UnquotedRequestLine() throws Exception {
+
+        assertNull(CompositeLineParser.signature(new HttpdLineParser("%h %r")));
+    }
+
+    @Test
+    public void signature_NotAHttpdParser() throws Exception {
+
+        assertNull(CompositeLineParser.signature(new MockLineParser()));
+    }
+
+    @Test
+    public void parseLine_InterleavedFormats() throws Exception {
+
+        HttpdLineParser common = new HttpdLineParser(HttpdLogFormat.COMMON);
+        HttpdLineParser performanceAnalysis = new HttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS);
+
+        CompositeLineParser p = new CompositeLineParser(Arrays.asList(
+                new HttpdLineParser(HttpdLogFormat.COMMON), new HttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS)));
+
+        String[] lines = { COMMON_LINE, COMMON_LINE, PERFORMANCE_ANALYSIS_LINE, COMMON_LINE, PERFORMANCE_ANALYSIS_LINE };
+
+        for(int i = 0; i < lines.length; i ++) {
+
+            LineParser reference = lines[i].equals(COMMON_LINE) ? common : performanceAnalysis;
+            assertEquals(lines[i], toMap(reference.parseLine(i, lines[i])), toMap(p.parseLine(i, lines[i])));
+        }
+
+        assertEquals(3L, p.getLineCount(0));
+        assertEquals(2L, p.getLineCount(1));
+        assertEquals(3L, p.getFormatSwitchCount());
+        assertEquals(1, p.getRecent());
+    }
+
+    @Test
+    public void parseLine_MostRecentWinnerIsCheckedFirst() throws Exception {
+
+        //
+        // "x 200" conforms to both formats
+        //
+
+        CompositeLineParser p = new CompositeLineParser(Arrays.asList(
+                new HttpdLineParser("%h %s"), new HttpdLineParser("%h %u")));
+
+        assertEquals(-1, p.getRecent());
+
+        p.parseLine(1L, "x 200");
+        assertEquals(0, p.getRecent());
+
+        p.parseLine(2L, "x y");
+        assertEquals(1, p.getRecent());
+
+        p.parseLine(3L, "x 200");
+        assertEquals(1, p.getRecent());
+
+        assertEquals(1L, p.getLineCount(0));
+        assertEquals(2L, p.getLineCount(1));
+        assertEquals(1L, p.getFormatSwitchCount());
+    }
+
+    @Test
+    public void parseLine_MembersWithoutSignatureAreTriedLast() throws Exception {
+
+        //
+        // MockLineParser throws a RuntimeException if it gets a line it does not know
+        //
+
+        CompositeLineParser p = new CompositeLineParser(Arrays.asList(
+                new MockLineParser(), new HttpdLineParser(HttpdLogFormat.COMMON)));
+
+        assertNull(p.getSignature(0));
+
+        Event e = p.parseLine(1L, COMMON_LINE);
+        assertEquals("127.0.0.1", ((HttpEvent)e).getRemoteHost());
+
+        e = p.parseLine(2L, MockLineParser.VALID_LINE);
+        assertTrue(e instanceof MockEvent);
+
+        e = p.parseLine(3L, COMMON_LINE);
+        assertEquals("127.0.0.1", ((HttpEvent)e).getRemoteHost());
+
+        assertEquals(1L, p.getLineCount(0));
+        assertEquals(2L, p.getLineCount(1));
+    }
+
+    @Test
+    public void parseLine_NoMemberMatches() throws Exception {
+
+        CompositeLineParser p = new CompositeLineParser(Arrays.asList(
+                new HttpdLineParser(HttpdLogFormat.COMMON), new HttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS)));
+
+        try {
+            p.parseLine(7L, "this is not a log line");
+            fail("should have thrown exception");
+        }
+        catch(ParsingException e) {
+
+            assertEquals("the line does not match any of the 2 formats", e.getMessage());
+            assertEquals(7L, e.getLineNumber().longValue());
+        }
+
+        assertEquals(-1, p.getRecent());
+    }
+
+    @Test
+    public void parseLine_ConformingMemberFails() throws Exception {
+
+        CompositeLineParser p = new CompositeLineParser(
+                Collections.singletonList(new HttpdLineParser(HttpdLogFormat.COMMON)));
+
+        String line = "127.0.0.1 - - [not a timestamp] \"GET /test HTTP/1.1\" 200 1024";
+
+        try {
+            new HttpdLineParser(HttpdLogFormat.COMMON).parseLine(1L, line);
+            fail("should have thrown exception");
+        }
+        catch(ParsingException e) {
+
+            try {
+                p.parseLine(1L, line);
+                fail("should have thrown exception");
+            }
+            catch(ParsingException e2) {
+
+                assertEquals(e.getMessage(), e2.getMessage());
+            }
+        }
+
+        assertEquals(0L, p.getLineCount(0));
+    }
+
+    @Test
+    public void getStatistics() throws Exception {
+
+        CompositeLineParser p = new CompositeLineParser(Arrays.asList(
+                new HttpdLineParser("%h %s"), new HttpdLineParser("%h %u")));
+
+        p.parseLine(1L, "a 200");
+        p.parseLine(2L, "a b");
+
+        assertEquals("1 lines parsed by " + p.getParsers().get(0) + ", 1 lines parsed by " + p.getParsers().get(1) +
+                ", 1 format switches", p.getStatistics());
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    @Override
+    protected CompositeLineParser getLineParserToTest(String format) throws Exception {
+
+        return new CompositeLineParser(Collections.singletonList(new HttpdLineParser(format)));
+    }
+
+    @Override
+    protected String getValidFormatForLineParserToTest() throws Exception {
+
+        return HttpdFormatStrings.REMOTE_HOST.getLiteral();
+    }
+
+    @Override
+    protected String getValidLineForLineParserToTest() throws Exception {
+        return "127.0.0.1";
+    }
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static Map<String, String> toMap(Event e) {
+
+        Map<String, String> m = new TreeMap<>();
+
+        for(Property p: e.getProperties()) {
+            m.put(p.getName(), String.valueOf(p.getValue()));
+        }
+
+        return m;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events;
+
+import io.novaordis.events.httpd.HttpdLogFormat;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class LineFormatInferenceTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final String COMMON_LINE =
+            "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /test HTTP/1.1\" 200 1024";
+
+    private static final String COMBINED_LINE =
+            "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /test HTTP/1.1\" 200 1024 \"http://example.com/\" " +
+                    "\"Mozilla/5.0 (X11; Linux x86_64)\"";
+
+    private static final String PERFORMANCE_ANALYSIS_LINE =
+            "\"default task-1\" 127.0.0.1 - [18/Sep/2016:19:18:28 -0400] \"GET /test HTTP/1.1\" \"a=b&c=d\" 200 1024 7";
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void knownFormats_AreValid() throws Exception {
+
+        for(String spec: LineFormatInference.KNOWN_FORMATS.values()) {
+            new HttpdLogFormat(spec);
+        }
+
+        assertEquals(HttpdLogFormat.COMMON.getHttpdFormatStrings(),
+                new HttpdLogFormat(LineFormatInference.KNOWN_FORMATS.get("common")).getHttpdFormatStrings());
+        assertEquals(HttpdLogFormat.PERFORMANCE_ANALYSIS.getHttpdFormatStrings(),
+                new HttpdLogFormat(LineFormatInference.KNOWN_FORMATS.get("performance-analysis"))
+                        .getHttpdFormatStrings());
+    }
+
+    @Test
+    public void constructor_InvalidCandidate() throws Exception {
+
+        try {
+            new LineFormatInference(Collections.singletonMap("broken", "%h %blah"));
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            assertTrue(e.getMessage().contains("%h %blah"));
+        }
+    }
+
+    @Test
+    public void shape_Line() throws Exception {
+
+        assertEquals("NT-BQNN",
+                LineFormatInference.shape("127.0.0.1 bob - [18/Sep/2016:19:18:28 -0400] \"GET / HTTP/1.1\" 200 1024"));
+        assertEquals("QQ", LineFormatInference.shape("\"a \\\" b\"   \"c\""));
+        assertEquals("TN", LineFormatInference.shape("abc -1.5"));
+        assertEquals("", LineFormatInference.shape(""));
+        assertEquals("B", LineFormatInference.shape("[unterminated"));
+    }
+
+    @Test
+    public void shape_Format() throws Exception {
+
+        assertEquals("TTTBQNN", LineFormatInference.shape(HttpdLogFormat.COMMON));
+        assertEquals("QTTBQQNNN", LineFormatInference.shape(HttpdLogFormat.PERFORMANCE_ANALYSIS));
+    }
+
+    @Test
+    public void accepts() throws Exception {
+
+        assertTrue(LineFormatInference.accepts("TTTBQNN", "NT-BQN-"));
+        assertFalse(LineFormatInference.accepts("TTTBQNN", "NT-BQNT"));
+        assertFalse(LineFormatInference.accepts("TTTBQNN", "NT-BQN"));
+        assertFalse(LineFormatInference.accepts("TTTBQNN", "QT-BQNN"));
+    }
+
+    @Test
+    public void conforms() throws Exception {
+
+        assertTrue(LineFormatInference.conforms("TTTBQNN", COMMON_LINE));
+        assertFalse(LineFormatInference.conforms("TTTBQNN", COMMON_LINE + " extra"));
+        assertFalse(LineFormatInference.conforms("TTTBQNN", PERFORMANCE_ANALYSIS_LINE));
+        assertFalse(LineFormatInference.conforms("TTTBQNN", "127.0.0.1 - -"));
+        assertTrue(LineFormatInference.conforms("", "   "));
+        assertTrue(LineFormatInference.conforms("QB", "\"a \\\" b\"[unterminated"));
+    }
+
+    @Test
+    public void conforms_EquivalentWithAcceptsShape() throws Exception {
+
+        String[] lines = { COMMON_LINE, COMBINED_LINE, PERFORMANCE_ANALYSIS_LINE, "", "a", "\"unterminated", "- 1 x" };
+
+        for(String spec: LineFormatInference.KNOWN_FORMATS.values()) {
+
+            String formatShape = LineFormatInference.shape(new HttpdLogFormat(spec));
+
+            for(String line: lines) {
+
+                assertEquals(spec + ": " + line, LineFormatInference.accepts(formatShape, LineFormatInference.shape(line)),
+                        LineFormatInference.conforms(formatShape, line));
+            }
+        }
+    }
+
+    @Test
+    public void infer_Common() throws Exception {
+
+        LineFormatInference.Result r = new LineFormatInference().infer(Arrays.asList(COMMON_LINE, COMMON_LINE));
+
+        assertEquals("common", r.getName());
+        assertEquals(1d, r.getScore(), 0d);
+        assertFalse(r.isLowConfidence());
+        assertFalse(r.isCached());
+    }
+
+    @Test
+    public void infer_Combined() throws Exception {
+
+        LineFormatInference.Result r = new LineFormatInference().infer(Collections.singletonList(COMBINED_LINE));
+        assertEquals("combined", r.getName());
+    }
+
+    @Test
+    public void infer_PerformanceAnalysis() throws Exception {
+
+        LineFormatInference.Result r =
+                new LineFormatInference().infer(Collections.singletonList(PERFORMANCE_ANALYSIS_LINE));
+        assertEquals("performance-analysis", r.getName());
+    }
+
+    @Test
+    public void infer_MoreSpecificCandidateWins() throws Exception {
+
+        //
+        // the line is accepted by "wildfly-response-time" but also by a format with only token fields
+        //
+        Map<String, String> candidates = new LinkedHashMap<>();
+        candidates.put("loose", "%h %l %u [%t] \"%r\" %h %h %h");
+        candidates.put("wildfly-response-time", LineFormatInference.KNOWN_FORMATS.get("wildfly-response-time"));
+
+        LineFormatInference.Result r = new LineFormatInference(candidates)
+                .infer(Collections.singletonList(COMMON_LINE + " 5"));
+
+        assertEquals("wildfly-response-time", r.getName());
+    }
+
+    @Test
+    public void infer_LowConfidence() throws Exception {
+
+        List<String> lines = new ArrayList<>();
+
+        for(int i = 0; i < 7; i ++) {
+            lines.add(COMMON_LINE);
+        }
+
+        lines.add("garbage");
+        lines.add("more garbage");
+        lines.add("");
+
+        LineFormatInference.Result r = new LineFormatInference().infer(lines);
+
+        assertEquals("common", r.getName());
+
+        //
+        // empty lines are not counted
+        //
+        assertEquals(7d / 9, r.getScore(), 0.0001d);
+        assertTrue(r.isLowConfidence());
+    }
+
+    @Test
+    public void infer_NoMatch() throws Exception {
+
+        assertNull(new LineFormatInference().infer(Collections.singletonList("something else entirely")));
+        assertNull(new LineFormatInference().infer(Collections.emptyList()));
+    }
+
+    @Test
+    public void infer_Cache() throws Exception {
+
+        File directory = Files.createTempDirectory("events-format-inference").toFile();
+        File cacheFile = new File(directory, LineFormatInference.CACHE_FILE_NAME);
+
+        try {
+
+            List<String> lines = Collections.singletonList(COMMON_LINE);
+
+            LineFormatInference.Result r = new LineFormatInference().infer(lines, directory);
+            assertEquals("common", r.getName());
+            assertFalse(r.isCached());
+            assertTrue(cacheFile.isFile());
+
+            //
+            // alter the cached decision, to make sure it is the one used
+            //
+            String content;
+
+            try (BufferedReader br = new BufferedReader(new FileReader(cacheFile))) {
+                content = br.readLine();
+            }
+
+            String[] tokens = content.split("\t");
+            assertEquals(LineFormatInference.shape(COMMON_LINE), tokens[0]);
+            assertEquals("common", tokens[1]);
+
+            try (FileWriter w = new FileWriter(cacheFile)) {
+                w.write(tokens[0] + "\tmine\t%h %l %u [%t] \"%r\" %s %b\n");
+            }
+
+            r = new LineFormatInference().infer(lines, directory);
+            assertEquals("mine", r.getName());
+            assertEquals("%h %l %u [%t] \"%r\" %s %b", r.getFormatSpecification());
+            assertTrue(r.isCached());
+
+            //
+            // a cached decision that does not match is ignored and replaced
+            //
+            try (FileWriter w = new FileWriter(cacheFile)) {
+                w.write(tokens[0] + "\tmine\t%h %h\n");
+            }
+
+            r = new LineFormatInference().infer(lines, directory);
+            assertEquals("common", r.getName());
+            assertFalse(r.isCached());
+        }
+        finally {
+
+            assertTrue(!cacheFile.exists() || cacheFile.delete());
+            assertTrue(directory.delete());
+        }
+    }
+
+    @Test
+    public void sample_MarkReset() throws Exception {
+
+        String content = "line 1\r\nline 2\nline 3\nline 4";
+
+        InputStream is = new BufferedInputStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        List<String> sample = LineFormatInference.sample(is, 2, 1024);
+        assertEquals(Arrays.asList("line 1", "line 2"), sample);
+
+        //
+        // nothing was consumed
+        //
+        BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+        assertEquals("line 1", br.readLine());
+    }
+
+    @Test
+    public void sample_WholeStream() throws Exception {
+
+        InputStream is = new BufferedInputStream(new ByteArrayInputStream("a\nb".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Arrays.asList("a", "b"), LineFormatInference.sample(is, 10, 1024));
+    }
+
+    @Test
+    public void sample_ByteLimit_IncompleteLineDiscarded() throws Exception {
+
+        InputStream is =
+                new BufferedInputStream(new ByteArrayInputStream("aaa\nbbbbbb\n".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Collections.singletonList("aaa"), LineFormatInference.sample(is, 10, 6));
+    }
+
+    @Test
+    public void sample_MarkNotSupported() throws Exception {
+
+        try {
+            LineFormatInference.sample(new ByteArrayInputStream(new byte[0]) {
+                @Override
+                public boolean markSupported() {
+                    return false;
+                }
+            }, 10, 10);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -20,6 +20,8 @@ import io.novaordis.events.core.LineFormat;
 import io.novaordis.events.core.LineParser;
 import io.novaordis.events.csv.CSVField;
 import io.novaordis.events.csv.CSVFormat;
+import io.novaordis.events.gc.g1.G1LineParser;
+import io.novaordis.events.httpd.PlannedHttpdLineParser;
 import io.novaordis.events.httpd.HttpdFormatString;
 import io.novaordis.events.httpd.HttpdFormatStrings;
 import io.novaordis.events.httpd.HttpdLineParser;
@@ -29,6 +31,8 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -129,6 +133,76 @@ public class LineParserFactoryTest {
         }
     }
 
+    @Test
+    public void getInstance_Auto_RequiresSample() throws Exception {
+
+        try {
+            LineParserFactory.getInstance(LineFormatInference.AUTO);
+            fail("should have thrown exception");
+        }
+        catch(UserErrorException e) {
+
+            log.info(e.getMessage());
+            assertTrue(e.getMessage().contains("sample"));
+        }
+    }
+
+    @Test
+    public void getInstance_G1() throws Exception {
+
+        assertTrue(LineParserFactory.getInstance("g1") instanceof G1LineParser);
+        assertTrue(LineParserFactory.getInstance("") instanceof G1LineParser);
+    }
+
+    @Test
+    public void getInstance_Composite() throws Exception {
+
+        LineParser p = LineParserFactory.getInstance("%h %l %u [%t] \"%r\" %>s %b || %h %s", true);
+
+        assertTrue(p instanceof CompositeLineParser);
+
+        List<LineParser> members = ((CompositeLineParser)p).getParsers();
+        assertEquals(2, members.size());
+        assertTrue(members.get(0) instanceof PlannedHttpdLineParser);
+        assertTrue(members.get(1) instanceof PlannedHttpdLineParser);
+    }
+
+    @Test
+    public void getInstance_Composite_EmptyMember() throws Exception {
+
+        try {
+            LineParserFactory.getInstance("%h ||  ");
+            fail("should have thrown exception");
+        }
+        catch(UserErrorException e) {
+
+            assertTrue(e.getMessage().contains("empty format"));
+        }
+    }
+
+    @Test
+    public void getInstance_Sample() throws Exception {
+
+        List<String> sample = Arrays.asList(
+                "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /test HTTP/1.1\" 200 1024",
+                "127.0.0.1 - bob [18/Sep/2016:19:18:29 -0400] \"POST /test HTTP/1.1\" 404 -");
+
+        LineParser parser = LineParserFactory.getInstance(sample, null, false, false);
+        assertTrue(parser instanceof HttpdLineParser);
+
+        HttpdLogFormat format = ((HttpdLineParser)parser).getHttpdLogFormat();
+        assertEquals(new HttpdLogFormat(LineFormatInference.KNOWN_FORMATS.get("common")).getHttpdFormatStrings(),
+                format.getHttpdFormatStrings());
+    }
+
+    @Test
+    public void getInstance_Sample_NoMatch() throws Exception {
+
+        List<String> sample = Collections.singletonList("this is not a httpd log line");
+
+        assertNull(LineParserFactory.getInstance(sample, null, false, false));
+    }
+
     // Package protected -----------------------------------------------------------------------------------------------
 
     // Protected -------------------------------------------------------------------------------------------------------
@@ -16,19 +16,31 @@
 
 package io.novaordis.events.clad;
 
+import io.novaordis.clad.option.BooleanOption;
 import io.novaordis.clad.option.StringOption;
 import io.novaordis.clad.option.TimestampOption;
+import io.novaordis.events.api.event.Event;
 import io.novaordis.events.core.EventFilter;
 import io.novaordis.events.core.EventProcessor;
 import io.novaordis.events.core.LineStreamParser;
+import io.novaordis.events.httpd.ByteHttpdLineParser;
+import io.novaordis.events.httpd.HttpEvent;
+import io.novaordis.events.httpd.HttpdLineParser;
 import io.novaordis.utilities.UserErrorException;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -177,12 +189,203 @@ public class EventsApplicationRuntimeTest {
         assertTrue(ep.getProcessingLogic() instanceof EventFilter);
     }
 
+    // byte parser -----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void byteParser_TimeWindowIsPushedIntoTheParser() throws Exception {
+
+        EventsApplicationRuntime r = new EventsApplicationRuntime();
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption('i', null, "%h %l %u [%t] \"%r\" %>s %b"));
+        mc.addGlobalOption(byteParser());
+        mc.addGlobalOption(new TimestampOption(null, "from", "09/18/16 19:00:00"));
+
+        r.init(mc);
+
+        assertTrue(r.getLineParser() instanceof ByteHttpdLineParser);
+        assertNotNull(((ByteHttpdLineParser)r.getLineParser()).getTimeWindow());
+    }
+
+    @Test
+    public void byteParser_PrefilterSelectsTheStringParser() throws Exception {
+
+        EventsApplicationRuntime r = new EventsApplicationRuntime();
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption('i', null, "%h %l %u [%t] \"%r\" %>s %b"));
+        mc.addGlobalOption(byteParser());
+        mc.addGlobalOption(new StringOption(null, "where", "request-uri = '/test'"));
+
+        r.init(mc);
+
+        assertTrue(r.getLineParser() instanceof HttpdLineParser);
+        assertFalse(r.getLineParser() instanceof ByteHttpdLineParser);
+    }
+
+    @Test
+    public void byteParser_WhereWithoutLiterals() throws Exception {
+
+        EventsApplicationRuntime r = new EventsApplicationRuntime();
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption('i', null, "%h %l %u [%t] \"%r\" %>s %b"));
+        mc.addGlobalOption(byteParser());
+        mc.addGlobalOption(new StringOption(null, "where", "status-code >= 500"));
+
+        r.init(mc);
+
+        assertTrue(r.getLineParser() instanceof ByteHttpdLineParser);
+    }
+
+    // setRequiredProperties() -----------------------------------------------------------------------------------------
+
+    @Test
+    public void setRequiredProperties_WherePropertiesAreDecodedEvenIfNotRequiredByTheCommand() throws Exception {
+
+        EventsApplicationRuntime r = new EventsApplicationRuntime();
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption('i', null, "%h %l %u [%t] \"%r\" %>s %b"));
+        mc.addGlobalOption(new StringOption(null, "where", "status-code >= 500"));
+
+        r.init(mc);
+
+        //
+        // what "-o timestamp, request-uri" requires
+        //
+        r.setRequiredProperties(new HashSet<>(Arrays.asList("timestamp", "request-uri")));
+
+        Event e = r.getLineParser().parseLine(
+                1L, "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /test HTTP/1.1\" 503 1024");
+
+        assertEquals(503, ((HttpEvent)e).getStatusCode().intValue());
+        assertEquals("/test", ((HttpEvent)e).getRequestUri());
+
+        EventFilter filter = (EventFilter)r.getLastEventProcessor().getProcessingLogic();
+
+        assertTrue(filter.process(e));
+        List<Event> events = filter.getEvents();
+        assertEquals(1, events.size());
+        assertEquals(e, events.get(0));
+
+        Event e2 = r.getLineParser().parseLine(
+                2L, "127.0.0.1 - - [18/Sep/2016:19:18:29 -0400] \"GET /test HTTP/1.1\" 200 1024");
+
+        assertFalse(filter.process(e2));
+    }
+
+    @Test
+    public void setRequiredProperties_AllPropertiesRequired() throws Exception {
+
+        EventsApplicationRuntime r = new EventsApplicationRuntime();
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption('i', null, "%h %l %u [%t] \"%r\" %>s %b"));
+        mc.addGlobalOption(new StringOption(null, "where", "status-code >= 500"));
+
+        r.init(mc);
+
+        r.setRequiredProperties(null);
+
+        HttpEvent e = (HttpEvent)r.getLineParser().parseLine(
+                1L, "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /test HTTP/1.1\" 503 1024");
+
+        assertEquals(503, e.getStatusCode().intValue());
+        assertEquals("GET", e.getMethod());
+        assertEquals(1024L, e.getResponseEntityBodySize().longValue());
+    }
+
+    @Test
+    public void setRequiredProperties_MembershipPropertyIsDecodedEvenIfNotRequiredByTheCommand() throws Exception {
+
+        EventsApplicationRuntime r = new EventsApplicationRuntime();
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption('i', null, "%h %l %u [%t] \"%r\" %>s %b"));
+        mc.addGlobalOption(new StringOption(null, "in-file", keyFile("/a", "/b").getPath()));
+        mc.addGlobalOption(new StringOption(null, "in-key", "request-uri"));
+
+        r.init(mc);
+
+        //
+        // what "-o timestamp, status-code" requires
+        //
+        r.setRequiredProperties(new HashSet<>(Arrays.asList("timestamp", "status-code")));
+
+        EventFilter filter = (EventFilter)r.getLastEventProcessor().getProcessingLogic();
+
+        Event e = r.getLineParser().parseLine(
+                1L, "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /b HTTP/1.1\" 200 1024");
+
+        assertTrue(filter.process(e));
+        assertEquals(e, filter.getEvents().get(0));
+
+        Event e2 = r.getLineParser().parseLine(
+                2L, "127.0.0.1 - - [18/Sep/2016:19:18:29 -0400] \"GET /c HTTP/1.1\" 200 1024");
+
+        assertFalse(filter.process(e2));
+    }
+
+    @Test
+    public void setRequiredProperties_MembershipCookieIsDecodedEvenIfNotRequiredByTheCommand() throws Exception {
+
+        EventsApplicationRuntime r = new EventsApplicationRuntime();
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption('i', null, "[%t] \"%r\" %>s \"%{Cookie}i\""));
+        mc.addGlobalOption(new StringOption(null, "in-file", keyFile("s1", "s2").getPath()));
+        mc.addGlobalOption(new StringOption(null, "in-key", "cookie:JSESSIONID"));
+
+        r.init(mc);
+
+        //
+        // what "-o timestamp, request-uri" requires
+        //
+        r.setRequiredProperties(new HashSet<>(Arrays.asList("timestamp", "request-uri")));
+
+        EventFilter filter = (EventFilter)r.getLastEventProcessor().getProcessingLogic();
+
+        Event e = r.getLineParser().parseLine(
+                1L, "[18/Sep/2016:19:18:28 -0400] \"GET /b HTTP/1.1\" 200 \"JSESSIONID=s2; other=x\"");
+
+        assertTrue(filter.process(e));
+        assertEquals(e, filter.getEvents().get(0));
+
+        Event e2 = r.getLineParser().parseLine(
+                2L, "[18/Sep/2016:19:18:29 -0400] \"GET /b HTTP/1.1\" 200 \"JSESSIONID=s3; other=x\"");
+
+        assertFalse(filter.process(e2));
+    }
+
     // Package protected -----------------------------------------------------------------------------------------------
 
     // Protected -------------------------------------------------------------------------------------------------------
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    private static BooleanOption byteParser() {
+
+        BooleanOption o = new BooleanOption("byte-parser");
+        o.setValue(true);
+        return o;
+    }
+
+    private static File keyFile(String... keys) throws Exception {
+
+        File file = File.createTempFile("keys", ".txt");
+        file.deleteOnExit();
+
+        try(Writer w = new FileWriter(file)) {
+
+            for(String k: keys) {
+                w.write(k + "\n");
+            }
+        }
+
+        return file;
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
 }
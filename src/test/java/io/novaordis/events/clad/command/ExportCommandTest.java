@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.clad.command;
+
+import io.novaordis.events.api.event.DoubleProperty;
+import io.novaordis.events.api.event.EndOfStreamEvent;
+import io.novaordis.events.api.event.LongProperty;
+import io.novaordis.events.api.event.StringProperty;
+import io.novaordis.events.columnar.ToColumnar;
+import io.novaordis.events.core.event.MockEvent;
+import io.novaordis.events.core.event.MockTimedEvent;
+import io.novaordis.utilities.time.TimeOffset;
+import io.novaordis.utilities.time.TimestampImpl;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ExportCommandTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void needsRuntime() throws Exception {
+
+        ExportCommand c = new ExportCommand();
+        assertFalse(c.needsRuntime());
+    }
+
+    @Test
+    public void export_AllColumns() throws Exception {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        long rows = ExportCommand.export(new ByteArrayInputStream(columnarBytes()), baos, null, false);
+
+        assertEquals(2, rows);
+        assertEquals(
+                "01/01/70 00:00:01, GET, 200, 0.5\n" +
+                        ", , 404, \n", new String(baos.toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    public void export_SelectedColumns_Header() throws Exception {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        long rows = ExportCommand.export(
+                new ByteArrayInputStream(columnarBytes()), baos, Arrays.asList("status", "no-such-column"), true);
+
+        assertEquals(2, rows);
+        assertEquals("# status, no-such-column\n200, \n404, \n", new String(baos.toByteArray(), "UTF-8"));
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static byte[] columnarBytes() throws Exception {
+
+        ToColumnar c = new ToColumnar(Arrays.asList("timestamp", "method", "status", "duration"));
+
+        MockTimedEvent e = new MockTimedEvent(new TimestampImpl(1000L, new TimeOffset(0)));
+        e.setProperty(new StringProperty("method", "GET"));
+        e.setProperty(new LongProperty("status", 200L));
+        e.setProperty(new DoubleProperty("duration", 0.5d));
+        c.process(e);
+
+        MockEvent e2 = new MockEvent();
+        e2.setProperty(new LongProperty("status", 404L));
+        c.process(e2);
+
+        c.process(new EndOfStreamEvent());
+
+        return c.getBytes();
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
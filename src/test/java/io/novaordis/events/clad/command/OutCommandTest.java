@@ -18,6 +18,9 @@ package io.novaordis.events.clad.command;
 
 import org.junit.Test;
 
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -43,6 +46,17 @@ public class OutCommandTest {
         assertTrue(outCommand.needsRuntime());
     }
 
+    @Test
+    public void toRequiredProperties() throws Exception {
+
+        Set<String> s = OutputCommand.toRequiredProperties("timestamp, request-duration,cookies.JSESSIONID, ,");
+
+        assertEquals(3, s.size());
+        assertTrue(s.contains("timestamp"));
+        assertTrue(s.contains("request-duration"));
+        assertTrue(s.contains("cookies"));
+    }
+
     // Package protected -----------------------------------------------------------------------------------------------
 
     // Protected -------------------------------------------------------------------------------------------------------
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.columnar;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ColumnarFormatTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnarFormatTest.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void varLong() throws Exception {
+
+        long[] values = { 0L, 1L, 127L, 128L, 300L, Integer.MAX_VALUE, Long.MAX_VALUE, -1L, Long.MIN_VALUE };
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for(long v: values) {
+            ColumnarFormat.writeVarLong(out, v);
+        }
+
+        byte[] bytes = out.toByteArray();
+
+        // 0, 1 and 127 take one byte, 128 and 300 two
+        assertEquals(0, bytes[0]);
+        assertEquals(1, bytes[1]);
+        assertEquals(127, bytes[2]);
+        assertEquals((byte)0x80, bytes[3]);
+        assertEquals(1, bytes[4]);
+
+        ColumnarFormat.Input in = new ColumnarFormat.Input(bytes);
+
+        for(long v: values) {
+            assertEquals(v, in.readVarLong());
+        }
+
+        assertTrue(in.isExhausted());
+    }
+
+    @Test
+    public void zigZag() throws Exception {
+
+        assertEquals(0L, ColumnarFormat.zigZag(0));
+        assertEquals(1L, ColumnarFormat.zigZag(-1));
+        assertEquals(2L, ColumnarFormat.zigZag(1));
+        assertEquals(3L, ColumnarFormat.zigZag(-2));
+
+        for(long v: new long[] { 0L, 1L, -1L, 1000L, -1000L, Long.MAX_VALUE, Long.MIN_VALUE }) {
+            assertEquals(v, ColumnarFormat.unZigZag(ColumnarFormat.zigZag(v)));
+        }
+    }
+
+    @Test
+    public void bitWidth() throws Exception {
+
+        assertEquals(0, ColumnarFormat.bitWidth(0));
+        assertEquals(1, ColumnarFormat.bitWidth(1));
+        assertEquals(2, ColumnarFormat.bitWidth(2));
+        assertEquals(2, ColumnarFormat.bitWidth(3));
+        assertEquals(8, ColumnarFormat.bitWidth(255));
+        assertEquals(64, ColumnarFormat.bitWidth(-1L));
+    }
+
+    @Test
+    public void bitPacked_ZeroWidth() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ColumnarFormat.writeBitPacked(out, new long[] { 0L, 0L, 0L }, 3, 0);
+
+        // only the width
+        assertEquals(1, out.size());
+
+        long[] values = new ColumnarFormat.Input(out.toByteArray()).readBitPacked(3);
+        assertArrayEquals(new long[] { 0L, 0L, 0L }, values);
+    }
+
+    @Test
+    public void bitPacked_ThreeBits() throws Exception {
+
+        long[] values = { 1L, 7L, 0L, 5L, 2L, 3L, 6L, 4L, 1L };
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ColumnarFormat.writeBitPacked(out, values, values.length, 3);
+
+        // the width and 27 bits
+        assertEquals(1 + 4, out.size());
+
+        ColumnarFormat.Input in = new ColumnarFormat.Input(out.toByteArray());
+        assertArrayEquals(values, in.readBitPacked(values.length));
+        assertTrue(in.isExhausted());
+    }
+
+    @Test
+    public void bitPacked_AllWidths() throws Exception {
+
+        Random random = new Random(7L);
+
+        for(int width = 1; width <= 64; width ++) {
+
+            long mask = width == 64 ? -1L : (1L << width) - 1;
+            long[] values = new long[37];
+
+            for(int i = 0; i < values.length; i ++) {
+                values[i] = random.nextLong() & mask;
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ColumnarFormat.writeBitPacked(out, values, values.length, width);
+
+            assertEquals(1 + (values.length * width + 7) / 8, out.size());
+
+            ColumnarFormat.Input in = new ColumnarFormat.Input(out.toByteArray());
+            assertArrayEquals("width " + width, values, in.readBitPacked(values.length));
+            assertTrue(in.isExhausted());
+        }
+    }
+
+    @Test
+    public void presence() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        byte[] bitmap = { 0x05, 0x01 };
+
+        ColumnarFormat.writePresence(out, bitmap, 9, 9);
+        ColumnarFormat.writePresence(out, bitmap, 9, 0);
+        ColumnarFormat.writePresence(out, bitmap, 9, 3);
+
+        ColumnarFormat.Input in = new ColumnarFormat.Input(out.toByteArray());
+
+        assertNull(in.readPresence(9));
+        assertArrayEquals(new byte[2], in.readPresence(9));
+        assertArrayEquals(bitmap, in.readPresence(9));
+        assertTrue(in.isExhausted());
+    }
+
+    @Test
+    public void string() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ColumnarFormat.writeString(out, "");
+        ColumnarFormat.writeString(out, "GET /ü");
+
+        ColumnarFormat.Input in = new ColumnarFormat.Input(out.toByteArray());
+
+        assertEquals("", in.readString());
+        assertEquals("GET /ü", in.readString());
+        assertTrue(in.isExhausted());
+    }
+
+    @Test
+    public void input_Truncated() throws Exception {
+
+        ColumnarFormat.Input in = new ColumnarFormat.Input(new byte[] { (byte)0x80 });
+
+        try {
+
+            in.readVarLong();
+            fail("should have thrown exception");
+        }
+        catch(IOException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("unexpected end of column data", msg);
+        }
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
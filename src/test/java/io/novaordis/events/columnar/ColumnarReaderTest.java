@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.columnar;
+
+import io.novaordis.events.api.event.EndOfStreamEvent;
+import io.novaordis.events.api.event.StringProperty;
+import io.novaordis.events.core.event.MockEvent;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ColumnarReaderTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnarReaderTest.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void nullInputStream() throws Exception {
+
+        try {
+
+            new ColumnarReader(null);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("null input stream", msg);
+        }
+    }
+
+    @Test
+    public void nextChunk_NotAColumnarStream() throws Exception {
+
+        ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream("a, b, c\n".getBytes()));
+
+        try {
+
+            reader.nextChunk();
+            fail("should have thrown exception");
+        }
+        catch(IOException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("not a columnar stream", msg);
+        }
+    }
+
+    @Test
+    public void nextChunk_EmptyStream() throws Exception {
+
+        ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(new byte[0]));
+
+        try {
+
+            reader.nextChunk();
+            fail("should have thrown exception");
+        }
+        catch(IOException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("not a columnar stream", msg);
+        }
+    }
+
+    @Test
+    public void nextChunk_UnsupportedVersion() throws Exception {
+
+        byte[] bytes = { 'E', 'V', 'C', 'F', 2, 0 };
+
+        ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(bytes));
+
+        try {
+
+            reader.nextChunk();
+            fail("should have thrown exception");
+        }
+        catch(IOException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("unsupported columnar format version 2", msg);
+        }
+    }
+
+    @Test
+    public void nextChunk_Truncated() throws Exception {
+
+        byte[] bytes = columnarBytes();
+
+        //
+        // drop the end marker and the last byte of the chunk
+        //
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 2);
+
+        ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(truncated));
+
+        try {
+
+            reader.nextChunk();
+            fail("should have thrown exception");
+        }
+        catch(IOException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("truncated columnar stream", msg);
+        }
+    }
+
+    @Test
+    public void nextChunk_NoMoreChunks() throws Exception {
+
+        ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(columnarBytes()));
+
+        assertTrue(reader.nextChunk());
+        assertEquals(1, reader.getRowCount());
+        assertEquals(Collections.singletonList("a"), reader.getColumnNames());
+        assertEquals("b", reader.getColumns().get(0).getString(0));
+
+        assertFalse(reader.nextChunk());
+        assertEquals(0, reader.getRowCount());
+        assertTrue(reader.getColumns().isEmpty());
+
+        // idempotent
+        assertFalse(reader.nextChunk());
+    }
+
+    @Test
+    public void column_WrongType() throws Exception {
+
+        ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(columnarBytes()));
+
+        assertTrue(reader.nextChunk());
+
+        Column c = reader.getColumn("a");
+
+        try {
+
+            c.getLong(0);
+            fail("should have thrown exception");
+        }
+        catch(IllegalStateException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("a is a STRING column", msg);
+        }
+
+        try {
+
+            c.getString(1);
+            fail("should have thrown exception");
+        }
+        catch(IndexOutOfBoundsException e) {
+            log.info(e.getMessage());
+        }
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return a stream with a single chunk, with a single row, with a single STRING column "a" whose value is "b".
+     */
+    private static byte[] columnarBytes() throws Exception {
+
+        ToColumnar c = new ToColumnar(Collections.singletonList("a"));
+
+        MockEvent e = new MockEvent();
+        e.setProperty(new StringProperty("a", "b"));
+        c.process(e);
+        c.process(new EndOfStreamEvent());
+
+        return c.getBytes();
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.columnar;
+
+import io.novaordis.events.api.event.DoubleProperty;
+import io.novaordis.events.api.event.EndOfStreamEvent;
+import io.novaordis.events.api.event.FaultEvent;
+import io.novaordis.events.api.event.IntegerProperty;
+import io.novaordis.events.api.event.LongProperty;
+import io.novaordis.events.api.event.MapProperty;
+import io.novaordis.events.api.event.StringProperty;
+import io.novaordis.events.core.ClosedException;
+import io.novaordis.events.core.event.MockEvent;
+import io.novaordis.events.core.event.MockTimedEvent;
+import io.novaordis.utilities.time.TimeOffset;
+import io.novaordis.utilities.time.TimestampImpl;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ToColumnarTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(ToColumnarTest.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void toColumnNames() throws Exception {
+
+        List<String> names = ToColumnar.toColumnNames("timestamp, status-code,cookies.JSESSIONID, ,");
+        assertEquals(Arrays.asList("timestamp", "status-code", "cookies.JSESSIONID"), names);
+    }
+
+    @Test
+    public void constructor_InvalidChunkRows() throws Exception {
+
+        try {
+
+            new ToColumnar(null, 0);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("invalid chunk row count 0", msg);
+        }
+    }
+
+    // process() -------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void process_EmptyStream() throws Exception {
+
+        ToColumnar c = new ToColumnar();
+
+        assertTrue(c.process(new EndOfStreamEvent()));
+        assertTrue(c.isClosed());
+
+        byte[] bytes = c.getBytes();
+
+        // magic, version and the end marker
+        assertEquals(6, bytes.length);
+
+        // null means we want the enclosing component to close the output stream
+        assertNull(c.getBytes());
+
+        ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(bytes));
+        assertFalse(reader.nextChunk());
+
+        try {
+
+            c.process(new MockEvent());
+            fail("should throw exception as the conversion logic is supposed to be closed()");
+        }
+        catch(ClosedException e) {
+            log.info(e.getMessage());
+        }
+    }
+
+    @Test
+    public void process_ConfiguredColumns_RoundTrip() throws Exception {
+
+        ToColumnar c = new ToColumnar(Arrays.asList("timestamp", "status", "size", "duration", "path", "missing"));
+
+        TimeOffset offset = new TimeOffset(-7 * 3600 * 1000);
+
+        for(int i = 0; i < 100; i ++) {
+
+            MockTimedEvent e = new MockTimedEvent(new TimestampImpl(1500000000000L + i * 1000L, offset));
+            e.setProperty(new IntegerProperty("status", i % 10 == 0 ? 500 : 200));
+            e.setProperty(new LongProperty("size", 1000L + i));
+            e.setProperty(new DoubleProperty("duration", i / 4d));
+            e.setProperty(new StringProperty("path", "/path/" + (i % 3)));
+            e.setProperty(new StringProperty("not-written", "x"));
+            c.process(e);
+        }
+
+        assertEquals(100, c.getEventCount());
+
+        ColumnarReader reader = readAll(c);
+
+        assertTrue(reader.nextChunk());
+        assertEquals(100, reader.getRowCount());
+        assertEquals(Arrays.asList("timestamp", "status", "size", "duration", "path", "missing"),
+                reader.getColumnNames());
+
+        Column timestamp = reader.getColumn("timestamp");
+        assertEquals(ColumnType.TIMESTAMP, timestamp.getType());
+
+        Column status = reader.getColumn("status");
+        assertEquals(ColumnType.LONG, status.getType());
+
+        Column size = reader.getColumn("size");
+        assertEquals(ColumnType.LONG, size.getType());
+
+        Column duration = reader.getColumn("duration");
+        assertEquals(ColumnType.DOUBLE, duration.getType());
+
+        Column path = reader.getColumn("path");
+        assertEquals(ColumnType.STRING, path.getType());
+
+        Column missing = reader.getColumn("missing");
+
+        for(int i = 0; i < 100; i ++) {
+
+            assertEquals(1500000000000L + i * 1000L, timestamp.getLong(i));
+            assertEquals(offset, timestamp.getTimeOffset(i));
+            assertEquals(i % 10 == 0 ? 500L : 200L, status.getLong(i));
+            assertEquals(1000L + i, size.getLong(i));
+            assertEquals(i / 4d, duration.getDouble(i), 0d);
+            assertEquals("/path/" + (i % 3), path.getString(i));
+            assertTrue(missing.isNull(i));
+        }
+
+        assertFalse(reader.nextChunk());
+        assertNull(reader.getColumn("path"));
+    }
+
+    @Test
+    public void process_MapEntry() throws Exception {
+
+        ToColumnar c = new ToColumnar(Collections.singletonList("cookies.JSESSIONID"));
+
+        MapProperty cookies = new MapProperty("cookies");
+        cookies.getMap().put("JSESSIONID", "abc");
+
+        MockEvent e = new MockEvent();
+        e.setProperty(cookies);
+        c.process(e);
+
+        c.process(new MockEvent());
+
+        ColumnarReader reader = readAll(c);
+
+        assertTrue(reader.nextChunk());
+
+        Column column = reader.getColumn("cookies.JSESSIONID");
+        assertEquals("abc", column.getString(0));
+        assertTrue(column.isNull(1));
+    }
+
+    @Test
+    public void process_Introspection() throws Exception {
+
+        ToColumnar c = new ToColumnar();
+
+        MockTimedEvent e = new MockTimedEvent(1000L);
+        e.setProperty(new StringProperty("a", "a0"));
+        c.process(e);
+
+        //
+        // "b" shows up in the second event, "a" is missing and the event is not timed
+        //
+        MockEvent e2 = new MockEvent();
+        e2.setProperty(new LongProperty("b", 7L));
+        c.process(e2);
+
+        MockTimedEvent e3 = new MockTimedEvent(3000L);
+        e3.setProperty(new StringProperty("a", "a2"));
+        e3.setProperty(new LongProperty("b", 9L));
+        c.process(e3);
+
+        assertEquals(Arrays.asList("timestamp", "a", "b"), c.getColumnNames());
+
+        ColumnarReader reader = readAll(c);
+
+        assertTrue(reader.nextChunk());
+        assertEquals(3, reader.getRowCount());
+        assertEquals(Arrays.asList("timestamp", "a", "b"), reader.getColumnNames());
+
+        Column timestamp = reader.getColumn("timestamp");
+        assertEquals(1000L, timestamp.getLong(0));
+        assertTrue(timestamp.isNull(1));
+        assertEquals(3000L, timestamp.getLong(2));
+        assertNull(timestamp.getTimeOffset(0));
+
+        Column a = reader.getColumn("a");
+        assertEquals("a0", a.getString(0));
+        assertTrue(a.isNull(1));
+        assertEquals("a2", a.getString(2));
+
+        Column b = reader.getColumn("b");
+        assertTrue(b.isNull(0));
+        assertEquals(7L, b.getLong(1));
+        assertEquals(9L, b.getLong(2));
+        assertEquals(9L, b.getValue(2));
+    }
+
+    @Test
+    public void process_TypeWidening() throws Exception {
+
+        ToColumnar c = new ToColumnar(Arrays.asList("n", "s"));
+
+        MockEvent e = new MockEvent();
+        e.setProperty(new LongProperty("n", 1L));
+        e.setProperty(new LongProperty("s", 1L));
+        c.process(e);
+
+        e = new MockEvent();
+        e.setProperty(new DoubleProperty("n", 2.5d));
+        e.setProperty(new StringProperty("s", "x"));
+        c.process(e);
+
+        ColumnarReader reader = readAll(c);
+
+        assertTrue(reader.nextChunk());
+
+        Column n = reader.getColumn("n");
+        assertEquals(ColumnType.DOUBLE, n.getType());
+        assertEquals(1d, n.getDouble(0), 0d);
+        assertEquals(2.5d, n.getDouble(1), 0d);
+
+        Column s = reader.getColumn("s");
+        assertEquals(ColumnType.STRING, s.getType());
+        assertEquals("1", s.getString(0));
+        assertEquals("x", s.getString(1));
+    }
+
+    @Test
+    public void process_FaultsAreNotWritten() throws Exception {
+
+        ToColumnar c = new ToColumnar(Collections.singletonList("a"));
+
+        MockEvent e = new MockEvent();
+        e.setProperty(new StringProperty("a", "a0"));
+        c.process(e);
+        c.process(new FaultEvent("test message", new RuntimeException("SYNTHETIC")));
+
+        assertEquals(1, c.getEventCount());
+        assertEquals(1, c.getFaultCount());
+
+        ColumnarReader reader = readAll(c);
+
+        assertTrue(reader.nextChunk());
+        assertEquals(1, reader.getRowCount());
+    }
+
+    @Test
+    public void process_MultipleChunks() throws Exception {
+
+        ToColumnar c = new ToColumnar(Arrays.asList("timestamp", "n"), 10);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        for(int i = 0; i < 25; i ++) {
+
+            MockTimedEvent e = new MockTimedEvent(10000L - i);
+            e.setProperty(new LongProperty("n", (long)(-i)));
+
+            c.process(e);
+            assertTrue(c.writeTo(baos, false));
+        }
+
+        //
+        // the header and two full chunks were written as soon as they were encoded, the last 5 rows are pending
+        //
+        int written = baos.size();
+        assertTrue(written > 6);
+
+        c.process(new EndOfStreamEvent());
+        assertTrue(c.writeTo(baos, true));
+        assertTrue(baos.size() > written);
+
+        // the owner Terminator closes the stream
+        assertFalse(c.writeTo(baos, true));
+
+        ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(baos.toByteArray()));
+
+        int i = 0;
+        int chunks = 0;
+
+        while(reader.nextChunk()) {
+
+            chunks ++;
+
+            Column timestamp = reader.getColumn("timestamp");
+            Column n = reader.getColumn("n");
+
+            for(int row = 0; row < reader.getRowCount(); row ++, i ++) {
+
+                assertEquals(10000L - i, timestamp.getLong(row));
+                assertEquals(-i, n.getLong(row));
+            }
+        }
+
+        assertEquals(3, chunks);
+        assertEquals(25, i);
+    }
+
+    @Test
+    public void process_DictionaryEncodingIsCompact() throws Exception {
+
+        ToColumnar c = new ToColumnar(Arrays.asList("timestamp", "method", "status"));
+
+        int rows = 10000;
+
+        for(int i = 0; i < rows; i ++) {
+
+            MockTimedEvent e = new MockTimedEvent(1500000000000L + i * 17L);
+            e.setProperty(new StringProperty("method", i % 2 == 0 ? "GET" : "POST"));
+            e.setProperty(new IntegerProperty("status", i % 100 == 0 ? 404 : 200));
+            c.process(e);
+        }
+
+        c.process(new EndOfStreamEvent());
+
+        byte[] bytes = c.getBytes();
+
+        //
+        // one bit per method, eight bits per status and a one byte timestamp delta per row
+        //
+        assertTrue("" + bytes.length, bytes.length < rows * 3);
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static ColumnarReader readAll(ToColumnar c) throws Exception {
+
+        c.process(new EndOfStreamEvent());
+        return new ColumnarReader(new ByteArrayInputStream(c.getBytes()));
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
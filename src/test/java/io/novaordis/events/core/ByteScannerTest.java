@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ByteScannerTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void getLong_LittleEndian() throws Exception {
+
+        byte[] b = { 1, 2, 3, 4, 5, 6, 7, (byte)0x88, 9 };
+
+        assertEquals(0x8807060504030201L, ByteScanner.getLong(b, 0));
+        assertEquals(0x0988070605040302L, ByteScanner.getLong(b, 1));
+    }
+
+    @Test
+    public void indexOf() throws Exception {
+
+        byte[] b = "0123456789abcdefghij klmnopq".getBytes();
+
+        assertEquals(20, ByteScanner.indexOf(b, 0, b.length, (byte)' '));
+        assertEquals(-1, ByteScanner.indexOf(b, 0, 20, (byte)' '));
+        assertEquals(-1, ByteScanner.indexOf(b, 21, b.length, (byte)' '));
+        assertEquals(0, ByteScanner.indexOf(b, 0, b.length, (byte)'0'));
+        assertEquals(27, ByteScanner.indexOf(b, 0, b.length, (byte)'q'));
+        assertEquals(-1, ByteScanner.indexOf(b, 3, 3, (byte)'3'));
+    }
+
+    @Test
+    public void indexOf_HighBytes() throws Exception {
+
+        //
+        // bytes with the high bit set, and bytes that differ from the searched value only by the high bit, must not
+        // produce false positives
+        //
+        byte[] b = { (byte)0xA0, (byte)0x80, 0x00, (byte)0xFF, 0x7F, 0x01, (byte)0x81, 0x20, (byte)0xA0 };
+
+        assertEquals(7, ByteScanner.indexOf(b, 0, b.length, (byte)0x20));
+        assertEquals(0, ByteScanner.indexOf(b, 0, b.length, (byte)0xA0));
+        assertEquals(8, ByteScanner.indexOf(b, 1, b.length, (byte)0xA0));
+        assertEquals(2, ByteScanner.indexOf(b, 0, b.length, (byte)0x00));
+        assertEquals(3, ByteScanner.indexOf(b, 0, b.length, (byte)0xFF));
+    }
+
+    @Test
+    public void indexOf_Random_SameResultAsNaiveScan() throws Exception {
+
+        Random random = new Random(7L);
+
+        for(int round = 0; round < 2000; round ++) {
+
+            byte[] b = new byte[random.nextInt(40)];
+
+            for(int i = 0; i < b.length; i ++) {
+                b[i] = (byte)random.nextInt(4);
+            }
+
+            int from = b.length == 0 ? 0 : random.nextInt(b.length);
+            int to = from + random.nextInt(b.length - from + 1);
+            byte value = (byte)random.nextInt(4);
+            byte value2 = (byte)random.nextInt(4);
+
+            assertEquals(naiveIndexOf(b, from, to, value, value), ByteScanner.indexOf(b, from, to, value));
+            assertEquals(naiveIndexOf(b, from, to, value, value2),
+                    ByteScanner.indexOfAny(b, from, to, value, value2));
+        }
+    }
+
+    @Test
+    public void indexOfAny() throws Exception {
+
+        byte[] b = "line one\r\nline two\n".getBytes();
+
+        assertEquals(8, ByteScanner.indexOfAny(b, 0, b.length, (byte)'\n', (byte)'\r'));
+        assertEquals(9, ByteScanner.indexOfAny(b, 9, b.length, (byte)'\n', (byte)'\r'));
+        assertEquals(18, ByteScanner.indexOfAny(b, 10, b.length, (byte)'\n', (byte)'\r'));
+        assertEquals(-1, ByteScanner.indexOfAny(b, 10, 18, (byte)'\n', (byte)'\r'));
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static int naiveIndexOf(byte[] b, int from, int to, byte value, byte value2) {
+
+        for(int i = from; i < to; i ++) {
+
+            if (b[i] == value || b[i] == value2) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.utilities.time.TimeOffset;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class CSVEncoderTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(CSVEncoderTest.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_InvalidCapacity() throws Exception {
+
+        try {
+            new CSVEncoder(0);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("invalid initial capacity 0", msg);
+        }
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    // append() --------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void append_Ascii() throws Exception {
+
+        CSVEncoder e = new CSVEncoder();
+
+        e.append("GET");
+        e.separator();
+        e.append(new StringBuilder("/api"));
+        e.endLine();
+
+        assertEquals("GET, /api\n", new String(e.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(0, e.size());
+    }
+
+    @Test
+    public void append_NonAscii() throws Exception {
+
+        String s = "café € 😀 \ud800x \udc00";
+
+        CSVEncoder e = new CSVEncoder();
+        e.append(s);
+
+        //
+        // unpaired surrogates are replaced with '?', like String.getBytes() does
+        //
+        assertArrayEquals(s.getBytes(StandardCharsets.UTF_8), e.toByteArray());
+    }
+
+    @Test
+    public void append_Long() throws Exception {
+
+        long[] values = { 0, 1, -1, 9, 10, 42, -1234567890L, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE };
+
+        CSVEncoder e = new CSVEncoder();
+
+        for(long v: values) {
+
+            e.append(v);
+            assertEquals(Long.toString(v), new String(e.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void append_Object() throws Exception {
+
+        CSVEncoder e = new CSVEncoder();
+
+        e.append((Object)"a");
+        e.append((Object)null);
+        e.append((Object)7);
+        e.append((Object)(short)-3);
+        e.append((Object)12345678901L);
+        e.append((Object)1.5d);
+        e.append((Object)Boolean.TRUE);
+
+        assertEquals("a7-3123456789011.5true", new String(e.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void appendTimestamp() throws Exception {
+
+        TimestampFormatter f = new TimestampFormatter("MM/dd/yy HH:mm:ss");
+        TimeOffset offset = new TimeOffset("+1100");
+
+        CSVEncoder e = new CSVEncoder(1);
+        e.append("x");
+        e.appendTimestamp(1467331200000L, offset, f);
+        e.append("y");
+
+        assertEquals("x" + f.format(1467331200000L, offset) + "y", new String(e.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    // growth ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void growth() throws Exception {
+
+        CSVEncoder e = new CSVEncoder(4);
+
+        StringBuilder expected = new StringBuilder();
+
+        for(int i = 0; i < 1000; i ++) {
+
+            e.append("value-");
+            e.append(i);
+            e.separator();
+            expected.append("value-").append(i).append(", ");
+        }
+
+        assertTrue(e.getCapacity() >= e.size());
+        assertEquals(expected.toString(), new String(e.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    // truncate() ------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void truncate() throws Exception {
+
+        CSVEncoder e = new CSVEncoder();
+
+        e.append("a");
+        int mark = e.size();
+        e.separator();
+        e.append("b");
+
+        e.truncate(mark);
+        e.endLine();
+
+        assertEquals("a\n", new String(e.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void truncate_InvalidSize() throws Exception {
+
+        CSVEncoder e = new CSVEncoder();
+        e.append("a");
+
+        try {
+            e.truncate(2);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException ex) {
+
+            String msg = ex.getMessage();
+            log.info(msg);
+            assertEquals("invalid size 2", msg);
+        }
+    }
+
+    // writeTo() -------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void writeTo() throws Exception {
+
+        CSVEncoder e = new CSVEncoder();
+        e.append("a");
+        e.separator();
+        e.append(1L);
+        e.endLine();
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        e.writeTo(baos);
+
+        assertEquals("a, 1\n", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(0, e.size());
+
+        e.append("b");
+        e.writeTo(baos);
+
+        assertEquals("a, 1\nb", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -16,10 +16,14 @@
 
 package io.novaordis.events.core;
 
+import io.novaordis.clad.option.StringOption;
 import io.novaordis.clad.option.TimestampOption;
 import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.FaultEvent;
+import io.novaordis.events.api.event.GenericEvent;
 import io.novaordis.events.clad.MockConfiguration;
 import io.novaordis.events.core.event.MockTimedEvent;
+import io.novaordis.events.filter.InKeySet;
 import io.novaordis.utilities.time.TimeOffset;
 import io.novaordis.utilities.time.Timestamp;
 import io.novaordis.utilities.time.TimestampImpl;
@@ -27,8 +31,13 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.TimeZone;
 
 import static org.junit.Assert.assertEquals;
@@ -36,6 +45,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Ovidiu Feodorov <ovidiu@novaordis.com>
@@ -601,6 +611,251 @@ public class EventFilterTest extends ProcessingLogicTest {
         assertNull(result);
     }
 
+    // where -----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void buildInstance_Where() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("where", "status-code >= 500"));
+        EventFilter f = EventFilter.buildInstance(mc);
+        assertNotNull(f);
+
+        assertNull(f.getFromTimestampMs());
+        assertNull(f.getToTimestampMs());
+        assertNotNull(f.getWhere());
+        assertTrue(f.isCalibrated());
+    }
+
+    @Test
+    public void buildInstance_InvalidWhere() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("where", "status-code >= "));
+
+        try {
+            EventFilter.buildInstance(mc);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertTrue(msg.startsWith("invalid \"where\" expression"));
+        }
+    }
+
+    @Test
+    public void buildInstance_EmptyWhere() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("where", " "));
+
+        try {
+            EventFilter.buildInstance(mc);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("empty \"where\" expression", msg);
+        }
+    }
+
+    @Test
+    public void processInternal_Where() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("where", "status-code >= 500 and request-uri ^= /api"));
+        EventFilter f = EventFilter.buildInstance(mc);
+
+        GenericEvent matching = new GenericEvent();
+        matching.setIntegerProperty("status-code", 503);
+        matching.setStringProperty("request-uri", "/api/users");
+        assertEquals(matching, f.processInternal(matching));
+
+        GenericEvent wrongStatus = new GenericEvent();
+        wrongStatus.setIntegerProperty("status-code", 200);
+        wrongStatus.setStringProperty("request-uri", "/api/users");
+        assertNull(f.processInternal(wrongStatus));
+
+        GenericEvent noUri = new GenericEvent();
+        noUri.setIntegerProperty("status-code", 503);
+        assertNull(f.processInternal(noUri));
+    }
+
+    @Test
+    public void processInternal_Where_FaultsAreNotFiltered() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("where", "status-code = 500"));
+        EventFilter f = EventFilter.buildInstance(mc);
+
+        FaultEvent fault = new FaultEvent("something went wrong");
+        assertEquals(fault, f.processInternal(fault));
+    }
+
+    @Test
+    public void processInternal_FromAndWhere() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new TimestampOption(null, "from", "07/07/16 00:00:00"));
+        mc.addGlobalOption(new StringOption("where", "method = GET"));
+        EventFilter f = EventFilter.buildInstance(mc);
+
+        long after = TimestampOption.DEFAULT_FULL_FORMAT.parse("07/08/16 00:00:00").getTime();
+        long before = TimestampOption.DEFAULT_FULL_FORMAT.parse("07/06/16 00:00:00").getTime();
+
+        MockTimedEvent e = new MockTimedEvent(after);
+        e.setStringProperty("method", "GET");
+        assertEquals(e, f.processInternal(e));
+
+        MockTimedEvent e2 = new MockTimedEvent(after);
+        e2.setStringProperty("method", "POST");
+        assertNull(f.processInternal(e2));
+
+        MockTimedEvent e3 = new MockTimedEvent(before);
+        e3.setStringProperty("method", "GET");
+        assertNull(f.processInternal(e3));
+    }
+
+    @Test
+    public void buildInstance_InFileWithoutInKey() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("in-file", "./keys.txt"));
+
+        try {
+            EventFilter.buildInstance(mc);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("\"in-file\" and \"in-key\" must be used together", msg);
+        }
+    }
+
+    @Test
+    public void buildInstance_InKeyWithoutInFile() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("in-key", "remote-host"));
+
+        try {
+            EventFilter.buildInstance(mc);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("\"in-file\" and \"in-key\" must be used together", msg);
+        }
+    }
+
+    @Test
+    public void buildInstance_InFileDoesNotExist() throws Exception {
+
+        File file = new File(System.getProperty("java.io.tmpdir"), "no-such-directory/keys.txt");
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("in-file", file.getPath()));
+        mc.addGlobalOption(new StringOption("in-key", "remote-host"));
+
+        try {
+            EventFilter.buildInstance(mc);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("failed to read the keys from " + file, msg);
+        }
+    }
+
+    @Test
+    public void processInternal_InKeySet() throws Exception {
+
+        File file = keyFile("10.0.0.1", "10.0.0.2");
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("in-file", file.getPath()));
+        mc.addGlobalOption(new StringOption("in-key", "remote-host"));
+        EventFilter f = EventFilter.buildInstance(mc);
+
+        InKeySet membership = f.getMembership();
+        assertEquals("remote-host", membership.getPropertyName());
+        assertEquals(2, membership.getKeySet().size());
+        assertNull(f.getWhere());
+
+        GenericEvent e = new GenericEvent();
+        e.setStringProperty("remote-host", "10.0.0.2");
+        assertEquals(e, f.processInternal(e));
+
+        GenericEvent e2 = new GenericEvent();
+        e2.setStringProperty("remote-host", "10.0.0.3");
+        assertNull(f.processInternal(e2));
+
+        FaultEvent fault = new FaultEvent("something went wrong");
+        assertEquals(fault, f.processInternal(fault));
+    }
+
+    @Test
+    public void processInternal_WhereAndInKeySet() throws Exception {
+
+        File file = keyFile("10.0.0.1");
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("where", "method = GET"));
+        mc.addGlobalOption(new StringOption("in-file", file.getPath()));
+        mc.addGlobalOption(new StringOption("in-key", "remote-host"));
+        EventFilter f = EventFilter.buildInstance(mc);
+
+        GenericEvent e = new GenericEvent();
+        e.setStringProperty("method", "GET");
+        e.setStringProperty("remote-host", "10.0.0.1");
+        assertEquals(e, f.processInternal(e));
+
+        GenericEvent e2 = new GenericEvent();
+        e2.setStringProperty("method", "POST");
+        e2.setStringProperty("remote-host", "10.0.0.1");
+        assertNull(f.processInternal(e2));
+
+        GenericEvent e3 = new GenericEvent();
+        e3.setStringProperty("method", "GET");
+        e3.setStringProperty("remote-host", "10.0.0.2");
+        assertNull(f.processInternal(e3));
+    }
+
+    @Test
+    public void getRequiredPropertyNames() throws Exception {
+
+        File file = keyFile("/a", "/b");
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("where", "status-code >= 500 or method = POST"));
+        mc.addGlobalOption(new StringOption("in-file", file.getPath()));
+        mc.addGlobalOption(new StringOption("in-key", "request-uri"));
+        EventFilter f = EventFilter.buildInstance(mc);
+
+        assertEquals(new HashSet<>(Arrays.asList("status-code", "method", "request-uri")),
+                f.getRequiredPropertyNames());
+    }
+
+    @Test
+    public void getRequiredPropertyNames_TimeWindowOnly() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new TimestampOption(null, "from", "00:00:00"));
+        EventFilter f = EventFilter.buildInstance(mc);
+
+        assertTrue(f.getRequiredPropertyNames().isEmpty());
+    }
+
     // Package protected -----------------------------------------------------------------------------------------------
 
     // Protected -------------------------------------------------------------------------------------------------------
@@ -621,6 +876,21 @@ public class EventFilterTest extends ProcessingLogicTest {
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    private static File keyFile(String... keys) throws Exception {
+
+        File file = File.createTempFile("keys", ".txt");
+        file.deleteOnExit();
+
+        try(Writer w = new FileWriter(file)) {
+
+            for(String k: keys) {
+                w.write(k + "\n");
+            }
+        }
+
+        return file;
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
 }
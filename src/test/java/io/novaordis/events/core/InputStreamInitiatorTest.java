@@ -508,6 +508,76 @@ public class InputStreamInitiatorTest extends InitiatorTest {
         assertNotNull(e2);
     }
 
+    @Test
+    public void bulkConversionLogic_ReceivesBuffers() throws Exception {
+
+        byte[] content = new byte[InputStreamInitiator.READ_BUFFER_SIZE + 10];
+
+        for(int i = 0; i < content.length; i ++) {
+            content[i] = (byte)i;
+        }
+
+        final List<Integer> lengths = new ArrayList<>();
+        final List<Integer> singleBytes = new ArrayList<>();
+
+        InputStreamInitiator isi = new InputStreamInitiator("test");
+        isi.setInputStream(new ByteArrayInputStream(content));
+        isi.setConversionLogic(new BulkInputStreamConversionLogic() {
+
+            @Override
+            public boolean process(byte[] buffer, int offset, int length) {
+
+                lengths.add(length);
+                return false;
+            }
+
+            @Override
+            public boolean process(int b) {
+
+                singleBytes.add(b);
+                return false;
+            }
+
+            @Override
+            public List<Event> getEvents() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public boolean isClosed() {
+                throw new RuntimeException("isClosed() NOT YET IMPLEMENTED");
+            }
+        });
+        isi.setOutputQueue(new LinkedBlockingQueue<>());
+
+        isi.start();
+
+        //
+        // we just busy poll for the component to stop
+        //
+        for(long timeout = 1000L, t0 = System.currentTimeMillis();;) {
+            if (isi.isStopped()) { break; }
+            Thread.sleep(20);
+            if (System.currentTimeMillis() - t0 > timeout) { fail("polled more than " + timeout + " ms"); }
+        }
+
+        int total = 0;
+
+        for(int l: lengths) {
+            total += l;
+        }
+
+        assertEquals(content.length, total);
+
+        //
+        // only the end of stream is sent as a single "byte"
+        //
+        assertEquals(Collections.singletonList(-1), singleBytes);
+
+        assertEquals(1, isi.getOutputQueue().size());
+        assertTrue(isi.getOutputQueue().take() instanceof EndOfStreamEvent);
+    }
+
     @Test
     public void conversionLogicDoesNotPlaceAnEndOfStreamEventUponReceivingTheEndOfStream() throws Exception {
 
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.clad.option.StringOption;
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.FaultEvent;
+import io.novaordis.events.api.event.LineEvent;
+import io.novaordis.events.clad.MockConfiguration;
+import io.novaordis.events.filter.InKeySet;
+import io.novaordis.events.filter.KeySet;
+import io.novaordis.events.filter.Predicate;
+import io.novaordis.events.filter.WhereExpression;
+import io.novaordis.events.httpd.HttpdFormatStrings;
+import io.novaordis.events.httpd.HttpdLogFormat;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class LinePrefilterTest extends ProcessingLogicTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Set<String> VERBATIM = HttpdLogFormat.COMMON.getVerbatimPropertyNames();
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_NoLiterals() throws Exception {
+
+        try {
+            new LinePrefilter(Collections.emptyList());
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+
+        try {
+            new LinePrefilter(Collections.singletonList(Collections.emptyList()));
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    // buildInstance() -------------------------------------------------------------------------------------------------
+
+    @Test
+    public void buildInstance_NoAppropriateOptions() throws Exception {
+
+        assertNull(LinePrefilter.buildInstance(new MockConfiguration(), null, null, null));
+    }
+
+    @Test
+    public void buildInstance_Grep() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("grep", "/api||JSESSIONID=a b"));
+
+        LinePrefilter p = LinePrefilter.buildInstance(mc, null, null, null);
+        assertNotNull(p);
+
+        LiteralMatcher[] matchers = p.getMatchers();
+        assertEquals(1, matchers.length);
+        assertArrayEquals(new String[] { "/api", "JSESSIONID=a b" }, matchers[0].getLiterals());
+    }
+
+    @Test
+    public void buildInstance_InvalidGrep() throws Exception {
+
+        for(String s: new String[] { "", "a||", "||a", "a||||b" }) {
+
+            MockConfiguration mc = new MockConfiguration();
+            mc.addGlobalOption(new StringOption("grep", s));
+
+            try {
+                LinePrefilter.buildInstance(mc, null, null, null);
+                fail("\"" + s + "\" should have been rejected");
+            }
+            catch(IllegalArgumentException e) {
+                // ok
+            }
+        }
+    }
+
+    @Test
+    public void buildInstance_Where() throws Exception {
+
+        Predicate where = WhereExpression.compile("method = PUT or request-uri ^= /api");
+        LinePrefilter p = LinePrefilter.buildInstance(new MockConfiguration(), where, VERBATIM, null);
+
+        assertNotNull(p);
+
+        LiteralMatcher[] matchers = p.getMatchers();
+        assertEquals(1, matchers.length);
+        assertArrayEquals(new String[] { "PUT", "/api" }, matchers[0].getLiterals());
+    }
+
+    @Test
+    public void buildInstance_Where_NoLiterals() throws Exception {
+
+        assertNull(LinePrefilter.buildInstance(
+                new MockConfiguration(), WhereExpression.compile("status-code > 400"), VERBATIM, null));
+    }
+
+    @Test
+    public void buildInstance_Where_ReorderedQueryString() throws Exception {
+
+        //
+        // the query parameters are compared in canonical form, so a line whose query string is "b=2&a=1" may match and
+        // must not be discarded because it does not contain "a=1&b=2"
+        //
+        HttpdLogFormat format =
+                new HttpdLogFormat(HttpdFormatStrings.FIRST_REQUEST_LINE, HttpdFormatStrings.QUERY_STRING);
+        Set<String> verbatim = format.getVerbatimPropertyNames();
+
+        assertNull(LinePrefilter.buildInstance(
+                new MockConfiguration(), WhereExpression.compile("query = 'a=1&b=2'"), verbatim, null));
+
+        LinePrefilter p = LinePrefilter.buildInstance(
+                new MockConfiguration(), WhereExpression.compile("query = 'a=1&b=2' and method = GET"), verbatim, null);
+
+        assertNotNull(p);
+        assertArrayEquals(new String[] { "GET" }, p.getMatchers()[0].getLiterals());
+
+        LineEvent le = new LineEvent(1, "\"GET /a HTTP/1.1\" b=2&a=1");
+        assertSame(le, p.processInternal(le));
+    }
+
+    @Test
+    public void buildInstance_GrepAndWhere() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("grep", "JSESSIONID"));
+
+        LinePrefilter p =
+                LinePrefilter.buildInstance(mc, WhereExpression.compile("request-uri *= users"), VERBATIM, null);
+        assertNotNull(p);
+        assertEquals(2, p.getMatchers().length);
+
+        assertNull(p.processInternal(new LineEvent(1, "GET /users")));
+        assertNull(p.processInternal(new LineEvent(2, "GET / JSESSIONID=1")));
+
+        LineEvent le = new LineEvent(3, "GET /users JSESSIONID=1");
+        assertSame(le, p.processInternal(le));
+    }
+
+    @Test
+    public void buildInstance_CookieMembership() throws Exception {
+
+        KeySet keys = new KeySet(1);
+        LinePrefilter p = LinePrefilter.buildInstance(
+                new MockConfiguration(), null, null, new InKeySet("cookie:JSESSIONID", keys));
+
+        assertNotNull(p);
+        assertEquals(0, p.getMatchers().length);
+        assertEquals("LinePrefilter[cookie:JSESSIONID in KeySet[0 keys]]", p.toString());
+    }
+
+    @Test
+    public void buildInstance_PropertyMembershipIsIgnored() throws Exception {
+
+        assertNull(LinePrefilter.buildInstance(
+                new MockConfiguration(), null, null, new InKeySet("remote-host", new KeySet(1))));
+    }
+
+    // processInternal() -----------------------------------------------------------------------------------------------
+
+    @Test
+    public void processInternal() throws Exception {
+
+        LinePrefilter p = new LinePrefilter(Collections.singletonList(Arrays.asList("/api", "/admin")));
+
+        LineEvent le = new LineEvent(1, "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /api/users HTTP/1.1\" 200");
+        assertSame(le, p.processInternal(le));
+
+        LineEvent le2 = new LineEvent(2, "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /web HTTP/1.1\" 200");
+        assertNull(p.processInternal(le2));
+
+        LineEvent le3 = new LineEvent(3, "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"POST /admin HTTP/1.1\" 200");
+        assertSame(le3, p.processInternal(le3));
+
+        assertEquals(3, p.getLineCount());
+        assertEquals(1, p.getDiscardedLineCount());
+    }
+
+    @Test
+    public void processInternal_OtherEventsAreRelayed() throws Exception {
+
+        LinePrefilter p = new LinePrefilter(Collections.singletonList(Collections.singletonList("x")));
+
+        FaultEvent fe = new FaultEvent("test");
+        assertSame(fe, p.processInternal(fe));
+        assertEquals(0, p.getLineCount());
+    }
+
+    @Test
+    public void processInternal_Cookie() throws Exception {
+
+        KeySet keys = new KeySet(2);
+        keys.add("4AF1B32C");
+        keys.add("77E0");
+
+        LinePrefilter p = new LinePrefilter(Collections.emptyList(), "JSESSIONID", keys);
+
+        String prefix = "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET / HTTP/1.1\" 200 ";
+
+        LineEvent quoted = new LineEvent(1, prefix + "\"lang=en; JSESSIONID=4AF1B32C; theme=dark\"");
+        assertSame(quoted, p.processInternal(quoted));
+
+        LineEvent last = new LineEvent(2, prefix + "\"lang=en; JSESSIONID = 77E0 \"");
+        assertSame(last, p.processInternal(last));
+
+        LineEvent unquoted = new LineEvent(3, prefix + "JSESSIONID=4AF1B32C 0.001");
+        assertSame(unquoted, p.processInternal(unquoted));
+
+        LineEvent otherValue = new LineEvent(4, prefix + "\"JSESSIONID=4AF1B32D\"");
+        assertNull(p.processInternal(otherValue));
+
+        LineEvent prefixOfKey = new LineEvent(5, prefix + "\"JSESSIONID=4AF1\"");
+        assertNull(p.processInternal(prefixOfKey));
+
+        LineEvent noCookie = new LineEvent(6, prefix + "\"lang=en\" 4AF1B32C");
+        assertNull(p.processInternal(noCookie));
+
+        //
+        // the name occurs elsewhere in the line, the cookie value is found in a later occurrence
+        //
+        LineEvent twice = new LineEvent(7, "GET /JSESSIONID/x 200 \"JSESSIONID=77E0\"");
+        assertSame(twice, p.processInternal(twice));
+
+        assertEquals(7, p.getLineCount());
+        assertEquals(3, p.getDiscardedLineCount());
+    }
+
+    @Test
+    public void processInternal_LiteralsAndCookie() throws Exception {
+
+        KeySet keys = new KeySet(1);
+        keys.add("4AF1B32C");
+
+        LinePrefilter p = new LinePrefilter(
+                Collections.singletonList(Collections.singletonList("/api")), "JSESSIONID", keys);
+
+        LineEvent le = new LineEvent(1, "GET /api/users 200 \"JSESSIONID=4AF1B32C\"");
+        assertSame(le, p.processInternal(le));
+
+        LineEvent le2 = new LineEvent(2, "GET /web 200 \"JSESSIONID=4AF1B32C\"");
+        assertNull(p.processInternal(le2));
+
+        LineEvent le3 = new LineEvent(3, "GET /api/users 200 \"JSESSIONID=00000000\"");
+        assertNull(p.processInternal(le3));
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    @Override
+    protected LinePrefilter getProcessingLogicToTest() throws Exception {
+
+        return new LinePrefilter(Collections.singletonList(Collections.singletonList("test")));
+    }
+
+    @Override
+    protected Event getInputEventRelevantToProcessingLogic() throws Exception {
+
+        return new LineEvent(1, "this is a test line");
+    }
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
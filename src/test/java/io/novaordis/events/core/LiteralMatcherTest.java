@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class LiteralMatcherTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void compile_InvalidLiterals() throws Exception {
+
+        try {
+            LiteralMatcher.compile(Collections.emptyList());
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+
+        try {
+            LiteralMatcher.compile(Arrays.asList("a", ""));
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void compile_RedundantLiteralsAreDiscarded() throws Exception {
+
+        LiteralMatcher m = LiteralMatcher.compile(Arrays.asList("/api/users", "/api", "/api", "users"));
+        assertArrayEquals(new String[] { "/api", "users" }, m.getLiterals());
+    }
+
+    @Test
+    public void find_SingleLiteral() throws Exception {
+
+        LiteralMatcher m = LiteralMatcher.compile(Collections.singletonList("JSESSIONID=abc"));
+        assertEquals(0, m.getStateCount());
+
+        assertTrue(m.find("GET /x HTTP/1.1 JSESSIONID=abc"));
+        assertTrue(m.find("JSESSIONID=abc"));
+        assertFalse(m.find("GET /x HTTP/1.1 JSESSIONID=abd"));
+        assertFalse(m.find(""));
+    }
+
+    @Test
+    public void find_SeveralLiterals() throws Exception {
+
+        LiteralMatcher m = LiteralMatcher.compile(Arrays.asList("he", "she", "his", "hers"));
+        assertTrue(m.getStateCount() > 0);
+
+        assertTrue(m.find("ushers"));
+        assertTrue(m.find("this"));
+        assertTrue(m.find("he"));
+        assertFalse(m.find("hs ehi sh"));
+        assertFalse(m.find(""));
+    }
+
+    @Test
+    public void find_SeveralLiterals_FailureTransitions() throws Exception {
+
+        //
+        // "aab" must be found after the partial match "aaa" fails
+        //
+        LiteralMatcher m = LiteralMatcher.compile(Arrays.asList("aab", "xyz"));
+
+        assertTrue(m.find("aaab"));
+        assertTrue(m.find("aaaaaaab"));
+        assertFalse(m.find("aaaaaaa"));
+        assertTrue(m.find("xyxyz"));
+    }
+
+    @Test
+    public void find_SeveralLiterals_NonAscii() throws Exception {
+
+        LiteralMatcher m = LiteralMatcher.compile(Arrays.asList("café", "naïve"));
+
+        assertTrue(m.find("un café noir"));
+        assertTrue(m.find("so naïve"));
+        assertFalse(m.find("so naive"));
+        assertFalse(m.find("cafe"));
+    }
+
+    @Test
+    public void find_SeveralLiterals_SameResultAsIndexOf() throws Exception {
+
+        Random random = new Random(7);
+
+        List<String> literals = new ArrayList<>();
+
+        for(int i = 0; i < 20; i ++) {
+            literals.add(randomString(random, 1 + random.nextInt(4)));
+        }
+
+        LiteralMatcher m = LiteralMatcher.compile(literals);
+
+        for(int i = 0; i < 2000; i ++) {
+
+            String s = randomString(random, random.nextInt(30));
+
+            boolean expected = false;
+
+            for(String l: literals) {
+
+                if (s.contains(l)) {
+
+                    expected = true;
+                    break;
+                }
+            }
+
+            assertEquals(s, expected, m.find(s));
+        }
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static String randomString(Random random, int length) {
+
+        StringBuilder sb = new StringBuilder();
+
+        for(int i = 0; i < length; i ++) {
+            sb.append((char)('a' + random.nextInt(5)));
+        }
+
+        return sb.toString();
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
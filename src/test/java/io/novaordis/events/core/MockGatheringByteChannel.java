@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * Records the bytes and the write invocations. Can be configured to accept at most a number of bytes per invocation,
+ * to simulate partial writes.
+ *
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class MockGatheringByteChannel implements GatheringByteChannel {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    private final ByteArrayOutputStream content;
+
+    private final int maxBytesPerWrite;
+
+    private volatile int writeCount;
+
+    private volatile boolean closed;
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    public MockGatheringByteChannel() {
+
+        this(Integer.MAX_VALUE);
+    }
+
+    public MockGatheringByteChannel(int maxBytesPerWrite) {
+
+        this.content = new ByteArrayOutputStream();
+        this.maxBytesPerWrite = maxBytesPerWrite;
+    }
+
+    // GatheringByteChannel implementation -----------------------------------------------------------------------------
+
+    @Override
+    public synchronized long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+
+        writeCount ++;
+
+        long written = 0;
+
+        for(int i = offset; i < offset + length && written < maxBytesPerWrite; i ++) {
+
+            ByteBuffer b = srcs[i];
+
+            while(b.hasRemaining() && written < maxBytesPerWrite) {
+
+                content.write(b.get());
+                written ++;
+            }
+        }
+
+        return written;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+
+        return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+
+        return (int)write(new ByteBuffer[] { src }, 0, 1);
+    }
+
+    @Override
+    public boolean isOpen() {
+
+        return !closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        closed = true;
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    public synchronized byte[] getContent() {
+
+        return content.toByteArray();
+    }
+
+    public int getWriteCount() {
+
+        return writeCount;
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.clad.option.StringOption;
+import io.novaordis.events.clad.MockConfiguration;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class OutputChannelTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(OutputChannelTest.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_InvalidFlushSize() throws Exception {
+
+        try {
+            new OutputChannel("test", new MockGatheringByteChannel(), FlushPolicy.SIZE, 0, 0);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("invalid flush size 0", msg);
+        }
+    }
+
+    @Test
+    public void constructor_InvalidFlushInterval() throws Exception {
+
+        try {
+            new OutputChannel("test", new MockGatheringByteChannel(), FlushPolicy.TIME, 0, 100);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("invalid flush interval 0", msg);
+        }
+    }
+
+    // buildInstance() -------------------------------------------------------------------------------------------------
+
+    @Test
+    public void buildInstance_Stdout() throws Exception {
+
+        OutputChannel c = OutputChannel.buildInstance(new MockConfiguration());
+
+        assertEquals(FlushPolicy.TIME, c.getFlushPolicy());
+        assertEquals(OutputChannel.DEFAULT_FLUSH_INTERVAL_MS, c.getFlushIntervalMs());
+        assertEquals(OutputChannel.DEFAULT_FLUSH_SIZE, c.getFlushSize());
+        assertEquals("OutputChannel[stdout, time:1000]", c.toString());
+    }
+
+    @Test
+    public void buildInstance_OutputFile() throws Exception {
+
+        File file = File.createTempFile("output", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "previous content, longer than the new one\n".getBytes(StandardCharsets.UTF_8));
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("output-file", file.getPath()));
+
+        OutputChannel c = OutputChannel.buildInstance(mc);
+
+        assertEquals(FlushPolicy.SIZE, c.getFlushPolicy());
+        assertEquals(0, c.getIdleCheckIntervalMs());
+
+        c.write("a, b\n".getBytes(StandardCharsets.UTF_8));
+        c.close();
+
+        assertEquals("a, b\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void buildInstance_OutputFileCannotBeOpened() throws Exception {
+
+        File file = new File(System.getProperty("java.io.tmpdir"), "no-such-directory/output.csv");
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("output-file", file.getPath()));
+
+        try {
+            OutputChannel.buildInstance(mc);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertTrue(msg.startsWith("cannot open output file " + file.getPath()));
+        }
+    }
+
+    @Test
+    public void buildInstance_FlushPolicies() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("flush", "time:250"));
+        OutputChannel c = OutputChannel.buildInstance(mc);
+        assertEquals(FlushPolicy.TIME, c.getFlushPolicy());
+        assertEquals(250L, c.getFlushIntervalMs());
+        assertEquals(250L, c.getIdleCheckIntervalMs());
+
+        mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("flush", "end"));
+        assertEquals(FlushPolicy.END_OF_STREAM, OutputChannel.buildInstance(mc).getFlushPolicy());
+
+        mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("flush", "size"));
+        assertEquals(FlushPolicy.SIZE, OutputChannel.buildInstance(mc).getFlushPolicy());
+    }
+
+    @Test
+    public void buildInstance_InvalidFlushPolicy() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("flush", "sometimes"));
+
+        try {
+            OutputChannel.buildInstance(mc);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("invalid flush policy \"sometimes\", use \"size\", \"time[:<milliseconds>]\" or \"end\"", msg);
+        }
+    }
+
+    @Test
+    public void buildInstance_InvalidFlushInterval() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("flush", "time:soon"));
+
+        try {
+            OutputChannel.buildInstance(mc);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("invalid flush interval \"soon\"", msg);
+        }
+    }
+
+    @Test
+    public void buildInstance_IntervalWithSizePolicy() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("flush", "size:100"));
+
+        try {
+            OutputChannel.buildInstance(mc);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("only the \"time\" flush policy accepts an interval", msg);
+        }
+    }
+
+    // SIZE policy -----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void sizePolicy() throws Exception {
+
+        MockGatheringByteChannel channel = new MockGatheringByteChannel();
+        OutputChannel c = new OutputChannel("test", channel, FlushPolicy.SIZE, 0, 100);
+
+        c.write(bytes(60, 'a'));
+        assertEquals(0, channel.getWriteCount());
+        assertEquals(60, c.getBufferedByteCount());
+
+        c.write(bytes(60, 'b'));
+        assertEquals(1, channel.getWriteCount());
+        assertEquals(0, c.getBufferedByteCount());
+        assertEquals(120, c.getWrittenByteCount());
+
+        c.write('c');
+        c.close();
+
+        assertEquals(new String(bytes(60, 'a')) + new String(bytes(60, 'b')) + "c", new String(channel.getContent()));
+        assertFalse(channel.isOpen());
+        assertTrue(c.isClosed());
+    }
+
+    @Test
+    public void sizePolicy_ChunksAreGatheredInOneWrite() throws Exception {
+
+        int flushSize = 3 * OutputChannel.CHUNK_SIZE;
+
+        MockGatheringByteChannel channel = new MockGatheringByteChannel();
+        OutputChannel c = new OutputChannel("test", channel, FlushPolicy.SIZE, 0, flushSize);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+        //
+        // batches that straddle the chunk boundaries
+        //
+        for(int i = 0; expected.size() < flushSize; i ++) {
+
+            byte[] batch = bytes(Math.min(10000, flushSize - expected.size()), (char)('a' + i % 26));
+            c.write(batch);
+            expected.write(batch);
+        }
+
+        assertEquals(1, channel.getWriteCount());
+        assertEquals(1, c.getWriteCallCount());
+        assertArrayEquals(expected.toByteArray(), channel.getContent());
+
+        //
+        // the chunks are recycled
+        //
+        assertEquals(3, c.getSpareChunkCount());
+        c.write(bytes(10, 'x'));
+        assertEquals(2, c.getSpareChunkCount());
+    }
+
+    @Test
+    public void partialGatheringWrites() throws Exception {
+
+        MockGatheringByteChannel channel = new MockGatheringByteChannel(1000);
+        OutputChannel c = new OutputChannel("test", channel, FlushPolicy.SIZE, 0, 2 * OutputChannel.CHUNK_SIZE);
+
+        byte[] batch = bytes(OutputChannel.CHUNK_SIZE + 500, 'p');
+        c.write(batch);
+        c.flush();
+
+        assertArrayEquals(batch, channel.getContent());
+        assertEquals((batch.length + 999) / 1000, channel.getWriteCount());
+    }
+
+    @Test
+    public void nonGatheringChannel() throws Exception {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputChannel c = new OutputChannel("test", Channels.newChannel(baos), FlushPolicy.SIZE, 0, 100);
+
+        byte[] batch = bytes(OutputChannel.CHUNK_SIZE + 1, 'q');
+        c.write(batch);
+
+        assertArrayEquals(batch, baos.toByteArray());
+    }
+
+    // TIME policy -----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void timePolicy() throws Exception {
+
+        long[] now = { 1000L };
+
+        MockGatheringByteChannel channel = new MockGatheringByteChannel();
+        OutputChannel c = new OutputChannel("test", channel, FlushPolicy.TIME, 100, 1000, () -> now[0]);
+
+        assertEquals(100L, c.getIdleCheckIntervalMs());
+
+        c.write(bytes(10, 'a'));
+
+        now[0] = 1050L;
+        c.flushIfDue();
+        assertEquals(0, channel.getWriteCount());
+
+        now[0] = 1100L;
+        c.flushIfDue();
+        assertEquals(1, channel.getWriteCount());
+        assertEquals("aaaaaaaaaa", new String(channel.getContent()));
+
+        //
+        // nothing buffered, nothing to do
+        //
+        now[0] = 5000L;
+        c.flushIfDue();
+        assertEquals(1, channel.getWriteCount());
+
+        //
+        // a write that comes after the interval elapsed triggers the write
+        //
+        c.write(bytes(1, 'b'));
+        now[0] = 5200L;
+        c.write(bytes(1, 'c'));
+        assertEquals(2, channel.getWriteCount());
+
+        //
+        // the size limit still applies
+        //
+        c.write(bytes(1000, 'd'));
+        assertEquals(3, channel.getWriteCount());
+    }
+
+    // END_OF_STREAM policy --------------------------------------------------------------------------------------------
+
+    @Test
+    public void endOfStreamPolicy() throws Exception {
+
+        MockGatheringByteChannel channel = new MockGatheringByteChannel();
+        OutputChannel c = new OutputChannel("test", channel, FlushPolicy.END_OF_STREAM, 0, 100);
+
+        assertEquals(0, c.getIdleCheckIntervalMs());
+
+        byte[] batch = bytes(3 * OutputChannel.CHUNK_SIZE + 7, 'e');
+        c.write(batch);
+        c.flushIfDue();
+
+        assertEquals(0, channel.getWriteCount());
+        assertEquals(batch.length, c.getBufferedByteCount());
+
+        c.close();
+
+        assertEquals(1, channel.getWriteCount());
+        assertArrayEquals(batch, channel.getContent());
+        assertFalse(channel.isOpen());
+    }
+
+    // close() ---------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void writeAfterClose() throws Exception {
+
+        OutputChannel c = new OutputChannel("test", new MockGatheringByteChannel(), FlushPolicy.SIZE, 0, 100);
+        c.close();
+
+        //
+        // idempotent
+        //
+        c.close();
+
+        try {
+            c.write(1);
+            fail("should throw exception");
+        }
+        catch(IOException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("OutputChannel[test, size] closed", msg);
+        }
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static byte[] bytes(int length, char c) {
+
+        byte[] b = new byte[length];
+        Arrays.fill(b, (byte)c);
+        return b;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -23,13 +23,17 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -214,6 +218,144 @@ public class OutputStreamTerminatorTest extends TerminatorTest {
         assertTrue(mos.isClosed());
     }
 
+    @Test
+    public void outputChannelWithTimePolicyIsFlushedWhileIdle() throws Exception {
+
+        OutputStreamTerminator terminator = getComponentToTest("test");
+
+        terminator.setConversionLogic(new MockOutputStreamConversionLogic() {
+
+            private byte[] bytes = new byte[0];
+
+            @Override
+            public boolean process(Event inputEvent) {
+
+                super.process(inputEvent);
+                bytes = inputEvent instanceof EndOfStreamEvent ? new byte[0] : "event\n".getBytes();
+                return bytes.length > 0;
+            }
+
+            @Override
+            public byte[] getBytes() {
+
+                byte[] result = bytes;
+                bytes = new byte[0];
+                return result;
+            }
+        });
+
+        BlockingQueue<Event> inputQueue = new LinkedBlockingQueue<>();
+        terminator.setInputQueue(inputQueue);
+
+        MockGatheringByteChannel channel = new MockGatheringByteChannel();
+        OutputChannel outputChannel = new OutputChannel("test", channel, FlushPolicy.TIME, 20L, 1024);
+        terminator.setOutputStream(outputChannel);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        terminator.addEndOfStreamListener(latch::countDown);
+
+        terminator.start();
+
+        inputQueue.put(new MockEvent());
+
+        //
+        // no more events arrive, but the bytes must be written once the flush interval elapses
+        //
+        long deadline = System.currentTimeMillis() + 5000L;
+
+        while(channel.getContent().length == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+
+        assertEquals("event\n", new String(channel.getContent()));
+        assertFalse(outputChannel.isClosed());
+
+        inputQueue.put(new EndOfStreamEvent());
+        latch.await();
+
+        assertTrue(outputChannel.isClosed());
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void compressedOutputIsWrittenWhileIdle() throws Exception {
+
+        OutputStreamTerminator terminator = getComponentToTest("test");
+
+        terminator.setConversionLogic(new MockOutputStreamConversionLogic() {
+
+            private byte[] bytes = new byte[0];
+
+            @Override
+            public boolean process(Event inputEvent) {
+
+                super.process(inputEvent);
+                bytes = inputEvent instanceof EndOfStreamEvent ? new byte[0] : "event\n".getBytes();
+                return bytes.length > 0;
+            }
+
+            @Override
+            public byte[] getBytes() {
+
+                byte[] result = bytes;
+                bytes = new byte[0];
+                return result;
+            }
+        });
+
+        BlockingQueue<Event> inputQueue = new LinkedBlockingQueue<>();
+        terminator.setInputQueue(inputQueue);
+
+        MockGatheringByteChannel channel = new MockGatheringByteChannel();
+        OutputChannel outputChannel = new OutputChannel("test", channel, FlushPolicy.TIME, 20L, 1024);
+
+        //
+        // the second event fills the first block and starts the next one
+        //
+        ParallelGzipOutputStream compressor = new ParallelGzipOutputStream(outputChannel, 2, 8);
+        terminator.setOutputStream(compressor);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        terminator.addEndOfStreamListener(latch::countDown);
+
+        terminator.start();
+
+        inputQueue.put(new MockEvent());
+        inputQueue.put(new MockEvent());
+
+        //
+        // no more events arrive, but the first block must be written once it is compressed and the flush interval
+        // elapses
+        //
+        long deadline = System.currentTimeMillis() + 5000L;
+
+        while(channel.getContent().length == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+
+        byte[] firstMember = ParallelGzipOutputStream.compress("event\nev".getBytes(), 8);
+        assertArrayEquals(firstMember, channel.getContent());
+
+        inputQueue.put(new EndOfStreamEvent());
+        latch.await();
+
+        assertTrue(outputChannel.isClosed());
+
+        byte[] content = channel.getContent();
+        ByteArrayOutputStream uncompressed = new ByteArrayOutputStream();
+
+        try(InputStream is = new GZIPInputStream(new ByteArrayInputStream(content))) {
+
+            int b;
+
+            while((b = is.read()) != -1) {
+                uncompressed.write(b);
+            }
+        }
+
+        assertEquals("event\nevent\n", new String(uncompressed.toByteArray()));
+    }
+
     // Package protected -----------------------------------------------------------------------------------------------
 
     @Override
@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.clad.option.BooleanOption;
+import io.novaordis.clad.option.StringOption;
+import io.novaordis.events.clad.MockConfiguration;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ParallelGzipOutputStreamTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelGzipOutputStreamTest.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    // buildInstance() -------------------------------------------------------------------------------------------------
+
+    @Test
+    public void buildInstance_NotCompressed() throws Exception {
+
+        assertNull(ParallelGzipOutputStream.buildInstance(new MockConfiguration(), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void buildInstance_DefaultThreadCount() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(compressOutput());
+
+        ParallelGzipOutputStream s = ParallelGzipOutputStream.buildInstance(mc, new ByteArrayOutputStream());
+
+        assertNotNull(s);
+        assertEquals(Runtime.getRuntime().availableProcessors(), s.getThreadCount());
+        assertEquals(ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE, s.getBlockSize());
+
+        s.close();
+    }
+
+    @Test
+    public void buildInstance_ThreadCount() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(compressOutput());
+        mc.addGlobalOption(new StringOption("compression-threads", "3"));
+
+        ParallelGzipOutputStream s = ParallelGzipOutputStream.buildInstance(mc, new ByteArrayOutputStream());
+
+        assertEquals(3, s.getThreadCount());
+        assertEquals("ParallelGzipOutputStream[3 threads, 1048576 byte blocks]", s.toString());
+
+        s.close();
+    }
+
+    @Test
+    public void buildInstance_InvalidThreadCount() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(compressOutput());
+        mc.addGlobalOption(new StringOption("compression-threads", "0"));
+
+        try {
+
+            ParallelGzipOutputStream.buildInstance(mc, new ByteArrayOutputStream());
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("invalid compression thread count \"0\"", msg);
+        }
+    }
+
+    @Test
+    public void buildInstance_ThreadCountWithoutCompression() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("compression-threads", "2"));
+
+        try {
+
+            ParallelGzipOutputStream.buildInstance(mc, new ByteArrayOutputStream());
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("--compression-threads requires --compress-output", msg);
+        }
+    }
+
+    // constructor -----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_InvalidBlockSize() throws Exception {
+
+        try {
+
+            new ParallelGzipOutputStream(new ByteArrayOutputStream(), 1, 0);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("invalid block size 0", msg);
+        }
+    }
+
+    // write() ---------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void write_RoundTrip() throws Exception {
+
+        byte[] content = new byte[100000];
+        Random random = new Random(11L);
+
+        for(int i = 0; i < content.length; i ++) {
+
+            // compressible, but not trivially
+            content[i] = (byte)('a' + random.nextInt(8));
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ParallelGzipOutputStream s = new ParallelGzipOutputStream(baos, 4, 1000);
+
+        //
+        // mix single byte and array writes, across block boundaries
+        //
+        int i = 0;
+
+        while(i < content.length) {
+
+            if (i % 7 == 0) {
+
+                s.write(content[i ++]);
+            }
+            else {
+
+                int n = Math.min(content.length - i, 1 + random.nextInt(3000));
+                s.write(content, i, n);
+                i += n;
+            }
+
+            // the number of blocks in flight is bounded
+            assertTrue(s.getPendingBlockCount() <= 4 * ParallelGzipOutputStream.BLOCKS_PER_THREAD);
+        }
+
+        s.close();
+
+        assertArrayEquals(content, gunzip(baos.toByteArray()));
+        assertTrue(baos.size() < content.length);
+
+        // the blocks are recycled
+        assertTrue(s.getSpareBlockCount() > 0);
+
+        String statistics = s.getStatistics();
+        log.info(statistics);
+        assertTrue(statistics.contains("compressed 100000 bytes into " + baos.size() + " bytes"));
+        assertTrue(statistics.contains("in 100 blocks"));
+    }
+
+    @Test
+    public void write_EachBlockIsAGzipMember() throws Exception {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ParallelGzipOutputStream s = new ParallelGzipOutputStream(baos, 2, 4);
+
+        s.write("abcdefghij".getBytes());
+        s.close();
+
+        byte[] expected = concatenate(
+                ParallelGzipOutputStream.compress("abcd".getBytes(), 4),
+                ParallelGzipOutputStream.compress("efgh".getBytes(), 4),
+                ParallelGzipOutputStream.compress("ij".getBytes(), 2));
+
+        assertArrayEquals(expected, baos.toByteArray());
+        assertEquals("abcdefghij", new String(gunzip(baos.toByteArray())));
+    }
+
+    @Test
+    public void close_EmptyStreamIsAValidGzipFile() throws Exception {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ParallelGzipOutputStream s = new ParallelGzipOutputStream(baos, 1, 1024);
+
+        s.close();
+
+        assertTrue(baos.size() > 0);
+        assertEquals(0, gunzip(baos.toByteArray()).length);
+    }
+
+    @Test
+    public void close_Idempotent() throws Exception {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ParallelGzipOutputStream s = new ParallelGzipOutputStream(baos, 1, 1024);
+
+        s.write('a');
+        s.close();
+
+        int size = baos.size();
+
+        s.close();
+
+        assertEquals(size, baos.size());
+
+        try {
+
+            s.write('b');
+            fail("should have thrown exception");
+        }
+        catch(IOException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertTrue(msg.endsWith(" closed"));
+        }
+    }
+
+    @Test
+    public void close_TargetIsClosedEvenIfWriteFails() throws Exception {
+
+        final boolean[] closed = new boolean[1];
+
+        OutputStream target = new OutputStream() {
+
+            @Override
+            public void write(int b) throws IOException {
+
+                throw new IOException("SYNTHETIC");
+            }
+
+            @Override
+            public void close() {
+
+                closed[0] = true;
+            }
+        };
+
+        ParallelGzipOutputStream s = new ParallelGzipOutputStream(target, 1, 1024);
+
+        s.write('a');
+
+        try {
+
+            s.close();
+            fail("should have thrown exception");
+        }
+        catch(IOException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("SYNTHETIC", msg);
+        }
+
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    public void writeCompleted() throws Exception {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        //
+        // a single block in flight would be written right away, allow more
+        //
+        ParallelGzipOutputStream s = new ParallelGzipOutputStream(baos, 2, 4);
+
+        s.write("abcd".getBytes());
+
+        //
+        // the full block was handed over, wait for it to be written
+        //
+        long deadline = System.currentTimeMillis() + 5000L;
+
+        while(s.getPendingBlockCount() > 0 && System.currentTimeMillis() < deadline) {
+
+            s.writeCompleted();
+            Thread.sleep(5L);
+        }
+
+        assertEquals(0, s.getPendingBlockCount());
+        assertEquals("abcd", new String(gunzip(baos.toByteArray())));
+
+        s.close();
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static BooleanOption compressOutput() {
+
+        BooleanOption o = new BooleanOption("compress-output");
+        o.setValue(true);
+        return o;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try(InputStream is = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+
+            byte[] buffer = new byte[4096];
+            int n;
+
+            while((n = is.read(buffer)) != -1) {
+                baos.write(buffer, 0, n);
+            }
+        }
+
+        return baos.toByteArray();
+    }
+
+    private static byte[] concatenate(byte[]... arrays) {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        for(byte[] a: arrays) {
+            baos.write(a, 0, a.length);
+        }
+
+        return baos.toByteArray();
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.clad.option.BooleanOption;
+import io.novaordis.clad.option.StringOption;
+import io.novaordis.events.api.event.EndOfStreamEvent;
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.FaultEvent;
+import io.novaordis.events.api.event.LineEvent;
+import io.novaordis.events.clad.MockConfiguration;
+import io.novaordis.events.core.event.MockEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class RecordAssemblerTest extends ProcessingLogicTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Pattern SERVER_LOG_RECORD_START = Pattern.compile("\\d\\d:\\d\\d:\\d\\d,\\d\\d\\d ");
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_InvalidLimits() throws Exception {
+
+        try {
+            new RecordAssembler(null, 0, 10);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+
+        try {
+            new RecordAssembler(null, 10, 0);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    // buildInstance() -------------------------------------------------------------------------------------------------
+
+    @Test
+    public void buildInstance_NoAppropriateOptions() throws Exception {
+
+        assertNull(RecordAssembler.buildInstance(new MockConfiguration()));
+    }
+
+    @Test
+    public void buildInstance_RecordStart() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("record-start", "\\d\\d:"));
+        mc.addGlobalOption(new StringOption("max-record-lines", "7"));
+
+        RecordAssembler ra = RecordAssembler.buildInstance(mc);
+
+        assertNotNull(ra);
+        assertEquals("\\d\\d:", ra.getRecordStart().pattern());
+        assertEquals(7, ra.getMaxLines());
+        assertEquals(RecordAssembler.DEFAULT_MAX_RECORD_LENGTH, ra.getMaxLength());
+    }
+
+    @Test
+    public void buildInstance_Indentation() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        BooleanOption indentation = new BooleanOption("record-indentation");
+        indentation.setValue(true);
+        mc.addGlobalOption(indentation);
+
+        RecordAssembler ra = RecordAssembler.buildInstance(mc);
+
+        assertNotNull(ra);
+        assertNull(ra.getRecordStart());
+        assertEquals(RecordAssembler.DEFAULT_MAX_RECORD_LINES, ra.getMaxLines());
+    }
+
+    @Test
+    public void buildInstance_InvalidOptions() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("record-start", "(unbalanced"));
+
+        try {
+            RecordAssembler.buildInstance(mc);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+
+        mc = new MockConfiguration();
+        mc.addGlobalOption(new StringOption("record-start", "x"));
+        mc.addGlobalOption(new StringOption("max-record-lines", "many"));
+
+        try {
+            RecordAssembler.buildInstance(mc);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("many"));
+        }
+    }
+
+    // process() -------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void recordStartPattern() throws Exception {
+
+        RecordAssembler ra = new RecordAssembler(SERVER_LOG_RECORD_START, 100, 10000);
+
+        List<Event> events = process(ra,
+                "orphan line",
+                "10:00:00,000 INFO a",
+                "10:00:01,000 ERROR b",
+                "java.lang.RuntimeException: c",
+                "\tat A.b(A.java:1)",
+                "10:00:02,000 INFO d");
+
+        assertEquals(4, events.size());
+        assertLine(1L, "orphan line", events.get(0));
+        assertLine(2L, "10:00:00,000 INFO a", events.get(1));
+        assertLine(3L, "10:00:01,000 ERROR b\njava.lang.RuntimeException: c\n\tat A.b(A.java:1)", events.get(2));
+        assertLine(6L, "10:00:02,000 INFO d", events.get(3));
+    }
+
+    @Test
+    public void indentation() throws Exception {
+
+        RecordAssembler ra = new RecordAssembler(null, 100, 10000);
+
+        List<Event> events = process(ra,
+                "a",
+                "  b",
+                "\tc",
+                "d",
+                "",
+                "e");
+
+        assertEquals(4, events.size());
+        assertLine(1L, "a\n  b\n\tc", events.get(0));
+        assertLine(4L, "d", events.get(1));
+        assertLine(5L, "", events.get(2));
+        assertLine(6L, "e", events.get(3));
+    }
+
+    @Test
+    public void singleLineRecordsAreRelayedUnchanged() throws Exception {
+
+        RecordAssembler ra = new RecordAssembler(null, 100, 10000);
+
+        LineEvent le = new LineEvent(1L, "a");
+
+        assertFalse(ra.process(le));
+        assertTrue(ra.process(new LineEvent(2L, "b")));
+
+        List<Event> events = ra.getEvents();
+        assertEquals(1, events.size());
+        assertSame(le, events.get(0));
+    }
+
+    @Test
+    public void maxLines() throws Exception {
+
+        RecordAssembler ra = new RecordAssembler(null, 2, 10000);
+
+        List<Event> events = process(ra, "a", " b", " c", " d", "e");
+
+        assertEquals(3, events.size());
+        assertLine(1L, "a\n b", events.get(0));
+        assertTrue(events.get(1) instanceof FaultEvent);
+        assertLine(5L, "e", events.get(2));
+    }
+
+    @Test
+    public void maxLength() throws Exception {
+
+        RecordAssembler ra = new RecordAssembler(null, 100, 5);
+
+        List<Event> events = process(ra, "ab", " c", " d");
+
+        assertEquals(2, events.size());
+        assertLine(1L, "ab\n c", events.get(0));
+        assertTrue(events.get(1) instanceof FaultEvent);
+    }
+
+    @Test
+    public void endOfStreamFlushesTheCurrentRecord() throws Exception {
+
+        RecordAssembler ra = new RecordAssembler(null, 100, 10000);
+
+        assertFalse(ra.process(new LineEvent(1L, "a")));
+        assertFalse(ra.process(new LineEvent(2L, " b")));
+        assertTrue(ra.process(new EndOfStreamEvent()));
+
+        List<Event> events = ra.getEvents();
+        assertEquals(1, events.size());
+        assertLine(1L, "a\n b", events.get(0));
+        assertTrue(ra.isClosed());
+    }
+
+    @Test
+    public void faultsAreRelayed() throws Exception {
+
+        RecordAssembler ra = new RecordAssembler(null, 100, 10000);
+
+        FaultEvent f = new FaultEvent("test");
+
+        assertTrue(ra.process(f));
+        assertSame(f, ra.getEvents().get(0));
+    }
+
+    @Test
+    public void faultsAreRelayedAfterTheCurrentRecord() throws Exception {
+
+        RecordAssembler ra = new RecordAssembler(null, 100, 10000);
+
+        FaultEvent f = new FaultEvent("test");
+
+        assertFalse(ra.process(new LineEvent(1L, "a")));
+        assertFalse(ra.process(new LineEvent(2L, " b")));
+        assertTrue(ra.process(f));
+
+        List<Event> events = ra.getEvents();
+        assertEquals(2, events.size());
+        assertLine(1L, "a\n b", events.get(0));
+        assertSame(f, events.get(1));
+
+        //
+        // the record ended at the fault, the next line starts a new one even if it is indented
+        //
+        assertFalse(ra.process(new LineEvent(4L, " c")));
+        assertTrue(ra.process(new EndOfStreamEvent()));
+
+        events = ra.getEvents();
+        assertEquals(1, events.size());
+        assertLine(4L, " c", events.get(0));
+    }
+
+    @Test
+    public void unknownEvent() throws Exception {
+
+        RecordAssembler ra = new RecordAssembler(null, 100, 10000);
+
+        assertTrue(ra.process(new MockEvent()));
+        assertTrue(ra.getEvents().get(0) instanceof FaultEvent);
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    @Override
+    protected RecordAssembler getProcessingLogicToTest() throws Exception {
+
+        return new RecordAssembler(null, 100, 10000);
+    }
+
+    @Override
+    protected Event getInputEventRelevantToProcessingLogic() throws Exception {
+
+        return new FaultEvent("test");
+    }
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static List<Event> process(RecordAssembler ra, String... lines) throws Exception {
+
+        List<Event> events = new ArrayList<>();
+
+        for(int i = 0; i < lines.length; i ++) {
+
+            ra.process(new LineEvent(i + 1, lines[i]));
+            events.addAll(ra.getEvents());
+        }
+
+        ra.process(new EndOfStreamEvent());
+        events.addAll(ra.getEvents());
+
+        return events;
+    }
+
+    private static void assertLine(long lineNumber, String content, Event e) {
+
+        assertTrue(e instanceof LineEvent);
+        assertEquals(lineNumber, ((LineEvent)e).getLineNumber().longValue());
+        assertEquals(content, ((LineEvent)e).get());
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
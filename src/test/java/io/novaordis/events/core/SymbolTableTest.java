@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.core;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class SymbolTableTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_InvalidCapacity() throws Exception {
+
+        try {
+            new SymbolTable(1, 10);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void constructor_CapacityRoundedUpToPowerOfTwo() throws Exception {
+
+        assertEquals(8, new SymbolTable(5, 10).getCapacity());
+        assertEquals(8, new SymbolTable(8, 10).getCapacity());
+    }
+
+    @Test
+    public void intern() throws Exception {
+
+        SymbolTable t = new SymbolTable();
+
+        String s = t.intern("GET /a HTTP/1.1", 0, 3);
+        String s2 = t.intern("POST /b GET", 8, 11);
+
+        assertEquals("GET", s);
+        assertSame(s, s2);
+        assertEquals(1, t.size());
+        assertEquals(1L, t.getHits());
+        assertEquals(1L, t.getMisses());
+    }
+
+    @Test
+    public void intern_EmptyRange() throws Exception {
+
+        SymbolTable t = new SymbolTable();
+
+        assertEquals("", t.intern("abc", 1, 1));
+        assertSame(t.intern("abc", 1, 1), t.intern("xyz", 2, 2));
+    }
+
+    @Test
+    public void intern_TooLong() throws Exception {
+
+        SymbolTable t = new SymbolTable(16, 3);
+
+        String s = t.intern("-abcd", 1, 5);
+        String s2 = t.intern("-abcd", 1, 5);
+
+        assertEquals("abcd", s);
+        assertNotSame(s, s2);
+        assertEquals(0, t.size());
+    }
+
+    @Test
+    public void intern_HighCardinalitySpill_FrequentSymbolsSurvive() throws Exception {
+
+        SymbolTable t = new SymbolTable(16, 256);
+
+        String frequent = null;
+
+        for(int i = 0; i < 100; i ++) {
+            frequent = t.intern("frequent", 0, 8);
+        }
+
+        for(int i = 0; i < 10000; i ++) {
+
+            String s = "value-" + i;
+            assertEquals(s, t.intern(s, 0, s.length()));
+
+            if (i % 100 == 0) {
+                assertSame(frequent, t.intern("frequent", 0, 8));
+            }
+        }
+
+        assertSame(frequent, t.intern("frequent", 0, 8));
+        assertTrue(t.size() <= t.getCapacity());
+    }
+
+    @Test
+    public void intern_Bytes_SameSymbolAsString() throws Exception {
+
+        SymbolTable t = new SymbolTable();
+
+        byte[] buffer = "  localhost  ".getBytes(StandardCharsets.ISO_8859_1);
+
+        String s = t.intern(buffer, 2, 11);
+        assertEquals("localhost", s);
+
+        assertSame(s, t.intern("-localhost-", 1, 10));
+        assertSame(s, t.intern(buffer, 2, 11));
+        assertEquals(1, t.size());
+        assertEquals(2L, t.getHits());
+    }
+
+    @Test
+    public void intern_Bytes_Latin1() throws Exception {
+
+        SymbolTable t = new SymbolTable();
+
+        byte[] buffer = { 'a', (byte)0xE9, 'b' };
+
+        String s = t.intern(buffer, 0, 3);
+        assertEquals("a\u00e9b", s);
+        assertSame(s, t.intern("a\u00e9b", 0, 3));
+    }
+
+    @Test
+    public void intern_Bytes_TooLong() throws Exception {
+
+        SymbolTable t = new SymbolTable(16, 3);
+
+        byte[] buffer = "abcd".getBytes(StandardCharsets.ISO_8859_1);
+
+        assertEquals("abcd", t.intern(buffer, 0, 4));
+        assertEquals(0, t.size());
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.core;
+
+import io.novaordis.clad.option.TimestampOption;
+import io.novaordis.events.clad.MockConfiguration;
+import io.novaordis.utilities.time.TimeOffset;
+import io.novaordis.utilities.time.TimestampImpl;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class TimeWindowTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    // buildInstance() -------------------------------------------------------------------------------------------------
+
+    @Test
+    public void buildInstance_NoAppropriateOptions() throws Exception {
+
+        assertNull(TimeWindow.buildInstance(new MockConfiguration()));
+    }
+
+    @Test
+    public void buildInstance_AbsoluteBounds() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new TimestampOption(null, "from", "07/07/16 10:00:00"));
+        mc.addGlobalOption(new TimestampOption(null, "to", "07/07/16 11:00:00"));
+
+        TimeWindow w = TimeWindow.buildInstance(mc);
+        assertNotNull(w);
+        assertTrue(w.isCalibrated());
+        assertEquals(TimestampOption.DEFAULT_FULL_FORMAT.parse("07/07/16 10:00:00").getTime(), w.getFrom().longValue());
+        assertEquals(TimestampOption.DEFAULT_FULL_FORMAT.parse("07/07/16 11:00:00").getTime(), w.getTo().longValue());
+    }
+
+    @Test
+    public void buildInstance_InvalidBound() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new TimestampOption(null, "from", "07/07/16 blah"));
+
+        try {
+            TimeWindow.buildInstance(mc);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    // contains() ------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void contains() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new TimestampOption(null, "from", "07/07/16 10:00:00"));
+        mc.addGlobalOption(new TimestampOption(null, "to", "07/07/16 11:00:00"));
+        TimeWindow w = TimeWindow.buildInstance(mc);
+
+        SimpleDateFormat f = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z");
+
+        assertFalse(w.contains(null));
+        assertFalse(w.contains(new TimestampImpl("07/Jul/2016:09:59:59 -0700", f)));
+        assertTrue(w.contains(new TimestampImpl("07/Jul/2016:10:00:00 -0700", f)));
+        assertTrue(w.contains(new TimestampImpl("07/Jul/2016:10:30:00 +0200", f)));
+        assertTrue(w.contains(new TimestampImpl("07/Jul/2016:11:00:00 -0700", f)));
+        assertFalse(w.contains(new TimestampImpl("07/Jul/2016:11:00:01 -0700", f)));
+    }
+
+    @Test
+    public void contains_RelativeBounds_Calibration() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new TimestampOption(null, "from", "10:00:00"));
+        mc.addGlobalOption(new TimestampOption(null, "to", "11:00:00"));
+        TimeWindow w = TimeWindow.buildInstance(mc);
+
+        assertFalse(w.isCalibrated());
+        assertNull(w.getFrom());
+        assertNull(w.getTo());
+
+        SimpleDateFormat f = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z");
+
+        assertFalse(w.contains(new TimestampImpl("07/Jul/2016:09:00:00 -0700", f)));
+
+        assertTrue(w.isCalibrated());
+        assertEquals(TimestampOption.DEFAULT_FULL_FORMAT.parse("07/07/16 10:00:00").getTime(), w.getFrom().longValue());
+        assertEquals(TimestampOption.DEFAULT_FULL_FORMAT.parse("07/07/16 11:00:00").getTime(), w.getTo().longValue());
+
+        assertTrue(w.contains(new TimestampImpl("07/Jul/2016:10:15:00 -0700", f)));
+
+        //
+        // the calibration does not change
+        //
+        assertFalse(w.contains(new TimestampImpl("08/Jul/2016:10:15:00 -0700", f)));
+    }
+
+    // getLocalOffset() ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void getLocalOffset_SameAsTimeZone() throws Exception {
+
+        TimeWindow w = new TimeWindow(NEW_YORK);
+
+        long winter = new SimpleDateFormat("MM/dd/yy HH:mm:ss Z").parse("01/15/16 12:00:00 -0500").getTime();
+
+        //
+        // one hour steps over two years, crossing four transitions
+        //
+        for(long t = winter; t < winter + 2 * 365 * 86400000L; t += 3600000L) {
+
+            assertEquals(NEW_YORK.getOffset(t), w.getLocalOffset(t).getOffset());
+        }
+    }
+
+    @Test
+    public void getLocalOffset_CachedUntilTransition() throws Exception {
+
+        TimeWindow w = new TimeWindow(NEW_YORK);
+
+        SimpleDateFormat f = new SimpleDateFormat("MM/dd/yy HH:mm:ss Z");
+
+        //
+        // DST started on 03/13/16 at 02:00:00 EST
+        //
+        long beforeTransition = f.parse("03/13/16 01:59:59 -0500").getTime();
+        long transition = f.parse("03/13/16 02:00:00 -0500").getTime();
+
+        TimeOffset o = w.getLocalOffset(f.parse("03/01/16 12:00:00 -0500").getTime());
+        assertEquals(-5 * 3600000, o.getOffset());
+
+        assertSame(o, w.getLocalOffset(beforeTransition));
+
+        TimeOffset o2 = w.getLocalOffset(transition);
+        assertEquals(-4 * 3600000, o2.getOffset());
+        assertSame(o2, w.getLocalOffset(transition + 86400000L));
+
+        //
+        // going back refreshes the offset
+        //
+        assertEquals(-5 * 3600000, w.getLocalOffset(beforeTransition).getOffset());
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
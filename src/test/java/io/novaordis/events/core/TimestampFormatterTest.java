@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.core;
+
+import io.novaordis.utilities.time.TimeOffset;
+import io.novaordis.utilities.time.TimestampImpl;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class TimestampFormatterTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_InvalidPattern() throws Exception {
+
+        try {
+            new TimestampFormatter("this is not a valid pattern");
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void format_DefaultTimeZone() throws Exception {
+
+        TimestampFormatter f = new TimestampFormatter("MM/dd/yy HH:mm:ss");
+        SimpleDateFormat reference = new SimpleDateFormat("MM/dd/yy HH:mm:ss");
+
+        long t = 1474240708000L;
+
+        for(long i = t; i < t + 10 * 3600000L; i += 333L) {
+
+            assertEquals(reference.format(i), f.format(i));
+        }
+    }
+
+    @Test
+    public void format_SameSecond_Cached() throws Exception {
+
+        TimestampFormatter f = new TimestampFormatter("MM/dd/yy HH:mm:ss");
+
+        String s = f.format(1474240708001L);
+        String s2 = f.format(1474240708999L);
+
+        assertSame(s, s2);
+    }
+
+    @Test
+    public void format_TimeOffset() throws Exception {
+
+        TimestampFormatter f = new TimestampFormatter("dd/MMM/yyyy:HH:mm:ss Z");
+
+        SimpleDateFormat reference = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z");
+        reference.setTimeZone(TimeZone.getTimeZone("GMT-04:00"));
+
+        long t = 1474240708000L;
+
+        assertEquals(reference.format(t), f.format(t, new TimeOffset("-0400")));
+        assertEquals("18/Sep/2016:19:18:28 -0400", f.format(t, new TimeOffset("-0400")));
+
+        //
+        // same second, different offset
+        //
+        assertEquals("18/Sep/2016:23:18:28 +0000", f.format(t, new TimeOffset(0)));
+    }
+
+    @Test
+    public void format_Timestamp() throws Exception {
+
+        TimestampFormatter f = new TimestampFormatter("dd/MMM/yyyy:HH:mm:ss Z");
+
+        assertEquals("18/Sep/2016:19:18:28 -0400",
+                f.format(new TimestampImpl(1474240708000L, new TimeOffset("-0400"))));
+    }
+
+    @Test
+    public void format_SubSecondPattern() throws Exception {
+
+        TimestampFormatter f = new TimestampFormatter("HH:mm:ss.SSS");
+        SimpleDateFormat reference = new SimpleDateFormat("HH:mm:ss.SSS");
+
+        assertEquals(reference.format(1474240708001L), f.format(1474240708001L));
+        assertEquals(reference.format(1474240708999L), f.format(1474240708999L));
+    }
+
+    @Test
+    public void format_NegativeTime() throws Exception {
+
+        TimestampFormatter f = new TimestampFormatter("MM/dd/yy HH:mm:ss");
+        SimpleDateFormat reference = new SimpleDateFormat("MM/dd/yy HH:mm:ss");
+
+        assertEquals(reference.format(-1L), f.format(-1L));
+        assertEquals(reference.format(-1000L), f.format(-1000L));
+        assertEquals(reference.format(-1001L), f.format(-1001L));
+    }
+
+    @Test
+    public void formatTo_StringBuilder() throws Exception {
+
+        TimestampFormatter f = new TimestampFormatter("dd/MMM/yyyy:HH:mm:ss Z");
+
+        StringBuilder sb = new StringBuilder("[");
+        f.formatTo(1474240708000L, new TimeOffset("-0400"), sb);
+        sb.append("]");
+
+        assertEquals("[18/Sep/2016:19:18:28 -0400]", sb.toString());
+    }
+
+    @Test
+    public void formatTo_ByteArray() throws Exception {
+
+        TimestampFormatter f = new TimestampFormatter("dd/MMM/yyyy:HH:mm:ss Z");
+
+        byte[] buffer = new byte[100];
+        buffer[0] = '[';
+        int position = f.formatTo(1474240708000L, new TimeOffset("-0400"), buffer, 1);
+        buffer[position ++] = ']';
+
+        assertEquals("[18/Sep/2016:19:18:28 -0400]", new String(buffer, 0, position, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void format_Concurrent() throws Exception {
+
+        final TimestampFormatter f = new TimestampFormatter("MM/dd/yy HH:mm:ss");
+
+        final long t = 1474240708000L;
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+
+            List<Future<Void>> futures = new ArrayList<>();
+
+            for(int i = 0; i < 4; i ++) {
+
+                final long base = t + i * 86400000L;
+
+                futures.add(executor.submit(() -> {
+
+                    SimpleDateFormat reference = new SimpleDateFormat("MM/dd/yy HH:mm:ss");
+
+                    for(long j = base; j < base + 10000 * 500L; j += 500L) {
+                        assertEquals(reference.format(j), f.format(j));
+                    }
+
+                    return null;
+                }));
+            }
+
+            for(Future<Void> future: futures) {
+                future.get();
+            }
+        }
+        finally {
+
+            executor.shutdownNow();
+        }
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
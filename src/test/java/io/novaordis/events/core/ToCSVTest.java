@@ -16,6 +16,7 @@
 
 package io.novaordis.events.core;
 
+import io.novaordis.events.api.event.EndOfStreamEvent;
 import io.novaordis.events.api.event.Event;
 import io.novaordis.events.api.event.FaultEvent;
 import io.novaordis.events.api.metric.os.mdefs.CpuUserTime;
@@ -30,6 +31,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -191,6 +193,62 @@ public class ToCSVTest extends OutputStreamConversionLogicTest {
         assertEquals("07/01/16 10:00:00\n", s);
     }
 
+    // writeTo() -------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void writeTo_BytesAreHeldBackUntilFlush() throws Exception {
+
+        ToCSV c = getConversionLogicToTest();
+
+        c.getCSVFormatter().setFormat(new CSVFormat("B"));
+
+        MockEvent me = new MockEvent();
+        me.setProperty(new MockProperty("B", "B value"));
+
+        assertTrue(c.process(me));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        assertTrue(c.writeTo(baos, false));
+        assertEquals(0, baos.size());
+
+        assertTrue(c.writeTo(baos, true));
+        assertEquals("B value\n", new String(baos.toByteArray()));
+
+        //
+        // nothing left
+        //
+        assertEquals(0, c.getBytes().length);
+    }
+
+    @Test
+    public void writeTo_EndOfStream() throws Exception {
+
+        ToCSV c = getConversionLogicToTest();
+
+        c.getCSVFormatter().setFormat(new CSVFormat("B"));
+
+        MockEvent me = new MockEvent();
+        me.setProperty(new MockProperty("B", "B value"));
+
+        assertTrue(c.process(me));
+        assertTrue(c.process(new EndOfStreamEvent()));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        //
+        // the uncollected bytes are written even if no flush is requested
+        //
+        assertTrue(c.writeTo(baos, false));
+        assertEquals("B value\n", new String(baos.toByteArray()));
+
+        //
+        // closed and empty, the output stream should be closed
+        //
+        assertFalse(c.writeTo(baos, false));
+        assertNull(c.getBytes());
+    }
+
     // setOutputFormat() -----------------------------------------------------------------------------------------------
 
     @Test
@@ -22,6 +22,7 @@ import io.novaordis.events.api.event.FaultEvent;
 import io.novaordis.events.api.event.IntegerProperty;
 import io.novaordis.events.api.event.LongProperty;
 import io.novaordis.events.httpd.HttpEvent;
+import io.novaordis.events.httpd.HttpdLineParser;
 import io.novaordis.utilities.time.TimestampImpl;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -124,6 +125,29 @@ public class BusinessScenarioCommandTest {
         assertTrue(s.matches("HTTP request .* does not carry a \"" + HttpEvent.JSESSIONID_COOKIE_KEY + "\" cookie"));
     }
 
+    @Test
+    public void processHttpEvent_NoJSESSIONID_ProjectedEvent() throws Exception {
+
+        HttpdLineParser parser = new HttpdLineParser("[%t] \"%r\" %>s %D \"%{Cookie}i\"");
+        parser.setRequiredProperties(BusinessScenarioCommand.REQUIRED_PROPERTIES);
+
+        HttpEvent e = (HttpEvent)parser.parseLine(
+                7L, "[18/Sep/2016:19:18:28 -0400] \"GET /test HTTP/1.1\" 200 100 \"other=x\"");
+
+        BusinessScenarioCommand c = new BusinessScenarioCommand();
+
+        List<Event> events = c.processHttpEvent(e);
+        assertEquals(1, events.size());
+        FaultEvent fe = (FaultEvent)events.get(0);
+
+        //
+        // the fault message renders the method and the request URI, they must not be projected out
+        //
+        String s = fe.getMessage();
+        log.info(s);
+        assertTrue(s.contains(" GET /test(line=7)"));
+    }
+
     @Test
     public void processHttpEvent() throws Exception {
 
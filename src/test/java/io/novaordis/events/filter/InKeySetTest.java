@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import io.novaordis.events.api.event.GenericEvent;
+import io.novaordis.events.httpd.HttpEvent;
+import io.novaordis.utilities.time.TimeOffset;
+import io.novaordis.utilities.time.TimestampImpl;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class InKeySetTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(InKeySetTest.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_NullKey() throws Exception {
+
+        try {
+            new InKeySet(null, new KeySet(1));
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("null or empty key", msg);
+        }
+    }
+
+    @Test
+    public void constructor_NullKeySet() throws Exception {
+
+        try {
+            new InKeySet("remote-host", null);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("null key set", msg);
+        }
+    }
+
+    @Test
+    public void constructor_MissingCookieName() throws Exception {
+
+        try {
+            new InKeySet("cookie:", new KeySet(1));
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("missing cookie name in \"cookie:\"", msg);
+        }
+    }
+
+    @Test
+    public void constructor_Property() throws Exception {
+
+        KeySet keys = new KeySet(1);
+        InKeySet p = new InKeySet("remote-host", keys);
+
+        assertEquals("remote-host", p.getPropertyName());
+        assertNull(p.getCookieName());
+        assertEquals(keys, p.getKeySet());
+        assertNull(p.getRequiredLiterals(Collections.singleton("remote-host")));
+    }
+
+    @Test
+    public void constructor_Cookie() throws Exception {
+
+        InKeySet p = new InKeySet("cookie:JSESSIONID", new KeySet(1));
+
+        assertNull(p.getPropertyName());
+        assertEquals("JSESSIONID", p.getCookieName());
+    }
+
+    // getPropertyNames() ----------------------------------------------------------------------------------------------
+
+    @Test
+    public void getPropertyNames_Property() throws Exception {
+
+        InKeySet p = new InKeySet("request-uri", new KeySet(1));
+
+        assertEquals(Collections.singleton("request-uri"), p.getPropertyNames());
+    }
+
+    @Test
+    public void getPropertyNames_Cookie() throws Exception {
+
+        InKeySet p = new InKeySet("cookie:JSESSIONID", new KeySet(1));
+
+        //
+        // the cookie may come from the individually logged cookies or from the Cookie request header
+        //
+        assertEquals(new HashSet<>(Arrays.asList(HttpEvent.COOKIES, HttpEvent.REQUEST_HEADERS)),
+                p.getPropertyNames());
+    }
+
+    // test() ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void test_Property() throws Exception {
+
+        KeySet keys = new KeySet(2);
+        keys.add("10.0.0.1");
+        keys.add("404");
+
+        InKeySet host = new InKeySet("remote-host", keys);
+
+        GenericEvent e = new GenericEvent();
+        assertFalse(host.test(e));
+
+        e.setStringProperty("remote-host", "10.0.0.1");
+        assertTrue(host.test(e));
+
+        e.setStringProperty("remote-host", "10.0.0.2");
+        assertFalse(host.test(e));
+
+        //
+        // non-string values are compared by their string representation
+        //
+        InKeySet status = new InKeySet("status-code", keys);
+
+        GenericEvent e2 = new GenericEvent();
+        e2.setIntegerProperty("status-code", 404);
+        assertTrue(status.test(e2));
+    }
+
+    @Test
+    public void test_Cookie() throws Exception {
+
+        KeySet keys = new KeySet(1);
+        keys.add("4AF1B32C");
+
+        InKeySet p = new InKeySet("cookie:JSESSIONID", keys);
+
+        HttpEvent e = new HttpEvent(new TimestampImpl(1L, new TimeOffset("-0800")));
+        assertFalse(p.test(e));
+
+        e.setCookie("JSESSIONID", "4AF1B32C");
+        assertTrue(p.test(e));
+
+        e.setCookie("JSESSIONID", "00000000");
+        assertFalse(p.test(e));
+
+        //
+        // only HttpEvents have cookies
+        //
+        assertFalse(p.test(new GenericEvent()));
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
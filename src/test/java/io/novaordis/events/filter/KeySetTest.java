@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class KeySetTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(KeySetTest.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_InvalidExpectedSize() throws Exception {
+
+        try {
+            new KeySet(-1);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("invalid expected size -1", msg);
+        }
+    }
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void addAndContains() throws Exception {
+
+        KeySet s = new KeySet(10);
+
+        assertEquals(0, s.size());
+        assertFalse(s.contains("A"));
+
+        assertTrue(s.add("A"));
+        assertTrue(s.add("B"));
+        assertFalse(s.add("A"));
+
+        assertEquals(2, s.size());
+        assertTrue(s.contains("A"));
+        assertTrue(s.contains("B"));
+        assertFalse(s.contains("C"));
+        assertFalse(s.contains(""));
+        assertFalse(s.contains(null));
+    }
+
+    @Test
+    public void add_Null() throws Exception {
+
+        try {
+            new KeySet(1).add(null);
+            fail("should throw exception");
+        }
+        catch(IllegalArgumentException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("null key", msg);
+        }
+    }
+
+    @Test
+    public void contains_Region() throws Exception {
+
+        KeySet s = new KeySet(1);
+        s.add("4AF1B32C");
+
+        String line = "JSESSIONID=4AF1B32C; lang=en";
+
+        assertTrue(s.contains(line, 11, 19));
+        assertFalse(s.contains(line, 11, 18));
+        assertFalse(s.contains(line, 10, 19));
+        assertFalse(s.contains(line, 0, line.length()));
+    }
+
+    @Test
+    public void add_Growth() throws Exception {
+
+        KeySet s = new KeySet(0);
+        int initialCapacity = s.getCapacity();
+
+        for(int i = 0; i < 10000; i ++) {
+            assertTrue(s.add("key-" + i));
+        }
+
+        assertEquals(10000, s.size());
+        assertTrue(s.getCapacity() > initialCapacity);
+
+        for(int i = 0; i < 10000; i ++) {
+            assertTrue(s.contains("key-" + i));
+        }
+
+        for(int i = 10000; i < 20000; i ++) {
+            assertFalse(s.contains("key-" + i));
+        }
+    }
+
+    @Test
+    public void memoryFootprint() throws Exception {
+
+        int count = 200000;
+
+        KeySet s = new KeySet(count);
+
+        for(int i = 0; i < count; i ++) {
+            s.add("0123456789ABCDEF" + i);
+        }
+
+        long bytesPerKey = s.getMemoryFootprint() / count;
+        log.info(s + " uses " + s.getMemoryFootprint() + " bytes, " + bytesPerKey + " bytes per key");
+        assertTrue(bytesPerKey <= 24);
+    }
+
+    @Test
+    public void load() throws Exception {
+
+        File file = File.createTempFile("keys", ".txt");
+        file.deleteOnExit();
+
+        try(Writer w = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            w.write("10.0.0.1\n  10.0.0.2  \n\n   \n10.0.0.1\nhôte\n");
+        }
+
+        KeySet s = KeySet.load(file);
+
+        assertEquals(3, s.size());
+        assertTrue(s.contains("10.0.0.1"));
+        assertTrue(s.contains("10.0.0.2"));
+        assertTrue(s.contains("hôte"));
+        assertFalse(s.contains("  10.0.0.2  "));
+        assertFalse(s.contains("10.0.0.3"));
+    }
+
+    @Test
+    public void hash_RegionEqualsWholeString() throws Exception {
+
+        assertEquals(KeySet.hash("abc", 0, 3), KeySet.hash("xabcx", 1, 4));
+        assertTrue(KeySet.hash("abc", 0, 3) != KeySet.hash("abd", 0, 3));
+        assertTrue(KeySet.hash("", 0, 0) != 0);
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
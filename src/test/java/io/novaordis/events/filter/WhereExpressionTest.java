@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.filter;
+
+import io.novaordis.events.api.event.DoubleProperty;
+import io.novaordis.events.api.event.GenericEvent;
+import io.novaordis.utilities.parsing.ParsingException;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class WhereExpressionTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(WhereExpressionTest.class);
+
+    private static final Set<String> VERBATIM = new HashSet<>(Arrays.asList("method", "request-uri", "user-agent"));
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    // compile() -------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void compile_NumericComparison() throws Exception {
+
+        Predicate p = WhereExpression.compile("status-code >= 500");
+        assertTrue(p instanceof NumericComparison);
+
+        assertTrue(p.test(event("status-code", 500)));
+        assertTrue(p.test(event("status-code", 503)));
+        assertFalse(p.test(event("status-code", 404)));
+    }
+
+    @Test
+    public void compile_NumericComparison_NoSpaces() throws Exception {
+
+        Predicate p = WhereExpression.compile("status-code!=200");
+        assertTrue(p instanceof NumericComparison);
+
+        assertTrue(p.test(event("status-code", 404)));
+        assertFalse(p.test(event("status-code", 200)));
+    }
+
+    @Test
+    public void compile_NumericComparison_AllOperators() throws Exception {
+
+        GenericEvent e = event("size", 10);
+
+        assertTrue(WhereExpression.compile("size = 10").test(e));
+        assertTrue(WhereExpression.compile("size == 10").test(e));
+        assertFalse(WhereExpression.compile("size != 10").test(e));
+        assertFalse(WhereExpression.compile("size < 10").test(e));
+        assertTrue(WhereExpression.compile("size <= 10").test(e));
+        assertFalse(WhereExpression.compile("size > 10").test(e));
+        assertTrue(WhereExpression.compile("size >= 10").test(e));
+        assertTrue(WhereExpression.compile("size > 9.5").test(e));
+        assertTrue(WhereExpression.compile("size > -1").test(e));
+    }
+
+    @Test
+    public void compile_NumericComparison_DecimalProperty() throws Exception {
+
+        GenericEvent e = new GenericEvent();
+        e.setProperty(new DoubleProperty("duration", 1.5));
+
+        assertTrue(WhereExpression.compile("duration > 1").test(e));
+        assertTrue(WhereExpression.compile("duration = 1.5").test(e));
+        assertFalse(WhereExpression.compile("duration >= 2").test(e));
+    }
+
+    @Test
+    public void compile_NumericComparison_StringProperty() throws Exception {
+
+        GenericEvent e = new GenericEvent();
+        e.setStringProperty("status-code", "500");
+
+        //
+        // a numeric comparison does not convert strings
+        //
+        assertFalse(WhereExpression.compile("status-code >= 500").test(e));
+
+        //
+        // but a quoted value is compared as a string
+        //
+        assertTrue(WhereExpression.compile("status-code = '500'").test(e));
+    }
+
+    @Test
+    public void compile_MissingProperty() throws Exception {
+
+        GenericEvent e = new GenericEvent();
+
+        assertFalse(WhereExpression.compile("status-code = 500").test(e));
+        assertFalse(WhereExpression.compile("status-code != 500").test(e));
+        assertFalse(WhereExpression.compile("method = GET").test(e));
+        assertFalse(WhereExpression.compile("method ~ G.*").test(e));
+        assertTrue(WhereExpression.compile("not method = GET").test(e));
+    }
+
+    @Test
+    public void compile_StringComparisons() throws Exception {
+
+        GenericEvent e = new GenericEvent();
+        e.setStringProperty("request-uri", "/api/users?id=1");
+
+        assertTrue(WhereExpression.compile("request-uri ^= /api").test(e));
+        assertFalse(WhereExpression.compile("request-uri ^= /web").test(e));
+        assertTrue(WhereExpression.compile("request-uri *= users").test(e));
+        assertTrue(WhereExpression.compile("request-uri *= 'id=1'").test(e));
+        assertTrue(WhereExpression.compile("request-uri = \"/api/users?id=1\"").test(e));
+        assertTrue(WhereExpression.compile("request-uri != /api").test(e));
+        assertTrue(WhereExpression.compile("request-uri ~ ^/api/[a-z]+").test(e));
+        assertFalse(WhereExpression.compile("request-uri ~ ^/web").test(e));
+    }
+
+    @Test
+    public void compile_QuotedString_Escapes() throws Exception {
+
+        GenericEvent e = new GenericEvent();
+        e.setStringProperty("user-agent", "it's \"quoted\"");
+
+        assertTrue(WhereExpression.compile("user-agent = 'it\\'s \"quoted\"'").test(e));
+    }
+
+    @Test
+    public void compile_Conjunction() throws Exception {
+
+        Predicate p = WhereExpression.compile("method = GET and status-code = 200 && request-uri ^= /api");
+        assertTrue(p instanceof Conjunction);
+
+        Predicate[] operands = ((Conjunction)p).getOperands();
+        assertEquals(3, operands.length);
+
+        //
+        // cheapest first
+        //
+        assertTrue(operands[0] instanceof NumericComparison);
+
+        GenericEvent e = event("status-code", 200);
+        e.setStringProperty("method", "GET");
+        e.setStringProperty("request-uri", "/api");
+        assertTrue(p.test(e));
+
+        e.setStringProperty("method", "POST");
+        assertFalse(p.test(e));
+    }
+
+    @Test
+    public void compile_Disjunction() throws Exception {
+
+        Predicate p = WhereExpression.compile("status-code = 404 OR status-code = 500 || method = PUT");
+        assertTrue(p instanceof Disjunction);
+
+        assertTrue(p.test(event("status-code", 404)));
+        assertTrue(p.test(event("status-code", 500)));
+        assertFalse(p.test(event("status-code", 200)));
+
+        GenericEvent e = event("status-code", 200);
+        e.setStringProperty("method", "PUT");
+        assertTrue(p.test(e));
+    }
+
+    @Test
+    public void compile_Precedence() throws Exception {
+
+        //
+        // "and" binds tighter than "or"
+        //
+        Predicate p = WhereExpression.compile("a = 1 or a = 2 and b = 3");
+
+        assertTrue(p.test(event("a", 1)));
+        assertFalse(p.test(event("a", 2)));
+
+        GenericEvent e = event("a", 2);
+        e.setIntegerProperty("b", 3);
+        assertTrue(p.test(e));
+    }
+
+    @Test
+    public void compile_Parentheses() throws Exception {
+
+        Predicate p = WhereExpression.compile("(a = 1 or a = 2) and b = 3");
+
+        assertFalse(p.test(event("a", 1)));
+
+        GenericEvent e = event("a", 1);
+        e.setIntegerProperty("b", 3);
+        assertTrue(p.test(e));
+    }
+
+    @Test
+    public void compile_Negation() throws Exception {
+
+        Predicate p = WhereExpression.compile("not (method = GET or method = HEAD)");
+
+        GenericEvent e = new GenericEvent();
+        e.setStringProperty("method", "GET");
+        assertFalse(p.test(e));
+
+        e.setStringProperty("method", "POST");
+        assertTrue(p.test(e));
+
+        Predicate p2 = WhereExpression.compile("!!(method = POST)");
+        assertTrue(p2.test(e));
+    }
+
+    @Test
+    public void compile_LargeInteger() throws Exception {
+
+        Predicate p = WhereExpression.compile("size < 99999999999999999999");
+        assertTrue(p.test(event("size", 1)));
+    }
+
+    @Test
+    public void compile_Errors() throws Exception {
+
+        assertInvalid("");
+        assertInvalid("status-code");
+        assertInvalid("status-code >=");
+        assertInvalid("status-code > abc");
+        assertInvalid("status-code > '500'");
+        assertInvalid("(status-code = 500");
+        assertInvalid("status-code = 500)");
+        assertInvalid("status-code = 500 and");
+        assertInvalid("method = 'GET");
+        assertInvalid("uri ~ [a-");
+        assertInvalid("= 5");
+    }
+
+    @Test
+    public void compile_ErrorMessageContainsPosition() throws Exception {
+
+        try {
+            WhereExpression.compile("a = 1 and b > x");
+            fail("should throw exception");
+        }
+        catch(ParsingException e) {
+
+            String msg = e.getMessage();
+            log.info(msg);
+            assertEquals("operator > requires a numeric value, found \"x\" at position 14 in \"a = 1 and b > x\"", msg);
+        }
+    }
+
+    // getRequiredLiterals() -------------------------------------------------------------------------------------------
+
+    @Test
+    public void getRequiredLiterals_StringComparisons() throws Exception {
+
+        assertEquals(Collections.singletonList("GET"),
+                WhereExpression.compile("method = GET").getRequiredLiterals(VERBATIM));
+        assertEquals(Collections.singletonList("/api"),
+                WhereExpression.compile("request-uri ^= /api").getRequiredLiterals(VERBATIM));
+        assertEquals(Collections.singletonList("users"),
+                WhereExpression.compile("request-uri *= users").getRequiredLiterals(VERBATIM));
+
+        assertNull(WhereExpression.compile("method != GET").getRequiredLiterals(VERBATIM));
+        assertNull(WhereExpression.compile("method = ''").getRequiredLiterals(VERBATIM));
+        assertNull(WhereExpression.compile("user-agent *= 'a \\\"b\\\"'").getRequiredLiterals(VERBATIM));
+        assertNull(WhereExpression.compile("status-code = 500").getRequiredLiterals(VERBATIM));
+        assertNull(WhereExpression.compile("method ~ GET").getRequiredLiterals(VERBATIM));
+        assertNull(WhereExpression.compile("not method = GET").getRequiredLiterals(VERBATIM));
+    }
+
+    @Test
+    public void getRequiredLiterals_Conjunction() throws Exception {
+
+        //
+        // the operand with the longest shortest literal
+        //
+        Predicate p = WhereExpression.compile("method = GET and status-code = 200 and request-uri ^= /api/users");
+        assertEquals(Collections.singletonList("/api/users"), p.getRequiredLiterals(VERBATIM));
+
+        assertNull(WhereExpression.compile("status-code = 200 and size > 10").getRequiredLiterals(VERBATIM));
+    }
+
+    @Test
+    public void getRequiredLiterals_Disjunction() throws Exception {
+
+        Predicate p = WhereExpression.compile("method = PUT or method = POST or method = PUT");
+        assertEquals(Arrays.asList("PUT", "POST"), p.getRequiredLiterals(VERBATIM));
+
+        assertNull(WhereExpression.compile("method = PUT or status-code = 500").getRequiredLiterals(VERBATIM));
+    }
+
+    @Test
+    public void getRequiredLiterals_Nested() throws Exception {
+
+        Predicate p = WhereExpression.compile("status-code >= 500 and (request-uri ^= /api or request-uri ^= /admin)");
+        assertEquals(Arrays.asList("/api", "/admin"), p.getRequiredLiterals(VERBATIM));
+    }
+
+    @Test
+    public void getRequiredLiterals_PropertiesNotCopiedVerbatim() throws Exception {
+
+        //
+        // the query string is rendered in canonical form, which may differ from the raw text
+        //
+        assertNull(WhereExpression.compile("query = 'a=1&b=2'").getRequiredLiterals(VERBATIM));
+        assertNull(WhereExpression.compile("method = GET").getRequiredLiterals(Collections.emptySet()));
+
+        Predicate p = WhereExpression.compile("query = 'a=1&b=2' and method = GET");
+        assertEquals(Collections.singletonList("GET"), p.getRequiredLiterals(VERBATIM));
+
+        assertNull(WhereExpression.compile("query *= 'a=1' or method = GET").getRequiredLiterals(VERBATIM));
+    }
+
+    // getPropertyNames() ----------------------------------------------------------------------------------------------
+
+    @Test
+    public void getPropertyNames_SingleComparison() throws Exception {
+
+        assertEquals(Collections.singleton("status-code"),
+                WhereExpression.compile("status-code >= 500").getPropertyNames());
+        assertEquals(Collections.singleton("method"), WhereExpression.compile("method = GET").getPropertyNames());
+        assertEquals(Collections.singleton("user-agent"),
+                WhereExpression.compile("user-agent ~ '.*bot.*'").getPropertyNames());
+    }
+
+    @Test
+    public void getPropertyNames_Nested() throws Exception {
+
+        Predicate p = WhereExpression.compile(
+                "status-code >= 500 and (request-uri ^= /api or not method = GET) and status-code < 600");
+
+        assertEquals(new HashSet<>(Arrays.asList("status-code", "request-uri", "method")), p.getPropertyNames());
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static GenericEvent event(String name, int value) {
+
+        GenericEvent e = new GenericEvent();
+        e.setIntegerProperty(name, value);
+        return e;
+    }
+
+    private static void assertInvalid(String expression) {
+
+        try {
+            WhereExpression.compile(expression);
+            fail("\"" + expression + "\" should have been rejected");
+        }
+        catch(ParsingException e) {
+            log.info(e.getMessage());
+        }
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.novaordis.events.gc.g1;
+
+import io.novaordis.utilities.time.TimestampImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class G1EventTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void properties() throws Exception {
+
+        G1Event e = new G1Event(new TimestampImpl(1000L));
+
+        assertEquals(1000L, e.getTime().longValue());
+        assertNull(e.getCollectionType());
+        assertNull(e.getDuration());
+        assertNull(e.getHeapBefore());
+
+        e.setCollectionType(G1CollectionType.INITIAL_MARK);
+        e.setCause("G1 Humongous Allocation");
+        e.setHeapBefore(3L);
+        e.setHeapAfter(2L);
+        e.setHeapCapacity(4L);
+        e.setDuration(1.5d);
+
+        assertEquals(G1CollectionType.INITIAL_MARK, e.getCollectionType());
+        assertEquals("initial-mark", e.getStringProperty(G1Event.COLLECTION_TYPE).getString());
+        assertEquals("G1 Humongous Allocation", e.getCause());
+        assertEquals(3L, e.getHeapBefore().longValue());
+        assertEquals(2L, e.getHeapAfter().longValue());
+        assertEquals(4L, e.getHeapCapacity().longValue());
+        assertEquals(1.5d, e.getDuration(), 0d);
+    }
+
+    @Test
+    public void collectionType_FromLabel() throws Exception {
+
+        for(G1CollectionType t: G1CollectionType.values()) {
+            assertEquals(t, G1CollectionType.fromLabel(t.getLabel()));
+        }
+
+        assertNull(G1CollectionType.fromLabel("no-such-type"));
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
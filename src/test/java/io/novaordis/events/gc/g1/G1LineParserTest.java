@@ -16,9 +16,23 @@
 
 package io.novaordis.events.gc.g1;
 
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.TimedEvent;
 import io.novaordis.events.core.LineParserTest;
+import io.novaordis.events.sampling.Sampler;
+import io.novaordis.utilities.parsing.ParsingException;
 import org.junit.Test;
 
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
 /**
  * @author Ovidiu Feodorov <ovidiu@novaordis.com>
  * @since 2/14/17
@@ -27,6 +41,8 @@ public class G1LineParserTest extends LineParserTest {
 
     // Constants -------------------------------------------------------------------------------------------------------
 
+    private static final long M = 1024L * 1024;
+
     // Static ----------------------------------------------------------------------------------------------------------
 
     // Attributes ------------------------------------------------------------------------------------------------------
@@ -38,21 +54,386 @@ public class G1LineParserTest extends LineParserTest {
     // Tests -----------------------------------------------------------------------------------------------------------
 
     @Test
-    public void happyPath() throws Exception {
+    public void isDateStamp() throws Exception {
 
-        //
-        // noop for the time being
-        //
+        assertTrue(G1LineParser.isDateStamp("2017-02-14T03:40:58.716-0600: 28.628:", 0));
+        assertTrue(G1LineParser.isDateStamp("[2017-02-14T03:40:58.716+0000]", 1));
+        assertFalse(G1LineParser.isDateStamp("28.628: [GC pause", 0));
+        assertFalse(G1LineParser.isDateStamp("2017-02-14T03:40:58.716", 0));
+    }
+
+    @Test
+    public void parseDecimal() throws Exception {
+
+        assertEquals(28.628d, G1LineParser.parseDecimal("28.628", 0, 6), 0.0000001d);
+        assertEquals(0.2383459d, G1LineParser.parseDecimal("x0.2383459", 1, 10), 0.0000001d);
+        assertEquals(7d, G1LineParser.parseDecimal("7", 0, 1), 0d);
+        assertTrue(Double.isNaN(G1LineParser.parseDecimal("1.2.3", 0, 5)));
+        assertTrue(Double.isNaN(G1LineParser.parseDecimal("12a", 0, 3)));
+        assertTrue(Double.isNaN(G1LineParser.parseDecimal("", 0, 0)));
+    }
+
+    @Test
+    public void parseDateStamp() throws Exception {
+
+        G1LineParser p = new G1LineParser();
+        SimpleDateFormat f = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+        String[] stamps = {
+                "2017-02-14T03:40:58.716-0600",
+                "2017-02-14T23:59:59.999-0600",
+                "2017-02-15T00:00:00.000-0600",
+                "2016-02-29T12:00:00.001+0530",
+                "2016-12-31T23:59:59.999+0000",
+        };
+
+        for(String s: stamps) {
+
+            assertEquals(s, f.parse(s).getTime(), p.parseDateStamp(s, 0, 1L).getTime());
+        }
+
+        assertEquals(-6 * 3600000, p.parseDateStamp(stamps[0], 0, 1L).getTimeOffset().getOffset());
+    }
+
+    @Test
+    public void parseDateStamp_Invalid() throws Exception {
+
+        G1LineParser p = new G1LineParser();
+
+        try {
+            p.parseDateStamp("2017-02-30T03:40:58.716-0600", 0, 3L);
+            fail("should have thrown exception");
+        }
+        catch(ParsingException e) {
+            assertEquals(3L, e.getLineNumber().longValue());
+        }
+
+        try {
+            p.parseDateStamp("2017-02-14T03:4x:58.716-0600", 0, 4L);
+            fail("should have thrown exception");
+        }
+        catch(ParsingException e) {
+            assertEquals(4L, e.getLineNumber().longValue());
+        }
+    }
+
+    //
+    // JDK 8
+    //
+
+    @Test
+    public void jdk8_Young_PrintGC() throws Exception {
+
+        G1LineParser p = new G1LineParser();
+
+        G1Event e = (G1Event)p.parseLine(3L,
+                "2017-02-14T03:40:58.716-0600: 28.628: [GC pause (G1 Evacuation Pause) (young) 24M->21M(256M), " +
+                        "0.0238459 secs]");
+
+        assertEquals(G1CollectionType.YOUNG, e.getCollectionType());
+        assertEquals("G1 Evacuation Pause", e.getCause());
+        assertEquals(3L, e.getLineNumber().longValue());
+        assertEquals(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").parse("2017-02-14T03:40:58.716-0600").getTime(),
+                e.getTime().longValue());
+        assertEquals(28628L, e.getUptime().longValue());
+        assertEquals(24 * M, e.getHeapBefore().longValue());
+        assertEquals(21 * M, e.getHeapAfter().longValue());
+        assertEquals(256 * M, e.getHeapCapacity().longValue());
+        assertEquals(23.8459d, e.getDuration(), 0.000001d);
+        assertNull(e.getCollectionId());
+        assertEquals(G1LogFormat.JDK8, p.getLineFormat());
+        assertFalse(p.isCollectionPending());
+    }
+
+    @Test
+    public void jdk8_InitialMarkMixedFull_PrintGC() throws Exception {
+
+        G1LineParser p = new G1LineParser();
+
+        G1Event e = (G1Event)p.parseLine(1L,
+                "30.1: [GC pause (G1 Humongous Allocation) (young) (initial-mark) 100M->90M(256M), 0.0100 secs]");
+
+        assertEquals(G1CollectionType.INITIAL_MARK, e.getCollectionType());
+        assertEquals("G1 Humongous Allocation", e.getCause());
+        assertEquals(30100L, e.getTime().longValue());
+
+        e = (G1Event)p.parseLine(2L, "31.2: [GC pause (G1 Evacuation Pause) (mixed) 200M->150M(256M), 0.0050 secs]");
+        assertEquals(G1CollectionType.MIXED, e.getCollectionType());
+
+        e = (G1Event)p.parseLine(3L, "32.0: [Full GC (System.gc())  255M->100M(256M), 0.5000 secs]");
+        assertEquals(G1CollectionType.FULL, e.getCollectionType());
+        assertEquals("System.gc()", e.getCause());
+        assertEquals(255 * M, e.getHeapBefore().longValue());
+        assertEquals(500d, e.getDuration(), 0.000001d);
+
+        e = (G1Event)p.parseLine(4L, "32.5: [GC remark 120M->110M(256M), 0.0012 secs]");
+        assertEquals(G1CollectionType.REMARK, e.getCollectionType());
+        assertEquals(110 * M, e.getHeapAfter().longValue());
+
+        e = (G1Event)p.parseLine(5L, "32.6: [GC cleanup 110M->108M(256M), 0.0001 secs]");
+        assertEquals(G1CollectionType.CLEANUP, e.getCollectionType());
+    }
+
+    @Test
+    public void jdk8_ConcurrentPhases() throws Exception {
+
+        G1LineParser p = new G1LineParser();
+
+        assertNull(p.parseLine(1L, "30.2: [GC concurrent-root-region-scan-start]"));
+
+        G1Event e = (G1Event)p.parseLine(2L, "30.3: [GC concurrent-root-region-scan-end, 0.0002 secs]");
+        assertEquals(G1CollectionType.CONCURRENT_PHASE, e.getCollectionType());
+        assertEquals("root-region-scan", e.getPhase());
+        assertEquals(0.2d, e.getDuration(), 0.000001d);
+
+        assertNull(p.parseLine(3L, "30.3: [GC concurrent-mark-start]"));
+
+        e = (G1Event)p.parseLine(4L, "30.5: [GC concurrent-mark-end, 0.1234 secs]");
+        assertEquals("mark", e.getPhase());
+        assertEquals(123.4d, e.getDuration(), 0.000001d);
+
+        e = (G1Event)p.parseLine(5L, "30.6: [GC concurrent-mark-abort]");
+        assertEquals("mark-abort", e.getPhase());
+        assertNull(e.getDuration());
+    }
+
+    @Test
+    public void jdk8_PrintGCDetails() throws Exception {
+
+        String[] lines = {
+                "2017-02-14T03:40:58.716-0600: 28.628: [GC pause (G1 Evacuation Pause) (young), 0.2383459 secs]",
+                "   [Parallel Time: 235.2 ms, GC Workers: 2]",
+                "      [GC Worker Start (ms): Min: 28628.5, Avg: 28628.6, Max: 28628.6, Diff: 0.1]",
+                "   [Code Root Fixup: 0.0 ms]",
+                "   [Eden: 24.0M(24.0M)->0.0B(13.0M) Survivors: 0.0B->3072.0K Heap: 24.0M(256.0M)->21.9M(256.0M)]",
+                " [Times: user=0.03 sys=0.01, real=0.24 secs] ",
+                "2017-02-14T03:40:59.000-0600: 28.912: [GC remark 2017-02-14T03:40:59.000-0600: 28.912: " +
+                        "[Finalize Marking, 0.0001 secs] 2017-02-14T03:40:59.000-0600: 28.912: [GC ref-proc, " +
+                        "0.0002 secs], 0.0050 secs]",
+                " [Times: user=0.01 sys=0.00, real=0.01 secs] ",
+                "2017-02-14T03:41:00.000-0600: 29.912: [Full GC (Allocation Failure)  255M->100M(256M), 0.5000 secs]",
+                "   [Eden: 0.0B(12.0M)->0.0B(12.0M) Survivors: 0.0B->0.0B Heap: 255.6M(256.0M)->100.2M(256.0M)], " +
+                        "[Metaspace: 3004K->3004K(1056768K)]",
+                " [Times: user=0.60 sys=0.01, real=0.50 secs] ",
+        };
+
+        G1LineParser p = new G1LineParser();
+        List<G1Event> events = parse(p, lines);
+
+        assertEquals(3, events.size());
+
+        G1Event e = events.get(0);
+        assertEquals(G1CollectionType.YOUNG, e.getCollectionType());
+        assertEquals(1L, e.getLineNumber().longValue());
+        assertEquals(238.3459d, e.getDuration(), 0.000001d);
+        assertEquals(24 * M, e.getHeapBefore().longValue());
+        assertEquals(Math.round(21.9d * M), e.getHeapAfter().longValue());
+        assertEquals(256 * M, e.getHeapCapacity().longValue());
+
+        e = events.get(1);
+        assertEquals(G1CollectionType.REMARK, e.getCollectionType());
+        assertEquals(7L, e.getLineNumber().longValue());
+        assertEquals(5d, e.getDuration(), 0.000001d);
+        assertNull(e.getHeapBefore());
+
+        e = events.get(2);
+        assertEquals(G1CollectionType.FULL, e.getCollectionType());
+        assertEquals(9L, e.getLineNumber().longValue());
+        assertEquals(100 * M, e.getHeapAfter().longValue());
+
+        assertFalse(p.isCollectionPending());
+    }
+
+    @Test
+    public void jdk8_InterruptedCollection() throws Exception {
+
+        G1LineParser p = new G1LineParser();
 
+        assertNull(p.parseLine(1L, "28.628: [GC pause (G1 Evacuation Pause) (young), 0.2383459 secs]"));
+        assertTrue(p.isCollectionPending());
+
+        G1Event e = (G1Event)p.parseLine(2L, "29.000: [GC pause (G1 Evacuation Pause) (mixed), 0.1 secs]");
+
+        assertEquals(G1CollectionType.YOUNG, e.getCollectionType());
+        assertEquals(1L, e.getLineNumber().longValue());
+        assertTrue(p.isCollectionPending());
+
+        e = (G1Event)p.parseLine(3L, " [Times: user=0.01 sys=0.00, real=0.10 secs]");
+        assertEquals(G1CollectionType.MIXED, e.getCollectionType());
+        assertEquals(2L, e.getLineNumber().longValue());
+        assertFalse(p.isCollectionPending());
     }
 
     @Test
-    public void emptyLine() throws Exception {
+    public void jdk8_CollectionInterruptedByCompleteSingleLineCollection() throws Exception {
+
+        G1LineParser p = new G1LineParser();
+
+        assertNull(p.parseLine(1L, "28.628: [GC pause (G1 Evacuation Pause) (young), 0.2383459 secs]"));
+        assertTrue(p.isCollectionPending());
 
         //
-        // noop for the time being
+        // the interrupted collection is discarded, the complete one is returned
         //
+        G1Event e = (G1Event)p.parseLine(2L, "29.000: [Full GC (Allocation Failure) 24M->21M(256M), 0.5 secs]");
+
+        assertEquals(G1CollectionType.FULL, e.getCollectionType());
+        assertEquals(2L, e.getLineNumber().longValue());
+        assertFalse(p.isCollectionPending());
+
+        assertNull(p.parseLine(3L, " [Times: user=0.01 sys=0.00, real=0.10 secs]"));
+    }
+
+    @Test
+    public void jdk8_NoTimestamps() throws Exception {
+
+        G1LineParser p = new G1LineParser();
+
+        G1Event e = (G1Event)p.parseLine(1L, "[GC pause (G1 Evacuation Pause) (young) 24M->21M(256M), 0.02 secs]");
+
+        assertEquals(G1CollectionType.YOUNG, e.getCollectionType());
+        assertNull(e.getTime());
+        assertNull(e.getUptime());
+    }
+
+    @Test
+    public void jdk8_IrrelevantLines() throws Exception {
 
+        G1LineParser p = new G1LineParser();
+
+        assertNull(p.parseLine(1L, "Java HotSpot(TM) 64-Bit Server VM (25.121-b13) for linux-amd64 JRE"));
+        assertNull(p.parseLine(2L, "CommandLine flags: -XX:+UseG1GC"));
+        assertNull(p.parseLine(3L, " [Times: user=0.01 sys=0.00, real=0.10 secs]"));
+        assertNull(p.parseLine(4L, "Heap"));
+        assertNull(p.parseLine(5L, " garbage-first heap   total 262144K, used 22400K"));
+        assertNull(p.getLineFormat());
+    }
+
+    //
+    // unified logging
+    //
+
+    @Test
+    public void unified_UptimeDecoration() throws Exception {
+
+        G1LineParser p = new G1LineParser();
+
+        assertNull(p.parseLine(1L, "[0.015s][info][gc] Using G1"));
+
+        G1Event e = (G1Event)p.parseLine(2L,
+                "[0.345s][info][gc] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 4.123ms");
+
+        assertEquals(G1CollectionType.YOUNG, e.getCollectionType());
+        assertEquals("G1 Evacuation Pause", e.getCause());
+        assertEquals(0L, e.getCollectionId().longValue());
+        assertEquals(345L, e.getUptime().longValue());
+        assertEquals(345L, e.getTime().longValue());
+        assertEquals(24 * M, e.getHeapBefore().longValue());
+        assertEquals(3 * M, e.getHeapAfter().longValue());
+        assertEquals(256 * M, e.getHeapCapacity().longValue());
+        assertEquals(4.123d, e.getDuration(), 0.000001d);
+        assertEquals(G1LogFormat.UNIFIED, p.getLineFormat());
+    }
+
+    @Test
+    public void unified_AllTypes() throws Exception {
+
+        String[] lines = {
+                "[1.200s][info][gc] GC(3) Pause Young (Concurrent Start) (G1 Humongous Allocation) 100M->90M(256M) 2.1ms",
+                "[1.201s][info][gc] GC(4) Concurrent Cycle",
+                "[1.350s][info][gc] GC(4) Pause Remark 120M->110M(256M) 1.2ms",
+                "[1.360s][info][gc] GC(4) Pause Cleanup 110M->110M(256M) 0.1ms",
+                "[1.400s][info][gc] GC(4) Concurrent Cycle 199.123ms",
+                "[2.000s][info][gc] GC(5) Pause Young (Prepare Mixed) (G1 Evacuation Pause) 200M->180M(256M) 3.0ms",
+                "[3.000s][info][gc] GC(6) Pause Young (Mixed) (G1 Evacuation Pause) 200M->150M(256M) 5.0ms",
+                "[4.000s][info][gc] GC(7) Pause Full (System.gc()) 250M->100M(256M) 300.5ms",
+                "[5.000s][info][gc] GC(8) Pause Initial Mark (G1 Evacuation Pause) 100M->90M(256M) 2.0ms",
+                "[6.000s][info][gc] GC(9) Pause Mixed (G1 Evacuation Pause) 100M->90M(256M) 2.0ms",
+        };
+
+        List<G1Event> events = parse(new G1LineParser(), lines);
+
+        G1CollectionType[] expected = {
+                G1CollectionType.INITIAL_MARK,
+                G1CollectionType.REMARK,
+                G1CollectionType.CLEANUP,
+                G1CollectionType.CONCURRENT_CYCLE,
+                G1CollectionType.YOUNG,
+                G1CollectionType.MIXED,
+                G1CollectionType.FULL,
+                G1CollectionType.INITIAL_MARK,
+                G1CollectionType.MIXED,
+        };
+
+        assertEquals(expected.length, events.size());
+
+        for(int i = 0; i < expected.length; i ++) {
+            assertEquals(expected[i], events.get(i).getCollectionType());
+        }
+
+        assertEquals("G1 Humongous Allocation", events.get(0).getCause());
+        assertEquals(199.123d, events.get(3).getDuration(), 0.000001d);
+        assertNull(events.get(3).getHeapBefore());
+        assertEquals(4L, events.get(3).getCollectionId().longValue());
+        assertEquals("System.gc()", events.get(6).getCause());
+    }
+
+    @Test
+    public void unified_Decorations() throws Exception {
+
+        G1LineParser p = new G1LineParser();
+
+        G1Event e = (G1Event)p.parseLine(1L,
+                "[2019-01-03T10:12:13.123+0100][5.123s][info ][gc        ] GC(2) Pause Young (Normal) " +
+                        "(G1 Evacuation Pause) 24M->3M(256M) 4.0ms");
+
+        assertEquals(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").parse("2019-01-03T10:12:13.123+0100").getTime(),
+                e.getTime().longValue());
+        assertEquals(5123L, e.getUptime().longValue());
+
+        e = (G1Event)p.parseLine(2L,
+                "[1546506733123ms][5123ms][1234][info][gc] GC(2) Pause Young (Normal) (G1 Evacuation Pause) " +
+                        "24M->3M(256M) 4.0ms");
+
+        assertEquals(1546506733123L, e.getTime().longValue());
+        assertEquals(5123L, e.getUptime().longValue());
+    }
+
+    @Test
+    public void unified_OtherTagsAreIgnored() throws Exception {
+
+        G1LineParser p = new G1LineParser();
+
+        assertNull(p.parseLine(1L, "[0.345s][info][gc,start    ] GC(0) Pause Young (Normal) (G1 Evacuation Pause)"));
+        assertNull(p.parseLine(2L, "[0.349s][info][gc,heap     ] GC(0) Eden regions: 24->0(13)"));
+        assertNull(p.parseLine(3L, "[0.349s][info][gc,cpu      ] GC(0) User=0.01s Sys=0.00s Real=0.00s"));
+        assertNull(p.parseLine(4L, "[0.349s][info][gc,marking] GC(4) Concurrent Mark (1.234s, 1.456s) 222.2ms"));
+    }
+
+    //
+    // pipeline
+    //
+
+    @Test
+    public void events_SampledByDuration() throws Exception {
+
+        String[] lines = {
+                "[0.100s][info][gc] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 4.0ms",
+                "[0.200s][info][gc] GC(1) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 6.0ms",
+                "[1.500s][info][gc] GC(2) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 1.0ms",
+        };
+
+        Sampler sampler = new Sampler(1000L, G1Event.DURATION);
+
+        for(G1Event e: parse(new G1LineParser(), lines)) {
+            sampler.process(e);
+        }
+
+        List<Event> samples = sampler.getEvents();
+
+        assertEquals(1, samples.size());
+        assertEquals(0L, ((TimedEvent)samples.get(0)).getTime().longValue());
+        assertEquals(5d, ((Number)samples.get(0).getProperty("average-per-sample").getValue()).doubleValue(), 0d);
     }
 
     // Package protected -----------------------------------------------------------------------------------------------
@@ -74,11 +455,28 @@ public class G1LineParserTest extends LineParserTest {
     @Override
     protected String getValidLineForLineParserToTest() throws Exception {
 
-        return "2017-02-14T03:40:58.716-0600: 28.628: [GC pause (G1 Evacuation Pause) (young), 0.2383459 secs]";
+        return "2017-02-14T03:40:58.716-0600: 28.628: [GC pause (G1 Evacuation Pause) (young) 24M->21M(256M), " +
+                "0.2383459 secs]";
     }
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    private static List<G1Event> parse(G1LineParser p, String[] lines) throws Exception {
+
+        List<G1Event> events = new ArrayList<>();
+
+        for(int i = 0; i < lines.length; i ++) {
+
+            Event e = p.parseLine(i + 1, lines[i]);
+
+            if (e != null) {
+                events.add((G1Event)e);
+            }
+        }
+
+        return events;
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
 }
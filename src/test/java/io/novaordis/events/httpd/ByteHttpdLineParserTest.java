@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import io.novaordis.clad.option.TimestampOption;
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.Property;
+import io.novaordis.events.clad.MockConfiguration;
+import io.novaordis.events.core.LineParserTest;
+import io.novaordis.events.core.TimeWindow;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ByteHttpdLineParserTest extends LineParserTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void newInstance() throws Exception {
+
+        ByteHttpdLineParser p = ByteHttpdLineParser.newInstance(HttpdLogFormat.PERFORMANCE_ANALYSIS);
+
+        assertNotNull(p);
+        assertTrue(p.isBytePath());
+        assertEquals(HttpdLogFormat.PERFORMANCE_ANALYSIS, p.getHttpdLogFormat());
+    }
+
+    @Test
+    public void newInstance_NullFormat() throws Exception {
+
+        assertNull(ByteHttpdLineParser.newInstance(null));
+    }
+
+    @Test
+    public void compile_UnenclosedUserAgent_StringPath() throws Exception {
+
+        ByteHttpdLineParser p = new ByteHttpdLineParser(new HttpdLogFormat("%h %{i,User-Agent}"));
+
+        assertFalse(p.isBytePath());
+
+        String line = "127.0.0.1 Mozilla/5.0 (X11; Linux x86_64)";
+
+        assertEquals(toMap(new HttpdLineParser(p.getHttpdLogFormat()).parseLine(1L, line)),
+                toMap(parse(p, 1L, line)));
+        assertEquals(1L, p.getStringPathLineCount());
+    }
+
+    // parseLine() -----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void parseLine_SameEventsAsStringParser() throws Exception {
+
+        String[] lines = {
+                "\"default task-1\" 127.0.0.1 - [21/Jan/2016:09:32:56 -0800] \"GET /something HTTP/1.1\" \"a=b&c=d\" 404 74 27",
+                "\"default task-2\" 127.0.0.1 bob [21/Jan/2016:09:32:57 -0800] \"POST /a HTTP/1.1\" \"e=f\" 200 - 1",
+                "  \"default task-3\"   10.0.0.1  -  [21/Jan/2016:09:32:58 -0800]  \"GET / HTTP/1.1\"  \"-\"  500  0  3  x",
+                "\"default task-4\" 127.0.0.1 - [21/Jan/2016:09:32:59 -0800] \"GET /\u00e9 HTTP/1.1\" \"x\" +200 -1 5  ",
+                "\"default task-5\" 127.0.0.1 - [21/Jan/2016:09:32:59 -0800] \"GET / HTTP/1.1\" \"x\" 200 " +
+                        "123456789012345678901 5",
+        };
+
+        ByteHttpdLineParser p = new ByteHttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS);
+        HttpdLineParser reference = new HttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS);
+
+        for(String line: lines) {
+
+            assertEquals(line, outcome(() -> reference.parseLine(7L, line)), outcome(() -> parse(p, 7L, line)));
+        }
+    }
+
+    @Test
+    public void parseLine_Faults_SameAsStringParser() throws Exception {
+
+        String[] lines = {
+                "127.0.0.1 - - 20/Jan/2016:03:42:11 -0800 \"GET /something HTTP/1.1\" 200 1024",
+                "127.0.0.1 - - [20/Jan/2016:03:42:11 -0800] \"GET /something HTTP/1.1\" 200 blah",
+                "127.0.0.1 - - [20/Jan/2016:03:42:11 -0800] \"GET /something HTTP/1.1\" 2000000000000 1",
+                "127.0.0.1 - - [20/Jan/2016:03:42:11 -0800",
+                "127.0.0.1 - - [20/Jan/2016:03:42:11 -0800] \"GET",
+                "127.0.0.1 - - [not a timestamp] \"GET / HTTP/1.1\" 200 1",
+        };
+
+        ByteHttpdLineParser p = new ByteHttpdLineParser(HttpdLogFormat.COMMON);
+        HttpdLineParser reference = new HttpdLineParser(HttpdLogFormat.COMMON);
+
+        for(String line: lines) {
+
+            String expected = outcome(() -> reference.parseLine(3L, line));
+            assertTrue(expected, expected.startsWith("exception"));
+            assertEquals(line, expected, outcome(() -> parse(p, 3L, line)));
+        }
+
+        assertEquals(lines.length, p.getStringPathLineCount());
+    }
+
+    @Test
+    public void parseLine_Span() throws Exception {
+
+        byte[] buffer = "xxx127.0.0.1 - - [09/Jan/2016:20:06:07 -0800] \"OPTIONS * HTTP/1.0\" 200 -\nyyy"
+                .getBytes(StandardCharsets.ISO_8859_1);
+
+        ByteHttpdLineParser p = new ByteHttpdLineParser(HttpdLogFormat.COMMON);
+
+        HttpEvent e = (HttpEvent)p.parseLine(1L, buffer, 3, buffer.length - 4);
+
+        assertEquals("127.0.0.1", e.getRemoteHost());
+        assertNull(e.getRemoteLogname());
+        assertEquals("OPTIONS * HTTP/1.0", e.getFirstRequestLine());
+        assertEquals(200, e.getStatusCode().intValue());
+        assertNull(e.getResponseEntityBodySize());
+        assertEquals(1L, e.getLineNumber().longValue());
+        assertEquals(0L, p.getStringPathLineCount());
+    }
+
+    @Test
+    public void parseLine_BlankLine() throws Exception {
+
+        ByteHttpdLineParser p = new ByteHttpdLineParser(HttpdLogFormat.COMMON);
+
+        assertNull(p.parseLine(1L, new byte[] { ' ', '\t', ' ' }, 0, 3));
+        assertNull(p.parseLine(1L, new byte[0], 0, 0));
+    }
+
+    @Test
+    public void parseLine_RemoteHostIsInterned() throws Exception {
+
+        ByteHttpdLineParser p = new ByteHttpdLineParser(HttpdLogFormat.COMMON);
+
+        String line = "10.0.0.1 - - [09/Jan/2016:20:06:07 -0800] \"GET / HTTP/1.0\" 200 1";
+
+        HttpEvent e = (HttpEvent)parse(p, 1L, line);
+        HttpEvent e2 = (HttpEvent)parse(p, 2L, line);
+
+        assertTrue(e.getRemoteHost() == e2.getRemoteHost());
+    }
+
+    @Test
+    public void parseLine_NotRequiredFieldsAreDecodedOnAccess() throws Exception {
+
+        ByteHttpdLineParser p = new ByteHttpdLineParser(HttpdLogFormat.COMMON);
+        p.setRequiredProperties(Collections.singleton(HttpEvent.STATUS_CODE));
+
+        HttpEvent e = (HttpEvent)parse(p, 1L, "10.0.0.1 - - [09/Jan/2016:20:06:07 -0800] \"GET / HTTP/1.0\" 200 1");
+
+        assertEquals(200, e.getStatusCode().intValue());
+        assertNotNull(e.getTime());
+        assertTrue(e.hasUndecodedValues());
+
+        assertEquals("10.0.0.1", e.getRemoteHost());
+        assertEquals("GET", e.getMethod());
+        assertEquals(1L, e.getResponseEntityBodySize().longValue());
+        assertNull(e.getRemoteUser());
+        assertNull(e.getRemoteLogname());
+        assertFalse(e.hasUndecodedValues());
+    }
+
+    @Test
+    public void parseLine_TimeWindow() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new TimestampOption(null, "from", "09/18/16 19:00:00"));
+        mc.addGlobalOption(new TimestampOption(null, "to", "09/18/16 20:00:00"));
+
+        ByteHttpdLineParser p = new ByteHttpdLineParser(HttpdLogFormat.COMMON);
+        p.setTimeWindow(TimeWindow.buildInstance(mc));
+
+        //
+        // the timestamp is checked even if it is not used downstream
+        //
+        p.setRequiredProperties(Collections.singleton(HttpEvent.REQUEST_URI));
+
+        HttpEvent e = (HttpEvent)parse(p, 1L, "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /a HTTP/1.1\" 200 10");
+        assertNotNull(e);
+        assertEquals("/a", e.getRequestUri());
+
+        assertNull(parse(p, 2L, "127.0.0.1 - - [18/Sep/2016:18:59:59 -0400] \"GET /b HTTP/1.1\" 200 10"));
+        assertNull(parse(p, 3L, "127.0.0.1 - - [18/Sep/2016:20:00:01 -0400] \"GET /c HTTP/1.1\" 200 10"));
+
+        assertEquals(2L, p.getOutsideTimeWindowLineCount());
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    @Override
+    protected ByteHttpdLineParser getLineParserToTest(String format) throws Exception {
+
+        return new ByteHttpdLineParser(new HttpdLogFormat(format));
+    }
+
+    @Override
+    protected String getValidFormatForLineParserToTest() throws Exception {
+
+        return HttpdFormatStrings.REMOTE_HOST.getLiteral();
+    }
+
+    @Override
+    protected String getValidLineForLineParserToTest() throws Exception {
+        return "127.0.0.1";
+    }
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static Event parse(ByteHttpdLineParser p, long lineNumber, String line) throws Exception {
+
+        byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+        return p.parseLine(lineNumber, bytes, 0, bytes.length);
+    }
+
+    /**
+     * @return the event properties, or the exception, as a comparable string.
+     */
+    private static String outcome(ParsingAction action) {
+
+        try {
+
+            Event e = action.parse();
+            return e == null ? "null" : toMap(e).toString();
+        }
+        catch(Exception e) {
+
+            return "exception " + e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    private static Map<String, String> toMap(Event e) {
+
+        Map<String, String> m = new TreeMap<>();
+
+        for(Property p: e.getProperties()) {
+            m.put(p.getName(), String.valueOf(p.getValue()));
+        }
+
+        return m;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+    private interface ParsingAction {
+
+        Event parse() throws Exception;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import io.novaordis.events.api.event.EndOfStreamEvent;
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.FaultEvent;
+import io.novaordis.events.api.event.Property;
+import io.novaordis.events.core.ClosedException;
+import io.novaordis.events.core.LineStreamParser;
+import io.novaordis.events.core.event.ByteToLineEventConverter;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class ByteToHttpEventConverterTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final String CONTENT =
+            "127.0.0.1 - - [09/Jan/2016:20:06:07 -0800] \"GET /a HTTP/1.0\" 200 1\n" +
+            "127.0.0.2 - bob [09/Jan/2016:20:06:08 -0800] \"GET /b HTTP/1.0\" 404 -\r\n" +
+            "\n" +
+            "   \r\n" +
+            "this is not a log line\n" +
+            "127.0.0.3 - - [09/Jan/2016:20:06:09 -0800] \"POST /c\rd HTTP/1.0\" 500 10\n" +
+            "127.0.0.4 - - [09/Jan/2016:20:06:10 -0800] \"GET /\u00e9 HTTP/1.0\" 200 0\r\n" +
+            "127.0.0.5 - - [09/Jan/2016:20:06:11 -0800] \"GET /last HTTP/1.0\" 200 3";
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_NullParser() throws Exception {
+
+        try {
+            new ByteToHttpEventConverter(null);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void process_SameEventsAsLineConverterAndParser_AnyBufferSize() throws Exception {
+
+        byte[] bytes = CONTENT.getBytes(StandardCharsets.ISO_8859_1);
+
+        List<String> expected = referenceEvents(bytes);
+
+        //
+        // sanity check: five events, one fault, end of stream
+        //
+        assertEquals(7, expected.size());
+        assertTrue(expected.get(2).startsWith("fault"));
+
+        for(int bufferSize = 1; bufferSize <= bytes.length; bufferSize ++) {
+
+            ByteToHttpEventConverter c = new ByteToHttpEventConverter(
+                    new ByteHttpdLineParser(HttpdLogFormat.COMMON));
+
+            List<String> actual = new ArrayList<>();
+
+            for(int i = 0; i < bytes.length; i += bufferSize) {
+
+                c.process(bytes, i, Math.min(bufferSize, bytes.length - i));
+                actual.addAll(toStrings(c.getEvents()));
+            }
+
+            c.process(-1);
+            actual.addAll(toStrings(c.getEvents()));
+
+            assertEquals("buffer size " + bufferSize, expected, actual);
+            assertTrue(c.isClosed());
+        }
+    }
+
+    @Test
+    public void process_SingleBytes() throws Exception {
+
+        byte[] bytes = CONTENT.getBytes(StandardCharsets.ISO_8859_1);
+
+        ByteToHttpEventConverter c = new ByteToHttpEventConverter(new ByteHttpdLineParser(HttpdLogFormat.COMMON));
+
+        List<String> actual = new ArrayList<>();
+
+        for(byte b: bytes) {
+
+            c.process(b & 0xFF);
+            actual.addAll(toStrings(c.getEvents()));
+        }
+
+        c.process(-1);
+        actual.addAll(toStrings(c.getEvents()));
+
+        assertEquals(referenceEvents(bytes), actual);
+    }
+
+    @Test
+    public void process_Offset() throws Exception {
+
+        byte[] bytes = "xx127.0.0.1 - - [09/Jan/2016:20:06:07 -0800] \"GET /a HTTP/1.0\" 200 1\nxx"
+                .getBytes(StandardCharsets.ISO_8859_1);
+
+        ByteToHttpEventConverter c = new ByteToHttpEventConverter(new ByteHttpdLineParser(HttpdLogFormat.COMMON));
+
+        assertTrue(c.process(bytes, 2, bytes.length - 4));
+
+        List<Event> events = c.getEvents();
+        assertEquals(1, events.size());
+        assertEquals("127.0.0.1", ((HttpEvent)events.get(0)).getRemoteHost());
+    }
+
+    @Test
+    public void process_AfterEndOfStream() throws Exception {
+
+        ByteToHttpEventConverter c = new ByteToHttpEventConverter(new ByteHttpdLineParser(HttpdLogFormat.COMMON));
+
+        assertTrue(c.process(-1));
+        assertTrue(c.getEvents().get(0) instanceof EndOfStreamEvent);
+
+        try {
+            c.process(new byte[] { 'a' }, 0, 1);
+            fail("should have thrown exception");
+        }
+        catch(ClosedException e) {
+            // ok
+        }
+
+        try {
+            c.process('a');
+            fail("should have thrown exception");
+        }
+        catch(ClosedException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void process_InvalidByte() throws Exception {
+
+        ByteToHttpEventConverter c = new ByteToHttpEventConverter(new ByteHttpdLineParser(HttpdLogFormat.COMMON));
+
+        try {
+            c.process(256);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * @return the string representations of the events produced by a ByteToLineEventConverter followed by a
+     * LineStreamParser.
+     */
+    private static List<String> referenceEvents(byte[] bytes) throws Exception {
+
+        ByteToLineEventConverter converter = new ByteToLineEventConverter();
+        LineStreamParser parser = new LineStreamParser(new HttpdLineParser(HttpdLogFormat.COMMON));
+
+        List<Event> lines = new ArrayList<>();
+
+        for(byte b: bytes) {
+
+            converter.process(b & 0xFF);
+            lines.addAll(converter.getEvents());
+        }
+
+        converter.process(-1);
+        lines.addAll(converter.getEvents());
+
+        List<Event> events = new ArrayList<>();
+
+        for(Event e: lines) {
+
+            parser.process(e);
+            events.addAll(parser.getEvents());
+        }
+
+        //
+        // the parser consumes the end of stream, which is relayed by the enclosing component
+        //
+        events.add(new EndOfStreamEvent());
+
+        return toStrings(events);
+    }
+
+    private static List<String> toStrings(List<Event> events) {
+
+        List<String> result = new ArrayList<>();
+
+        for(Event e: events) {
+
+            if (e instanceof FaultEvent) {
+
+                result.add("fault " + e.getLineNumber());
+            }
+            else if (e instanceof EndOfStreamEvent) {
+
+                result.add("end of stream");
+            }
+            else {
+
+                Map<String, String> m = new TreeMap<>();
+
+                for(Property p: e.getProperties()) {
+                    m.put(p.getName(), String.valueOf(p.getValue()));
+                }
+
+                result.add(m.toString());
+            }
+        }
+
+        return result;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -85,6 +85,26 @@ public class HttpEventTest {
         assertEquals("test-cookie-value", e.getCookie("test-cookie-name"));
     }
 
+    @Test
+    public void getCookie_ExtractedOnDemandFromTheCookieRequestHeader() throws Exception {
+
+        HttpEvent e = getEventToTest(0L);
+        e.setRequestHeader(HttpEvent.COOKIE_REQUEST_HEADER, "a=b; JSESSIONID=abc123; c=d");
+
+        assertEquals("abc123", e.getCookie(HttpEvent.JSESSIONID_COOKIE_KEY));
+        assertNull(e.getCookie("no-such-cookie"));
+    }
+
+    @Test
+    public void getCookie_IndividuallyLoggedCookieTakesPrecedence() throws Exception {
+
+        HttpEvent e = getEventToTest(0L);
+        e.setRequestHeader(HttpEvent.COOKIE_REQUEST_HEADER, "JSESSIONID=from-header");
+        e.setCookie(HttpEvent.JSESSIONID_COOKIE_KEY, "logged");
+
+        assertEquals("logged", e.getCookie(HttpEvent.JSESSIONID_COOKIE_KEY));
+    }
+
     // setCookie() -----------------------------------------------------------------------------------------------------
 
     @Test
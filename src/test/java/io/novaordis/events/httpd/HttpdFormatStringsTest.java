@@ -531,6 +531,116 @@ public class HttpdFormatStringsTest extends HttpdFormatStringTest {
         }
     }
 
+    // parseLong()/parseDouble() ---------------------------------------------------------------------------------------
+
+    @Test
+    public void parseLong() throws Exception {
+
+        String line = "blah 200 -17 +3 blah";
+
+        assertEquals(200L, HttpdFormatStrings.STATUS_CODE.parseLong(line, 5, 8, null, null));
+        assertEquals(-17L, HttpdFormatStrings.RESPONSE_ENTITY_BODY_SIZE.parseLong(line, 9, 12, null, null));
+        assertEquals(3L, HttpdFormatStrings.REQUEST_PROCESSING_TIME_MS.parseLong(line, 13, 15, null, null));
+    }
+
+    @Test
+    public void parseLong_LongValues() throws Exception {
+
+        String line = "9223372036854775807 -9223372036854775808";
+
+        assertEquals(Long.MAX_VALUE, HttpdFormatStrings.BYTES_TRANSFERRED.parseLong(line, 0, 19, null, null));
+        assertEquals(Long.MIN_VALUE, HttpdFormatStrings.BYTES_TRANSFERRED.parseLong(line, 20, 40, null, null));
+    }
+
+    @Test
+    public void parseLong_IntegerOverflow() throws Exception {
+
+        String line = "2147483648";
+
+        try {
+            HttpdFormatStrings.STATUS_CODE.parseLong(line, 0, line.length(), 7L, 11);
+            fail("should throw exception");
+        }
+        catch(ParsingException pe) {
+
+            String msg = pe.getMessage();
+            log.info(msg);
+            assertEquals(HttpdFormatStrings.STATUS_CODE + " string representation \"2147483648\" is not a valid integer",
+                    msg);
+            assertEquals(7L, pe.getLineNumber().longValue());
+            assertEquals(11, pe.getPositionInLine().intValue());
+        }
+    }
+
+    @Test
+    public void parseLong_NotANumber_SameErrorAsParse() throws Exception {
+
+        String line = "blah 2OO blah";
+
+        String expected = null;
+
+        try {
+            HttpdFormatStrings.RESPONSE_ENTITY_BODY_SIZE.parse("2OO", 1L, 5);
+            fail("should throw exception");
+        }
+        catch(ParsingException pe) {
+            expected = pe.getMessage();
+        }
+
+        try {
+            HttpdFormatStrings.RESPONSE_ENTITY_BODY_SIZE.parseLong(line, 5, 8, 1L, 5);
+            fail("should throw exception");
+        }
+        catch(ParsingException pe) {
+
+            log.info(pe.getMessage());
+            assertEquals(expected, pe.getMessage());
+            assertTrue(pe.getCause() instanceof NumberFormatException);
+        }
+    }
+
+    @Test
+    public void parseLong_EmptyRange() throws Exception {
+
+        try {
+            HttpdFormatStrings.STATUS_CODE.parseLong("blah", 4, 4, null, null);
+            fail("should throw exception");
+        }
+        catch(ParsingException pe) {
+
+            log.info(pe.getMessage());
+            assertTrue(pe.getMessage().contains("empty string"));
+        }
+    }
+
+    @Test
+    public void parseDouble() throws Exception {
+
+        HttpdFormatStrings fs = HttpdFormatStrings.REQUEST_PROCESSING_TIME_S;
+
+        for(String s: new String[] { "0", "1", "-0", "0.001", "1.5", "-2.25", "123456.789012", ".5", "5.",
+                "0.1234567890123456789", "1e3", "NaN", "12345678901234567890" }) {
+
+            assertEquals(s, Double.parseDouble(s), fs.parseDouble("x" + s + "x", 1, s.length() + 1, null, null), 0.0d);
+            assertEquals(s, Double.doubleToRawLongBits(Double.parseDouble(s)),
+                    Double.doubleToRawLongBits(fs.parseDouble(s, 0, s.length(), null, null)));
+        }
+    }
+
+    @Test
+    public void parseDouble_Invalid() throws Exception {
+
+        try {
+            HttpdFormatStrings.REQUEST_PROCESSING_TIME_S.parseDouble("1.2.3", 0, 5, null, null);
+            fail("should throw exception");
+        }
+        catch(ParsingException pe) {
+
+            log.info(pe.getMessage());
+            assertTrue(pe.getMessage().contains("is not a valid double"));
+        }
+    }
+
     @Test
     public void ignore() throws Exception {
 
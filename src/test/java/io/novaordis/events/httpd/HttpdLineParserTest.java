@@ -16,21 +16,29 @@
 
 package io.novaordis.events.httpd;
 
+import io.novaordis.clad.option.TimestampOption;
 import io.novaordis.utilities.parsing.ParsingException;
 import io.novaordis.events.api.event.Event;
 import io.novaordis.events.api.event.FaultEvent;
 import io.novaordis.events.api.event.LineEvent;
 import io.novaordis.events.core.LineParserTest;
 import io.novaordis.events.core.LineStreamParser;
+import io.novaordis.events.core.TimeWindow;
+import io.novaordis.events.clad.MockConfiguration;
 import io.novaordis.events.core.event.MockEvent;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -372,6 +380,215 @@ public class HttpdLineParserTest extends LineParserTest {
         }
     }
 
+    // setRequiredProperties() -----------------------------------------------------------------------------------------
+
+    @Test
+    public void setRequiredProperties() throws Exception {
+
+        String line = "\"default task-1\" 127.0.0.1 - [21/Jan/2016:09:32:56 -0800] \"GET /something HTTP/1.1\" \"a=b&c=d\" 404 74 27";
+
+        HttpdLineParser parser = new HttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS);
+
+        parser.setRequiredProperties(new HashSet<>(Arrays.asList(HttpEvent.REQUEST_DURATION, HttpEvent.METHOD)));
+
+        HttpEvent e = (HttpEvent)parser.parseLine(1L, line);
+
+        assertEquals(TestDate.create("01/21/16 09:32:56 -0800").getTime(), e.getTime().longValue());
+        assertEquals(27, e.getRequestDuration().longValue());
+        assertEquals("GET", e.getMethod());
+        assertEquals("/something", e.getRequestUri());
+        assertTrue(e.hasUndecodedValues());
+
+        //
+        // the values that are not required are decoded on access
+        //
+        assertEquals("default task-1", e.getThreadName());
+        assertEquals("127.0.0.1", e.getRemoteHost());
+        assertEquals("a=b&c=d", e.getQueryString());
+        assertTrue(e.hasUndecodedValues());
+        assertEquals(404, e.getOriginalRequestStatusCode().intValue());
+        assertEquals(74L, e.getResponseEntityBodySize().longValue());
+        assertNull(e.getRemoteUser());
+        assertFalse(e.hasUndecodedValues());
+    }
+
+    @Test
+    public void setRequiredProperties_PropertyListDecodesEverything() throws Exception {
+
+        String line = "200 27";
+
+        HttpdLineParser parser =
+                new HttpdLineParser(HttpdFormatStrings.STATUS_CODE, HttpdFormatStrings.REQUEST_PROCESSING_TIME_MS);
+
+        parser.setRequiredProperties(Collections.singleton(HttpEvent.REQUEST_DURATION));
+
+        HttpEvent e = (HttpEvent)parser.parseLine(1L, line);
+
+        assertTrue(e.hasUndecodedValues());
+        assertEquals(3, e.getPropertyList().size());
+        assertFalse(e.hasUndecodedValues());
+        assertEquals(200, e.getStatusCode().intValue());
+    }
+
+    @Test
+    public void setRequiredProperties_NotRequiredInvalidFieldsFailOnAccess() throws Exception {
+
+        String line = "not-a-status-code 27";
+
+        HttpdLineParser parser =
+                new HttpdLineParser(HttpdFormatStrings.STATUS_CODE, HttpdFormatStrings.REQUEST_PROCESSING_TIME_MS);
+
+        parser.setRequiredProperties(Collections.singleton(HttpEvent.REQUEST_DURATION));
+
+        //
+        // the field is not validated while parsing, so the line does not produce a fault
+        //
+        HttpEvent e = (HttpEvent)parser.parseLine(1L, line);
+
+        assertEquals(27, e.getRequestDuration().longValue());
+
+        for(int i = 0; i < 2; i ++) {
+
+            try {
+                e.getStatusCode();
+                fail("should have thrown exception");
+            }
+            catch(IllegalStateException ise) {
+
+                String msg = ise.getMessage();
+                log.info(msg);
+                assertTrue(msg.contains("not-a-status-code"));
+            }
+        }
+    }
+
+    @Test
+    public void setRequiredProperties_Null_EverythingIsDecoded() throws Exception {
+
+        String line = "200 27";
+
+        HttpdLineParser parser =
+                new HttpdLineParser(HttpdFormatStrings.STATUS_CODE, HttpdFormatStrings.REQUEST_PROCESSING_TIME_MS);
+
+        parser.setRequiredProperties(Collections.singleton(HttpEvent.REQUEST_DURATION));
+        parser.setRequiredProperties(null);
+
+        HttpEvent e = (HttpEvent)parser.parseLine(1L, line);
+
+        assertEquals(200, e.getStatusCode().intValue());
+        assertEquals(27, e.getRequestDuration().longValue());
+    }
+
+    @Test
+    public void isRequired() throws Exception {
+
+        Set<String> required = new HashSet<>(Arrays.asList(HttpEvent.COOKIES, HttpEvent.REQUEST_URI));
+
+        assertTrue(HttpdLineParser.isRequired(HttpdFormatStrings.TIMESTAMP, required));
+        assertTrue(HttpdLineParser.isRequired(HttpdFormatStrings.FIRST_REQUEST_LINE, required));
+        assertTrue(HttpdLineParser.isRequired(HttpdFormatString.fromString("%{c,JSESSIONID}").get(0), required));
+        assertFalse(HttpdLineParser.isRequired(HttpdFormatString.fromString("%{i,User-Agent}").get(0), required));
+        assertFalse(HttpdLineParser.isRequired(HttpdFormatStrings.STATUS_CODE, required));
+        assertFalse(HttpdLineParser.isRequired(HttpdFormatStrings.IGNORE, required));
+    }
+
+    // symbol table ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void parseLine_LowCardinalityValuesAreDeduplicated() throws Exception {
+
+        HttpdLineParser parser = new HttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS);
+
+        HttpEvent e = (HttpEvent)parser.parseLine(1L,
+                "\"default task-1\" 127.0.0.1 - [21/Jan/2016:09:32:56 -0800] \"GET /a HTTP/1.1\" \"-\" 200 74 27");
+        HttpEvent e2 = (HttpEvent)parser.parseLine(2L,
+                "\"default task-1\" 127.0.0.1 - [21/Jan/2016:09:32:57 -0800] \"GET /b HTTP/1.1\" \"-\" 200 74 27");
+
+        assertEquals("default task-1", e.getThreadName());
+        assertTrue(e.getThreadName() == e2.getThreadName());
+        assertEquals("127.0.0.1", e.getRemoteHost());
+        assertTrue(e.getRemoteHost() == e2.getRemoteHost());
+        assertTrue(e.getMethod() == e2.getMethod());
+        assertTrue(e.getHttpVersion() == e2.getHttpVersion());
+
+        assertEquals(2L, parser.getSymbolTable().getHits());
+    }
+
+    @Test
+    public void isInternable() throws Exception {
+
+        assertTrue(HttpdLineParser.isInternable(HttpdFormatStrings.REMOTE_HOST));
+        assertTrue(HttpdLineParser.isInternable(HttpdFormatStrings.THREAD_NAME));
+        assertTrue(HttpdLineParser.isInternable(HttpdFormatString.fromString("%{i,User-Agent}").get(0)));
+        assertFalse(HttpdLineParser.isInternable(HttpdFormatString.fromString("%{i,Cookie}").get(0)));
+        assertFalse(HttpdLineParser.isInternable(HttpdFormatString.fromString("%{c,JSESSIONID}").get(0)));
+        assertFalse(HttpdLineParser.isInternable(HttpdFormatStrings.FIRST_REQUEST_LINE));
+        assertFalse(HttpdLineParser.isInternable(HttpdFormatStrings.QUERY_STRING));
+        assertFalse(HttpdLineParser.isInternable(HttpdFormatStrings.IGNORE));
+    }
+
+    // time window -----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void setTimeWindow_FormatWithoutTimestamp() throws Exception {
+
+        HttpdLineParser parser = new HttpdLineParser("%h \"%r\"");
+        parser.setTimeWindow(timeWindow("09/18/16 19:00:00", "09/18/16 20:00:00"));
+        assertNull(parser.getTimeWindow());
+
+        assertNotNull(parser.parseLine(1L, "127.0.0.1 \"GET /a HTTP/1.1\""));
+    }
+
+    @Test
+    public void parseLine_TimeWindow() throws Exception {
+
+        HttpdLineParser parser = new HttpdLineParser("%h %l %u [%t] \"%r\" %>s %b");
+        parser.setTimeWindow(timeWindow("09/18/16 19:00:00", "09/18/16 20:00:00"));
+
+        HttpEvent e = (HttpEvent)parser.parseLine(
+                1L, "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /a HTTP/1.1\" 200 10");
+        assertNotNull(e);
+        assertEquals("/a", e.getRequestUri());
+
+        assertNull(parser.parseLine(2L, "127.0.0.1 - - [18/Sep/2016:18:59:59 -0400] \"GET /b HTTP/1.1\" 200 10"));
+        assertNull(parser.parseLine(3L, "127.0.0.1 - - [18/Sep/2016:20:00:01 -0400] \"GET /c HTTP/1.1\" 200 10"));
+
+        assertEquals(2L, parser.getOutsideTimeWindowLineCount());
+    }
+
+    @Test
+    public void parseLine_TimeWindow_InvalidTimestampIsReportedByTheFullParse() throws Exception {
+
+        HttpdLineParser parser = new HttpdLineParser("%h [%t] %s");
+        parser.setTimeWindow(timeWindow("09/18/16 19:00:00", "09/18/16 20:00:00"));
+
+        try {
+            parser.parseLine(1L, "127.0.0.1 [not a timestamp] 200");
+            fail("should throw exception");
+        }
+        catch(ParsingException e) {
+            log.info(e.getMessage());
+        }
+
+        assertEquals(0L, parser.getOutsideTimeWindowLineCount());
+    }
+
+    @Test
+    public void parseLine_TimeWindow_RelativeBounds() throws Exception {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new TimestampOption(null, "from", "19:00:00"));
+        TimeWindow w = TimeWindow.buildInstance(mc);
+        assertFalse(w.isCalibrated());
+
+        HttpdLineParser parser = new HttpdLineParser("%h [%t] %s");
+        parser.setTimeWindow(w);
+
+        assertNull(parser.parseLine(1L, "127.0.0.1 [18/Sep/2016:18:00:00 -0400] 200"));
+        assertTrue(w.isCalibrated());
+        assertNotNull(parser.parseLine(2L, "127.0.0.1 [18/Sep/2016:19:00:00 -0400] 200"));
+    }
+
     // nextToken() -----------------------------------------------------------------------------------------------------
 
     @Test
@@ -491,6 +708,14 @@ public class HttpdLineParserTest extends LineParserTest {
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    private static TimeWindow timeWindow(String from, String to) {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new TimestampOption(null, "from", from));
+        mc.addGlobalOption(new TimestampOption(null, "to", to));
+        return TimeWindow.buildInstance(mc);
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
 }
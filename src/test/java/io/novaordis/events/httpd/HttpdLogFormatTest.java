@@ -22,10 +22,15 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -246,6 +251,70 @@ public class HttpdLogFormatTest extends LineFormatTest {
         assertEquals(fs2, fes.get(1));
     }
 
+    // slots ---------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void slots() throws Exception {
+
+        HttpdLogFormat logFormat = new HttpdLogFormat("\"%r\" %s %b \"%{Cookie}i\"");
+
+        List<HttpdFormatString> fes = logFormat.getHttpdFormatStrings();
+
+        //
+        // the double quotes share one slot
+        //
+        assertEquals(fes.size() - 3, logFormat.getSlotCount());
+
+        for(int i = 0; i < fes.size(); i ++) {
+
+            int slot = logFormat.getSlot(i);
+            assertEquals(fes.get(i), logFormat.getSlotFormatString(slot));
+            assertEquals(slot, logFormat.getSlot(fes.get(i)));
+        }
+
+        assertEquals(logFormat.getSlot(0), logFormat.getSlot(2));
+        assertEquals(-1, logFormat.getSlot(HttpdFormatStrings.TIMESTAMP));
+        assertEquals(-1, logFormat.getSlot(new MockHttpdFormatString("A")));
+    }
+
+    // isCookieLoggedInRequestHeaderOnly() -----------------------------------------------------------------------------
+
+    @Test
+    public void isCookieLoggedInRequestHeaderOnly() throws Exception {
+
+        HttpdLogFormat f = new HttpdLogFormat("\"%r\" %s \"%{Cookie}i\"");
+        assertTrue(f.isCookieLoggedInRequestHeaderOnly("JSESSIONID"));
+    }
+
+    @Test
+    public void isCookieLoggedInRequestHeaderOnly_NoCookieHeader() throws Exception {
+
+        HttpdLogFormat f = new HttpdLogFormat("\"%r\" %s %b");
+        assertFalse(f.isCookieLoggedInRequestHeaderOnly("JSESSIONID"));
+    }
+
+    @Test
+    public void isCookieLoggedInRequestHeaderOnly_CookieLoggedIndividually() throws Exception {
+
+        HttpdLogFormat f = new HttpdLogFormat("\"%r\" %s %{JSESSIONID}c \"%{Cookie}i\"");
+        assertFalse(f.isCookieLoggedInRequestHeaderOnly("JSESSIONID"));
+        assertTrue(f.isCookieLoggedInRequestHeaderOnly("lang"));
+    }
+
+    // getVerbatimPropertyNames() --------------------------------------------------------------------------------------
+
+    @Test
+    public void getVerbatimPropertyNames() throws Exception {
+
+        HttpdLogFormat f = new HttpdLogFormat("%h %u \"%r\" \"%q\" %s %b %D \"%{Cookie}i\" %{JSESSIONID}c");
+
+        Set<String> names = f.getVerbatimPropertyNames();
+
+        assertEquals(new HashSet<>(Arrays.asList(
+                HttpEvent.REMOTE_HOST, HttpEvent.REMOTE_USER,
+                HttpEvent.METHOD, HttpEvent.REQUEST_URI, HttpEvent.HTTP_VERSION)), names);
+    }
+
     // replaceSpecialHTMLCharacters() ----------------------------------------------------------------------------------
 
 
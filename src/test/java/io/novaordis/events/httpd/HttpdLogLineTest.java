@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -508,6 +509,145 @@ public class HttpdLogLineTest {
         }
     }
 
+    @Test
+    public void setRawLogValue() throws Exception {
+
+        HttpdLogLine logLine = new HttpdLogLine();
+
+        logLine.setRawLogValue(HttpdFormatStrings.STATUS_CODE, "blah 200 blah", 5, 8);
+
+        assertTrue(logLine.getFormatStrings().contains(HttpdFormatStrings.STATUS_CODE));
+
+        //
+        // raw values are converted into properties when the property is first accessed
+        //
+        HttpEvent e = logLine.toEvent();
+        assertTrue(e.hasUndecodedValues());
+        assertEquals(200, e.getStatusCode().intValue());
+        assertFalse(e.hasUndecodedValues());
+
+        //
+        // decoded on first access
+        //
+        assertEquals(200, logLine.getStatusCode().intValue());
+        assertEquals(200, logLine.toEvent().getStatusCode().intValue());
+    }
+
+    @Test
+    public void setRawLogValue_InvalidValue() throws Exception {
+
+        HttpdLogLine logLine = new HttpdLogLine();
+
+        logLine.setRawLogValue(HttpdFormatStrings.STATUS_CODE, "blah", 0, 4);
+
+        try {
+            logLine.getStatusCode();
+            fail("should have thrown exception");
+        }
+        catch(IllegalStateException e) {
+            log.info(e.getMessage());
+        }
+    }
+
+    @Test
+    public void setLongLogValue() throws Exception {
+
+        HttpdLogLine logLine = new HttpdLogLine();
+
+        logLine.setLongLogValue(HttpdFormatStrings.STATUS_CODE, 200L);
+        logLine.setLongLogValue(HttpdFormatStrings.RESPONSE_ENTITY_BODY_SIZE, 1024L);
+
+        assertEquals(200, logLine.getLogValue(HttpdFormatStrings.STATUS_CODE));
+        assertEquals(1024L, logLine.getLogValue(HttpdFormatStrings.RESPONSE_ENTITY_BODY_SIZE));
+        assertEquals(2, logLine.getFormatStrings().size());
+
+        HttpEvent e = logLine.toEvent();
+        assertEquals(200, e.getStatusCode().intValue());
+        assertEquals(1024L, e.getResponseEntityBodySize().longValue());
+
+        //
+        // overwrite with a boxed value, then erase
+        //
+        assertEquals(200, logLine.setLogValue(HttpdFormatStrings.STATUS_CODE, 404));
+        assertEquals(404, logLine.getStatusCode().intValue());
+        logLine.setLongLogValue(HttpdFormatStrings.STATUS_CODE, 500L);
+        assertEquals(500, logLine.setLogValue(HttpdFormatStrings.STATUS_CODE, null));
+        assertNull(logLine.getStatusCode());
+        assertEquals(1, logLine.getFormatStrings().size());
+    }
+
+    @Test
+    public void setLongLogValue_TypeMismatch() throws Exception {
+
+        HttpdLogLine logLine = new HttpdLogLine();
+
+        try {
+            logLine.setLongLogValue(HttpdFormatStrings.REMOTE_HOST, 1L);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            log.info(e.getMessage());
+        }
+
+        try {
+            logLine.setLongLogValue(HttpdFormatStrings.STATUS_CODE, Integer.MAX_VALUE + 1L);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            log.info(e.getMessage());
+        }
+    }
+
+    @Test
+    public void setDoubleLogValue() throws Exception {
+
+        HttpdLogLine logLine = new HttpdLogLine();
+
+        logLine.setDoubleLogValue(HttpdFormatStrings.REQUEST_PROCESSING_TIME_S, 0.25d);
+
+        assertEquals(0.25d, logLine.getRequestProcessingTimeSec(), 0.0d);
+
+        try {
+            logLine.setDoubleLogValue(HttpdFormatStrings.STATUS_CODE, 1.0d);
+            fail("should have thrown exception");
+        }
+        catch(IllegalArgumentException e) {
+            log.info(e.getMessage());
+        }
+    }
+
+    @Test
+    public void formatSlots() throws Exception {
+
+        HttpdLogFormat format = new HttpdLogFormat("%>s %b");
+
+        HttpdLogLine logLine = new HttpdLogLine(format);
+
+        assertTrue(logLine.getFormatStrings().isEmpty());
+
+        logLine.setLongLogValueAt(format.getSlot(1), 500L);
+        logLine.setRawLogValueAt(format.getSlot(0), "200 1", 0, 3);
+
+        assertEquals(200, logLine.getStatusCode().intValue());
+        assertEquals(500L, logLine.getResponseEntityBodySize().longValue());
+
+        //
+        // format strings not in the format get slots on demand
+        //
+        logLine.setLogValue(HttpdFormatStrings.THREAD_NAME, "main");
+        assertEquals("main", logLine.getThreadName());
+
+        assertEquals(3, logLine.getFormatStrings().size());
+
+        logLine.setLogValueAt(format.getSlot(0), null);
+        assertNull(logLine.getStatusCode());
+        assertEquals(2, logLine.getFormatStrings().size());
+
+        HttpEvent e = logLine.toEvent();
+        assertEquals(500L, e.getResponseEntityBodySize().longValue());
+        assertEquals("main", e.getThreadName());
+    }
+
     @Test
     public void parseFirstRequestLine() throws Exception {
 
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import io.novaordis.utilities.time.TimeOffset;
+import io.novaordis.utilities.time.Timestamp;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class HttpdTimestampParserTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(HttpdTimestampParserTest.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void parse() throws Exception {
+
+        HttpdTimestampParser p = new HttpdTimestampParser(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+
+        Timestamp t = p.parse("18/Sep/2016:19:18:28 -0400");
+
+        assertEquals(TestDate.create("09/18/16 19:18:28 -0400"), new Date(t.getTime()));
+        assertEquals(new TimeOffset("-0400"), t.getTimeOffset());
+    }
+
+    @Test
+    public void parse_SameHour_DifferentMinutesAndSeconds() throws Exception {
+
+        HttpdTimestampParser p = new HttpdTimestampParser(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+
+        Timestamp t = p.parse("18/Sep/2016:19:18:28 -0400");
+        Timestamp t2 = p.parse("18/Sep/2016:19:18:29 -0400");
+        Timestamp t3 = p.parse("18/Sep/2016:19:59:00 -0400");
+
+        assertEquals(1000L, t2.getTime() - t.getTime());
+        assertEquals(TestDate.create("09/18/16 19:59:00 -0400"), new Date(t3.getTime()));
+    }
+
+    @Test
+    public void parse_SameHour_DifferentTimezones() throws Exception {
+
+        HttpdTimestampParser p = new HttpdTimestampParser(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+
+        Timestamp t = p.parse("18/Sep/2016:19:18:28 -0400");
+        Timestamp t2 = p.parse("18/Sep/2016:19:18:28 +0130");
+
+        assertEquals((5 * 60 + 30) * 60 * 1000L, t.getTime() - t2.getTime());
+        assertEquals(new TimeOffset("+0130"), t2.getTimeOffset());
+    }
+
+    @Test
+    public void parse_EquivalentWithSimpleDateFormat() throws Exception {
+
+        HttpdTimestampParser p = new HttpdTimestampParser(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+
+        SimpleDateFormat format = new SimpleDateFormat(HttpdFormatString.TIMESTAMP_FORMAT_STRING, Locale.ENGLISH);
+        format.setTimeZone(TimeZone.getTimeZone("GMT-08:00"));
+
+        SimpleDateFormat reference = new SimpleDateFormat(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+
+        //
+        // step through ten years, with a step that is not a multiple of a minute, an hour or a day
+        //
+        long start = format.parse("01/Jan/2012:00:00:00 -0800").getTime();
+
+        for(long t = start; t < start + 10 * 366 * 86400000L; t += 7 * 3600000L + 13 * 60000L + 17000L) {
+
+            String s = format.format(new Date(t));
+            assertEquals(s, reference.parse(s).getTime(), p.parse(s).getTime());
+        }
+    }
+
+    @Test
+    public void parse_LeapDay() throws Exception {
+
+        HttpdTimestampParser p = new HttpdTimestampParser(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+
+        String s = "29/Feb/2016:23:59:59 +0000";
+        assertEquals(new SimpleDateFormat(HttpdFormatString.TIMESTAMP_FORMAT_STRING).parse(s).getTime(),
+                p.parse(s).getTime());
+    }
+
+    @Test
+    public void parse_OutOfRangeValues_HandledLikeSimpleDateFormat() throws Exception {
+
+        HttpdTimestampParser p = new HttpdTimestampParser(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+
+        SimpleDateFormat reference = new SimpleDateFormat(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+
+        for(String s: new String[] {"29/Feb/2015:10:00:00 +0000", "31/Apr/2016:10:00:00 +0000",
+                "18/Sep/2016:24:00:00 +0000", "18/Sep/2016:19:60:00 +0000"}) {
+
+            assertEquals(s, reference.parse(s).getTime(), p.parse(s).getTime());
+        }
+    }
+
+    @Test
+    public void parse_NotTheFixedLayout_FallsBackToDateFormat() throws Exception {
+
+        HttpdTimestampParser p = new HttpdTimestampParser(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+
+        String s = "8/Sep/2016:19:18:28 -0400";
+
+        assertEquals(new SimpleDateFormat(HttpdFormatString.TIMESTAMP_FORMAT_STRING).parse(s).getTime(),
+                p.parse(s).getTime());
+    }
+
+    @Test
+    public void parse_InvalidTimestamp() throws Exception {
+
+        HttpdTimestampParser p = new HttpdTimestampParser(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+
+        try {
+            p.parse("something that is not a timestamp");
+            fail("should have thrown exception");
+        }
+        catch(ParseException e) {
+            log.info(e.getMessage());
+        }
+    }
+
+    @Test
+    public void parse_Concurrent() throws Exception {
+
+        final HttpdTimestampParser p = new HttpdTimestampParser(HttpdFormatString.TIMESTAMP_FORMAT_STRING);
+
+        final String[] timestamps = {
+                "18/Sep/2016:19:18:28 -0400",
+                "18/Sep/2016:20:18:28 -0400",
+                "19/Sep/2016:19:18:28 +0200",
+                "01/Jan/2017:00:00:00 +0000",
+        };
+
+        final long[] expected = new long[timestamps.length];
+
+        for(int i = 0; i < timestamps.length; i ++) {
+            expected[i] = new SimpleDateFormat(HttpdFormatString.TIMESTAMP_FORMAT_STRING).parse(timestamps[i]).getTime();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+
+            List<Future<Void>> futures = new ArrayList<>();
+
+            for(int t = 0; t < 4; t ++) {
+
+                final int offset = t;
+
+                futures.add(executor.submit(() -> {
+
+                    for(int i = 0; i < 10000; i ++) {
+
+                        int j = (i + offset) % timestamps.length;
+                        assertEquals(expected[j], p.parse(timestamps[j]).getTime());
+                    }
+
+                    return null;
+                }));
+            }
+
+            for(Future<Void> f: futures) {
+                f.get();
+            }
+        }
+        finally {
+
+            executor.shutdownNow();
+        }
+    }
+
+    // daysSinceEpoch() ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void daysSinceEpoch() throws Exception {
+
+        assertEquals(0L, HttpdTimestampParser.daysSinceEpoch(1970, 1, 1));
+        assertEquals(-1L, HttpdTimestampParser.daysSinceEpoch(1969, 12, 31));
+        assertEquals(17062L, HttpdTimestampParser.daysSinceEpoch(2016, 9, 18));
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import io.novaordis.clad.option.TimestampOption;
+import io.novaordis.events.clad.MockConfiguration;
+import io.novaordis.events.core.LineParserTest;
+import io.novaordis.events.core.TimeWindow;
+import io.novaordis.utilities.parsing.ParsingException;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class PlannedHttpdLineParserTest extends LineParserTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(PlannedHttpdLineParserTest.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    // newInstance() ---------------------------------------------------------------------------------------------------
+
+    @Test
+    public void newInstance() throws Exception {
+
+        HttpdLineParser p = PlannedHttpdLineParser.newInstance(HttpdLogFormat.PERFORMANCE_ANALYSIS);
+
+        assertTrue(p instanceof PlannedHttpdLineParser);
+        assertEquals(HttpdLogFormat.PERFORMANCE_ANALYSIS, p.getHttpdLogFormat());
+    }
+
+    @Test
+    public void newInstance_NullFormat_FallsBackToHttpdLineParser() throws Exception {
+
+        HttpdLineParser p = PlannedHttpdLineParser.newInstance(null);
+
+        assertEquals(HttpdLineParser.class, p.getClass());
+    }
+
+    @Test
+    public void plan() throws Exception {
+
+        PlannedHttpdLineParser p = new PlannedHttpdLineParser(new HttpdLogFormat("[%t] %h \"%r\" %{i,User-Agent}"));
+
+        byte[] opcodes = p.getOpcodes();
+
+        assertEquals(8, opcodes.length);
+        assertEquals(PlannedHttpdLineParser.LEFT_ENCLOSURE, opcodes[0]);
+        assertEquals(PlannedHttpdLineParser.FIELD_ENCLOSED, opcodes[1]);
+        assertEquals(PlannedHttpdLineParser.RIGHT_ENCLOSURE, opcodes[2]);
+        assertEquals(PlannedHttpdLineParser.FIELD_SPACE_DELIMITED, opcodes[3]);
+        assertEquals(PlannedHttpdLineParser.LEFT_ENCLOSURE, opcodes[4]);
+        assertEquals(PlannedHttpdLineParser.FIELD_ENCLOSED, opcodes[5]);
+        assertEquals(PlannedHttpdLineParser.RIGHT_ENCLOSURE, opcodes[6]);
+        assertEquals(PlannedHttpdLineParser.FIELD_USER_AGENT, opcodes[7]);
+    }
+
+    // parseLine() -----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void parseLine_Common() throws Exception {
+
+        String line = "172.20.2.41 - - [09/Jan/2016:20:06:07 -0800] \"OPTIONS * HTTP/1.0\" 200 -";
+
+        HttpEvent e = (HttpEvent)new PlannedHttpdLineParser(HttpdLogFormat.COMMON).parseLine(7L, line);
+        HttpEvent e2 = (HttpEvent)new HttpdLineParser(HttpdLogFormat.COMMON).parseLine(7L, line);
+
+        assertEquals("172.20.2.41", e.getRemoteHost());
+        assertNull(e.getRemoteLogname());
+        assertNull(e.getRemoteUser());
+        assertEquals(e2.getTime(), e.getTime());
+        assertEquals("OPTIONS * HTTP/1.0", e.getFirstRequestLine());
+        assertEquals(200, e.getStatusCode().intValue());
+        assertNull(e.getResponseEntityBodySize());
+    }
+
+    @Test
+    public void parseLine_Performance() throws Exception {
+
+        String line =
+                "\"default task-1\" 127.0.0.1 - [21/Jan/2016:09:32:56 -0800] \"GET /something HTTP/1.1\" \"a=b&c=d\" 404 74 27";
+
+        HttpEvent e = (HttpEvent)new PlannedHttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS).parseLine(1L, line);
+        HttpEvent e2 = (HttpEvent)new HttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS).parseLine(1L, line);
+
+        assertEquals("default task-1", e.getThreadName());
+        assertEquals("127.0.0.1", e.getRemoteHost());
+        assertNull(e.getRemoteUser());
+        assertEquals(e2.getTime(), e.getTime());
+        assertEquals("GET /something HTTP/1.1", e.getFirstRequestLine());
+        assertEquals("a=b&c=d", e.getQueryString());
+        assertEquals(404, e.getOriginalRequestStatusCode().intValue());
+        assertNull(e.getStatusCode());
+        assertEquals(74, e.getResponseEntityBodySize().longValue());
+        assertEquals(27, e.getRequestDuration().longValue());
+    }
+
+    @Test
+    public void parseLine_MissingLeftEnclosure_SameErrorAsHttpdLineParser() throws Exception {
+
+        String line = "127.0.0.1 - - 20/Jan/2016:03:42:11 -0800 \"GET /something HTTP/1.1\" 1024";
+
+        try {
+            new PlannedHttpdLineParser(HttpdLogFormat.COMMON).parseLine(1L, line);
+            fail("should have thrown exception");
+        }
+        catch(ParsingException e) {
+            log.info(e.getMessage());
+            assertEquals("expecting OPENING_BRACKET [ but got '2'", e.getMessage());
+        }
+    }
+
+    @Test
+    public void parseLine_MissingRightEnclosure_SameErrorAsHttpdLineParser() throws Exception {
+
+        String line = "[a] b";
+
+        HttpdLogFormat format = new HttpdLogFormat(
+                HttpdFormatStrings.OPENING_BRACKET,
+                HttpdFormatStrings.REMOTE_HOST,
+                HttpdFormatStrings.REMOTE_USER,
+                HttpdFormatStrings.CLOSING_BRACKET);
+
+        String expected = null;
+
+        try {
+            new HttpdLineParser(format).parseLine(1L, line);
+        }
+        catch(Exception e) {
+            expected = e.getClass().getName() + ": " + e.getMessage();
+        }
+
+        try {
+            new PlannedHttpdLineParser(format).parseLine(1L, line);
+            fail("should have thrown exception");
+        }
+        catch(Exception e) {
+            log.info(e.getMessage());
+            assertEquals(expected, e.getClass().getName() + ": " + e.getMessage());
+        }
+    }
+
+    // time window -----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void parseLine_TimeWindow() throws Exception {
+
+        HttpdLineParser parser = new PlannedHttpdLineParser(new HttpdLogFormat("%h %l %u [%t] \"%r\" %>s %b"));
+        parser.setTimeWindow(timeWindow("09/18/16 19:00:00", "09/18/16 20:00:00"));
+
+        HttpEvent e = (HttpEvent)parser.parseLine(
+                1L, "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /a HTTP/1.1\" 200 10");
+        assertNotNull(e);
+        assertEquals("/a", e.getRequestUri());
+
+        assertNull(parser.parseLine(2L, "127.0.0.1 - - [18/Sep/2016:18:59:59 -0400] \"GET /b HTTP/1.1\" 200 10"));
+        assertNull(parser.parseLine(3L, "127.0.0.1 - - [18/Sep/2016:20:00:01 -0400] \"GET /c HTTP/1.1\" 200 10"));
+
+        assertEquals(2L, parser.getOutsideTimeWindowLineCount());
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    @Override
+    protected PlannedHttpdLineParser getLineParserToTest(String format) throws Exception {
+
+        return new PlannedHttpdLineParser(new HttpdLogFormat(format));
+    }
+
+    @Override
+    protected String getValidFormatForLineParserToTest() throws Exception {
+
+        return HttpdFormatStrings.REMOTE_HOST.getLiteral();
+    }
+
+    @Override
+    protected String getValidLineForLineParserToTest() throws Exception {
+        return "127.0.0.1";
+    }
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static TimeWindow timeWindow(String from, String to) {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new TimestampOption(null, "from", from));
+        mc.addGlobalOption(new TimestampOption(null, "to", to));
+        return TimeWindow.buildInstance(mc);
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
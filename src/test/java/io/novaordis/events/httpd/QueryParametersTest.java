@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import io.novaordis.events.api.event.MapProperty;
+import io.novaordis.utilities.time.TimestampImpl;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class QueryParametersTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void get() throws Exception {
+
+        QueryParameters p = new QueryParameters("c=d&a=b&flag&e=f=g");
+
+        assertEquals(4, p.size());
+        assertEquals("b", p.get("a"));
+        assertEquals("d", p.get("c"));
+        assertEquals("f=g", p.get("e"));
+        assertNull(p.get("flag"));
+        assertTrue(p.containsKey("flag"));
+        assertFalse(p.containsKey("no-such-parameter"));
+        assertNull(p.get(1));
+    }
+
+    @Test
+    public void duplicates_LastValueWins() throws Exception {
+
+        QueryParameters p = new QueryParameters("a=1&b=2&a=3");
+
+        assertEquals(2, p.size());
+        assertEquals("3", p.get("a"));
+    }
+
+    @Test
+    public void sameSemanticsAsSplitting() throws Exception {
+
+        for(String query: new String[] { "", "a", "a=", "=b", "a=b&", "a=b&&", "&a=b", "a=b&&c=d", "&&", "&" }) {
+
+            Map<String, String> expected = new HashMap<>();
+
+            for(String s: query.split("&")) {
+                int i = s.indexOf('=');
+                if (i != -1) {
+                    expected.put(s.substring(0, i), s.substring(i + 1));
+                }
+                else {
+                    expected.put(s, null);
+                }
+            }
+
+            assertEquals(query, expected, new HashMap<>(new QueryParameters(query)));
+        }
+    }
+
+    @Test
+    public void manyParameters() throws Exception {
+
+        StringBuilder sb = new StringBuilder();
+
+        for(int i = 0; i < 1000; i ++) {
+            sb.append(i == 0 ? "" : "&").append("p").append(i).append("=").append(i);
+        }
+
+        QueryParameters p = new QueryParameters(sb.toString());
+
+        assertEquals(1000, p.size());
+
+        for(int i = 0; i < 1000; i ++) {
+            assertEquals(Integer.toString(i), p.get("p" + i));
+        }
+    }
+
+    @Test
+    public void toCanonicalString() throws Exception {
+
+        QueryParameters p = new QueryParameters("c=d&flag&a=b");
+
+        String s = p.toCanonicalString();
+
+        assertEquals("a=b&c=d&flag", s);
+        assertSame(s, p.toCanonicalString());
+    }
+
+    @Test
+    public void toCanonicalString_EmptyValue() throws Exception {
+
+        QueryParameters p = new QueryParameters("b=&a");
+
+        assertEquals("a&b=", p.toCanonicalString());
+    }
+
+    @Test
+    public void toCanonicalString_Modified_NullKeyAndNullValue() throws Exception {
+
+        QueryParameters p = new QueryParameters("c=d");
+
+        p.put(null, "x");
+        p.put("a", null);
+
+        assertEquals("=x&a&c=d", p.toCanonicalString());
+    }
+
+    @Test
+    public void put_SwitchesToACopy() throws Exception {
+
+        QueryParameters p = new QueryParameters("c=d&a=b");
+
+        assertEquals("a=b&c=d", p.toCanonicalString());
+
+        assertEquals("b", p.put("a", "x"));
+        p.put("b", "y");
+
+        assertEquals(3, p.size());
+        assertEquals("x", p.get("a"));
+        assertEquals("a=x&b=y&c=d", p.toCanonicalString());
+        assertEquals("c=d&a=b", p.getQuery());
+    }
+
+    @Test
+    public void toString_IsTheMapRendering() throws Exception {
+
+        QueryParameters p = new QueryParameters("c=d&flag&a=b");
+
+        assertEquals("{c=d, flag=null, a=b}", p.toString());
+    }
+
+    // HttpdFormatStrings, PropertyFactory and HttpEvent ---------------------------------------------------------------
+
+    @Test
+    public void queryStringProperty() throws Exception {
+
+        MapProperty p = (MapProperty)HttpdFormatStrings.QUERY_STRING.toProperty("c=d&flag&a=b");
+
+        //
+        // the property holds the QueryParameters instance itself, not a copy, and the query was not broken down yet
+        //
+        assertTrue(p.getMap() instanceof QueryParameters);
+        QueryParameters qp = (QueryParameters)p.getMap();
+        assertFalse(qp.isBrokenDown());
+        assertEquals("c=d&flag&a=b", qp.getQuery());
+
+        HttpEvent e = new HttpEvent(new TimestampImpl(1L));
+        e.setProperty(p);
+
+        String s = e.getQueryString();
+        assertEquals("a=b&c=d&flag", s);
+        assertSame(qp.toCanonicalString(), s);
+        assertSame(s, e.getQueryString());
+    }
+
+    @Test
+    public void queryString_NotQueryParameters() throws Exception {
+
+        MapProperty p = new MapProperty(HttpEvent.QUERY);
+        p.getMap().put("c", "d");
+        p.getMap().put("flag", null);
+        p.getMap().put("a", "b");
+
+        HttpEvent e = new HttpEvent(new TimestampImpl(1L));
+        e.setProperty(p);
+
+        assertEquals("a=b&c=d&flag", e.getQueryString());
+    }
+
+    @Test
+    public void queryStringProperty_ParsedLine() throws Exception {
+
+        String line =
+                "\"default task-1\" 127.0.0.1 - [21/Jan/2016:09:32:56 -0800] \"GET /something HTTP/1.1\" \"c=d&a=b\" " +
+                        "404 74 27";
+
+        HttpEvent e = (HttpEvent)new HttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS).parseLine(1L, line);
+
+        MapProperty p = e.getMapProperty(HttpEvent.QUERY);
+        QueryParameters qp = (QueryParameters)p.getMap();
+        assertFalse(qp.isBrokenDown());
+
+        assertEquals("b", qp.get("a"));
+        assertTrue(qp.isBrokenDown());
+
+        assertEquals("a=b&c=d", e.getQueryString());
+
+        //
+        // the map rendering, used by the CSV output, is not affected by the canonical form
+        //
+        assertEquals("{c=d, a=b}", qp.toString());
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd;
+
+import io.novaordis.clad.option.TimestampOption;
+import io.novaordis.events.api.event.Event;
+import io.novaordis.events.api.event.Property;
+import io.novaordis.events.clad.MockConfiguration;
+import io.novaordis.events.core.LineParserTest;
+import io.novaordis.events.core.TimeWindow;
+import io.novaordis.utilities.parsing.ParsingException;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class RegexHttpdLineParserTest extends LineParserTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(RegexHttpdLineParserTest.class);
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    // compile() -------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void compile() throws Exception {
+
+        HttpdLineParser p = RegexHttpdLineParser.compile(HttpdLogFormat.PERFORMANCE_ANALYSIS);
+
+        assertTrue(p instanceof RegexHttpdLineParser);
+        assertEquals(HttpdLogFormat.PERFORMANCE_ANALYSIS, p.getHttpdLogFormat());
+    }
+
+    @Test
+    public void compile_UnenclosedFirstRequestLine_FallsBackToIncrementalParser() throws Exception {
+
+        HttpdLineParser p = RegexHttpdLineParser.compile(new HttpdLogFormat("%h %r %s"));
+
+        assertEquals(HttpdLineParser.class, p.getClass());
+    }
+
+    @Test
+    public void compile_NullFormat_FallsBackToIncrementalParser() throws Exception {
+
+        HttpdLineParser p = RegexHttpdLineParser.compile(null);
+
+        assertEquals(HttpdLineParser.class, p.getClass());
+    }
+
+    @Test
+    public void toRegex() throws Exception {
+
+        assertEquals("([^ ]*+) *+([^ ]*+) *+([^ ]*+) *+ *+\\[([^\\]]*+) *+\\] *+ *+\\\"([^\\\"]*+) *+\\\" *+" +
+                "([^ ]*+) *+([^ ]*+) *+", RegexHttpdLineParser.toRegex(HttpdLogFormat.COMMON));
+    }
+
+    @Test
+    public void toRegex_EnclosedUserAgent() throws Exception {
+
+        String regex = RegexHttpdLineParser.toRegex(new HttpdLogFormat("\"%{i,User-Agent}\""));
+
+        assertEquals(" *+\\\"([^\\\"]*+) *+\\\" *+", regex);
+    }
+
+    // parseLine() -----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void parseLine_Common() throws Exception {
+
+        String line = "172.20.2.41 - - [09/Jan/2016:20:06:07 -0800] \"OPTIONS * HTTP/1.0\" 200 -";
+
+        RegexHttpdLineParser p = new RegexHttpdLineParser(HttpdLogFormat.COMMON);
+
+        HttpEvent e = (HttpEvent)p.parseLine(7L, line);
+        HttpEvent e2 = (HttpEvent)new HttpdLineParser(HttpdLogFormat.COMMON).parseLine(7L, line);
+
+        assertEquals("172.20.2.41", e.getRemoteHost());
+        assertNull(e.getRemoteLogname());
+        assertNull(e.getRemoteUser());
+        assertEquals(e2.getTime(), e.getTime());
+        assertEquals("OPTIONS * HTTP/1.0", e.getFirstRequestLine());
+        assertEquals(200, e.getStatusCode().intValue());
+        assertNull(e.getResponseEntityBodySize());
+
+        assertEquals(1L, p.getFastPathLineCount());
+        assertEquals(0L, p.getFallbackLineCount());
+    }
+
+    @Test
+    public void parseLine_SameEventsAsIncrementalParser() throws Exception {
+
+        String[] lines = {
+                "\"default task-1\" 127.0.0.1 - [21/Jan/2016:09:32:56 -0800] \"GET /something HTTP/1.1\" \"a=b&c=d\" 404 74 27",
+                "\"default task-2\" 127.0.0.1 bob [21/Jan/2016:09:32:57 -0800] \"POST /a HTTP/1.1\" \"e=f\" 200 - 1",
+                "  \"default task-3\"   10.0.0.1  -  [21/Jan/2016:09:32:58 -0800]  \"GET / HTTP/1.1\"  \"-\"  500  0  3  extra",
+                "\"default task-4\" 127.0.0.1 - [21/Jan/2016:09:32:59 -0800] \"GET / HTTP/1.1\" \"x\" 200 1 5  ",
+        };
+
+        RegexHttpdLineParser p = new RegexHttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS);
+        HttpdLineParser reference = new HttpdLineParser(HttpdLogFormat.PERFORMANCE_ANALYSIS);
+
+        for(int i = 0; i < lines.length; i ++) {
+
+            assertEquals(lines[i], toMap(reference.parseLine(i, lines[i])), toMap(p.parseLine(i, lines[i])));
+        }
+
+        assertEquals(4L, p.getFastPathLineCount());
+        assertEquals(0L, p.getFallbackLineCount());
+    }
+
+    @Test
+    public void parseLine_EmptyLine_NotCounted() throws Exception {
+
+        RegexHttpdLineParser p = new RegexHttpdLineParser(HttpdLogFormat.COMMON);
+
+        assertNull(p.parseLine(1L, "   "));
+        assertEquals(0L, p.getFastPathLineCount());
+        assertEquals(0L, p.getFallbackLineCount());
+    }
+
+    @Test
+    public void parseLine_MissingLeftEnclosure_Fallback_SameErrorAsIncrementalParser() throws Exception {
+
+        String line = "127.0.0.1 - - 20/Jan/2016:03:42:11 -0800 \"GET /something HTTP/1.1\" 1024";
+
+        RegexHttpdLineParser p = new RegexHttpdLineParser(HttpdLogFormat.COMMON);
+
+        try {
+            p.parseLine(1L, line);
+            fail("should have thrown exception");
+        }
+        catch(ParsingException e) {
+            log.info(e.getMessage());
+            assertEquals("expecting OPENING_BRACKET [ but got '2'", e.getMessage());
+        }
+
+        assertEquals(0L, p.getFastPathLineCount());
+        assertEquals(1L, p.getFallbackLineCount());
+    }
+
+    @Test
+    public void parseLine_InvalidNumber_SameErrorAsIncrementalParser() throws Exception {
+
+        String line = "172.20.2.41 - - [09/Jan/2016:20:06:07 -0800] \"GET / HTTP/1.0\" 200 blah";
+
+        String expected = null;
+
+        try {
+            new HttpdLineParser(HttpdLogFormat.COMMON).parseLine(1L, line);
+        }
+        catch(Exception e) {
+            expected = e.getClass().getName() + ": " + e.getMessage();
+        }
+
+        try {
+            new RegexHttpdLineParser(HttpdLogFormat.COMMON).parseLine(1L, line);
+            fail("should have thrown exception");
+        }
+        catch(Exception e) {
+            log.info(e.getMessage());
+            assertEquals(expected, e.getClass().getName() + ": " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void getStatistics() throws Exception {
+
+        RegexHttpdLineParser p = new RegexHttpdLineParser(new HttpdLogFormat("[%t] %h"));
+
+        assertEquals("0 lines (0%) parsed by regular expression, 0 lines (0%) by the incremental parser",
+                p.getStatistics());
+
+        p.parseLine(1L, "[09/Jan/2016:20:06:07 -0800] a");
+        p.parseLine(2L, "[09/Jan/2016:20:06:07 -0800] b");
+        p.parseLine(3L, "[09/Jan/2016:20:06:07 -0800] c");
+
+        try {
+            p.parseLine(4L, "09/Jan/2016:20:06:07 -0800 d");
+            fail("should have thrown exception");
+        }
+        catch(ParsingException e) {
+            // ok
+        }
+
+        assertEquals("3 lines (75%) parsed by regular expression, 1 lines (25%) by the incremental parser",
+                p.getStatistics());
+    }
+
+    // time window -----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void parseLine_TimeWindow() throws Exception {
+
+        HttpdLineParser parser = new RegexHttpdLineParser(new HttpdLogFormat("%h %l %u [%t] \"%r\" %>s %b"));
+        parser.setTimeWindow(timeWindow("09/18/16 19:00:00", "09/18/16 20:00:00"));
+
+        HttpEvent e = (HttpEvent)parser.parseLine(
+                1L, "127.0.0.1 - - [18/Sep/2016:19:18:28 -0400] \"GET /a HTTP/1.1\" 200 10");
+        assertNotNull(e);
+        assertEquals("/a", e.getRequestUri());
+
+        assertNull(parser.parseLine(2L, "127.0.0.1 - - [18/Sep/2016:18:59:59 -0400] \"GET /b HTTP/1.1\" 200 10"));
+        assertNull(parser.parseLine(3L, "127.0.0.1 - - [18/Sep/2016:20:00:01 -0400] \"GET /c HTTP/1.1\" 200 10"));
+
+        assertEquals(2L, parser.getOutsideTimeWindowLineCount());
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    @Override
+    protected RegexHttpdLineParser getLineParserToTest(String format) throws Exception {
+
+        return new RegexHttpdLineParser(new HttpdLogFormat(format));
+    }
+
+    @Override
+    protected String getValidFormatForLineParserToTest() throws Exception {
+
+        return HttpdFormatStrings.REMOTE_HOST.getLiteral();
+    }
+
+    @Override
+    protected String getValidLineForLineParserToTest() throws Exception {
+        return "127.0.0.1";
+    }
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    private static TimeWindow timeWindow(String from, String to) {
+
+        MockConfiguration mc = new MockConfiguration();
+        mc.addGlobalOption(new TimestampOption(null, "from", from));
+        mc.addGlobalOption(new TimestampOption(null, "to", to));
+        return TimeWindow.buildInstance(mc);
+    }
+
+    private static Map<String, String> toMap(Event e) {
+
+        Map<String, String> m = new TreeMap<>();
+
+        for(Property p: e.getProperties()) {
+            m.put(p.getName(), String.valueOf(p.getValue()));
+        }
+
+        return m;
+    }
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
@@ -261,6 +261,49 @@ public class UrlParserTest {
         assertTrue(UrlParser.isUrl(fs));
     }
 
+    @Test
+    public void identifyEnd_QueryWithSpaces_MultipleSeparators() throws Exception {
+
+        String line = "http://h/p?a=b c&d=e f&g=h i http://other/x?y=z&w=v";
+
+        assertEquals(26, UrlParser.identifyEnd(line, 0, null, null));
+    }
+
+    @Test
+    public void identifyEnd_LongQueryWithManySpaces() throws Exception {
+
+        //
+        // each space used to trigger three scans of the rest of the line
+        //
+        StringBuilder sb = new StringBuilder("http://example.com/path?");
+
+        for(int i = 0; i < 200000; i ++) {
+            sb.append("k").append(i).append("=v v&");
+        }
+
+        sb.append("last=value; something");
+
+        String line = sb.toString();
+
+        assertEquals(line.indexOf("; something") + 1, UrlParser.identifyEnd(line, 0, null, null));
+    }
+
+    @Test
+    public void identifyEnd_Url() throws Exception {
+
+        String line = "blah https://example.com:8443/a/b?c=d e";
+
+        Url url = new Url();
+
+        assertEquals(37, UrlParser.identifyEnd(line, 5, null, null, url));
+
+        assertEquals("https", url.getProtocol());
+        assertEquals("example.com", url.getHost());
+        assertEquals(8443, url.getPort());
+        assertEquals("/a/b", url.getPath());
+        assertEquals("c=d", url.getQuery());
+    }
+
     // Package protected -----------------------------------------------------------------------------------------------
 
     // Protected -------------------------------------------------------------------------------------------------------
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016 Nova Ordis LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.novaordis.events.httpd.microparsers;
+
+import io.novaordis.utilities.parsing.ParsingException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ovidiu Feodorov <ovidiu@novaordis.com>
+ * @since 10/19/26
+ */
+public class UrlTest {
+
+    // Constants -------------------------------------------------------------------------------------------------------
+
+    // Static ----------------------------------------------------------------------------------------------------------
+
+    // Attributes ------------------------------------------------------------------------------------------------------
+
+    // Constructors ----------------------------------------------------------------------------------------------------
+
+    // Public ----------------------------------------------------------------------------------------------------------
+
+    @Test
+    public void parse() throws Exception {
+
+        Url url = Url.parse("http://example.com/a/b?c=d&e=f");
+
+        assertEquals("http", url.getProtocol());
+        assertEquals("example.com", url.getHost());
+        assertTrue(url.isHost("example.com"));
+        assertFalse(url.isHost("example.co"));
+        assertEquals(-1, url.getPort());
+        assertEquals("/a/b", url.getPath());
+        assertEquals("c=d&e=f", url.getQuery());
+        assertEquals("http://example.com/a/b?c=d&e=f", url.toString());
+    }
+
+    @Test
+    public void parse_HostOnly() throws Exception {
+
+        Url url = Url.parse("http://example.com");
+
+        assertEquals("example.com", url.getHost());
+        assertNull(url.getPath());
+        assertNull(url.getQuery());
+    }
+
+    @Test
+    public void parse_HostFollowedBySpace() throws Exception {
+
+        Url url = Url.parse("http://example.com something");
+
+        assertEquals("example.com", url.getHost());
+        assertNull(url.getPath());
+        assertEquals("http://example.com", url.toString());
+    }
+
+    @Test
+    public void parse_NoValue() throws Exception {
+
+        assertNull(Url.parse("-"));
+    }
+
+    @Test
+    public void parse_NotAUrl() throws Exception {
+
+        try {
+            Url.parse("something");
+            fail("should have thrown exception");
+        }
+        catch(ParsingException e) {
+            // ok
+        }
+    }
+
+    // Package protected -----------------------------------------------------------------------------------------------
+
+    // Protected -------------------------------------------------------------------------------------------------------
+
+    // Private ---------------------------------------------------------------------------------------------------------
+
+    // Inner classes ---------------------------------------------------------------------------------------------------
+
+}
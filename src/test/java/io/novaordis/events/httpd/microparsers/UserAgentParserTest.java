@@ -22,7 +22,12 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -279,6 +284,144 @@ public class UserAgentParserTest {
         assertEquals(41, result);
     }
 
+    // combined pattern and cache -------------------------------------------------------------------------------------
+
+    @Test
+    public void patternLiterals_OnePairPerPattern() throws Exception {
+
+        assertEquals(UserAgentParser.USER_AGENT_PATTERNS.length, UserAgentParser.PATTERN_LITERALS.length);
+
+        for(int i = 0; i < UserAgentParser.PATTERN_LITERALS.length; i ++) {
+
+            String[] literals = UserAgentParser.PATTERN_LITERALS[i];
+            assertEquals(2, literals.length);
+            assertNotNull(literals[1]);
+
+            if (literals[0] != null) {
+                assertTrue(UserAgentParser.USER_AGENT_PATTERNS[i].pattern().startsWith("^" + literals[0]));
+            }
+        }
+    }
+
+    @Test
+    public void identifyEnd_EquivalentWithSequentialPatternEvaluation() throws Exception {
+
+        String[] userAgents = {
+                "Google Bot",
+                "SearchmetricsBot",
+                "WordPress/4.0.11; http://kollelbudget.com",
+                "Mozilla/5.0 (iPhone; CPU iPhone OS 9_3_2 like Mac OS X) AppleWebKit/601.1.46 (KHTML, like Gecko) Mobile/13F69 [FBAN/FBIOS;FBAV/61.0.0.53.158;]",
+                "Mozilla/5.0 (Windows NT 6.3; Trident/7.0; rv:11.0) like Gecko",
+                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_7_3) AppleWebKit/534.55.3 (KHTML, like Gecko) Version/5.1.5 Safari/534.55.3",
+                "Mozilla/5.0 (Windows NT 6.1; rv:12.0) Gecko/20120403211507         Firefox/12.0",
+                "Mozilla_CA/4.79 [en] (X11; U; Linux 2.4.6 i686)",
+                "check_http/v2.0.3 (nagios-plugins 2.0.3)",
+                "Java/1.7.0_51",
+                "Xenu Link Sleuth/1.3.8",
+                "Typhoeus - https://github.com/typhoeus/typhoeus",
+                "HubSpot Links Crawler 2.0 http://www.hubspot.com/",
+        };
+
+        String[] suffixes = { "", " ", " 200 17", " - 0.001" };
+
+        for(String ua: userAgents) {
+
+            for(String suffix: suffixes) {
+
+                String line = "127.0.0.1 " + ua + suffix;
+
+                //
+                // twice, the second call is served from the cache
+                //
+                assertEquals(line, sequentialIdentifyEnd(line, 10), UserAgentParser.identifyEnd(line, 10, null));
+                assertEquals(line, sequentialIdentifyEnd(line, 10), UserAgentParser.identifyEnd(line, 10, null));
+            }
+        }
+    }
+
+    @Test
+    public void identifyEnd_Cached_SameUserAgentDifferentRemainder() throws Exception {
+
+        String line = "Java/1.7.0_51 something";
+        String line2 = "Java/1.7.0_51";
+        String line3 = "10.0.0.1 Java/1.7.0_51 something";
+
+        assertEquals(13, UserAgentParser.identifyEnd(line, 0, null));
+        assertEquals(-1, UserAgentParser.identifyEnd(line2, 0, null));
+        assertEquals(13, UserAgentParser.identifyEnd(line, 0, null));
+        assertEquals(22, UserAgentParser.identifyEnd(line3, 9, null));
+    }
+
+    @Test
+    public void identifyEnd_Cached_SameUserAgentDifferentTrailingFields_BothOrders() throws Exception {
+
+        //
+        // the greedy patterns reach past the user agent, so the trailing fields may change the outcome
+        //
+        String[] uas = {
+                "Mozilla/5.0 (Windows NT 6.3; Trident/7.0; rv:11.0) like Gecko",
+                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_7_3) AppleWebKit/534.55.3 (KHTML, like Gecko) Version/5.1.5 Safari/534.55.3",
+                "Java/1.7.0_51",
+        };
+
+        String[] trailers = {
+                " 200 17 \"GET /a HTTP/1.1\"",
+                " 200 5 Mobile/13F69",
+                " 200 5 (x) like Gecko",
+                " 200 5 Safari/537.36",
+                " 200",
+                "",
+        };
+
+        for(String ua: uas) {
+
+            for(String t: trailers) {
+
+                for(String t2: trailers) {
+
+                    String line = "10.0.0.1 " + ua + t;
+                    String line2 = "10.0.0.1 " + ua + t2;
+
+                    assertEquals(line, sequentialIdentifyEnd(line, 9), UserAgentParser.identifyEnd(line, 9, null));
+                    assertEquals(line2, sequentialIdentifyEnd(line2, 9), UserAgentParser.identifyEnd(line2, 9, null));
+                    assertEquals(line, sequentialIdentifyEnd(line, 9), UserAgentParser.identifyEnd(line, 9, null));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void identifyEnd_Cached_OnlyForTheSameRemainder() throws Exception {
+
+        String ua = "Mozilla/5.0 (Windows NT 10.0; WOW64; Trident/7.0; rv:11.0) like Gecko";
+
+        assertEquals(-1, UserAgentParser.identifyEnd(ua, 0, null));
+        assertTrue(UserAgentParser.isCached(ua, 0));
+        assertTrue(UserAgentParser.isCached("10.0.0.1 " + ua, 9));
+        assertFalse(UserAgentParser.isCached(ua + " 200", 0));
+
+        assertEquals(ua.length(), UserAgentParser.identifyEnd(ua + " 200 17", 0, null));
+        assertTrue(UserAgentParser.isCached(ua + " 200 17", 0));
+        assertFalse(UserAgentParser.isCached(ua + " 200 5", 0));
+        assertFalse(UserAgentParser.isCached(ua + " 200 1", 0));
+    }
+
+    @Test
+    public void identifyEnd_parsingFailure_NotCached() throws Exception {
+
+        for(int i = 0; i < 2; i ++) {
+
+            try {
+
+                UserAgentParser.identifyEnd("blah blah", 0, null);
+                fail("should have thrown exception");
+            }
+            catch(ParsingException e) {
+                // ok
+            }
+        }
+    }
+
     // isUserAgentRequestHeader() --------------------------------------------------------------------------------------
 
     @Test
@@ -294,6 +437,41 @@ public class UserAgentParserTest {
 
     // Private ---------------------------------------------------------------------------------------------------------
 
+    /**
+     * The names and then the patterns, one by one, on a copy of the rest of the line.
+     */
+    private static int sequentialIdentifyEnd(String line, int startFrom) {
+
+        String interestingSection = line.substring(startFrom);
+
+        for (String s: UserAgentParser.USER_AGENT_NAMES) {
+
+            if (interestingSection.startsWith(s)) {
+
+                int end = startFrom + s.length();
+                return end < line.length() ? end : -1;
+            }
+        }
+
+        for(Pattern p: UserAgentParser.USER_AGENT_PATTERNS) {
+
+            Matcher m = p.matcher(interestingSection);
+
+            if (m.find()) {
+
+                int end = startFrom + m.end();
+
+                if (end >= line.length()) {
+                    return -1;
+                }
+
+                return line.charAt(end - 1) == ' ' ? end - 1 : end;
+            }
+        }
+
+        throw new IllegalStateException("no pattern matches " + interestingSection);
+    }
+
     // Inner classes ---------------------------------------------------------------------------------------------------
 
 }
@@ -449,6 +449,42 @@ public class CookieParserTest {
         assertFalse(CookieParser.isCookieResponseHeader(fs));
     }
 
+    @Test
+    public void identifyBoundaryBetweenSeries_Range() throws Exception {
+
+        String line = "A=B; C=D NewField=Value; x";
+
+        assertEquals(4, CookieParser.identifyBoundaryBetweenSeries(line, 4, 23));
+        assertEquals(-1, CookieParser.identifyBoundaryBetweenSeries(line, 0, 3));
+    }
+
+    // getCookieValue() ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void getCookieValue() throws Exception {
+
+        String header = "JSESSIONID=abc; JSESSIONID2=def;other = x y ,last=z";
+
+        assertEquals("abc", CookieParser.getCookieValue(header, "JSESSIONID"));
+        assertEquals("def", CookieParser.getCookieValue(header, "JSESSIONID2"));
+        assertEquals("x y", CookieParser.getCookieValue(header, "other"));
+        assertEquals("z", CookieParser.getCookieValue(header, "last"));
+        assertEquals(null, CookieParser.getCookieValue(header, "JSESSION"));
+        assertEquals(null, CookieParser.getCookieValue(header, "abc"));
+    }
+
+    @Test
+    public void getCookieValue_NullHeader() throws Exception {
+
+        assertEquals(null, CookieParser.getCookieValue(null, "JSESSIONID"));
+    }
+
+    @Test
+    public void getCookieValue_EmptyValue() throws Exception {
+
+        assertEquals("", CookieParser.getCookieValue("a=; b=c", "a"));
+    }
+
     // Package protected -----------------------------------------------------------------------------------------------
 
     // Protected -------------------------------------------------------------------------------------------------------
@@ -77,6 +77,41 @@ public class CookieTest {
     }
 
 
+    @Test
+    public void nameAndValue() throws Exception {
+
+        Cookie c = new Cookie(" JSESSIONID = abc=def ", null);
+
+        assertEquals("JSESSIONID", c.getName());
+        assertEquals("abc=def", c.getValue());
+    }
+
+    @Test
+    public void validate() throws Exception {
+
+        Cookie.validate("x a=b y", 2, 5, null);
+
+        try {
+
+            Cookie.validate("x blah y", 2, 6, 7L);
+            fail("should have thrown exception");
+        }
+        catch (ParsingException e) {
+
+            assertEquals(7L, e.getLineNumber().longValue());
+            assertTrue(e.getMessage().startsWith("blah missing from \""));
+        }
+
+        try {
+
+            Cookie.validate("a=b;c=d", 0, 7, null);
+            fail("should have thrown exception");
+        }
+        catch (IllegalArgumentException e) {
+            // ok
+        }
+    }
+
     // getLiteral() ----------------------------------------------------------------------------------------------------
 
     @Test